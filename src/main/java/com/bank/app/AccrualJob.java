@@ -0,0 +1,29 @@
+package com.bank.app;
+
+import com.bank.dao.Database;
+import com.bank.service.InterestService;
+import com.bank.util.Money;
+
+import java.time.LocalDate;
+
+public class AccrualJob {
+    public static void main(String[] args) {
+        LocalDate day = args.length > 0 ? LocalDate.parse(args[0]) : LocalDate.now().minusDays(1);
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+
+        Database.createTableIfNotExists();
+        try {
+            InterestService.Summary summary = InterestService.accrueAllShards(day, threads);
+            if (summary.accounts() == 0) {
+                System.out.println("✅ " + day + " is already accrued.");
+            } else {
+                System.out.println("💸 Accrued " + day + " for " + summary.accounts() + " accounts: ₹"
+                        + Money.toRupees(summary.interestPaise()) + " interest, ₹" + Money.toRupees(summary.feePaise())
+                        + " fees in " + summary.elapsedNanos() / 1_000_000 + " ms.");
+            }
+        } catch (Exception e) {
+            System.err.println("❌ Accrual failed (run again to resume): " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.bank.app;
+
+import com.bank.dao.Database;
+import com.bank.service.ArchiveService;
+
+public class ArchiveJob {
+    public static void main(String[] args) {
+        Database.createTableIfNotExists();
+
+        long start = System.nanoTime();
+        long moved = ArchiveService.archiveAllShards();
+        System.out.println("🗄️ Archived " + moved + " transactions older than " + ArchiveService.ARCHIVE_AFTER_DAYS
+                + " days in " + (System.nanoTime() - start) / 1_000_000 + " ms.");
+    }
+}
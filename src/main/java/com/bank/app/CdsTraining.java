@@ -0,0 +1,17 @@
+package com.bank.app;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Training run for the AppCDS archive built by {@code mvn -Pappcds package}: boots {@link Main} as a user
+ * would, up to the first prompt, and answers "Exit". Every class loaded on the way (logback, the JDBC driver,
+ * JFR events, the DAOs and services) ends up in the archive, which later runs map instead of loading and
+ * verifying them again.
+ */
+public class CdsTraining {
+    public static void main(String[] args) {
+        System.setIn(new ByteArrayInputStream("4\n".getBytes(StandardCharsets.UTF_8)));
+        Main.main(args);
+    }
+}
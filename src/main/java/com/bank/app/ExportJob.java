@@ -0,0 +1,48 @@
+package com.bank.app;
+
+import com.bank.dao.Database;
+import com.bank.dao.TransactionDAO;
+import com.bank.export.ColumnarDataset;
+import com.bank.export.ColumnarExporter;
+import com.bank.export.TransactionSegment;
+import com.bank.util.Money;
+
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.TreeMap;
+
+public class ExportJob {
+    public static void main(String[] args) {
+        Path dir = Path.of(args.length > 0 ? args[0] : "exports/columnar");
+        int rowsPerSegment = args.length > 1 ? Integer.parseInt(args[1]) : 100_000;
+
+        Database.createTableIfNotExists();
+        if (!TransactionDAO.requireTable("Columnar export")) return;
+
+        try {
+            long start = System.nanoTime();
+            long appended = ColumnarExporter.exportAll(dir, rowsPerSegment);
+            System.out.println("📦 Appended " + appended + " transactions to " + dir + " in "
+                    + (System.nanoTime() - start) / 1_000_000 + " ms.");
+
+            // sample scan straight off the files: totals per type
+            start = System.nanoTime();
+            ColumnarDataset dataset = ColumnarDataset.open(dir);
+            Map<String, long[]> totals = new TreeMap<>();
+            dataset.forEachSegment((TransactionSegment segment) -> {
+                for (int i = 0; i < segment.rowCount(); i++) {
+                    long[] t = totals.computeIfAbsent(segment.type(i), k -> new long[2]);
+                    t[0]++;
+                    t[1] += segment.amounts()[i];
+                }
+            });
+            long rows = totals.values().stream().mapToLong(t -> t[0]).sum();
+            System.out.println("🔎 Scanned " + rows + " rows in " + dataset.segments().size() + " segments in "
+                    + (System.nanoTime() - start) / 1_000_000 + " ms:");
+            totals.forEach((type, t) -> System.out.printf("   %-12s %10d  ₹%.2f%n", type, t[0], Money.toRupees(t[1])));
+        } catch (Exception e) {
+            System.err.println("❌ Export failed: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+}
@@ -1,15 +1,32 @@
 package com.bank.app;
 
+import com.bank.dao.AccountDAO;
 import com.bank.dao.Database;
+import com.bank.metrics.Metrics;
+import com.bank.metrics.MetricsExporter;
+import com.bank.service.AlertService;
+import com.bank.service.ArchiveService;
 import com.bank.service.AuthService;
 import com.bank.service.Bank;
+import com.bank.service.InterestService;
+import com.bank.service.ScheduleService;
 import com.bank.service.TransactionService;
 
 import java.io.Console;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 import java.util.InputMismatchException;
 import java.util.Scanner;
 
 public class Main {
+    private static final DateTimeFormatter SCHEDULE_TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+
     public static void main(String[] args) {
         Scanner sc = new Scanner(System.in);
         Bank bank = new Bank();
@@ -18,6 +35,40 @@ public class Main {
         // ✅ Ensure tables exist
         Database.createTableIfNotExists();
 
+        // 💾 Keep every balance in memory for the read paths (-Dbank.balances.inMemory=false to read SQLite only)
+        if (AccountDAO.BALANCE_TABLE_ENABLED) {
+            try {
+                AccountDAO.loadBalanceTable();
+                // 📧 Low-balance alerts on threshold crossings, sent as digests
+                AlertService.startBackground(AccountDAO.balanceTable());
+            } catch (SQLException e) {
+                System.out.println("❌ Failed to load balances into memory: " + e.getMessage());
+            }
+        }
+
+        // 🗄️ Move old transactions to the archive tier in the background (-Dbank.archive.afterDays=0 to disable)
+        ArchiveService.startBackground();
+
+        // 💸 Daily interest and fees for each closed day (enable with -Dbank.accrual.enabled=true)
+        InterestService.startBackground();
+
+        // ⏰ Standing orders and future-dated transfers
+        ScheduleService.startBackground();
+
+        // 📡 Live transaction streams over Server-Sent Events (enable with -Dbank.stream.port=8080)
+        StreamServer.startBackground();
+
+        // 📈 Dump latency/throughput metrics on exit (enable with -Dbank.metrics=true)
+        if (Metrics.ENABLED) {
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    MetricsExporter.writeFiles(Path.of("logs"));
+                } catch (IOException e) {
+                    System.err.println("❌ Failed to write metrics: " + e.getMessage());
+                }
+            }));
+        }
+
         System.out.println("🏦 Welcome to Banking Simulator 🏦");
 
         String username = "";
@@ -158,6 +209,7 @@ public class Main {
                 System.out.println("🔟 Update Account Details");
                 System.out.println("1️⃣1️⃣ Delete User Account");
                 System.out.println("1️⃣2️⃣ Update User Details");
+                System.out.println("1️⃣3️⃣ Scheduled Transfers");
                 System.out.print("Enter your choice: ");
 
                 int choice = sc.nextInt();
@@ -269,6 +321,10 @@ public class Main {
                             return; // logout if username changed
                         }
                     }
+                    case 13 -> {
+                        String accNo = auth.getLinkedAccount(username);
+                        scheduledTransfersMenu(sc, bank, accNo);
+                    }
                     default -> System.out.println("❌ Invalid choice. Try again.");
                 }
 
@@ -281,6 +337,79 @@ public class Main {
         }
     }
 
+    // ------------------------
+    // ⏰ Scheduled Transfers Menu
+    // ------------------------
+    private static void scheduledTransfersMenu(Scanner sc, Bank bank, String fromAcc) {
+        ScheduleService schedules = ScheduleService.getDefault();
+        System.out.println("💳 Your Account Number: " + fromAcc);
+        System.out.println("1️⃣ New Scheduled Transfer");
+        System.out.println("2️⃣ List Scheduled Transfers");
+        System.out.println("3️⃣ Cancel Scheduled Transfer");
+        System.out.print("Enter your choice: ");
+        int choice = sc.nextInt();
+        sc.nextLine();
+
+        switch (choice) {
+            case 1 -> {
+                System.out.print("Enter Target Account Number: ");
+                String toAcc = sc.nextLine();
+                if (fromAcc.equals(toAcc) || !bank.accountExists(toAcc)) {
+                    System.out.println("❌ Target account not found or same as yours.");
+                    return;
+                }
+                System.out.print("Enter Amount: ");
+                double amt = sc.nextDouble();
+                sc.nextLine();
+                System.out.print("First run (yyyy-MM-dd HH:mm, blank for now): ");
+                String when = sc.nextLine().trim();
+                LocalDateTime firstRun;
+                try {
+                    firstRun = when.isEmpty() ? LocalDateTime.now() : LocalDateTime.parse(when, SCHEDULE_TIME);
+                } catch (DateTimeParseException e) {
+                    System.out.println("❌ Invalid date/time.");
+                    return;
+                }
+                System.out.print("Repeat every how many days (0 = once): ");
+                int interval = sc.nextInt();
+                sc.nextLine();
+                int runs = 0;
+                if (interval > 0) {
+                    System.out.print("Number of runs (0 = until cancelled): ");
+                    runs = sc.nextInt();
+                    sc.nextLine();
+                }
+                schedules.schedule(fromAcc, toAcc, amt, firstRun, interval, runs);
+            }
+            case 2 -> {
+                var list = schedules.list(fromAcc);
+                if (list.isEmpty()) {
+                    System.out.println("⚠️ No scheduled transfers.");
+                    return;
+                }
+                System.out.println("--- Scheduled Transfers ---");
+                for (var s : list) {
+                    String next = LocalDateTime.ofInstant(Instant.ofEpochMilli(s.nextRun()), ZoneId.systemDefault()).format(SCHEDULE_TIME);
+                    System.out.println("#" + s.id() + " ₹" + s.amount() + " → " + s.toAccount() + " | " + s.status()
+                            + " | next " + next + (s.recurring() ? " | every " + s.intervalDays() + " day(s)" : "")
+                            + (s.remaining() > 0 && s.recurring() ? " | " + s.remaining() + " run(s) left" : "")
+                            + (s.failures() > 0 ? " | " + s.failures() + " failed" : ""));
+                }
+            }
+            case 3 -> {
+                System.out.print("Enter Schedule ID to cancel: ");
+                long id = sc.nextLong();
+                sc.nextLine();
+                if (schedules.cancel(id, fromAcc)) {
+                    System.out.println("✅ Scheduled transfer #" + id + " cancelled.");
+                } else {
+                    System.out.println("❌ No active scheduled transfer #" + id + " on your account.");
+                }
+            }
+            default -> System.out.println("❌ Invalid choice.");
+        }
+    }
+
     // ------------------------
     // 🏦 Bank Account Creation
     // ------------------------
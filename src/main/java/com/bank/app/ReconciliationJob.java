@@ -0,0 +1,29 @@
+package com.bank.app;
+
+import com.bank.dao.TransactionDAO;
+import com.bank.report.ReconciliationReport;
+import com.bank.service.ReconciliationService;
+
+public class ReconciliationJob {
+    public static void main(String[] args) {
+        int parallelism = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+        int partitionSize = args.length > 1 ? Integer.parseInt(args[1]) : 50_000;
+        if (!TransactionDAO.requireTable("Reconciliation")) return;
+
+        try {
+            ReconciliationService.Result result = ReconciliationService.reconcileAllShards(parallelism, partitionSize);
+            String file = ReconciliationReport.generateCSVReport(result);
+
+            System.out.println("🧮 Reconciled " + result.accounts() + " accounts / " + result.rows()
+                    + " transactions in " + result.elapsedNanos() / 1_000_000 + " ms.");
+            if (result.discrepancies().isEmpty()) {
+                System.out.println("✅ All balances match their transactions.");
+            } else {
+                System.out.println("⚠️ " + result.discrepancies().size() + " discrepancies found. See " + file);
+            }
+        } catch (Exception e) {
+            System.err.println("❌ Reconciliation failed: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+}
@@ -0,0 +1,221 @@
+package com.bank.app;
+
+import com.bank.dao.ChangeFeedDAO;
+import com.bank.service.TransactionStreamService;
+import com.bank.util.Threads;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Pushes an account's new transactions to clients as Server-Sent Events, so they no longer re-query the
+ * history to notice changes:
+ *
+ * <pre>
+ *   GET /accounts/{accountNumber}/transactions/stream
+ *
+ *   id: 0-1042
+ *   event: transaction
+ *   data: {"id":311,"accountNumber":"ACC1","type":"deposit","amount":50.0,"targetAccount":null,"timestamp":"..."}
+ * </pre>
+ *
+ * Enabled with {@code -Dbank.stream.port=8080} (and change capture, {@code -Dbank.cdc.enabled=true}); it
+ * listens on {@code bank.stream.host}, loopback by default, since the endpoint does no authentication.
+ * Each open stream holds one thread: a virtual thread on Java 21+, otherwise one of a pool sized for
+ * {@code bank.stream.maxClients} (default 256); clients beyond that get 503. An idle stream gets a comment
+ * line every 15 s so proxies keep it open. A client evicted for falling behind gets an {@code evicted} event
+ * and the stream ends; it should reload the history and reconnect.
+ */
+public class StreamServer {
+    private static final Logger logger = LoggerFactory.getLogger(StreamServer.class);
+
+    private static final Pattern PATH = Pattern.compile("^/accounts/([^/]+)/transactions/stream$");
+    private static final long KEEP_ALIVE_MILLIS = 15_000;
+
+    private static StreamServer running;
+
+    private final TransactionStreamService streams;
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final int maxClients;
+    private final long keepAliveMillis;
+    private final AtomicInteger open = new AtomicInteger();
+
+    public StreamServer(TransactionStreamService streams, InetSocketAddress address, int maxClients, long keepAliveMillis)
+            throws IOException {
+        this.streams = streams;
+        this.maxClients = Math.max(1, maxClients);
+        this.keepAliveMillis = keepAliveMillis;
+        // two spare platform threads answer 503 while every stream thread is busy
+        this.executor = Threads.newDaemonExecutor(this.maxClients + 2, true, "stream");
+        this.server = HttpServer.create(address, 0);
+        server.setExecutor(executor);
+        server.createContext("/accounts/", this::handle);
+    }
+
+    /**
+     * Start serving. The server's dispatcher thread takes its daemon status from the caller; the CLI starts
+     * it from a daemon thread so an open stream never keeps the process alive after Exit.
+     */
+    public void start() {
+        server.start();
+        logger.info("Live transaction streams on http://{}:{}/accounts/{account}/transactions/stream ({})",
+                server.getAddress().getHostString(), port(), Threads.virtualThreadsAvailable() ? "virtual threads"
+                        : maxClients + " threads");
+    }
+
+    public void stop() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    public int port() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Open streams.
+     */
+    public int openStreams() {
+        return open.get();
+    }
+
+    // -----------------------------
+    // Requests
+    // -----------------------------
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            Matcher m = PATH.matcher(exchange.getRequestURI().getPath());
+            if (!m.matches()) {
+                reply(exchange, 404, "Not found");
+                return;
+            }
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                exchange.getResponseHeaders().set("Allow", "GET");
+                reply(exchange, 405, "Method not allowed");
+                return;
+            }
+            if (open.incrementAndGet() > maxClients) {
+                open.decrementAndGet();
+                exchange.getResponseHeaders().set("Retry-After", "5");
+                reply(exchange, 503, "Too many streams");
+                return;
+            }
+            try {
+                stream(exchange, URLDecoder.decode(m.group(1), StandardCharsets.UTF_8));
+            } finally {
+                open.decrementAndGet();
+            }
+        }
+    }
+
+    private void stream(HttpExchange exchange, String accountNumber) throws IOException {
+        TransactionStreamService.Listener listener = streams.subscribe(accountNumber);
+        try {
+            exchange.getResponseHeaders().set("Content-Type", "text/event-stream; charset=utf-8");
+            exchange.getResponseHeaders().set("Cache-Control", "no-cache");
+            exchange.sendResponseHeaders(200, 0);
+            OutputStream out = exchange.getResponseBody();
+            write(out, ": streaming " + accountNumber + "\n\n");
+
+            while (true) {
+                ChangeFeedDAO.Event event = listener.poll(keepAliveMillis, TimeUnit.MILLISECONDS);
+                if (listener.isEvicted()) {
+                    write(out, "event: evicted\ndata: too far behind, reload the history and reconnect\n\n");
+                    return;
+                }
+                // a failed write means the client went away
+                write(out, event == null ? ": keep-alive\n\n" : format(event));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            logger.debug("Stream for {} closed: {}", accountNumber, e.getMessage());
+        } finally {
+            streams.unsubscribe(listener);
+        }
+    }
+
+    private static String format(ChangeFeedDAO.Event event) {
+        return "id: " + event.shard() + "-" + event.seq() + "\n"
+                + "event: transaction\n"
+                + "data: {\"id\":" + event.rowId()
+                + ",\"accountNumber\":" + json(event.accountNumber())
+                + ",\"type\":" + json(event.type())
+                + ",\"amount\":" + event.amount()
+                + ",\"targetAccount\":" + json(event.targetAccount())
+                + ",\"timestamp\":" + json(event.timestamp()) + "}\n\n";
+    }
+
+    private static String json(String s) {
+        if (s == null) return "null";
+        StringBuilder sb = new StringBuilder("\"");
+        for (char c : s.toCharArray()) {
+            if (c == '"' || c == '\\') sb.append('\\').append(c);
+            else if (c < 0x20) sb.append(String.format("\\u%04x", (int) c));
+            else sb.append(c);
+        }
+        return sb.append('"').toString();
+    }
+
+    private static void write(OutputStream out, String text) throws IOException {
+        out.write(text.getBytes(StandardCharsets.UTF_8));
+        out.flush();
+    }
+
+    private static void reply(HttpExchange exchange, int status, String message) throws IOException {
+        byte[] body = (message + "\n").getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(status, body.length);
+        exchange.getResponseBody().write(body);
+    }
+
+    // -----------------------------
+    // Background server
+    // -----------------------------
+
+    /**
+     * Start the server if {@code bank.stream.port} is set. Does nothing if already running.
+     */
+    public static synchronized void startBackground() {
+        Integer port = Integer.getInteger("bank.stream.port");
+        if (port == null || running != null) return;
+        TransactionStreamService streams = TransactionStreamService.startBackground();
+        if (streams == null) return;
+        try {
+            StreamServer server = new StreamServer(streams, new InetSocketAddress(System.getProperty("bank.stream.host", "127.0.0.1"), port),
+                    Integer.getInteger("bank.stream.maxClients", 256), KEEP_ALIVE_MILLIS);
+            Thread starter = new Thread(server::start, "stream-server-start");
+            starter.setDaemon(true);
+            starter.start();
+            starter.join();
+            running = server;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            System.out.println("❌ Failed to start the live transaction stream: " + e.getMessage());
+            logger.error("Failed to start the stream server on port {}", port, e);
+        }
+    }
+
+    public static synchronized void stopBackground() {
+        if (running != null) {
+            running.stop();
+            running = null;
+        }
+        TransactionStreamService.stopBackground();
+    }
+}
@@ -0,0 +1,347 @@
+package com.bank.cache;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Balances and alert thresholds of every account, in paise, held off-heap instead of as {@code Account}
+ * objects. An account number {@code ACC<digits>} is encoded as the {@code long} value of its digits, and
+ * each account takes three slots of an open-addressing (linear probing) table of longs in a direct
+ * buffer: key, balance, threshold. There are no per-account objects, so the heap only holds the segment
+ * headers, the garbage collector has nothing to trace, and an account costs 24 bytes of native memory
+ * plus the free slots.
+ *
+ * <p>The table is split into {@value #SEGMENTS} segments by key hash, each with its own {@link StampedLock}:
+ * writers lock one segment, readers take an optimistic stamp and only fall back to the read lock when a
+ * writer got in between. Account numbers that do not encode (another prefix, leading zeros, more than
+ * 18 digits) are simply not held: lookups report {@link #ABSENT} and callers go to SQLite.
+ */
+public final class BalanceTable {
+
+    /** Returned by lookups for an account the table does not hold. */
+    public static final long ABSENT = Long.MIN_VALUE;
+
+    /** Returned by {@link #key} for an account number that cannot be encoded. */
+    public static final long NO_KEY = -1;
+
+    private static final int SEGMENTS = 64;
+    private static final int SEGMENT_SHIFT = Long.SIZE - Integer.numberOfTrailingZeros(SEGMENTS);
+    private static final int STRIDE = 3;           // key, balance, threshold
+    private static final int BALANCE = 1;
+    private static final int THRESHOLD = 2;
+    private static final long EMPTY = 0;           // stored keys are key + 1, so a zeroed slot is free
+    private static final int MIN_CAPACITY = 16;
+
+    private final Segment[] segments = new Segment[SEGMENTS];
+    private volatile BalanceListener listener;
+
+    /**
+     * Told about every change to a held balance, after the segment lock is released. Changes to the same
+     * account from different threads may be reported out of order.
+     */
+    @FunctionalInterface
+    public interface BalanceListener {
+        void balanceChanged(String accountNumber, long before, long after, long threshold);
+    }
+
+    public BalanceTable() {
+        this(1024);
+    }
+
+    public BalanceTable(int expectedAccounts) {
+        int perSegment = Math.max(MIN_CAPACITY, Integer.highestOneBit(Math.max(1, expectedAccounts / SEGMENTS * 4 / 3)) << 1);
+        for (int i = 0; i < SEGMENTS; i++) segments[i] = new Segment(perSegment);
+    }
+
+    public void setListener(BalanceListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * The table key of {@code ACC<digits>}, or {@link #NO_KEY} if the account number does not encode.
+     */
+    public static long key(String accountNumber) {
+        int n = accountNumber == null ? 0 : accountNumber.length();
+        if (n < 4 || n > 21 || !accountNumber.startsWith("ACC") || (n > 4 && accountNumber.charAt(3) == '0')) return NO_KEY;
+        long key = 0;
+        for (int i = 3; i < n; i++) {
+            char c = accountNumber.charAt(i);
+            if (c < '0' || c > '9') return NO_KEY;
+            key = key * 10 + (c - '0');
+        }
+        return key;
+    }
+
+    // -----------------------------
+    // Lookups
+    // -----------------------------
+
+    /**
+     * Balance in paise, or {@link #ABSENT}.
+     */
+    public long balance(String accountNumber) {
+        return read(accountNumber, BALANCE);
+    }
+
+    /**
+     * Low-balance alert threshold in paise, or {@link #ABSENT}.
+     */
+    public long threshold(String accountNumber) {
+        return read(accountNumber, THRESHOLD);
+    }
+
+    public boolean contains(String accountNumber) {
+        return read(accountNumber, 0) != ABSENT;
+    }
+
+    public int size() {
+        int size = 0;
+        for (Segment seg : segments) {
+            long stamp = seg.lock.readLock();
+            try {
+                size += seg.size;
+            } finally {
+                seg.lock.unlockRead(stamp);
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Bytes of native memory held by the slot buffers.
+     */
+    public long offHeapBytes() {
+        long bytes = 0;
+        for (Segment seg : segments) {
+            long stamp = seg.lock.readLock();
+            try {
+                bytes += (long) seg.slots.capacity() * Long.BYTES;
+            } finally {
+                seg.lock.unlockRead(stamp);
+            }
+        }
+        return bytes;
+    }
+
+    private long read(String accountNumber, int field) {
+        long key = key(accountNumber);
+        if (key == NO_KEY) return ABSENT;
+        long stored = key + 1;
+        long hash = hash(stored);
+        Segment seg = segmentFor(hash);
+
+        long stamp = seg.lock.tryOptimisticRead();
+        long value = lookup(seg.slots, stored, hash, field);
+        if (!seg.lock.validate(stamp)) {
+            stamp = seg.lock.readLock();
+            try {
+                value = lookup(seg.slots, stored, hash, field);
+            } finally {
+                seg.lock.unlockRead(stamp);
+            }
+        }
+        return value;
+    }
+
+    // may run against a segment a writer is changing; the caller validates the stamp before trusting the result
+    private static long lookup(LongBuffer slots, long stored, long hash, int field) {
+        int at = find(slots, stored, hash);
+        return at < 0 ? ABSENT : slots.get(at + field);
+    }
+
+    // -----------------------------
+    // Updates
+    // -----------------------------
+
+    /**
+     * Insert or overwrite an account. Returns false if the account number does not encode.
+     */
+    public boolean put(String accountNumber, long balance, long threshold) {
+        long key = key(accountNumber);
+        if (key == NO_KEY) return false;
+        long stored = key + 1;
+        long hash = hash(stored);
+        Segment seg = segmentFor(hash);
+
+        long stamp = seg.lock.writeLock();
+        try {
+            int at = find(seg.slots, stored, hash);
+            if (at < 0) {
+                if ((seg.size + 1) * 4L > (long) seg.capacity() * 3) {
+                    seg.grow();
+                }
+                at = insertionPoint(seg.slots, hash);
+                seg.slots.put(at, stored);
+                seg.size++;
+            }
+            seg.slots.put(at + BALANCE, balance);
+            seg.slots.put(at + THRESHOLD, threshold);
+            return true;
+        } finally {
+            seg.lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Add {@code delta} paise to the balance. Returns false if the account is not held.
+     */
+    public boolean add(String accountNumber, long delta) {
+        return update(accountNumber, BALANCE, delta, true, Long.MIN_VALUE);
+    }
+
+    /**
+     * Subtract {@code amount} paise only if the balance covers it. Returns false if it does not, or if the
+     * account is not held; the check and the debit happen under the segment lock.
+     */
+    public boolean debit(String accountNumber, long amount) {
+        return update(accountNumber, BALANCE, -amount, true, amount);
+    }
+
+    public boolean setBalance(String accountNumber, long balance) {
+        return update(accountNumber, BALANCE, balance, false, Long.MIN_VALUE);
+    }
+
+    public boolean setThreshold(String accountNumber, long threshold) {
+        return update(accountNumber, THRESHOLD, threshold, false, Long.MIN_VALUE);
+    }
+
+    private boolean update(String accountNumber, int field, long value, boolean relative, long atLeast) {
+        long key = key(accountNumber);
+        if (key == NO_KEY) return false;
+        long stored = key + 1;
+        long hash = hash(stored);
+        Segment seg = segmentFor(hash);
+
+        long before, after, threshold;
+        long stamp = seg.lock.writeLock();
+        try {
+            int at = find(seg.slots, stored, hash);
+            if (at < 0) return false;
+            before = seg.slots.get(at + field);
+            if (before < atLeast) return false;
+            after = relative ? before + value : value;
+            seg.slots.put(at + field, after);
+            threshold = seg.slots.get(at + THRESHOLD);
+        } finally {
+            seg.lock.unlockWrite(stamp);
+        }
+
+        BalanceListener l = listener;
+        if (l != null && field == BALANCE && before != after) {
+            l.balanceChanged(accountNumber, before, after, threshold);
+        }
+        return true;
+    }
+
+    /**
+     * Drop an account. Returns false if it was not held.
+     */
+    public boolean remove(String accountNumber) {
+        long key = key(accountNumber);
+        if (key == NO_KEY) return false;
+        long stored = key + 1;
+        long hash = hash(stored);
+        Segment seg = segmentFor(hash);
+
+        long stamp = seg.lock.writeLock();
+        try {
+            int at = find(seg.slots, stored, hash);
+            if (at < 0) return false;
+            seg.removeAt(at / STRIDE);
+            return true;
+        } finally {
+            seg.lock.unlockWrite(stamp);
+        }
+    }
+
+    // -----------------------------
+    // Open addressing
+    // -----------------------------
+
+    // Offset of the key slot holding {@code stored}, or -1; bounded by the capacity so a torn optimistic read cannot spin
+    private static int find(LongBuffer slots, long stored, long hash) {
+        int mask = slots.capacity() / STRIDE - 1;
+        int i = (int) hash & mask;
+        for (int probes = 0; probes <= mask; probes++, i = (i + 1) & mask) {
+            long k = slots.get(i * STRIDE);
+            if (k == stored) return i * STRIDE;
+            if (k == EMPTY) return -1;
+        }
+        return -1;
+    }
+
+    private static int insertionPoint(LongBuffer slots, long hash) {
+        int mask = slots.capacity() / STRIDE - 1;
+        int i = (int) hash & mask;
+        while (slots.get(i * STRIDE) != EMPTY) i = (i + 1) & mask;
+        return i * STRIDE;
+    }
+
+    // murmur3 finaliser: sequential account numbers spread over segments and slots
+    private static long hash(long stored) {
+        long h = stored;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    private Segment segmentFor(long hash) {
+        return segments[(int) (hash >>> SEGMENT_SHIFT)];
+    }
+
+    private static final class Segment {
+        final StampedLock lock = new StampedLock();
+        LongBuffer slots;
+        int size;
+
+        Segment(int capacity) {
+            slots = allocate(capacity);
+        }
+
+        // direct memory comes zeroed, i.e. every slot free
+        static LongBuffer allocate(int capacity) {
+            return ByteBuffer.allocateDirect(capacity * STRIDE * Long.BYTES).order(ByteOrder.nativeOrder()).asLongBuffer();
+        }
+
+        int capacity() {
+            return slots.capacity() / STRIDE;
+        }
+
+        // called under the write lock; readers holding the old buffer fail validation and retry
+        void grow() {
+            LongBuffer old = slots;
+            LongBuffer grown = allocate(capacity() * 2);
+            for (int i = 0; i < old.capacity(); i += STRIDE) {
+                if (old.get(i) == EMPTY) continue;
+                int at = insertionPoint(grown, hash(old.get(i)));
+                copy(old, i, grown, at);
+            }
+            slots = grown;
+        }
+
+        static void copy(LongBuffer from, int fromAt, LongBuffer to, int toAt) {
+            for (int f = 0; f < STRIDE; f++) to.put(toAt + f, from.get(fromAt + f));
+        }
+
+        // backward-shift deletion: pull later entries of the probe run into the gap so lookups never stop early
+        void removeAt(int gap) {
+            int mask = capacity() - 1;
+            int i = (gap + 1) & mask;
+            while (slots.get(i * STRIDE) != EMPTY) {
+                int home = (int) hash(slots.get(i * STRIDE)) & mask;
+                if (((i - home) & mask) >= ((i - gap) & mask)) {
+                    copy(slots, i * STRIDE, slots, gap * STRIDE);
+                    gap = i;
+                }
+                i = (i + 1) & mask;
+            }
+            for (int f = 0; f < STRIDE; f++) slots.put(gap * STRIDE + f, 0);
+            size--;
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package com.bank.dao;
+
+import com.bank.cache.BalanceTable;
+import com.bank.util.Money;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.function.Consumer;
+
+/**
+ * Balance mutations as single guarded statements. Each call is one {@code UPDATE ... RETURNING balance}:
+ * the funds check happens inside SQLite under the write lock, so there is no SELECT-then-UPDATE race
+ * and the caller gets the new balance without a second query. Runs inside the caller's transaction.
+ *
+ * <p>When the in-memory {@link BalanceTable} is loaded, every applied mutation is also added to it once
+ * the caller's transaction commits (see {@link ConnectionPool#afterCommit}), so a rolled-back debit never
+ * shows up in memory, and {@link #getBalance} answers from it. SQLite stays the source of truth for money
+ * movement: the guarded updates never consult the table.
+ */
+public class AccountDAO {
+    private static final Logger logger = LoggerFactory.getLogger(AccountDAO.class);
+
+    public static final boolean BALANCE_TABLE_ENABLED =
+            Boolean.parseBoolean(System.getProperty("bank.balances.inMemory", "true"));
+
+    // null until loadBalanceTable(): balances are then read from SQLite only
+    private static volatile BalanceTable balanceTable;
+
+    public enum Status { APPLIED, INSUFFICIENT_FUNDS, NOT_FOUND }
+
+    /**
+     * Outcome of one mutation; {@code balance} is the new balance when applied, 0 otherwise.
+     */
+    public record Mutation(Status status, double balance) {
+        public boolean applied() {
+            return status == Status.APPLIED;
+        }
+    }
+
+    private static final String CREDIT_SQL = Database.dialect().updateReturning(
+            "UPDATE accounts SET balance = balance + ? WHERE accountNumber = ?", "balance");
+    private static final String DEBIT_SQL = Database.dialect().updateReturning(
+            "UPDATE accounts SET balance = balance - ? WHERE accountNumber = ? AND balance >= ?", "balance");
+
+    public static Mutation credit(Connection conn, String accountNumber, double amount) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(CREDIT_SQL)) {
+            ps.setDouble(1, amount);
+            ps.setString(2, accountNumber);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (!rs.next()) return new Mutation(Status.NOT_FOUND, 0);
+                Mutation credit = new Mutation(Status.APPLIED, rs.getDouble(1));
+                cacheAdjust(conn, accountNumber, Money.toPaise(amount));
+                return credit;
+            }
+        }
+    }
+
+    /**
+     * Debit only if the balance covers {@code amount}.
+     */
+    public static Mutation debit(Connection conn, String accountNumber, double amount) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(DEBIT_SQL)) {
+            ps.setDouble(1, amount);
+            ps.setString(2, accountNumber);
+            ps.setDouble(3, amount);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (rs.next()) {
+                    Mutation debit = new Mutation(Status.APPLIED, rs.getDouble(1));
+                    cacheAdjust(conn, accountNumber, -Money.toPaise(amount));
+                    return debit;
+                }
+            }
+        }
+        // failure path only: tell "no such account" apart from "not enough money"
+        return new Mutation(exists(conn, accountNumber) ? Status.INSUFFICIENT_FUNDS : Status.NOT_FOUND, 0);
+    }
+
+    public static boolean exists(Connection conn, String accountNumber) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement("SELECT 1 FROM accounts WHERE accountNumber = ?")) {
+            ps.setString(1, accountNumber);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next();
+            }
+        }
+    }
+
+    // -----------------------------
+    // In-memory balance table
+    // -----------------------------
+
+    /**
+     * Balance of {@code accountNumber}: from the balance table when it holds the account, otherwise read
+     * on {@code conn}. Null when the account does not exist.
+     */
+    public static Double getBalance(Connection conn, String accountNumber) throws SQLException {
+        BalanceTable table = balanceTable;
+        if (table != null) {
+            long paise = table.balance(accountNumber);
+            if (paise != BalanceTable.ABSENT) return Money.toRupees(paise);
+        }
+        try (PreparedStatement ps = conn.prepareStatement("SELECT balance FROM accounts WHERE accountNumber = ?")) {
+            ps.setString(1, accountNumber);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? rs.getDouble(1) : null;
+            }
+        }
+    }
+
+    /**
+     * The loaded balance table, or null when balances live in SQLite only.
+     */
+    public static BalanceTable balanceTable() {
+        return balanceTable;
+    }
+
+    /**
+     * Load the balance and alert threshold of every account on every shard into a fresh table and keep it
+     * in step from then on. Call at startup, before any traffic: a mutation committed while the shards are
+     * being read would be missing from the table.
+     */
+    public static BalanceTable loadBalanceTable() throws SQLException {
+        int accounts = 0;
+        for (int shard = 0; shard < Database.shardCount(); shard++) {
+            try (Connection conn = Database.getShardReadConnection(shard);
+                 Statement stmt = conn.createStatement();
+                 ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM accounts")) {
+                if (rs.next()) accounts += rs.getInt(1);
+            }
+        }
+
+        BalanceTable table = new BalanceTable(accounts);
+        int skipped = 0;
+        for (int shard = 0; shard < Database.shardCount(); shard++) {
+            try (Connection conn = Database.getShardReadConnection(shard);
+                 Statement stmt = conn.createStatement();
+                 ResultSet rs = stmt.executeQuery("SELECT accountNumber, balance, alertThreshold FROM accounts")) {
+                while (rs.next()) {
+                    if (!table.put(rs.getString(1), Money.toPaise(rs.getDouble(2)), Money.toPaise(rs.getDouble(3)))) {
+                        skipped++;
+                    }
+                }
+            }
+        }
+        balanceTable = table;
+        logger.info("Loaded {} balances into memory ({} KiB off-heap){}", table.size(), table.offHeapBytes() / 1024,
+                skipped > 0 ? "; " + skipped + " account numbers do not encode and stay in SQLite" : "");
+        return table;
+    }
+
+    /**
+     * Stop keeping balances in memory (tests, tools that switch databases).
+     */
+    public static void dropBalanceTable() {
+        balanceTable = null;
+    }
+
+    /**
+     * A new account, added to the table when {@code conn} commits.
+     */
+    public static void cacheOpened(Connection conn, String accountNumber, double balance, double alertThreshold) throws SQLException {
+        long paise = Money.toPaise(balance), threshold = Money.toPaise(alertThreshold);
+        afterCommit(conn, accountNumber, table -> table.put(accountNumber, paise, threshold));
+    }
+
+    public static void cacheThreshold(Connection conn, String accountNumber, double alertThreshold) throws SQLException {
+        long threshold = Money.toPaise(alertThreshold);
+        afterCommit(conn, accountNumber, table -> table.setThreshold(accountNumber, threshold));
+    }
+
+    /**
+     * A balance written outright (rebuilt from the ledger), replacing the table's value on commit.
+     */
+    public static void cacheBalance(Connection conn, String accountNumber, long paise) throws SQLException {
+        afterCommit(conn, accountNumber, table -> table.setBalance(accountNumber, paise));
+    }
+
+    public static void cacheRemoved(Connection conn, String accountNumber) throws SQLException {
+        afterCommit(conn, accountNumber, table -> table.remove(accountNumber));
+    }
+
+    static void cacheAdjust(Connection conn, String accountNumber, long deltaPaise) throws SQLException {
+        afterCommit(conn, accountNumber, table -> table.add(accountNumber, deltaPaise));
+    }
+
+    private static void afterCommit(Connection conn, String accountNumber, Consumer<BalanceTable> change) throws SQLException {
+        BalanceTable table = balanceTable;
+        if (table == null) return;
+        if (ConnectionPool.supportsAfterCommit(conn)) {
+            ConnectionPool.afterCommit(conn, () -> change.accept(table));
+        } else {
+            // a raw connection cannot tell us when it commits: forget the account so reads go to SQLite
+            table.remove(accountNumber);
+        }
+    }
+}
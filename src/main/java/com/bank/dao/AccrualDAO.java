@@ -0,0 +1,266 @@
+package com.bank.dao;
+
+import com.bank.util.Money;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Storage for the daily interest and fee run of one shard: the per-partition checkpoints of each business
+ * day and the sub-paisa interest each account has accrued but not yet been paid. The checkpoint of a
+ * partition advances in the same transaction as the balances of the accounts it covers, so a run that
+ * stops anywhere resumes after its last committed batch and never pays an account twice for one day.
+ */
+public class AccrualDAO {
+
+    private static final Logger logger = LoggerFactory.getLogger(AccrualDAO.class);
+
+    /**
+     * One id range of the accounts table for one day; {@code lastId} is the last account already processed.
+     */
+    public record Partition(int number, long fromId, long toId, long lastId, boolean done) {}
+
+    /**
+     * An account in a batch: its balance and the interest remainder carried from earlier days.
+     */
+    public record Row(long id, String accountNumber, long balancePaise, long carry) {}
+
+    public static boolean createTableIfNotExists() {
+        try {
+            for (int shard = 0; shard < Database.shardCount(); shard++) {
+                try (Connection conn = Database.getShardConnection(shard)) {
+                    createTables(conn);
+                }
+            }
+            logger.info("Accrual tables verified/created successfully.");
+            return true;
+        } catch (SQLException e) {
+            System.out.println("❌ Error creating accrual tables: " + e.getMessage());
+            logger.error("Failed to create accrual tables", e);
+            return false;
+        }
+    }
+
+    public static void createTables(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute(Database.dialect().ddl("""
+                CREATE TABLE IF NOT EXISTS accrual_checkpoints (
+                    day TEXT NOT NULL,
+                    partitionNo INTEGER NOT NULL,
+                    fromId INTEGER NOT NULL,
+                    toId INTEGER NOT NULL,
+                    lastId INTEGER NOT NULL,
+                    done INTEGER NOT NULL DEFAULT 0,
+                    PRIMARY KEY (day, partitionNo)
+                );
+            """));
+            stmt.execute(Database.dialect().ddl("""
+                CREATE TABLE IF NOT EXISTS interest_carry (
+                    accountNumber TEXT PRIMARY KEY,
+                    carry INTEGER NOT NULL
+                );
+            """));
+        }
+    }
+
+    // -----------------------------
+    // Checkpoints
+    // -----------------------------
+
+    /**
+     * The partitions of {@code day}, splitting the current id range into {@code partitions} slices the first
+     * time the day is seen. A restarted run gets the stored plan back whatever it asks for now; accounts
+     * opened after the plan was made are not part of that day.
+     */
+    public static List<Partition> plan(Connection conn, LocalDate day, int partitions) throws SQLException {
+        List<Partition> plan = partitions(conn, day);
+        if (!plan.isEmpty()) return plan;
+
+        long minId = 0, maxId = -1;
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT MIN(id), MAX(id) FROM accounts")) {
+            if (rs.next() && rs.getObject(1) != null) {
+                minId = rs.getLong(1);
+                maxId = rs.getLong(2);
+            }
+        }
+
+        // an empty shard still gets one finished partition so the day reads as done
+        long span = maxId - minId + 1;
+        int slices = span <= 0 ? 1 : (int) Math.max(1, Math.min(partitions, span));
+        String sql = Database.dialect().insertOrIgnore("accrual_checkpoints", "day, partitionNo, fromId, toId, lastId, done", "day, partitionNo");
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            for (int p = 0; p < slices; p++) {
+                long from = minId + span * p / slices;
+                long to = span <= 0 ? -1 : minId + span * (p + 1) / slices - 1;
+                ps.setString(1, day.toString());
+                ps.setInt(2, p);
+                ps.setLong(3, from);
+                ps.setLong(4, to);
+                ps.setLong(5, from - 1);
+                ps.setInt(6, span <= 0 ? 1 : 0);
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        }
+        // another runner may have planned the day first: whatever is stored wins
+        return partitions(conn, day);
+    }
+
+    public static List<Partition> partitions(Connection conn, LocalDate day) throws SQLException {
+        List<Partition> plan = new ArrayList<>();
+        try (PreparedStatement ps = conn.prepareStatement(
+                "SELECT partitionNo, fromId, toId, lastId, done FROM accrual_checkpoints WHERE day = ? ORDER BY partitionNo")) {
+            ps.setString(1, day.toString());
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    plan.add(new Partition(rs.getInt(1), rs.getLong(2), rs.getLong(3), rs.getLong(4), rs.getInt(5) != 0));
+                }
+            }
+        }
+        return plan;
+    }
+
+    /**
+     * The latest day all of whose partitions are done, or null before the first run finished.
+     */
+    public static LocalDate lastCompletedDay(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(
+                     "SELECT MAX(day) FROM (SELECT day FROM accrual_checkpoints GROUP BY day HAVING MIN(done) = 1) completed")) {
+            String day = rs.next() ? rs.getString(1) : null;
+            return day == null ? null : LocalDate.parse(day);
+        }
+    }
+
+    /**
+     * Take the shard's write lock and check that the partition still stands at {@code lastId}.
+     * Call first in the batch transaction: false means another runner got there, and the batch must stop.
+     */
+    public static boolean claim(Connection conn, LocalDate day, int partition, long lastId) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(
+                "UPDATE accrual_checkpoints SET lastId = lastId WHERE day = ? AND partitionNo = ? AND lastId = ? AND done = 0")) {
+            ps.setString(1, day.toString());
+            ps.setInt(2, partition);
+            ps.setLong(3, lastId);
+            return ps.executeUpdate() == 1;
+        }
+    }
+
+    public static void advance(Connection conn, LocalDate day, int partition, long lastId, boolean done) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(
+                "UPDATE accrual_checkpoints SET lastId = ?, done = ? WHERE day = ? AND partitionNo = ?")) {
+            ps.setLong(1, lastId);
+            ps.setInt(2, done ? 1 : 0);
+            ps.setString(3, day.toString());
+            ps.setInt(4, partition);
+            ps.executeUpdate();
+        }
+    }
+
+    // -----------------------------
+    // Batches
+    // -----------------------------
+
+    /**
+     * The next {@code limit} accounts of a partition after {@code afterId}, in id order, with their carry.
+     */
+    public static List<Row> nextBatch(Connection conn, long afterId, long toId, int limit) throws SQLException {
+        String sql = """
+            SELECT a.id, a.accountNumber, a.balance, COALESCE(c.carry, 0)
+            FROM accounts a LEFT JOIN interest_carry c ON c.accountNumber = a.accountNumber
+            WHERE a.id > ? AND a.id <= ?
+            ORDER BY a.id
+            LIMIT ?
+        """;
+        List<Row> rows = new ArrayList<>(limit);
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setLong(1, afterId);
+            ps.setLong(2, toId);
+            ps.setInt(3, limit);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    rows.add(new Row(rs.getLong(1), rs.getString(2), Money.toPaise(rs.getDouble(3)), rs.getLong(4)));
+                }
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Credit {@code paise[i]} to each account in one batch. Returns which credits applied (an account
+     * deleted meanwhile is skipped); the in-memory balances follow on commit.
+     */
+    public static boolean[] credit(Connection conn, List<String> accountNumbers, long[] paise) throws SQLException {
+        return applyBatch(conn, "UPDATE accounts SET balance = balance + ? WHERE accountNumber = ?", accountNumbers, paise, false);
+    }
+
+    /**
+     * Debit {@code paise[i]} from each account that still covers it, in one batch. Returns which debits applied.
+     */
+    public static boolean[] debit(Connection conn, List<String> accountNumbers, long[] paise) throws SQLException {
+        return applyBatch(conn, "UPDATE accounts SET balance = balance - ? WHERE accountNumber = ? AND balance >= ?", accountNumbers, paise, true);
+    }
+
+    private static boolean[] applyBatch(Connection conn, String sql, List<String> accountNumbers, long[] paise, boolean debit) throws SQLException {
+        boolean[] applied = new boolean[accountNumbers.size()];
+        int[] index = new int[accountNumbers.size()];
+        int queued = 0;
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            for (int i = 0; i < accountNumbers.size(); i++) {
+                if (paise[i] <= 0) continue;
+                double amount = Money.toRupees(paise[i]);
+                ps.setDouble(1, amount);
+                ps.setString(2, accountNumbers.get(i));
+                if (debit) ps.setDouble(3, amount);
+                ps.addBatch();
+                index[queued++] = i;
+            }
+            if (queued == 0) return applied;
+
+            int[] counts = ps.executeBatch();
+            for (int q = 0; q < queued; q++) {
+                int i = index[q];
+                applied[i] = counts[q] > 0;
+                if (applied[i]) AccountDAO.cacheAdjust(conn, accountNumbers.get(i), debit ? -paise[i] : paise[i]);
+            }
+        }
+        return applied;
+    }
+
+    /**
+     * Store the interest remainder of each account in {@code rows} whose remainder changed; accounts left
+     * with nothing carried lose their row.
+     */
+    public static void saveCarry(Connection conn, List<Row> rows, long[] carry) throws SQLException {
+        try (PreparedStatement upsert = conn.prepareStatement(
+                Database.dialect().upsert("interest_carry", "accountNumber, carry", "accountNumber", "carry = excluded.carry"));
+             PreparedStatement delete = conn.prepareStatement("DELETE FROM interest_carry WHERE accountNumber = ?")) {
+            int upserts = 0, deletes = 0;
+            for (int i = 0; i < rows.size(); i++) {
+                Row row = rows.get(i);
+                if (carry[i] == row.carry()) continue;
+                if (carry[i] != 0) {
+                    upsert.setString(1, row.accountNumber());
+                    upsert.setLong(2, carry[i]);
+                    upsert.addBatch();
+                    upserts++;
+                } else {
+                    delete.setString(1, row.accountNumber());
+                    delete.addBatch();
+                    deletes++;
+                }
+            }
+            if (upserts > 0) upsert.executeBatch();
+            if (deletes > 0) delete.executeBatch();
+        }
+    }
+}
@@ -0,0 +1,250 @@
+package com.bank.dao;
+
+import com.bank.util.Money;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Running totals of the transactions table: per account per day, per account per month, and bank-wide
+ * per day, each split by transaction type. An {@code AFTER INSERT} trigger on transactions upserts all
+ * three, so they change in the same transaction as the row that is recorded and can never disagree
+ * with it. Summaries become a lookup of a handful of rows instead of a scan of the history.
+ *
+ * <p>Amounts are kept in paise, like the ledger. Archiving transaction rows does not touch the totals:
+ * they describe what happened, not what is still stored. Deleting a user's history or closing the account
+ * drops the account's per-account totals with it ({@link #deleteAccount}); the bank-wide daily totals
+ * keep its transactions.
+ */
+public class AggregateDAO {
+
+    private static final Logger logger = LoggerFactory.getLogger(AggregateDAO.class);
+
+    /**
+     * Number of transactions and their summed amount.
+     */
+    public record Totals(long count, long paise) {
+        public static final Totals NONE = new Totals(0, 0);
+
+        public double amount() {
+            return Money.toRupees(paise);
+        }
+
+        Totals plus(Totals other) {
+            return new Totals(count + other.count, paise + other.paise);
+        }
+    }
+
+    public static boolean createTableIfNotExists() {
+        try {
+            for (int shard = 0; shard < Database.shardCount(); shard++) {
+                try (Connection conn = Database.getShardConnection(shard)) {
+                    createTables(conn);
+                }
+            }
+            logger.info("Aggregate tables verified/created successfully.");
+            return true;
+        } catch (SQLException e) {
+            System.out.println("❌ Error creating aggregate tables: " + e.getMessage());
+            logger.error("Failed to create aggregate tables", e);
+            return false;
+        }
+    }
+
+    /**
+     * Create the aggregate tables and their trigger on this connection's transactions table,
+     * backfilling them from the existing history the first time.
+     */
+    public static void createTables(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute(Database.dialect().ddl("""
+                CREATE TABLE IF NOT EXISTS account_daily_totals (
+                    accountNumber TEXT NOT NULL,
+                    day TEXT NOT NULL,
+                    type TEXT NOT NULL,
+                    txCount INTEGER NOT NULL,
+                    amount INTEGER NOT NULL,
+                    PRIMARY KEY (accountNumber, day, type)
+                );
+            """));
+            stmt.execute(Database.dialect().ddl("""
+                CREATE TABLE IF NOT EXISTS account_monthly_totals (
+                    accountNumber TEXT NOT NULL,
+                    month TEXT NOT NULL,
+                    type TEXT NOT NULL,
+                    txCount INTEGER NOT NULL,
+                    amount INTEGER NOT NULL,
+                    PRIMARY KEY (accountNumber, month, type)
+                );
+            """));
+            stmt.execute(Database.dialect().ddl("""
+                CREATE TABLE IF NOT EXISTS bank_daily_totals (
+                    day TEXT NOT NULL,
+                    type TEXT NOT NULL,
+                    txCount INTEGER NOT NULL,
+                    amount INTEGER NOT NULL,
+                    PRIMARY KEY (day, type)
+                );
+            """));
+
+            boolean fresh = !Database.dialect().triggerExists(conn, "transactions_totals");
+
+            // day/month come from the row's own timestamp, so a backfill and the trigger bucket alike
+            Database.dialect().createTrigger(stmt, "transactions_totals", "AFTER INSERT ON transactions", """
+                    INSERT INTO account_daily_totals(accountNumber, day, type, txCount, amount)
+                    VALUES (NEW.accountNumber, date(NEW.timestamp), NEW.type, 1, CAST(round(NEW.amount * 100) AS INTEGER))
+                    ON CONFLICT(accountNumber, day, type) DO UPDATE SET
+                        txCount = txCount + 1, amount = amount + excluded.amount;
+
+                    INSERT INTO account_monthly_totals(accountNumber, month, type, txCount, amount)
+                    VALUES (NEW.accountNumber, strftime('%Y-%m', NEW.timestamp), NEW.type, 1, CAST(round(NEW.amount * 100) AS INTEGER))
+                    ON CONFLICT(accountNumber, month, type) DO UPDATE SET
+                        txCount = txCount + 1, amount = amount + excluded.amount;
+
+                    INSERT INTO bank_daily_totals(day, type, txCount, amount)
+                    VALUES (date(NEW.timestamp), NEW.type, 1, CAST(round(NEW.amount * 100) AS INTEGER))
+                    ON CONFLICT(day, type) DO UPDATE SET
+                        txCount = txCount + 1, amount = amount + excluded.amount;
+            """, "com.bank.dao.H2Triggers$Totals");
+
+            if (fresh) {
+                rebuild(conn);
+            }
+        }
+    }
+
+    /**
+     * Recompute every total on this connection from the transactions table, in one transaction.
+     */
+    public static void rebuild(Connection conn) throws SQLException {
+        boolean autoCommit = conn.getAutoCommit();
+        conn.setAutoCommit(false);
+        Dialect dialect = Database.dialect();
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("DELETE FROM account_daily_totals");
+            stmt.execute("DELETE FROM account_monthly_totals");
+            stmt.execute("DELETE FROM bank_daily_totals");
+            int rows = stmt.executeUpdate("""
+                INSERT INTO account_daily_totals(accountNumber, day, type, txCount, amount)
+                SELECT accountNumber, %s, type, COUNT(*), SUM(%s)
+                FROM transactions GROUP BY 1, 2, 3
+            """.formatted(dialect.day("timestamp"), dialect.paise("amount")));
+            stmt.executeUpdate("""
+                INSERT INTO account_monthly_totals(accountNumber, month, type, txCount, amount)
+                SELECT accountNumber, substr(day, 1, 7), type, SUM(txCount), SUM(amount)
+                FROM account_daily_totals GROUP BY 1, 2, 3
+            """);
+            stmt.executeUpdate("""
+                INSERT INTO bank_daily_totals(day, type, txCount, amount)
+                SELECT day, type, SUM(txCount), SUM(amount)
+                FROM account_daily_totals GROUP BY 1, 2
+            """);
+            conn.commit();
+            logger.info("Rebuilt transaction aggregates ({} account-day rows)", rows);
+        } catch (SQLException e) {
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setAutoCommit(autoCommit);
+        }
+    }
+
+    // -----------------------------
+    // Lookups (keyed by transaction type)
+    // -----------------------------
+
+    /**
+     * All-time totals of one account, from its monthly rows.
+     */
+    public static Map<String, Totals> getAccountTotals(String accountNumber) throws SQLException {
+        try (Connection conn = Database.getReadConnection(accountNumber)) {
+            return getAccountTotals(conn, accountNumber);
+        }
+    }
+
+    public static Map<String, Totals> getAccountTotals(Connection conn, String accountNumber) throws SQLException {
+        String sql = "SELECT type, SUM(txCount), SUM(amount) FROM account_monthly_totals WHERE accountNumber = ? GROUP BY type";
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setString(1, accountNumber);
+            return collect(ps, new TreeMap<>());
+        }
+    }
+
+    public static Map<String, Totals> getAccountDay(String accountNumber, LocalDate day) throws SQLException {
+        String sql = "SELECT type, txCount, amount FROM account_daily_totals WHERE accountNumber = ? AND day = ?";
+        try (Connection conn = Database.getReadConnection(accountNumber);
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setString(1, accountNumber);
+            ps.setString(2, day.toString());
+            return collect(ps, new TreeMap<>());
+        }
+    }
+
+    public static Map<String, Totals> getAccountMonth(String accountNumber, YearMonth month) throws SQLException {
+        String sql = "SELECT type, txCount, amount FROM account_monthly_totals WHERE accountNumber = ? AND month = ?";
+        try (Connection conn = Database.getReadConnection(accountNumber);
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setString(1, accountNumber);
+            ps.setString(2, month.toString());
+            return collect(ps, new TreeMap<>());
+        }
+    }
+
+    /**
+     * Bank-wide totals for one day, summed over every shard.
+     */
+    public static Map<String, Totals> getBankDay(LocalDate day) throws SQLException {
+        Map<String, Totals> totals = new TreeMap<>();
+        for (int shard = 0; shard < Database.shardCount(); shard++) {
+            try (Connection conn = Database.getShardReadConnection(shard);
+                 PreparedStatement ps = conn.prepareStatement("SELECT type, txCount, amount FROM bank_daily_totals WHERE day = ?")) {
+                ps.setString(1, day.toString());
+                collect(ps, totals);
+            }
+        }
+        return totals;
+    }
+
+    /**
+     * Forget an account's per-account totals (its transactions were deleted). Bank-wide totals are kept.
+     */
+    public static void deleteAccount(Connection conn, String accountNumber) throws SQLException {
+        for (String table : new String[]{"account_daily_totals", "account_monthly_totals"}) {
+            try (PreparedStatement ps = conn.prepareStatement("DELETE FROM " + table + " WHERE accountNumber = ?")) {
+                ps.setString(1, accountNumber);
+                ps.executeUpdate();
+            }
+        }
+    }
+
+    /**
+     * Totals of a history as returned by {@link TransactionDAO#getTransactionsByAccount}, for when history
+     * is in the record log and these tables are never filled.
+     */
+    public static Map<String, Totals> sum(List<String[]> transactions) {
+        Map<String, Totals> totals = new TreeMap<>();
+        for (String[] tx : transactions) {
+            totals.merge(tx[1], new Totals(1, Money.toPaise(Double.parseDouble(tx[2]))), Totals::plus);
+        }
+        return totals;
+    }
+
+    private static Map<String, Totals> collect(PreparedStatement ps, Map<String, Totals> into) throws SQLException {
+        try (ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                into.merge(rs.getString(1), new Totals(rs.getLong(2), rs.getLong(3)), Totals::plus);
+            }
+        }
+        return into;
+    }
+}
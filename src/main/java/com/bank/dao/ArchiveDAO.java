@@ -0,0 +1,219 @@
+package com.bank.dao;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Cold tier of the transactions table. Rows past the archive age are copied, with their original ids,
+ * into a separate archive database next to each shard and then deleted from the live table, which keeps
+ * its indexes and page cache sized to recent history.
+ *
+ * <p>Because the live rows are gone, the live database keeps a per-account carry
+ * ({@code archived_balances}: signed sum of everything archived) so reconciliation still adds up.
+ * A row can briefly exist in both tiers if a move is interrupted between the copy and the delete;
+ * readers skip archived ids that are still live, and the next move finishes the delete.
+ */
+public class ArchiveDAO {
+
+    private static final Logger logger = LoggerFactory.getLogger(ArchiveDAO.class);
+    private static final DateTimeFormatter TIMESTAMP = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    public record Row(long id, String accountNumber, String type, double amount, String targetAccount, String timestamp) {}
+
+    public static boolean createTableIfNotExists() {
+        try {
+            for (int shard = 0; shard < Database.shardCount(); shard++) {
+                try (Connection conn = Database.getShardConnection(shard)) {
+                    createCarryTable(conn);
+                }
+                try (Connection archive = Database.getArchiveConnection(shard)) {
+                    createArchiveTables(archive);
+                }
+            }
+            logger.info("Archive tables verified/created successfully.");
+            return true;
+        } catch (SQLException e) {
+            System.out.println("❌ Error creating archive tables: " + e.getMessage());
+            logger.error("Failed to create archive tables", e);
+            return false;
+        }
+    }
+
+    // Live side: what has been archived per account, as a signed amount in paise
+    public static void createCarryTable(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute(Database.dialect().ddl("""
+                CREATE TABLE IF NOT EXISTS archived_balances (
+                    accountNumber TEXT PRIMARY KEY,
+                    txCount INTEGER NOT NULL,
+                    amount INTEGER NOT NULL
+                );
+            """));
+        }
+    }
+
+    // Archive side: same columns as transactions, ids kept so a repeated copy is a no-op
+    public static void createArchiveTables(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute(Database.dialect().ddl("""
+                CREATE TABLE IF NOT EXISTS transactions (
+                    id INTEGER PRIMARY KEY,
+                    accountNumber TEXT NOT NULL,
+                    type TEXT NOT NULL,
+                    amount REAL NOT NULL,
+                    targetAccount TEXT,
+                    timestamp DATETIME
+                );
+            """));
+            stmt.execute(Database.dialect().ddl("CREATE INDEX IF NOT EXISTS idx_archive_account ON transactions(accountNumber, timestamp);"));
+        }
+    }
+
+    // -----------------------------
+    // Moving rows (live -> archive)
+    // -----------------------------
+
+    /**
+     * Oldest live rows older than {@code days} days, at most {@code limit} of them, in id order.
+     */
+    public static List<Row> selectOlderThan(Connection conn, int days, int limit) throws SQLException {
+        String sql = """
+            SELECT id, accountNumber, type, amount, targetAccount, timestamp FROM transactions
+            WHERE timestamp < ? ORDER BY id LIMIT ?
+        """;
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            // timestamps are local wall-clock text, so the cutoff is compared in the same form
+            ps.setString(1, LocalDateTime.now().minusDays(days).format(TIMESTAMP));
+            ps.setInt(2, limit);
+            return readRows(ps);
+        }
+    }
+
+    /**
+     * Rows with {@code afterId < id <= upToId} in id order, at most {@code limit}. The live and the archive
+     * table have the same columns, so this reads either tier.
+     */
+    public static List<Row> selectIdRange(Connection conn, long afterId, long upToId, int limit) throws SQLException {
+        String sql = """
+            SELECT id, accountNumber, type, amount, targetAccount, timestamp FROM transactions
+            WHERE id > ? AND id <= ? ORDER BY id LIMIT ?
+        """;
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setLong(1, afterId);
+            ps.setLong(2, upToId);
+            ps.setInt(3, limit);
+            return readRows(ps);
+        }
+    }
+
+    public static void insertArchived(Connection archive, List<Row> rows) throws SQLException {
+        String sql = Database.dialect().insertOrIgnore("transactions", "id, accountNumber, type, amount, targetAccount, timestamp", "id");
+        try (PreparedStatement ps = archive.prepareStatement(sql)) {
+            for (Row row : rows) {
+                ps.setLong(1, row.id());
+                ps.setString(2, row.accountNumber());
+                ps.setString(3, row.type());
+                ps.setDouble(4, row.amount());
+                ps.setString(5, row.targetAccount());
+                ps.setString(6, row.timestamp());
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        }
+    }
+
+    /**
+     * Delete the given ids from the live table and return exactly the rows that were deleted
+     * (one that was already gone is not returned, so it is never carried twice).
+     */
+    public static List<Row> deleteLive(Connection conn, List<Long> ids) throws SQLException {
+        Dialect dialect = Database.dialect();
+        String sql = dialect.deleteReturning("DELETE FROM transactions WHERE " + dialect.inIds("id"),
+                "id, accountNumber, type, amount, targetAccount, timestamp");
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            dialect.bindIds(ps, 1, ids);
+            return readRows(ps);
+        }
+    }
+
+    /**
+     * Add {@code {txCount, paise}} per account to the carry; runs in the same transaction as {@link #deleteLive}.
+     */
+    public static void addCarry(Connection conn, Map<String, long[]> carry) throws SQLException {
+        String sql = Database.dialect().upsert("archived_balances", "accountNumber, txCount, amount", "accountNumber",
+                "txCount = archived_balances.txCount + excluded.txCount, amount = archived_balances.amount + excluded.amount");
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            for (Map.Entry<String, long[]> e : carry.entrySet()) {
+                ps.setString(1, e.getKey());
+                ps.setLong(2, e.getValue()[0]);
+                ps.setLong(3, e.getValue()[1]);
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        }
+    }
+
+    // -----------------------------
+    // Reads
+    // -----------------------------
+
+    /**
+     * Archived history of one account in the {@link TransactionDAO#getTransactionsByAccount} row format,
+     * newest first, leaving out ids that are still in the live table.
+     */
+    public static List<String[]> getTransactionsByAccount(String accountNumber, Set<Long> liveIds) throws SQLException {
+        List<String[]> transactions = new ArrayList<>();
+        String sql = "SELECT id, timestamp, type, amount, targetAccount FROM transactions WHERE accountNumber = ? ORDER BY timestamp DESC";
+        try (Connection conn = Database.getArchiveReadConnection(ShardRouter.shardOf(accountNumber));
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setString(1, accountNumber);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    if (liveIds.contains(rs.getLong(1))) continue;
+                    transactions.add(new String[]{rs.getString(2), rs.getString(3), String.valueOf(rs.getDouble(4)), rs.getString(5)});
+                }
+            }
+        }
+        return transactions;
+    }
+
+    /**
+     * Remove every trace of an account's archived history: archive rows and the live carry.
+     */
+    public static void deleteAccount(Connection live, String accountNumber) throws SQLException {
+        try (PreparedStatement ps = live.prepareStatement("DELETE FROM archived_balances WHERE accountNumber = ?")) {
+            ps.setString(1, accountNumber);
+            ps.executeUpdate();
+        }
+        try (Connection archive = Database.getArchiveConnection(ShardRouter.shardOf(accountNumber));
+             PreparedStatement ps = archive.prepareStatement("DELETE FROM transactions WHERE accountNumber = ?")) {
+            ps.setString(1, accountNumber);
+            int deleted = ps.executeUpdate();
+            if (deleted > 0) {
+                logger.info("Deleted {} archived transactions for account {}", deleted, accountNumber);
+            }
+        }
+    }
+
+    private static List<Row> readRows(PreparedStatement ps) throws SQLException {
+        List<Row> rows = new ArrayList<>();
+        try (ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                rows.add(new Row(rs.getLong(1), rs.getString(2), rs.getString(3), rs.getDouble(4), rs.getString(5), rs.getString(6)));
+            }
+        }
+        return rows;
+    }
+}
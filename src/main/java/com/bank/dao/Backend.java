@@ -0,0 +1,31 @@
+package com.bank.dao;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * The database engine behind {@link Database}. Selected with {@code -Dbank.db.backend}:
+ * <ul>
+ *   <li>{@code sqlite} (default): one SQLite file per database under {@code src/main/resources/db/}, in WAL mode</li>
+ *   <li>{@code sqlite-memory}: the same databases in RAM, shared by the process's connections; gone on exit</li>
+ *   <li>{@code h2}: H2 in-memory databases; gone on exit</li>
+ * </ul>
+ * The in-memory backends let simulations and benchmarks run without touching the disk, and the same
+ * workload can be compared across engines.
+ */
+public interface Backend {
+
+    /**
+     * The {@code bank.db.backend} value that selects this backend.
+     */
+    String name();
+
+    Dialect dialect();
+
+    /**
+     * A new physical connection to {@code database} ({@code bank}, {@code bank_shard0}, {@code bank_archive}...),
+     * ready for a pool: read-only pools get connections that refuse writes where the engine can,
+     * and {@code foreignKeys} turns on enforcement where the engine makes it optional.
+     */
+    Connection open(String database, boolean readOnly, boolean foreignKeys) throws SQLException;
+}
@@ -0,0 +1,282 @@
+package com.bank.dao;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Outbox of committed changes for the change feed. Triggers on {@code accounts} and {@code transactions}
+ * append a row to {@code change_events} inside the writer's own transaction, so every committed mutation has
+ * exactly one event, whichever code path made it, and a rolled-back one has none. Each database (shard) has
+ * its own outbox; {@code seq} is its AUTOINCREMENT key, never reused, so events of one shard are totally
+ * ordered and all events of one account are in its shard's order.
+ *
+ * <p>Consumers' positions live in {@code change_offsets} of the main database, one row per consumer and shard.
+ * Capture costs one extra insert per mutation, so the triggers only exist while {@code -Dbank.cdc.enabled=true}.
+ * Transactions recorded in the log store ({@code bank.txstore=log}) bypass the table and are not captured.
+ */
+public class ChangeFeedDAO {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChangeFeedDAO.class);
+
+    public static final boolean CAPTURE_ENABLED = Boolean.getBoolean("bank.cdc.enabled");
+
+    /**
+     * One committed change. Account events carry the balance after the change; transaction events carry the
+     * transaction's type, amount and counterparty. {@code rowId} is {@code accounts.id} or {@code transactions.id}.
+     */
+    public record Event(int shard, long seq, String entity, String op, String accountNumber, long rowId,
+                        Double balance, String type, Double amount, String targetAccount, String timestamp) {}
+
+    private static final String[][] TRIGGERS = {
+            // name, event, SQLite body
+            {"cdc_accounts_insert", "AFTER INSERT ON accounts", """
+                    INSERT INTO change_events(entity, op, accountNumber, rowId, balance)
+                    VALUES ('account', 'insert', NEW.accountNumber, NEW.id, NEW.balance);
+                    """},
+            {"cdc_accounts_update", "AFTER UPDATE ON accounts", """
+                    INSERT INTO change_events(entity, op, accountNumber, rowId, balance)
+                    VALUES ('account', 'update', NEW.accountNumber, NEW.id, NEW.balance);
+                    """},
+            {"cdc_accounts_delete", "AFTER DELETE ON accounts", """
+                    INSERT INTO change_events(entity, op, accountNumber, rowId, balance)
+                    VALUES ('account', 'delete', OLD.accountNumber, OLD.id, OLD.balance);
+                    """},
+            // archiving deletes old transactions but changes nothing, so only inserts are captured
+            {"cdc_transactions_insert", "AFTER INSERT ON transactions", """
+                    INSERT INTO change_events(entity, op, accountNumber, rowId, type, amount, targetAccount)
+                    VALUES ('transaction', 'insert', NEW.accountNumber, NEW.id, NEW.type, NEW.amount, NEW.targetAccount);
+                    """},
+    };
+
+    public static boolean createTableIfNotExists() {
+        try {
+            for (int shard = 0; shard < Database.shardCount(); shard++) {
+                try (Connection conn = Database.getShardConnection(shard)) {
+                    createTables(conn);
+                }
+            }
+            try (Connection conn = Database.getConnection()) {
+                createOffsetTable(conn);
+            }
+            logger.info("Change feed tables verified/created successfully.");
+            return true;
+        } catch (SQLException e) {
+            System.out.println("❌ Error creating change feed tables: " + e.getMessage());
+            logger.error("Failed to create change feed tables", e);
+            return false;
+        }
+    }
+
+    public static void createTables(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute(Database.dialect().ddl("""
+                CREATE TABLE IF NOT EXISTS change_events (
+                    seq INTEGER PRIMARY KEY AUTOINCREMENT,
+                    entity TEXT NOT NULL,
+                    op TEXT NOT NULL,
+                    accountNumber TEXT NOT NULL,
+                    rowId INTEGER NOT NULL,
+                    balance REAL,
+                    type TEXT,
+                    amount REAL,
+                    targetAccount TEXT,
+                    timestamp DATETIME DEFAULT (datetime('now','localtime'))
+                );
+            """));
+        }
+    }
+
+    public static void createOffsetTable(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute(Database.dialect().ddl("""
+                CREATE TABLE IF NOT EXISTS change_offsets (
+                    consumer TEXT NOT NULL,
+                    shard INTEGER NOT NULL,
+                    seq INTEGER NOT NULL,
+                    PRIMARY KEY (consumer, shard)
+                );
+            """));
+        }
+    }
+
+    // -----------------------------
+    // Capture triggers
+    // -----------------------------
+
+    /**
+     * Create or drop the capture triggers of every shard to match {@code bank.cdc.enabled}. Runs on every
+     * start, outside the schema version check, since the switch can change between runs.
+     */
+    public static void configureCapture() {
+        try {
+            for (int shard = 0; shard < Database.shardCount(); shard++) {
+                try (Connection conn = Database.getShardConnection(shard)) {
+                    setCapture(conn, CAPTURE_ENABLED);
+                }
+            }
+            if (CAPTURE_ENABLED) logger.info("Change capture on for {} shard(s).", Database.shardCount());
+        } catch (SQLException e) {
+            System.out.println("❌ Error configuring change capture: " + e.getMessage());
+            logger.error("Failed to configure change capture", e);
+        }
+    }
+
+    public static void setCapture(Connection conn, boolean enabled) throws SQLException {
+        Dialect dialect = Database.dialect();
+        try (Statement stmt = conn.createStatement()) {
+            for (String[] trigger : TRIGGERS) {
+                boolean exists = dialect.triggerExists(conn, trigger[0]);
+                if (enabled && !exists) {
+                    dialect.createTrigger(stmt, trigger[0], trigger[1], trigger[2], "com.bank.dao.H2Triggers$ChangeCapture");
+                } else if (!enabled && exists) {
+                    stmt.execute("DROP TRIGGER IF EXISTS " + trigger[0]);
+                }
+            }
+        }
+    }
+
+    // -----------------------------
+    // Reading
+    // -----------------------------
+
+    /**
+     * Up to {@code limit} events of this database with {@code seq > afterSeq}, in order.
+     */
+    public static List<Event> readAfter(Connection conn, int shard, long afterSeq, int limit) throws SQLException {
+        List<Event> events = new ArrayList<>();
+        try (PreparedStatement ps = conn.prepareStatement("""
+                SELECT seq, entity, op, accountNumber, rowId, balance, type, amount, targetAccount, timestamp
+                FROM change_events WHERE seq > ? ORDER BY seq LIMIT ?
+                """)) {
+            ps.setLong(1, afterSeq);
+            ps.setInt(2, limit);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    events.add(new Event(shard, rs.getLong(1), rs.getString(2), rs.getString(3), rs.getString(4),
+                            rs.getLong(5), nullableDouble(rs, 6), rs.getString(7), nullableDouble(rs, 8),
+                            rs.getString(9), rs.getString(10)));
+                }
+            }
+        }
+        return events;
+    }
+
+    private static Double nullableDouble(ResultSet rs, int column) throws SQLException {
+        double value = rs.getDouble(column);
+        return rs.wasNull() ? null : value;
+    }
+
+    /**
+     * The seq of the newest event of this database, 0 when it has none.
+     */
+    public static long headSeq(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT MAX(seq) FROM change_events")) {
+            return rs.next() ? rs.getLong(1) : 0;
+        }
+    }
+
+    /**
+     * Delete the events of this database up to {@code uptoSeq}. Returns the number removed.
+     */
+    public static int prune(Connection conn, long uptoSeq) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement("DELETE FROM change_events WHERE seq <= ?")) {
+            ps.setLong(1, uptoSeq);
+            return ps.executeUpdate();
+        }
+    }
+
+    // -----------------------------
+    // Consumer offsets
+    // -----------------------------
+
+    /**
+     * Last delivered seq of {@code consumer} for each shard; 0 where it has none.
+     */
+    public static long[] loadOffsets(Connection conn, String consumer, int shards) throws SQLException {
+        long[] offsets = new long[shards];
+        try (PreparedStatement ps = conn.prepareStatement("SELECT shard, seq FROM change_offsets WHERE consumer = ?")) {
+            ps.setString(1, consumer);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    int shard = rs.getInt(1);
+                    if (shard < shards) offsets[shard] = rs.getLong(2);
+                }
+            }
+        }
+        return offsets;
+    }
+
+    public static void saveOffset(Connection conn, String consumer, int shard, long seq) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(Database.dialect().upsert("change_offsets",
+                "consumer, shard, seq", "consumer, shard", "seq = excluded.seq"))) {
+            ps.setString(1, consumer);
+            ps.setInt(2, shard);
+            ps.setLong(3, seq);
+            ps.executeUpdate();
+        }
+    }
+
+    /**
+     * Give {@code consumer} a position of 0 on every shard where it has none, leaving existing positions alone.
+     */
+    public static void register(Connection conn, String consumer, int shards) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(Database.dialect().insertOrIgnore("change_offsets",
+                "consumer, shard, seq", "consumer, shard"))) {
+            for (int shard = 0; shard < shards; shard++) {
+                ps.setString(1, consumer);
+                ps.setInt(2, shard);
+                ps.setLong(3, 0);
+                ps.executeUpdate();
+            }
+        }
+    }
+
+    /**
+     * Forget every position of {@code consumer}. Returns the number of rows removed.
+     */
+    public static int unregister(Connection conn, String consumer) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement("DELETE FROM change_offsets WHERE consumer = ?")) {
+            ps.setString(1, consumer);
+            return ps.executeUpdate();
+        }
+    }
+
+    /**
+     * Consumers whose position on {@code shard} is below {@code seq}.
+     */
+    public static List<String> consumersBefore(Connection conn, int shard, long seq) throws SQLException {
+        List<String> consumers = new ArrayList<>();
+        try (PreparedStatement ps = conn.prepareStatement("SELECT consumer FROM change_offsets WHERE shard = ? AND seq < ? ORDER BY consumer")) {
+            ps.setInt(1, shard);
+            ps.setLong(2, seq);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) consumers.add(rs.getString(1));
+            }
+        }
+        return consumers;
+    }
+
+    /**
+     * The seq every known consumer has passed on {@code shard}: events up to it can be pruned.
+     * -1 when no consumer has an offset there yet.
+     */
+    public static long minOffset(Connection conn, int shard) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement("SELECT MIN(seq) FROM change_offsets WHERE shard = ?")) {
+            ps.setInt(1, shard);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (!rs.next()) return -1;
+                long min = rs.getLong(1);
+                return rs.wasNull() ? -1 : min;
+            }
+        }
+    }
+}
@@ -0,0 +1,356 @@
+package com.bank.dao;
+
+import com.bank.metrics.Counter;
+import com.bank.metrics.LatencyHistogram;
+import com.bank.metrics.Metrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounded pool of connections to one database, either read-write or read-only.
+ *
+ * <p>On SQLite all connections put the file in WAL mode, so readers work on a snapshot and never wait for
+ * the writer (or make it wait). Read-only pools additionally set {@code query_only}, so a read path
+ * that accidentally writes fails loudly instead of taking the write lock. Closing a borrowed
+ * connection rolls back anything left open and returns it to the pool. Pools of other engines get
+ * their connections from a {@link Backend}.
+ *
+ * <p>With metrics enabled each pool reports how long callers waited for a connection
+ * ({@code bank_db_pool_acquire_seconds}) and how long they held it ({@code bank_db_pool_hold_seconds}),
+ * labelled by pool name — e.g. {@code bank.write} against {@code bank.read}.
+ */
+public final class ConnectionPool {
+
+    private static final Logger logger = LoggerFactory.getLogger(ConnectionPool.class);
+
+    private final String name;
+    private final ConnectionProvider opener;
+    private final boolean readOnly;
+    private final long timeoutMillis;
+    private final Semaphore permits;
+    private final int statementCacheSize;
+    private final ConcurrentLinkedDeque<Pooled> idle = new ConcurrentLinkedDeque<>();
+
+    private final LatencyHistogram acquireLatency;
+    private final LatencyHistogram holdLatency;
+    private final Counter opened;
+    private final Counter timeouts;
+    private final StatementCache.Stats statementStats;
+
+    // a physical connection and the statements compiled on it; both live as long as the connection
+    private record Pooled(Connection raw, StatementCache statements) {}
+
+    public ConnectionPool(String name, String url, boolean readOnly, boolean foreignKeys, int maxSize, long timeoutMillis) {
+        this(name, url, readOnly, foreignKeys, maxSize, timeoutMillis, 0);
+    }
+
+    /**
+     * @param statementCacheSize compiled statements kept per connection (LRU); 0 disables the cache
+     */
+    public ConnectionPool(String name, String url, boolean readOnly, boolean foreignKeys, int maxSize, long timeoutMillis,
+                          int statementCacheSize) {
+        this(name, () -> SqliteBackend.configure(DriverManager.getConnection(url), readOnly, foreignKeys), readOnly,
+                maxSize, timeoutMillis, statementCacheSize);
+    }
+
+    /**
+     * @param opener new physical connections, already set up (see {@link Backend#open})
+     */
+    public ConnectionPool(String name, ConnectionProvider opener, boolean readOnly, int maxSize, long timeoutMillis,
+                          int statementCacheSize) {
+        this.name = name;
+        this.opener = opener;
+        this.readOnly = readOnly;
+        this.timeoutMillis = timeoutMillis;
+        this.statementCacheSize = statementCacheSize;
+        this.permits = new Semaphore(maxSize, true);
+
+        String labels = "pool=\"" + name + "\"";
+        this.acquireLatency = Metrics.histogram("bank_db_pool_acquire_seconds", labels);
+        this.holdLatency = Metrics.histogram("bank_db_pool_hold_seconds", labels);
+        this.opened = Metrics.counter("bank_db_pool_connections_opened_total", labels);
+        this.timeouts = Metrics.counter("bank_db_pool_timeouts_total", labels);
+        this.statementStats = new StatementCache.Stats(
+                Metrics.counter("bank_db_statement_cache_total", labels + ",result=\"hit\""),
+                Metrics.counter("bank_db_statement_cache_total", labels + ",result=\"miss\""),
+                Metrics.counter("bank_db_statement_cache_evictions_total", labels));
+    }
+
+    /**
+     * Share of {@code prepareStatement(sql)} calls served from the statement cache; NaN before the first
+     * call, or when the cache is disabled.
+     */
+    public double statementCacheHitRate() {
+        long hits = statementStats.hits.sum();
+        long total = hits + statementStats.misses.sum();
+        return total == 0 ? Double.NaN : (double) hits / total;
+    }
+
+    public long statementCacheEvictions() {
+        return statementStats.evictions.sum();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public boolean isReadOnly() {
+        return readOnly;
+    }
+
+    /**
+     * Run {@code action} once the current transaction on {@code conn} commits, or right away when
+     * {@code conn} is in auto-commit mode. Dropped if the transaction rolls back or the connection is
+     * returned without committing. Only connections borrowed from a pool can defer actions.
+     */
+    public static void afterCommit(Connection conn, Runnable action) throws SQLException {
+        if (conn.getAutoCommit()) {
+            action.run();
+        } else if (conn.isWrapperFor(CommitActions.class)) {
+            conn.unwrap(CommitActions.class).add(action);
+        } else {
+            throw new SQLException("After-commit actions need a pooled connection");
+        }
+    }
+
+    /**
+     * Run {@code action} just before the current transaction on {@code conn} rolls back, explicitly or
+     * because the connection is returned without committing; dropped once it commits. It runs while the
+     * transaction still holds its locks. Only connections borrowed from a pool in a transaction can take one.
+     */
+    public static void beforeRollback(Connection conn, Runnable action) throws SQLException {
+        if (!conn.getAutoCommit() && conn.isWrapperFor(CommitActions.class)) {
+            conn.unwrap(CommitActions.class).addRollback(action);
+        } else {
+            throw new SQLException("Before-rollback actions need a pooled connection in a transaction");
+        }
+    }
+
+    /**
+     * Whether {@link #afterCommit} can be used on {@code conn}: it is in autocommit mode or borrowed from a pool.
+     */
+    public static boolean supportsAfterCommit(Connection conn) throws SQLException {
+        return conn.getAutoCommit() || conn.isWrapperFor(CommitActions.class);
+    }
+
+    // Actions registered on one borrowed connection, run after its next commit or before its next rollback
+    private static final class CommitActions {
+        private final List<Runnable> actions = new ArrayList<>();
+        private final List<Runnable> rollbackActions = new ArrayList<>();
+
+        void add(Runnable action) {
+            actions.add(action);
+        }
+
+        void addRollback(Runnable action) {
+            rollbackActions.add(action);
+        }
+
+        void runAll() {
+            rollbackActions.clear();
+            run(actions, "After-commit");
+        }
+
+        void rollingBack() {
+            actions.clear();
+            run(rollbackActions, "Before-rollback");
+        }
+
+        private static void run(List<Runnable> list, String kind) {
+            List<Runnable> pending = new ArrayList<>(list);
+            list.clear();
+            for (Runnable action : pending) {
+                try {
+                    action.run();
+                } catch (RuntimeException e) {
+                    // one failing action must not skip the others
+                    logger.error("{} action failed", kind, e);
+                }
+            }
+        }
+    }
+
+    public Connection acquire() throws SQLException {
+        long start = Metrics.start();
+        try {
+            if (!permits.tryAcquire(timeoutMillis, TimeUnit.MILLISECONDS)) {
+                timeouts.increment();
+                throw new SQLTimeoutException("Timed out after " + timeoutMillis + " ms waiting for a " + name + " connection");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a " + name + " connection", e);
+        }
+
+        Pooled pooled = idle.pollFirst();
+        try {
+            if (pooled == null || pooled.raw().isClosed()) pooled = open();
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+        acquireLatency.recordSince(start);
+
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, new PooledConnection(pooled));
+    }
+
+    private Pooled open() throws SQLException {
+        Connection conn = opener.getConnection();
+        opened.increment();
+        logger.debug("Opened {} connection", name);
+        StatementCache cache = statementCacheSize > 0
+                ? new StatementCache(conn, statementCacheSize, statementStats)
+                : null;
+        return new Pooled(conn, cache);
+    }
+
+    private void release(Pooled pooled, long acquiredAt) {
+        Connection raw = pooled.raw();
+        try {
+            if (!raw.isClosed()) {
+                if (!raw.getAutoCommit()) {
+                    raw.rollback();
+                    raw.setAutoCommit(true);
+                }
+                idle.offerFirst(pooled);
+            }
+        } catch (SQLException e) {
+            logger.warn("Discarding broken {} connection: {}", name, e.getMessage());
+            closeQuietly(raw);
+        } finally {
+            permits.release();
+            holdLatency.recordSince(acquiredAt);
+        }
+    }
+
+    public void close() {
+        Pooled pooled;
+        while ((pooled = idle.pollFirst()) != null) {
+            closeQuietly(pooled.raw()); // also finalises its cached statements
+        }
+    }
+
+    private static void closeQuietly(Connection conn) {
+        try {
+            conn.close();
+        } catch (SQLException ignored) {
+            // already unusable
+        }
+    }
+
+    // Borrowed view of a pooled connection: close() hands it back instead of closing the file handle
+    private final class PooledConnection implements InvocationHandler {
+        private final Pooled pooled;
+        private final Connection raw;
+        private final long acquiredAt = Metrics.start();
+        // statements the borrower forgot to close would keep a read snapshot open for the next borrower
+        private final List<Statement> statements = new ArrayList<>();
+        private final CommitActions afterCommit = new CommitActions();
+        private boolean closed;
+
+        PooledConnection(Pooled pooled) {
+            this.pooled = pooled;
+            this.raw = pooled.raw();
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close" -> {
+                    if (!closed) {
+                        closed = true;
+                        afterCommit.rollingBack(); // never committed: whatever release() rolls back did not happen
+                        try {
+                            for (Statement stmt : statements) {
+                                if (!stmt.isClosed()) stmt.close();
+                            }
+                        } finally {
+                            release(pooled, acquiredAt);
+                        }
+                    }
+                    return null;
+                }
+                case "isClosed" -> {
+                    return closed || raw.isClosed();
+                }
+                case "equals" -> {
+                    return proxy == args[0];
+                }
+                case "hashCode" -> {
+                    return System.identityHashCode(proxy);
+                }
+                case "unwrap", "isWrapperFor" -> {
+                    if (args[0] == CommitActions.class) {
+                        return method.getName().equals("unwrap") ? afterCommit : Boolean.TRUE;
+                    }
+                    return StatementTimer.invokeTarget(raw, method, args);
+                }
+                case "toString" -> {
+                    return StatementTimer.invokeTarget(raw, method, args);
+                }
+                case "commit", "rollback", "setAutoCommit" -> {
+                    if (closed) throw new SQLException("Connection returned to the " + name + " pool");
+                    // switching auto-commit back on commits an open transaction (JDBC 4.x)
+                    boolean commits = method.getName().equals("commit")
+                            || (method.getName().equals("setAutoCommit") && (Boolean) args[0] && !raw.getAutoCommit());
+                    if (method.getName().equals("rollback") && args == null) afterCommit.rollingBack();
+                    Object result = StatementTimer.invokeTarget(raw, method, args);
+                    if (commits) afterCommit.runAll();
+                    return result;
+                }
+                case "prepareStatement" -> {
+                    if (closed) throw new SQLException("Connection returned to the " + name + " pool");
+                    // only the plain prepareStatement(sql) form is cached; other variants carry per-call options
+                    if (pooled.statements() != null && args.length == 1) {
+                        PreparedStatement ps = pooled.statements().prepare((String) args[0], (Connection) proxy);
+                        track(ps);
+                        return ps;
+                    }
+                    Statement stmt = StatementTimer.instrument((Statement) StatementTimer.invokeTarget(raw, method, args), (String) args[0]);
+                    track(stmt);
+                    return stmt;
+                }
+                default -> {
+                    if (closed) throw new SQLException("Connection returned to the " + name + " pool");
+                    Object result = StatementTimer.invokeTarget(raw, method, args);
+                    if (result instanceof Statement stmt) {
+                        // prepareCall: its SQL is the first argument
+                        stmt = StatementTimer.instrument(stmt, stmt instanceof PreparedStatement ? (String) args[0] : null);
+                        track(stmt);
+                        return stmt;
+                    }
+                    return result;
+                }
+            }
+        }
+
+        private void track(Statement stmt) throws SQLException {
+            // long batch jobs prepare thousands of statements on one borrow; drop the closed ones as we go
+            if (statements.size() >= 64) {
+                List<Statement> open = new ArrayList<>();
+                for (Statement s : statements) {
+                    if (!s.isClosed()) open.add(s);
+                }
+                statements.clear();
+                statements.addAll(open);
+            }
+            statements.add(stmt);
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.bank.dao;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Source of JDBC connections for jobs that open their own connections per worker.
+ * {@code Database::getConnection} is the default; tests can point a job at a private database.
+ */
+@FunctionalInterface
+public interface ConnectionProvider {
+    Connection getConnection() throws SQLException;
+}
@@ -9,6 +9,9 @@ public class CreateTable {
         String dropTransactions = "DROP TABLE IF EXISTS transactions;";
         String dropUsers = "DROP TABLE IF EXISTS users;";
         String dropAccounts = "DROP TABLE IF EXISTS accounts;";
+        String dropLedger = "DROP TABLE IF EXISTS ledger_entries;";
+        String dropJournals = "DROP TABLE IF EXISTS ledger_journals;";
+        String dropSnapshots = "DROP TABLE IF EXISTS ledger_snapshots;";
 
         String createAccountsTable = """
     CREATE TABLE IF NOT EXISTS accounts (
@@ -62,6 +65,9 @@ public class CreateTable {
             // enable FK before creating
             stmt.execute("PRAGMA foreign_keys = ON;");
 
+            stmt.execute(dropSnapshots);
+            stmt.execute(dropLedger);
+            stmt.execute(dropJournals);
             stmt.execute(dropTransactions);
             stmt.execute(dropUsers);
             stmt.execute(dropAccounts);
@@ -69,6 +75,8 @@ public class CreateTable {
             stmt.execute(createAccountsTable);
             stmt.execute(createUsersTable);
             stmt.execute(createTransactionsTable);
+            stmt.execute("CREATE INDEX IF NOT EXISTS idx_transactions_account ON transactions(accountNumber);");
+            LedgerDAO.createTables(conn);
 
             System.out.println("✅ All tables recreated successfully with proper foreign keys.");
         } catch (Exception e) {
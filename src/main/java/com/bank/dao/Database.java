@@ -1,37 +1,190 @@
 package com.bank.dao;
 
 import java.sql.Connection;
-import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.concurrent.ConcurrentHashMap;
+import com.bank.jfr.ConnectionAcquireEvent;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 
 public class Database {
-    private static final String DB_URL = "jdbc:sqlite:src/main/resources/db/bank.db?busy_timeout=5000";
+    private static final String DB_DIR = "src/main/resources/db/";
     private static final Logger logger = LoggerFactory.getLogger(Database.class);
 
-    public static Connection getConnection() throws SQLException {
-        Connection conn = DriverManager.getConnection(DB_URL);
-        try (Statement stmt = conn.createStatement()) {
-            stmt.execute("PRAGMA foreign_keys = ON;");
-        }
-        return conn;
+    private static final Backend BACKEND = openBackend(System.getProperty("bank.db.backend", "sqlite"));
+
+    // SQLite has one writer per file, so a few write connections are enough; readers scale with cores
+    private static final int WRITE_POOL_SIZE = Integer.getInteger("bank.db.writePoolSize", 8);
+    private static final int READ_POOL_SIZE = Integer.getInteger("bank.db.readPoolSize",
+            Math.max(4, Runtime.getRuntime().availableProcessors() * 2));
+    private static final long POOL_TIMEOUT_MILLIS = Long.getLong("bank.db.poolTimeoutMillis", 10_000);
+    // compiled statements kept per pooled connection; the app issues a few dozen distinct SQL strings
+    private static final int STATEMENT_CACHE_SIZE = Integer.getInteger("bank.db.statementCacheSize", 64);
+
+    // bump whenever a table, index or trigger is added or changed, so existing databases get it on their next start
+    static final int SCHEMA_VERSION = 3;
+    // -Dbank.db.verifySchema=true runs the DDL even when the stored version is current (e.g. after restoring a shard file)
+    private static final boolean VERIFY_SCHEMA = Boolean.getBoolean("bank.db.verifySchema");
+
+    private static final ConcurrentHashMap<String, ConnectionPool> pools = new ConcurrentHashMap<>();
+
+    static {
+        // closing the last connection checkpoints the WAL back into the database file
+        Runtime.getRuntime().addShutdownHook(new Thread(Database::closePools, "db-pool-shutdown"));
     }
 
-    public static void createTableIfNotExists() {
-        String createAccountsTableSQL = """
+    static final String CREATE_ACCOUNTS_SQL = """
         CREATE TABLE IF NOT EXISTS accounts (
             id INTEGER PRIMARY KEY AUTOINCREMENT,
             accountNumber TEXT NOT NULL UNIQUE,
             accountHolder TEXT NOT NULL,
             phone TEXT,
             balance REAL NOT NULL,
-            email TEXT
+            email TEXT,
+            locked INTEGER DEFAULT 0,
+            alertThreshold REAL DEFAULT 0
         );
     """;
 
+    private static Backend openBackend(String name) {
+        return switch (name) {
+            case "sqlite" -> SqliteBackend.files(DB_DIR);
+            case "sqlite-memory" -> SqliteBackend.memory();
+            case "h2" -> new H2Backend();
+            default -> throw new IllegalArgumentException("Unknown bank.db.backend: " + name + " (sqlite, sqlite-memory or h2)");
+        };
+    }
+
+    /**
+     * The engine chosen by {@code bank.db.backend}; see {@link Backend}.
+     */
+    public static Backend backend() {
+        return BACKEND;
+    }
+
+    public static Dialect dialect() {
+        return BACKEND.dialect();
+    }
+
+    // -----------------------------
+    // Read-write connections
+    // -----------------------------
+
+    /**
+     * Connection to the main database (users, and accounts/transactions when not sharded).
+     */
+    public static Connection getConnection() throws SQLException {
+        // with sharding the accounts live in other files, so users.accountNumber cannot be enforced here
+        return acquire("bank", false, !ShardRouter.isSharded());
+    }
+
+    /**
+     * Connection to the database that owns {@code accountNumber}: its shard, or the main database when not sharded.
+     */
+    public static Connection getConnection(String accountNumber) throws SQLException {
+        return getShardConnection(ShardRouter.shardOf(accountNumber));
+    }
+
+    public static Connection getShardConnection(int shard) throws SQLException {
+        if (!ShardRouter.isSharded()) return getConnection();
+        return acquire("bank_shard" + shard, false, true);
+    }
+
+    // -----------------------------
+    // Read-only connections (query_only, separate pool: scans never queue behind writers)
+    // -----------------------------
+    public static Connection getReadConnection() throws SQLException {
+        return acquire("bank", true, false);
+    }
+
+    public static Connection getReadConnection(String accountNumber) throws SQLException {
+        return getShardReadConnection(ShardRouter.shardOf(accountNumber));
+    }
+
+    public static Connection getShardReadConnection(int shard) throws SQLException {
+        if (!ShardRouter.isSharded()) return getReadConnection();
+        return acquire("bank_shard" + shard, true, false);
+    }
+
+    // -----------------------------
+    // Archive connections (cold tier of each shard's transactions, see ArchiveDAO)
+    // -----------------------------
+    public static Connection getArchiveConnection(int shard) throws SQLException {
+        return acquire(shardFile(shard) + "_archive", false, false);
+    }
+
+    public static Connection getArchiveReadConnection(int shard) throws SQLException {
+        return acquire(shardFile(shard) + "_archive", true, false);
+    }
+
+    private static String shardFile(int shard) {
+        return ShardRouter.isSharded() ? "bank_shard" + shard : "bank";
+    }
+
+    public static int shardCount() {
+        return ShardRouter.SHARDS;
+    }
+
+    private static Connection acquire(String file, boolean readOnly, boolean foreignKeys) throws SQLException {
+        String poolName = file + (readOnly ? ".read" : ".write");
+        ConnectionPool pool = pools.get(poolName);
+        if (pool == null) {
+            pool = pools.computeIfAbsent(poolName, k -> new ConnectionPool(k, () -> BACKEND.open(file, readOnly, foreignKeys),
+                    readOnly, readOnly ? READ_POOL_SIZE : WRITE_POOL_SIZE, POOL_TIMEOUT_MILLIS, STATEMENT_CACHE_SIZE));
+        }
+
+        ConnectionAcquireEvent event = new ConnectionAcquireEvent();
+        event.begin();
+        Connection conn = pool.acquire();
+        if (event.shouldCommit()) {
+            event.url = poolName;
+            event.commit();
+        }
+        // statements are timed by the pool itself (see StatementTimer)
+        return conn;
+    }
+
+    /**
+     * Close every idle pooled connection. Connections still borrowed are closed by their owners as usual.
+     */
+    public static void closePools() {
+        pools.values().forEach(ConnectionPool::close);
+    }
+
+    /**
+     * Create every table, index and trigger, or skip all of it when the main database records that
+     * {@link #SCHEMA_VERSION} was already applied: the DDL opens a connection per shard and archive database
+     * and runs dozens of statements, which is most of the work before the first prompt.
+     */
+    public static void createTableIfNotExists() {
+        try (Connection conn = getConnection()) {
+            checkShardCount(conn);
+
+            if (VERIFY_SCHEMA || schemaVersion(conn) != SCHEMA_VERSION) {
+                if (createTables(conn)) {
+                    setSchemaVersion(conn);
+                }
+            } else {
+                logger.info("✅ Schema version {} is current; skipping table creation ({} shard(s), {}).",
+                        SCHEMA_VERSION, shardCount(), BACKEND.name());
+            }
+            ChangeFeedDAO.configureCapture();
+
+            if (ShardRouter.isSharded()) {
+                TransferCoordinator.getDefault().recover();
+            }
+        } catch (SQLException e) {
+            logger.error("❌ Failed to create tables: {}", e.getMessage(), e);
+        }
+    }
+
+    // true only if every DAO created its tables: a partial run must not be recorded as current
+    private static boolean createTables(Connection conn) throws SQLException {
+        // with sharding the accounts live in other databases, so the foreign key is only declared without it
         String createUsersTableSQL = """
         CREATE TABLE IF NOT EXISTS users (
             id INTEGER PRIMARY KEY AUTOINCREMENT,
@@ -39,20 +192,82 @@ public class Database {
             password TEXT NOT NULL,
             accountNumber TEXT,
             email TEXT,
-            FOREIGN KEY (accountNumber) REFERENCES accounts(accountNumber)
+            failed_attempts INTEGER DEFAULT 0,
+            locked INTEGER DEFAULT 0%s
         );
-    """;
+    """.formatted(ShardRouter.isSharded() ? "" : ",\n            FOREIGN KEY (accountNumber) REFERENCES accounts(accountNumber)");
+
+        // accounts first: engines that check foreign keys when the table is created need it to exist
+        for (int shard = 0; shard < shardCount(); shard++) {
+            try (Connection shardConn = getShardConnection(shard);
+                 Statement shardStmt = shardConn.createStatement()) {
+                shardStmt.execute(dialect().ddl(CREATE_ACCOUNTS_SQL));
+                if (ShardRouter.isSharded()) {
+                    TransferCoordinator.createParticipantLog(shardConn);
+                }
+            }
+        }
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute(dialect().ddl(createUsersTableSQL));
+        }
 
-        try (Connection conn = getConnection();
-             Statement stmt = conn.createStatement()) {
-            stmt.execute(createAccountsTableSQL);
-            stmt.execute(createUsersTableSQL);
-            logger.info("✅ Tables 'accounts' and 'users' ready (with email column) in database.");
+        if (ShardRouter.isSharded()) {
+            TransferCoordinator.createIntentLog(conn);
+        }
+        logger.info("✅ Tables 'accounts' and 'users' ready (with email column) in database ({} shard(s), {}).",
+                shardCount(), BACKEND.name());
 
-            // create/verify transactions table (unchanged behavior)
-            TransactionDAO.createTableIfNotExists();
-        } catch (SQLException e) {
-            logger.error("❌ Failed to create tables: {}", e.getMessage(), e);
+        // create/verify transactions table (unchanged behavior)
+        boolean ok = TransactionDAO.createTableIfNotExists();
+        ok &= LedgerDAO.createTableIfNotExists();
+        ok &= AggregateDAO.createTableIfNotExists();
+        ok &= ArchiveDAO.createTableIfNotExists();
+        ok &= AccrualDAO.createTableIfNotExists();
+        ok &= ScheduleDAO.createTableIfNotExists();
+        ok &= ChangeFeedDAO.createTableIfNotExists();
+        return ok;
+    }
+
+    // 0 for a new database, or one created before versions were recorded
+    private static int schemaVersion(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute(dialect().ddl("CREATE TABLE IF NOT EXISTS schema_version (version INTEGER NOT NULL)"));
+        }
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT MAX(version) FROM schema_version")) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    private static void setSchemaVersion(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.executeUpdate("DELETE FROM schema_version");
+        }
+        try (PreparedStatement ps = conn.prepareStatement("INSERT INTO schema_version(version) VALUES (?)")) {
+            ps.setInt(1, SCHEMA_VERSION);
+            ps.executeUpdate();
+        }
+    }
+
+    // Accounts are placed by hash(accountNumber) % shards, so reopening with a different count would lose them
+    private static void checkShardCount(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute(dialect().ddl("CREATE TABLE IF NOT EXISTS shard_config (shards INTEGER NOT NULL)"));
+        }
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT shards FROM shard_config")) {
+            if (rs.next()) {
+                int stored = rs.getInt(1);
+                if (stored != shardCount()) {
+                    throw new IllegalStateException("Database was created with " + stored
+                            + " shard(s) but bank.shards=" + shardCount());
+                }
+                return;
+            }
+        }
+        try (PreparedStatement ps = conn.prepareStatement("INSERT INTO shard_config(shards) VALUES (?)")) {
+            ps.setInt(1, shardCount());
+            ps.executeUpdate();
         }
     }
 
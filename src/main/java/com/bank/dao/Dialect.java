@@ -0,0 +1,78 @@
+package com.bank.dao;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+/**
+ * The SQL that differs between the engines behind a {@link Backend}. Statements are written in SQLite's
+ * syntax throughout the DAOs; where another engine disagrees (column types, upserts, RETURNING, triggers)
+ * the DAO asks the dialect of {@link Database#dialect()} for the statement instead.
+ */
+public interface Dialect {
+
+    /**
+     * A CREATE TABLE / CREATE INDEX statement written for SQLite, as this engine needs it.
+     */
+    String ddl(String sqliteDdl);
+
+    /**
+     * {@code update} (a plain UPDATE) as a query returning {@code columns} of every updated row.
+     */
+    String updateReturning(String update, String columns);
+
+    /**
+     * {@code delete} (a plain DELETE) as a query returning {@code columns} of every deleted row.
+     */
+    String deleteReturning(String delete, String columns);
+
+    /**
+     * INSERT of {@code columns}, one {@code ?} each, that applies {@code set} to the existing row instead when
+     * one with the same {@code keys} exists. In {@code set}, {@code excluded.c} is the value that was to be
+     * inserted and the row's current values must be qualified with the table name.
+     */
+    String upsert(String table, String columns, String keys, String set);
+
+    /**
+     * INSERT of {@code columns}, one {@code ?} each, that does nothing when a row with the same {@code keys} exists.
+     */
+    String insertOrIgnore(String table, String columns, String keys);
+
+    /**
+     * Condition that {@code column} is one of the ids given to {@link #bindIds} for its {@code ?}.
+     */
+    String inIds(String column);
+
+    void bindIds(PreparedStatement ps, int index, List<Long> ids) throws SQLException;
+
+    /**
+     * The current local time in the text form stored in timestamp columns ({@code yyyy-MM-dd HH:mm:ss}).
+     */
+    String localNow();
+
+    /**
+     * {@code yyyy-MM-dd} of a timestamp column.
+     */
+    String day(String timestamp);
+
+    /**
+     * {@code yyyy-MM} of a timestamp column.
+     */
+    String month(String timestamp);
+
+    /**
+     * A rupee amount expression rounded to whole paise, as a 64-bit integer.
+     */
+    String paise(String rupees);
+
+    boolean triggerExists(Connection conn, String name) throws SQLException;
+
+    /**
+     * Create trigger {@code name} on {@code event} (e.g. {@code AFTER INSERT ON transactions}) unless it exists.
+     * Engines with SQL triggers run {@code sqliteBody}; the others call the Java class {@code javaTrigger}
+     * once per affected row, which must do the same.
+     */
+    void createTrigger(Statement stmt, String name, String event, String sqliteBody, String javaTrigger) throws SQLException;
+}
@@ -0,0 +1,41 @@
+package com.bank.dao;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+
+/**
+ * H2 in-memory databases, one per name, kept until the JVM exits. H2 locks rows rather than the whole
+ * database, so writers on different accounts run in parallel; two transactions that lock the same rows in
+ * opposite order are a deadlock H2 breaks by failing one of them. Foreign keys are always enforced where
+ * declared, and {@code readOnly} is only a hint to H2.
+ */
+public final class H2Backend implements Backend {
+
+    private static final Dialect DIALECT = new H2Dialect();
+
+    /**
+     * How long a statement waits for a row lock before failing.
+     */
+    public static final long LOCK_TIMEOUT_MILLIS = 5_000;
+
+    // DAY, MONTH and VALUE are column names here but keywords in H2
+    private static final String OPTIONS = ";DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=" + LOCK_TIMEOUT_MILLIS + ";NON_KEYWORDS=DAY,MONTH,VALUE";
+
+    @Override
+    public String name() {
+        return "h2";
+    }
+
+    @Override
+    public Dialect dialect() {
+        return DIALECT;
+    }
+
+    @Override
+    public Connection open(String database, boolean readOnly, boolean foreignKeys) throws SQLException {
+        Connection conn = DriverManager.getConnection("jdbc:h2:mem:" + database + OPTIONS);
+        conn.setReadOnly(readOnly);
+        return conn;
+    }
+}
@@ -0,0 +1,126 @@
+package com.bank.dao;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * H2 2.x. SQLite's loose column types become their H2 equivalents: {@code INTEGER} is 64-bit in SQLite, so it
+ * maps to {@code BIGINT}, and {@code REAL} is a double, not H2's 4-byte {@code REAL}. Timestamps stay the same
+ * {@code yyyy-MM-dd HH:mm:ss} text, so they sort and compare as they do in SQLite. Upserts are {@code MERGE},
+ * RETURNING is a query over the {@code FINAL TABLE}/{@code OLD TABLE} of the change, and triggers are Java
+ * classes ({@link H2Triggers}). H2 has no partial indexes; their {@code WHERE} is dropped.
+ */
+public final class H2Dialect implements Dialect {
+
+    private static final String NOW = "FORMATDATETIME(LOCALTIMESTAMP, 'yyyy-MM-dd HH:mm:ss')";
+
+    private static final Pattern AUTOINCREMENT = Pattern.compile("INTEGER PRIMARY KEY AUTOINCREMENT");
+    private static final Pattern DATETIME_NOW = Pattern.compile("DATETIME DEFAULT \\(datetime\\('now', ?'localtime'\\)\\)");
+    private static final Pattern DATETIME = Pattern.compile("\\bDATETIME\\b");
+    private static final Pattern INTEGER = Pattern.compile("\\bINTEGER\\b");
+    private static final Pattern TEXT = Pattern.compile("\\bTEXT\\b");
+    private static final Pattern REAL = Pattern.compile("\\bREAL\\b");
+    private static final Pattern PARTIAL_INDEX = Pattern.compile("(?is)^(\\s*CREATE\\s+(?:UNIQUE\\s+)?INDEX\\b.*?\\))\\s*WHERE\\b.*$");
+
+    @Override
+    public String ddl(String sqliteDdl) {
+        String sql = AUTOINCREMENT.matcher(sqliteDdl).replaceAll("BIGINT AUTO_INCREMENT PRIMARY KEY");
+        sql = DATETIME_NOW.matcher(sql).replaceAll("VARCHAR(19) DEFAULT " + NOW);
+        sql = DATETIME.matcher(sql).replaceAll("VARCHAR(19)");
+        sql = INTEGER.matcher(sql).replaceAll("BIGINT");
+        sql = TEXT.matcher(sql).replaceAll("VARCHAR");
+        sql = REAL.matcher(sql).replaceAll("DOUBLE PRECISION");
+        return PARTIAL_INDEX.matcher(sql).replaceAll("$1");
+    }
+
+    @Override
+    public String updateReturning(String update, String columns) {
+        return "SELECT " + columns + " FROM FINAL TABLE (" + update + ")";
+    }
+
+    @Override
+    public String deleteReturning(String delete, String columns) {
+        return "SELECT " + columns + " FROM OLD TABLE (" + delete + ")";
+    }
+
+    @Override
+    public String upsert(String table, String columns, String keys, String set) {
+        return merge(table, columns, keys) + " WHEN MATCHED THEN UPDATE SET " + set + " WHEN NOT MATCHED THEN " + insert(columns);
+    }
+
+    @Override
+    public String insertOrIgnore(String table, String columns, String keys) {
+        return merge(table, columns, keys) + " WHEN NOT MATCHED THEN " + insert(columns);
+    }
+
+    // the row to insert is the one-row table "excluded", named as in SQLite's upsert
+    private static String merge(String table, String columns, String keys) {
+        StringBuilder on = new StringBuilder();
+        for (String key : keys.split(",")) {
+            if (on.length() > 0) on.append(" AND ");
+            on.append(table).append('.').append(key.trim()).append(" = excluded.").append(key.trim());
+        }
+        return "MERGE INTO " + table + " USING (VALUES (" + SqliteDialect.placeholders(columns) + ")) AS excluded("
+                + columns + ") ON " + on;
+    }
+
+    private static String insert(String columns) {
+        StringBuilder values = new StringBuilder();
+        for (String column : columns.split(",")) {
+            if (values.length() > 0) values.append(", ");
+            values.append("excluded.").append(column.trim());
+        }
+        return "INSERT (" + columns + ") VALUES (" + values + ")";
+    }
+
+    @Override
+    public String inIds(String column) {
+        return column + " = ANY(?)";
+    }
+
+    @Override
+    public void bindIds(PreparedStatement ps, int index, List<Long> ids) throws SQLException {
+        ps.setObject(index, ids.toArray(new Long[0]));
+    }
+
+    @Override
+    public String localNow() {
+        return NOW;
+    }
+
+    @Override
+    public String day(String timestamp) {
+        return "LEFT(" + timestamp + ", 10)";
+    }
+
+    @Override
+    public String month(String timestamp) {
+        return "LEFT(" + timestamp + ", 7)";
+    }
+
+    @Override
+    public String paise(String rupees) {
+        return "CAST(ROUND(" + rupees + " * 100) AS BIGINT)";
+    }
+
+    @Override
+    public boolean triggerExists(Connection conn, String name) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(
+                "SELECT 1 FROM INFORMATION_SCHEMA.TRIGGERS WHERE TRIGGER_SCHEMA = SCHEMA() AND TRIGGER_NAME = ?")) {
+            ps.setString(1, name.toUpperCase());
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next();
+            }
+        }
+    }
+
+    @Override
+    public void createTrigger(Statement stmt, String name, String event, String sqliteBody, String javaTrigger) throws SQLException {
+        stmt.execute("CREATE TRIGGER IF NOT EXISTS " + name + " " + event + " FOR EACH ROW CALL \"" + javaTrigger + "\"");
+    }
+}
@@ -0,0 +1,159 @@
+package com.bank.dao;
+
+import org.h2.api.Trigger;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Java versions of the SQL triggers the DAOs create on SQLite, for H2 (see {@link Dialect#createTrigger}).
+ * H2 creates one instance per trigger and calls {@code fire} for every affected row, inside the statement's
+ * transaction, so a failing trigger rolls the change back just like SQLite's.
+ */
+public final class H2Triggers {
+
+    private H2Triggers() {}
+
+    /**
+     * Rejects every UPDATE or DELETE of the table (SQLite: {@code RAISE(ABORT, ...)}).
+     */
+    public static final class AppendOnly implements Trigger {
+        private String table;
+
+        @Override
+        public void init(Connection conn, String schemaName, String triggerName, String tableName, boolean before, int type) {
+            this.table = tableName.toLowerCase();
+        }
+
+        @Override
+        public void fire(Connection conn, Object[] oldRow, Object[] newRow) throws SQLException {
+            throw new SQLException(table + " is append-only");
+        }
+    }
+
+    /**
+     * The {@code transactions_totals} trigger of {@link AggregateDAO}: adds each inserted transaction to the
+     * per-account daily and monthly totals and the bank-wide daily totals.
+     */
+    public static final class Totals implements Trigger {
+        private static final Dialect DIALECT = new H2Dialect();
+        private static final String ACCOUNT_DAY = DIALECT.upsert("account_daily_totals",
+                "accountNumber, day, type, txCount, amount", "accountNumber, day, type",
+                "txCount = account_daily_totals.txCount + 1, amount = account_daily_totals.amount + excluded.amount");
+        private static final String ACCOUNT_MONTH = DIALECT.upsert("account_monthly_totals",
+                "accountNumber, month, type, txCount, amount", "accountNumber, month, type",
+                "txCount = account_monthly_totals.txCount + 1, amount = account_monthly_totals.amount + excluded.amount");
+        private static final String BANK_DAY = DIALECT.upsert("bank_daily_totals",
+                "day, type, txCount, amount", "day, type",
+                "txCount = bank_daily_totals.txCount + 1, amount = bank_daily_totals.amount + excluded.amount");
+
+        private int account, type, amount, timestamp;
+
+        @Override
+        public void init(Connection conn, String schemaName, String triggerName, String tableName, boolean before, int type)
+                throws SQLException {
+            List<String> columns = columns(conn, schemaName, tableName);
+            this.account = columns.indexOf("accountnumber");
+            this.type = columns.indexOf("type");
+            this.amount = columns.indexOf("amount");
+            this.timestamp = columns.indexOf("timestamp");
+        }
+
+        @Override
+        public void fire(Connection conn, Object[] oldRow, Object[] newRow) throws SQLException {
+            String accountNumber = (String) newRow[account];
+            String txType = (String) newRow[type];
+            long paise = Math.round(((Number) newRow[amount]).doubleValue() * 100);
+            String ts = newRow[timestamp].toString();
+            String day = ts.substring(0, 10), month = ts.substring(0, 7);
+
+            try (PreparedStatement ps = conn.prepareStatement(ACCOUNT_DAY)) {
+                bind(ps, accountNumber, day, txType, paise);
+            }
+            try (PreparedStatement ps = conn.prepareStatement(ACCOUNT_MONTH)) {
+                bind(ps, accountNumber, month, txType, paise);
+            }
+            try (PreparedStatement ps = conn.prepareStatement(BANK_DAY)) {
+                ps.setString(1, day);
+                ps.setString(2, txType);
+                ps.setLong(3, 1);
+                ps.setLong(4, paise);
+                ps.executeUpdate();
+            }
+        }
+
+        private static void bind(PreparedStatement ps, String accountNumber, String period, String type, long paise) throws SQLException {
+            ps.setString(1, accountNumber);
+            ps.setString(2, period);
+            ps.setString(3, type);
+            ps.setLong(4, 1);
+            ps.setLong(5, paise);
+            ps.executeUpdate();
+        }
+    }
+
+    /**
+     * The {@code cdc_*} triggers of {@link ChangeFeedDAO}: one {@code change_events} row per inserted, updated
+     * or deleted account and per inserted transaction. H2 numbers the events when they are inserted, not when
+     * they commit, which the change feed allows for.
+     */
+    public static final class ChangeCapture implements Trigger {
+        private static final String INSERT = """
+                INSERT INTO change_events(entity, op, accountNumber, rowId, balance, type, amount, targetAccount)
+                VALUES (?, ?, ?, ?, ?, ?, ?, ?)
+                """;
+
+        private boolean accounts;
+        private int id, account, balance, type, amount, target;
+
+        @Override
+        public void init(Connection conn, String schemaName, String triggerName, String tableName, boolean before, int type)
+                throws SQLException {
+            List<String> columns = columns(conn, schemaName, tableName);
+            this.accounts = tableName.equalsIgnoreCase("accounts");
+            this.id = columns.indexOf("id");
+            this.account = columns.indexOf("accountnumber");
+            this.balance = columns.indexOf("balance");
+            this.type = columns.indexOf("type");
+            this.amount = columns.indexOf("amount");
+            this.target = columns.indexOf("targetaccount");
+        }
+
+        @Override
+        public void fire(Connection conn, Object[] oldRow, Object[] newRow) throws SQLException {
+            Object[] row = newRow != null ? newRow : oldRow;
+            String op = oldRow == null ? "insert" : newRow == null ? "delete" : "update";
+            try (PreparedStatement ps = conn.prepareStatement(INSERT)) {
+                ps.setString(1, accounts ? "account" : "transaction");
+                ps.setString(2, op);
+                ps.setString(3, (String) row[account]);
+                ps.setLong(4, ((Number) row[id]).longValue());
+                ps.setObject(5, accounts ? row[balance] : null);
+                ps.setObject(6, accounts ? null : row[type]);
+                ps.setObject(7, accounts ? null : row[amount]);
+                ps.setObject(8, accounts ? null : row[target]);
+                ps.executeUpdate();
+            }
+        }
+    }
+
+    // lower-case column names of the table, in row order
+    private static List<String> columns(Connection conn, String schemaName, String tableName) throws SQLException {
+        List<String> columns = new ArrayList<>();
+        try (PreparedStatement ps = conn.prepareStatement("""
+                SELECT COLUMN_NAME FROM INFORMATION_SCHEMA.COLUMNS
+                WHERE TABLE_SCHEMA = ? AND TABLE_NAME = ? ORDER BY ORDINAL_POSITION
+                """)) {
+            ps.setString(1, schemaName);
+            ps.setString(2, tableName);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) columns.add(rs.getString(1).toLowerCase());
+            }
+        }
+        return columns;
+    }
+}
@@ -0,0 +1,409 @@
+package com.bank.dao;
+
+import com.bank.risk.RiskEngine;
+import com.bank.util.Money;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Append-only double-entry ledger. Every money movement is posted as one journal whose legs
+ * sum to zero; accounts.balance is only a projection of these entries and can always be
+ * rebuilt from the latest snapshot plus the entries posted after it.
+ */
+public class LedgerDAO {
+
+    private static final Logger logger = LoggerFactory.getLogger(LedgerDAO.class);
+
+    // Ledger-only accounts used as the other side of money entering/leaving the bank
+    public static final String CASH_ACCOUNT = "SYS:CASH";
+    // Other side of each half of a cross-shard transfer; nets to zero across all shards
+    public static final String TRANSIT_ACCOUNT = "SYS:TRANSIT";
+    // Where interest paid out comes from and where fees charged go
+    public static final String INTEREST_ACCOUNT = "SYS:INTEREST";
+    public static final String FEES_ACCOUNT = "SYS:FEES";
+    // What a redone transfer could not take from its source account, pending follow-up
+    public static final String SUSPENSE_ACCOUNT = "SYS:SUSPENSE";
+
+    // Take a new snapshot of an account after this many entries since the previous one
+    static final int SNAPSHOT_INTERVAL = 100;
+
+    // Entries posted per account since its last snapshot (since JVM start; a restart only delays the next snapshot)
+    private static final ConcurrentHashMap<String, AtomicInteger> entriesSinceSnapshot = new ConcurrentHashMap<>();
+
+    public static boolean createTableIfNotExists() {
+        try {
+            for (int shard = 0; shard < Database.shardCount(); shard++) {
+                try (Connection conn = Database.getShardConnection(shard)) {
+                    createTables(conn);
+                }
+            }
+            logger.info("Ledger tables verified/created successfully.");
+            return true;
+        } catch (SQLException e) {
+            System.out.println("❌ Error creating ledger tables: " + e.getMessage());
+            logger.error("Failed to create ledger tables", e);
+            return false;
+        }
+    }
+
+    public static void createTables(Connection conn) throws SQLException {
+        String createJournals = """
+            CREATE TABLE IF NOT EXISTS ledger_journals (
+                id INTEGER PRIMARY KEY AUTOINCREMENT,
+                type TEXT NOT NULL,
+                timestamp DATETIME DEFAULT (datetime('now','localtime'))
+            );
+        """;
+
+        String createEntries = """
+            CREATE TABLE IF NOT EXISTS ledger_entries (
+                id INTEGER PRIMARY KEY AUTOINCREMENT,
+                journalId INTEGER NOT NULL REFERENCES ledger_journals(id),
+                accountNumber TEXT NOT NULL,
+                counterparty TEXT,
+                amount INTEGER NOT NULL
+            );
+        """;
+
+        String createSnapshots = """
+            CREATE TABLE IF NOT EXISTS ledger_snapshots (
+                accountNumber TEXT PRIMARY KEY,
+                balance INTEGER NOT NULL,
+                lastEntryId INTEGER NOT NULL,
+                timestamp DATETIME DEFAULT (datetime('now','localtime'))
+            );
+        """;
+
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute(Database.dialect().ddl(createJournals));
+            stmt.execute(Database.dialect().ddl(createEntries));
+            stmt.execute(Database.dialect().ddl(createSnapshots));
+            stmt.execute(Database.dialect().ddl("CREATE INDEX IF NOT EXISTS idx_ledger_entries_account ON ledger_entries(accountNumber, id);"));
+
+            // the ledger is append-only: reject any attempt to rewrite history
+            for (String change : new String[]{"update", "delete"}) {
+                Database.dialect().createTrigger(stmt, "ledger_entries_no_" + change,
+                        "BEFORE " + change.toUpperCase() + " ON ledger_entries",
+                        "SELECT RAISE(ABORT, 'ledger_entries is append-only');", "com.bank.dao.H2Triggers$AppendOnly");
+            }
+        }
+    }
+
+    // -----------------------------
+    // Posting (must run inside the caller's transaction)
+    // -----------------------------
+    public static long postOpening(Connection conn, String accountNumber, double amount) throws SQLException {
+        long paise = Money.toPaise(amount);
+        return post(conn, "open", accountNumber, CASH_ACCOUNT, paise);
+    }
+
+    public static long postDeposit(Connection conn, String accountNumber, double amount) throws SQLException {
+        long paise = Money.toPaise(amount);
+        long journalId = post(conn, "deposit", accountNumber, CASH_ACCOUNT, paise);
+        feedRisk(conn, risk -> risk.recordIncoming(accountNumber, paise, null));
+        return journalId;
+    }
+
+    public static long postWithdrawal(Connection conn, String accountNumber, double amount) throws SQLException {
+        long paise = Money.toPaise(amount);
+        long journalId = post(conn, "withdraw", CASH_ACCOUNT, accountNumber, paise);
+        feedRisk(conn, risk -> risk.recordOutgoing(accountNumber, paise, null));
+        return journalId;
+    }
+
+    public static long postTransfer(Connection conn, String fromAccount, String toAccount, double amount) throws SQLException {
+        long paise = Money.toPaise(amount);
+        long journalId = post(conn, "transfer", toAccount, fromAccount, paise);
+        feedRisk(conn, risk -> {
+            risk.recordOutgoing(fromAccount, paise, toAccount);
+            risk.recordIncoming(toAccount, paise, fromAccount);
+        });
+        return journalId;
+    }
+
+    // Halves of a transfer between shards: each shard's journal balances against the transit account.
+    // The other account only goes to the risk feed; the ledger names the transit account.
+    public static long postTransferOut(Connection conn, String fromAccount, String toAccount, double amount) throws SQLException {
+        long paise = Money.toPaise(amount);
+        long journalId = post(conn, "transfer_out", TRANSIT_ACCOUNT, fromAccount, paise);
+        feedRisk(conn, risk -> risk.recordOutgoing(fromAccount, paise, toAccount));
+        return journalId;
+    }
+
+    public static long postTransferIn(Connection conn, String toAccount, String fromAccount, double amount) throws SQLException {
+        long paise = Money.toPaise(amount);
+        long journalId = post(conn, "transfer_in", toAccount, TRANSIT_ACCOUNT, paise);
+        feedRisk(conn, risk -> risk.recordIncoming(toAccount, paise, fromAccount));
+        return journalId;
+    }
+
+    // The part of a redone transfer its source could no longer cover: suspense funds the transit account instead
+    public static long postTransferShortfall(Connection conn, double amount) throws SQLException {
+        return post(conn, "transfer_shortfall", TRANSIT_ACCOUNT, SUSPENSE_ACCOUNT, Money.toPaise(amount));
+    }
+
+    // The risk engine learns about a movement once it commits; connections that cannot report their commit are not fed
+    private static void feedRisk(Connection conn, Consumer<RiskEngine> event) throws SQLException {
+        RiskEngine risk = RiskEngine.getDefault();
+        if (risk.isActive() && ConnectionPool.supportsAfterCommit(conn)) {
+            ConnectionPool.afterCommit(conn, () -> event.accept(risk));
+        }
+    }
+
+    /**
+     * Post a two-leg journal: {@code credited} gains {@code paise}, {@code debited} loses it.
+     * Returns the journal id.
+     */
+    static long post(Connection conn, String type, String credited, String debited, long paise) throws SQLException {
+        if (paise <= 0) {
+            throw new SQLException("Ledger amount must be positive, got " + paise + " paise");
+        }
+
+        long journalId;
+        try (PreparedStatement ps = conn.prepareStatement(
+                "INSERT INTO ledger_journals(type) VALUES (?)", Statement.RETURN_GENERATED_KEYS)) {
+            ps.setString(1, type);
+            ps.executeUpdate();
+            try (ResultSet keys = ps.getGeneratedKeys()) {
+                if (!keys.next()) throw new SQLException("No journal id generated");
+                journalId = keys.getLong(1);
+            }
+        }
+
+        String sql = "INSERT INTO ledger_entries(journalId, accountNumber, counterparty, amount) VALUES (?, ?, ?, ?)";
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setLong(1, journalId);
+            ps.setString(2, debited);
+            ps.setString(3, credited);
+            ps.setLong(4, -paise);
+            ps.addBatch();
+
+            ps.setLong(1, journalId);
+            ps.setString(2, credited);
+            ps.setString(3, debited);
+            ps.setLong(4, paise);
+            ps.addBatch();
+
+            ps.executeBatch();
+        }
+
+        snapshotIfDue(conn, debited);
+        snapshotIfDue(conn, credited);
+        return journalId;
+    }
+
+    /**
+     * Post one journal for a whole batch of accrual movements: each account gains its signed amount in
+     * paise and {@code contraAccount} takes the opposite of their sum. Zero amounts are skipped.
+     * Returns the journal id, or 0 if there was nothing to post.
+     */
+    public static long postBulk(Connection conn, String type, String contraAccount, List<String> accountNumbers, long[] paise) throws SQLException {
+        long total = 0;
+        for (int i = 0; i < accountNumbers.size(); i++) total += paise[i];
+        if (total == 0) return 0;
+
+        long journalId;
+        try (PreparedStatement ps = conn.prepareStatement(
+                "INSERT INTO ledger_journals(type) VALUES (?)", Statement.RETURN_GENERATED_KEYS)) {
+            ps.setString(1, type);
+            ps.executeUpdate();
+            try (ResultSet keys = ps.getGeneratedKeys()) {
+                if (!keys.next()) throw new SQLException("No journal id generated");
+                journalId = keys.getLong(1);
+            }
+        }
+
+        String sql = "INSERT INTO ledger_entries(journalId, accountNumber, counterparty, amount) VALUES (?, ?, ?, ?)";
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            for (int i = 0; i < accountNumbers.size(); i++) {
+                if (paise[i] == 0) continue;
+                ps.setLong(1, journalId);
+                ps.setString(2, accountNumbers.get(i));
+                ps.setString(3, contraAccount);
+                ps.setLong(4, paise[i]);
+                ps.addBatch();
+            }
+            ps.setLong(1, journalId);
+            ps.setString(2, contraAccount);
+            ps.setString(3, null);
+            ps.setLong(4, -total);
+            ps.addBatch();
+            ps.executeBatch();
+        }
+
+        for (int i = 0; i < accountNumbers.size(); i++) {
+            if (paise[i] != 0) snapshotIfDue(conn, accountNumbers.get(i));
+        }
+        snapshotIfDue(conn, contraAccount);
+        return journalId;
+    }
+
+    // -----------------------------
+    // Snapshots & balance rebuild
+    // -----------------------------
+    private static void snapshotIfDue(Connection conn, String accountNumber) throws SQLException {
+        AtomicInteger counter = entriesSinceSnapshot.computeIfAbsent(accountNumber, k -> new AtomicInteger());
+        if (counter.incrementAndGet() < SNAPSHOT_INTERVAL) return;
+
+        counter.set(0);
+        takeSnapshot(conn, accountNumber);
+    }
+
+    static void takeSnapshot(Connection conn, String accountNumber) throws SQLException {
+        long[] state = replayFromSnapshot(conn, accountNumber);
+        String sql = Database.dialect().upsert("ledger_snapshots", "accountNumber, balance, lastEntryId", "accountNumber",
+                "balance = excluded.balance, lastEntryId = excluded.lastEntryId, timestamp = " + Database.dialect().localNow());
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setString(1, accountNumber);
+            ps.setLong(2, state[0]);
+            ps.setLong(3, state[1]);
+            ps.executeUpdate();
+        }
+        logger.debug("Ledger snapshot for {} at entry {}", accountNumber, state[1]);
+    }
+
+    /**
+     * Balance of an account in paise according to the ledger: latest snapshot plus the entries after it.
+     */
+    public static long getLedgerBalance(Connection conn, String accountNumber) throws SQLException {
+        return replayFromSnapshot(conn, accountNumber)[0];
+    }
+
+    // returns {balancePaise, lastEntryId}
+    private static long[] replayFromSnapshot(Connection conn, String accountNumber) throws SQLException {
+        long balance = 0;
+        long lastEntryId = 0;
+
+        try (PreparedStatement ps = conn.prepareStatement(
+                "SELECT balance, lastEntryId FROM ledger_snapshots WHERE accountNumber = ?")) {
+            ps.setString(1, accountNumber);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (rs.next()) {
+                    balance = rs.getLong("balance");
+                    lastEntryId = rs.getLong("lastEntryId");
+                }
+            }
+        }
+
+        String sql = "SELECT COALESCE(SUM(amount), 0), COALESCE(MAX(id), ?) FROM ledger_entries WHERE accountNumber = ? AND id > ?";
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setLong(1, lastEntryId);
+            ps.setString(2, accountNumber);
+            ps.setLong(3, lastEntryId);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (rs.next()) {
+                    balance += rs.getLong(1);
+                    lastEntryId = rs.getLong(2);
+                }
+            }
+        }
+        return new long[]{balance, lastEntryId};
+    }
+
+    /**
+     * Recompute one account's balance from the ledger and write it back to accounts.balance.
+     */
+    public static void rebuildBalance(Connection conn, String accountNumber) throws SQLException {
+        long paise = getLedgerBalance(conn, accountNumber);
+        try (PreparedStatement ps = conn.prepareStatement("UPDATE accounts SET balance = ? WHERE accountNumber = ?")) {
+            ps.setDouble(1, Money.toRupees(paise));
+            ps.setString(2, accountNumber);
+            ps.executeUpdate();
+        }
+        AccountDAO.cacheBalance(conn, accountNumber, paise);
+    }
+
+    /**
+     * Rebuild the balance projection of every account. Shards are rebuilt side by side, up to {@code threads}
+     * at once; within a shard one connection works through the accounts in transactions of
+     * {@code REBUILD_BATCH}, since SQLite has a single writer per file. Returns the number of accounts
+     * rebuilt, and throws if any shard failed (its finished batches stay committed; run it again).
+     */
+    public static int rebuildAllBalances(int threads) throws SQLException {
+        List<ConnectionProvider> shards = new ArrayList<>();
+        for (int shard = 0; shard < Database.shardCount(); shard++) {
+            final int owner = shard;
+            shards.add(() -> Database.getShardConnection(owner));
+        }
+        return rebuildAllBalances(shards, threads);
+    }
+
+    /**
+     * {@link #rebuildAllBalances(int)} over the given shard databases.
+     */
+    public static int rebuildAllBalances(List<ConnectionProvider> shards, int threads) throws SQLException {
+        int workers = Math.max(1, Math.min(threads, shards.size()));
+        ExecutorService pool = Executors.newFixedThreadPool(workers);
+        List<Future<Integer>> results = new ArrayList<>();
+        for (ConnectionProvider shard : shards) {
+            results.add(pool.submit(() -> rebuildShard(shard)));
+        }
+
+        int rebuilt = 0;
+        SQLException failure = null;
+        try {
+            for (Future<Integer> f : results) {
+                try {
+                    rebuilt += f.get();
+                } catch (ExecutionException e) {
+                    logger.error("Ledger rebuild of a shard failed", e.getCause());
+                    SQLException cause = e.getCause() instanceof SQLException sql ? sql : new SQLException(e.getCause());
+                    if (failure == null) failure = cause;
+                    else failure.addSuppressed(cause);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            failure = new SQLException("Ledger rebuild interrupted", e);
+        } finally {
+            pool.shutdown();
+        }
+
+        if (failure != null) {
+            logger.error("Ledger rebuild incomplete: {} account balances rebuilt before the failure", rebuilt);
+            throw failure;
+        }
+        logger.info("Rebuilt {} account balances from the ledger across {} shard(s) using {} workers", rebuilt, shards.size(), workers);
+        return rebuilt;
+    }
+
+    private static final int REBUILD_BATCH = 500;
+
+    private static int rebuildShard(ConnectionProvider shard) throws SQLException {
+        try (Connection conn = shard.getConnection()) {
+            List<String> accountNumbers = new ArrayList<>();
+            try (Statement stmt = conn.createStatement();
+                 ResultSet rs = stmt.executeQuery("SELECT accountNumber FROM accounts")) {
+                while (rs.next()) accountNumbers.add(rs.getString(1));
+            }
+
+            conn.setAutoCommit(false);
+            try {
+                for (int from = 0; from < accountNumbers.size(); from += REBUILD_BATCH) {
+                    // take the write lock before the first read: a read transaction cannot be upgraded once
+                    // another connection has written, and would fail with SQLITE_BUSY instead of waiting
+                    try (Statement stmt = conn.createStatement()) {
+                        stmt.executeUpdate("UPDATE accounts SET balance = balance WHERE 1 = 0");
+                    }
+                    for (String accountNumber : accountNumbers.subList(from, Math.min(from + REBUILD_BATCH, accountNumbers.size()))) {
+                        takeSnapshot(conn, accountNumber);
+                        rebuildBalance(conn, accountNumber);
+                    }
+                    conn.commit();
+                }
+                return accountNumbers.size();
+            } catch (SQLException | RuntimeException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        }
+    }
+}
@@ -0,0 +1,452 @@
+package com.bank.dao;
+
+import com.bank.util.Money;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Transaction history as an append-only log of fixed-width binary records in memory-mapped segment files
+ * ({@code txlog-000000.seg}, {@code txlog-000001.seg}, ...), each holding {@code recordsPerSegment} records.
+ *
+ * <pre>
+ *   0  long  id (record index + 1)        36 byte[24] accountNumber (ASCII)
+ *   8  long  previous record of the same account, -1 if none
+ *  16  long  timestamp (epoch millis)     60 byte[24] targetAccount
+ *  24  long  amount (paise)               84 int  CRC32 of bytes 0..83, state taken as 0
+ *  32  byte  type, 33 byte account length, 34 byte target length, 35 state (0 committed, 1 pending, 2 void)
+ * </pre>
+ *
+ * Each record links back to the previous record of its account, so the only index kept in memory is
+ * the newest record per account; an account's history is read newest-first by following the links.
+ * On open the segments are scanned from the start to rebuild that index, and the log ends at the first
+ * record whose id or CRC does not check out (a torn write): everything after it is zeroed.
+ *
+ * <p>Inside a SQLite transaction a record is written ahead of the commit: it is appended as pending and
+ * forced to disk, then becomes committed once the transaction commits, or void, forced again, just before
+ * it rolls back. Only committed records are read back. The append happens under the row lock of the shard's
+ * {@code txlog_mark} table, which the same transaction sets to the record's id; a crash can therefore
+ * leave only the newest records of a shard pending, and recovery settles each one against its shard's mark:
+ * committed if the mark reached it, void otherwise. A record written on an auto-commit connection is
+ * committed as soon as it is appended. {@code -Dbank.txlog.sync=false} skips the forcing, at the cost of
+ * losing the last records on a power failure. Deleting an account's history voids its committed records.
+ *
+ * <p>Aggregates, archiving, export, reconciliation and the live stream read the {@code transactions} table
+ * and never see history written by this engine, so they refuse to run under it
+ * ({@link TransactionDAO#requireTable}); report footers are summed from the history instead.
+ */
+public final class LogTransactionStore implements TransactionStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(LogTransactionStore.class);
+
+    static final int RECORD_SIZE = 88;
+    private static final int STATE_OFFSET = 35;
+    private static final int CRC_OFFSET = 84;
+
+    private static final byte COMMITTED = 0, PENDING = 1, VOID = 2;
+    private static final int ACCOUNT_BYTES = 24;
+
+    // type byte -> name; append new types at the end, never reorder
+    static final List<String> TYPES = List.of("open", "deposit", "withdraw", "transfer", "credit", "interest", "fee");
+
+    // same local wall-clock text SQLite's datetime('now','localtime') produces
+    private static final DateTimeFormatter TIMESTAMP = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final ZoneId ZONE = ZoneId.systemDefault();
+
+    private final Path dir;
+    private final int recordsPerSegment;
+    private final boolean sync;
+    private final CommitMarks marks;
+    private final List<MappedByteBuffer> segments = new CopyOnWriteArrayList<>();
+
+    // sparse index: newest record of each account (guarded by this)
+    private final Map<String, Long> newest = new HashMap<>();
+    private long next;
+
+    /**
+     * Where recovery finds how far the transactions of a shard committed: the {@code txlog_mark} of the
+     * shard holding {@code accountNumber}.
+     */
+    @FunctionalInterface
+    public interface CommitMarks {
+        long committedUpto(String accountNumber) throws SQLException;
+    }
+
+    private LogTransactionStore(Path dir, int recordsPerSegment, boolean sync, CommitMarks marks) {
+        this.dir = dir;
+        this.recordsPerSegment = recordsPerSegment;
+        this.sync = sync;
+        this.marks = marks;
+    }
+
+    public static LogTransactionStore open(Path dir, CommitMarks marks) throws IOException {
+        return open(dir, Integer.getInteger("bank.txlog.segmentRecords", 1 << 20),
+                Boolean.parseBoolean(System.getProperty("bank.txlog.sync", "true")), marks);
+    }
+
+    /**
+     * A log without a database behind it: records left pending by a crash are voided on recovery.
+     */
+    public static LogTransactionStore open(Path dir, int recordsPerSegment, boolean sync) throws IOException {
+        return open(dir, recordsPerSegment, sync, accountNumber -> 0);
+    }
+
+    /**
+     * @param sync force every record to disk before the transaction that wrote it commits
+     */
+    public static LogTransactionStore open(Path dir, int recordsPerSegment, boolean sync, CommitMarks marks) throws IOException {
+        Files.createDirectories(dir);
+        LogTransactionStore store = new LogTransactionStore(dir, recordsPerSegment, sync, marks);
+        store.recover();
+        return store;
+    }
+
+    /**
+     * The one-row {@code txlog_mark} table of a shard: the id of the newest record its transactions committed.
+     */
+    public static void createMarkTable(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute(Database.dialect().ddl("""
+                CREATE TABLE IF NOT EXISTS txlog_mark (
+                    id INTEGER PRIMARY KEY,
+                    upto INTEGER NOT NULL
+                );
+            """));
+        }
+        try (PreparedStatement ps = conn.prepareStatement(Database.dialect().insertOrIgnore("txlog_mark", "id, upto", "id"))) {
+            ps.setInt(1, 0);
+            ps.setLong(2, 0);
+            ps.executeUpdate();
+        }
+    }
+
+    public static long readMark(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT upto FROM txlog_mark WHERE id = 0")) {
+            return rs.next() ? rs.getLong(1) : 0;
+        }
+    }
+
+    // -----------------------------
+    // TransactionStore
+    // -----------------------------
+    @Override
+    public void record(Connection conn, String accountNumber, String type, double amount, String targetAccount) throws SQLException {
+        int typeCode = checkedType(type);
+        checkLength(accountNumber);
+        if (targetAccount != null) checkLength(targetAccount);
+        write(conn, new String[]{accountNumber}, typeCode, new long[]{Money.toPaise(amount)}, targetAccount);
+    }
+
+    @Override
+    public void recordAll(Connection conn, String type, List<String> accountNumbers, double[] amounts) throws SQLException {
+        if (accountNumbers.isEmpty()) return;
+        int typeCode = checkedType(type);
+        long[] paise = new long[accountNumbers.size()];
+        for (int i = 0; i < paise.length; i++) {
+            checkLength(accountNumbers.get(i));
+            paise[i] = Money.toPaise(amounts[i]);
+        }
+        write(conn, accountNumbers.toArray(new String[0]), typeCode, paise, null);
+    }
+
+    private static int checkedType(String type) throws SQLException {
+        int typeCode = TYPES.indexOf(type);
+        if (typeCode < 0) throw new SQLException("Transaction type not supported by the log store: " + type);
+        return typeCode;
+    }
+
+    private static void checkLength(String accountNumber) throws SQLException {
+        if (accountNumber.length() > ACCOUNT_BYTES) {
+            throw new SQLException("Account number longer than " + ACCOUNT_BYTES + " characters: " + accountNumber);
+        }
+    }
+
+    private void write(Connection conn, String[] accountNumbers, int typeCode, long[] paise, String targetAccount) throws SQLException {
+        long timestamp = System.currentTimeMillis();
+        try {
+            if (conn.getAutoCommit()) {
+                // nothing to commit with: the record is final once it is on disk. Appends of other writers can
+                // fall between this batch's records, so the range forced runs up to the last one appended
+                long first = -1, last = -1;
+                for (int i = 0; i < accountNumbers.length; i++) {
+                    last = append(accountNumbers[i], typeCode, paise[i], targetAccount, timestamp, COMMITTED);
+                    if (first < 0) first = last;
+                }
+                if (sync) force(first, last + 1);
+                return;
+            }
+
+            // the mark row is the shard's append lock, held until this transaction ends
+            try (Statement stmt = conn.createStatement()) {
+                if (stmt.executeUpdate("UPDATE txlog_mark SET upto = upto WHERE id = 0") != 1) {
+                    throw new SQLException("txlog_mark is not initialised on this database");
+                }
+            }
+            long[] records = new long[accountNumbers.length];
+            for (int i = 0; i < records.length; i++) {
+                records[i] = append(accountNumbers[i], typeCode, paise[i], targetAccount, timestamp, PENDING);
+            }
+            ConnectionPool.beforeRollback(conn, () -> settle(records, VOID, true));
+            ConnectionPool.afterCommit(conn, () -> settle(records, COMMITTED, false));
+            if (sync) force(records[0], records[records.length - 1] + 1);
+            try (PreparedStatement ps = conn.prepareStatement("UPDATE txlog_mark SET upto = ? WHERE id = 0")) {
+                ps.setLong(1, records[records.length - 1] + 1);
+                ps.executeUpdate();
+            }
+        } catch (IOException e) {
+            throw new SQLException("Failed to append to the transaction log", e);
+        }
+    }
+
+    // rolled-back records are voided durably before the transaction releases the mark row
+    private synchronized void settle(long[] records, byte state, boolean durable) {
+        for (long record : records) {
+            segments.get((int) (record / recordsPerSegment)).put(offset(record) + STATE_OFFSET, state);
+        }
+        if (durable && sync) force(records[0], records[records.length - 1] + 1);
+    }
+
+    // force records [from, to) to disk
+    private void force(long from, long to) {
+        for (long record = from; record < to; ) {
+            int segment = (int) (record / recordsPerSegment);
+            long end = Math.min(to, (long) (segment + 1) * recordsPerSegment);
+            segments.get(segment).force(offset(record), (int) (end - record) * RECORD_SIZE);
+            record = end;
+        }
+    }
+
+    private int offset(long record) {
+        return (int) (record % recordsPerSegment) * RECORD_SIZE;
+    }
+
+    @Override
+    public List<String[]> findByAccount(String accountNumber) {
+        long record;
+        synchronized (this) {
+            record = newest.getOrDefault(accountNumber, -1L);
+        }
+        List<String[]> history = new ArrayList<>();
+        while (record >= 0) {
+            ByteBuffer seg = segments.get((int) (record / recordsPerSegment));
+            int off = offset(record);
+            if (seg.get(off + STATE_OFFSET) != COMMITTED) {
+                record = seg.getLong(off + 8);
+                continue;
+            }
+            String time = LocalDateTime.ofInstant(Instant.ofEpochMilli(seg.getLong(off + 16)), ZONE).format(TIMESTAMP);
+            String target = seg.get(off + 34) == 0 ? null : ascii(seg, off + 60, seg.get(off + 34));
+            history.add(new String[]{time, TYPES.get(seg.get(off + 32)), String.valueOf(Money.toRupees(seg.getLong(off + 24))), target});
+            record = seg.getLong(off + 8);
+        }
+        return history;
+    }
+
+    /**
+     * Void every committed record of the account, forced to disk, once the caller's transaction commits
+     * (at once on an auto-commit connection). The records stay in the log, unread; the account's chain is
+     * kept, so records it writes later still link to them. Returns the number of records voided, or to be.
+     */
+    @Override
+    public int deleteAccount(Connection conn, String accountNumber) throws SQLException {
+        if (conn.getAutoCommit()) return voidAccount(accountNumber);
+        int committed = findByAccount(accountNumber).size();
+        ConnectionPool.afterCommit(conn, () -> voidAccount(accountNumber));
+        return committed;
+    }
+
+    private synchronized int voidAccount(String accountNumber) {
+        int voided = 0;
+        long record = newest.getOrDefault(accountNumber, -1L);
+        while (record >= 0) {
+            MappedByteBuffer seg = segments.get((int) (record / recordsPerSegment));
+            int off = offset(record);
+            if (seg.get(off + STATE_OFFSET) == COMMITTED) {
+                seg.put(off + STATE_OFFSET, VOID);
+                if (sync) force(record, record + 1);
+                voided++;
+            }
+            record = seg.getLong(off + 8);
+        }
+        if (voided > 0) logger.info("Voided {} transaction log records of {}", voided, accountNumber);
+        return voided;
+    }
+
+    /**
+     * Number of records in the log.
+     */
+    public synchronized long size() {
+        return next;
+    }
+
+    // -----------------------------
+    // Appending
+    // -----------------------------
+    // returns the record index
+    synchronized long append(String accountNumber, int typeCode, long paise, String targetAccount, long timestamp, byte state)
+            throws IOException {
+        long record = next;
+        int segment = (int) (record / recordsPerSegment);
+        if (segment == segments.size()) {
+            if (segment > 0) segments.get(segment - 1).force();
+            segments.add(map(segment));
+        }
+        MappedByteBuffer seg = segments.get(segment);
+        int off = offset(record);
+
+        seg.putLong(off, record + 1);
+        seg.putLong(off + 8, newest.getOrDefault(accountNumber, -1L));
+        seg.putLong(off + 16, timestamp);
+        seg.putLong(off + 24, paise);
+        seg.put(off + 32, (byte) typeCode);
+        seg.put(off + 33, putAscii(seg, off + 36, accountNumber));
+        seg.put(off + 34, targetAccount == null ? 0 : putAscii(seg, off + 60, targetAccount));
+        seg.put(off + STATE_OFFSET, state);
+        seg.putInt(off + CRC_OFFSET, crc(seg, off));
+
+        newest.put(accountNumber, record);
+        next = record + 1;
+        return record;
+    }
+
+    private static byte putAscii(ByteBuffer seg, int off, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.US_ASCII);
+        if (bytes.length > ACCOUNT_BYTES) throw new IllegalArgumentException("Account number too long for the log: " + value);
+        seg.put(off, bytes);
+        for (int i = bytes.length; i < ACCOUNT_BYTES; i++) seg.put(off + i, (byte) 0);
+        return (byte) bytes.length;
+    }
+
+    private static String ascii(ByteBuffer seg, int off, int length) {
+        byte[] bytes = new byte[length];
+        seg.get(off, bytes);
+        return new String(bytes, StandardCharsets.US_ASCII);
+    }
+
+    // the state byte counts as 0, so settling a record never invalidates its checksum
+    private static int crc(ByteBuffer seg, int off) {
+        CRC32 crc = new CRC32();
+        crc.update(seg.slice(off, STATE_OFFSET));
+        crc.update(0);
+        crc.update(seg.slice(off + STATE_OFFSET + 1, CRC_OFFSET - STATE_OFFSET - 1));
+        return (int) crc.getValue();
+    }
+
+    // -----------------------------
+    // Segments & recovery
+    // -----------------------------
+    private Path segmentFile(int segment) {
+        return dir.resolve(String.format("txlog-%06d.seg", segment));
+    }
+
+    private MappedByteBuffer map(int segment) throws IOException {
+        try (FileChannel ch = FileChannel.open(segmentFile(segment),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            // mapping past the end grows the file; fresh space reads as zeros, i.e. "no record"
+            return ch.map(FileChannel.MapMode.READ_WRITE, 0, (long) recordsPerSegment * RECORD_SIZE);
+        }
+    }
+
+    // Tail scan: replay every intact record into the index, stop at the first one that is not
+    private synchronized void recover() throws IOException {
+        int files;
+        try (Stream<Path> list = Files.list(dir)) {
+            files = (int) list.filter(p -> p.getFileName().toString().matches("txlog-\\d{6}\\.seg")).count();
+        }
+
+        long record = 0;
+        List<Long> pending = new ArrayList<>();
+        scan:
+        for (int segment = 0; segment < files; segment++) {
+            MappedByteBuffer seg = map(segment);
+            segments.add(seg);
+            for (int i = 0; i < recordsPerSegment; i++, record++) {
+                int off = i * RECORD_SIZE;
+                if (seg.getLong(off) != record + 1 || seg.getInt(off + CRC_OFFSET) != crc(seg, off)) break scan;
+                newest.put(ascii(seg, off + 36, seg.get(off + 33)), record);
+                if (seg.get(off + STATE_OFFSET) == PENDING) pending.add(record);
+            }
+        }
+        next = record;
+
+        // cut off a torn tail (records the OS wrote out of order) so it can never be mistaken for new appends;
+        // only slots that are not already empty are written, so a clean shutdown costs no I/O here
+        int lastSegment = (int) (next / recordsPerSegment);
+        if (lastSegment < segments.size()) {
+            MappedByteBuffer seg = segments.get(lastSegment);
+            byte[] empty = new byte[RECORD_SIZE];
+            boolean dirty = false;
+            for (int i = (int) (next % recordsPerSegment); i < recordsPerSegment; i++) {
+                int off = i * RECORD_SIZE;
+                if (seg.getLong(off) != 0 || seg.getInt(off + CRC_OFFSET) != 0) {
+                    seg.put(off, empty);
+                    dirty = true;
+                }
+            }
+            if (dirty) {
+                seg.force();
+                logger.warn("Zeroed a torn tail after record {} of the transaction log", next);
+            }
+        }
+        for (int segment = segments.size() - 1; segment > lastSegment; segment--) {
+            segments.remove(segment);
+            Files.delete(segmentFile(segment));
+            logger.warn("Dropped transaction log segment {} past the recovered tail", segment);
+        }
+        settlePending(pending);
+        logger.info("Transaction log recovered: {} records, {} accounts", next, newest.size());
+    }
+
+    // a pending record was written by a transaction that committed if and only if its shard's mark reached it
+    private void settlePending(List<Long> pending) {
+        int committed = 0;
+        for (long record : pending) {
+            MappedByteBuffer seg = segments.get((int) (record / recordsPerSegment));
+            int off = offset(record);
+            String accountNumber = ascii(seg, off + 36, seg.get(off + 33));
+            try {
+                boolean reached = marks.committedUpto(accountNumber) >= record + 1;
+                seg.put(off + STATE_OFFSET, reached ? COMMITTED : VOID);
+                if (reached) committed++;
+            } catch (SQLException e) {
+                // left pending, hence unread, until a later start can settle it
+                logger.error("Cannot settle pending transaction log record {} of {}", record + 1, accountNumber, e);
+            }
+        }
+        if (!pending.isEmpty()) {
+            for (MappedByteBuffer seg : segments) seg.force();
+            logger.warn("Settled {} pending transaction log records: {} committed, {} void", pending.size(), committed,
+                    pending.size() - committed);
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        for (MappedByteBuffer seg : segments) seg.force();
+    }
+}
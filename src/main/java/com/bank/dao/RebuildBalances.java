@@ -0,0 +1,19 @@
+package com.bank.dao;
+
+import java.sql.SQLException;
+
+public class RebuildBalances {
+    public static void main(String[] args) {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+
+        long start = System.currentTimeMillis();
+        try {
+            int rebuilt = LedgerDAO.rebuildAllBalances(threads);
+            System.out.println("✅ Rebuilt " + rebuilt + " account balances from the ledger in "
+                    + (System.currentTimeMillis() - start) + " ms.");
+        } catch (SQLException e) {
+            System.out.println("❌ Ledger rebuild failed: " + e.getMessage() + " (run it again to finish)");
+            System.exit(1);
+        }
+    }
+}
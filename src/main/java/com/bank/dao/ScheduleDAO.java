@@ -0,0 +1,182 @@
+package com.bank.dao;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Standing orders and future-dated transfers, kept on the main database next to the users. Only active
+ * schedules are indexed, by their next run, so finding what is due in a time window is a range scan of
+ * that window however many schedules exist in total.
+ */
+public class ScheduleDAO {
+
+    private static final Logger logger = LoggerFactory.getLogger(ScheduleDAO.class);
+
+    /**
+     * One schedule. {@code nextRun} is epoch millis; {@code intervalDays} is 0 for a one-off transfer;
+     * {@code remaining} counts the runs left, 0 meaning no limit.
+     */
+    public record Scheduled(long id, String fromAccount, String toAccount, double amount, long nextRun,
+                            int intervalDays, int remaining, String status, int failures, String lastError) {
+        public boolean recurring() {
+            return intervalDays > 0;
+        }
+    }
+
+    private static final String COLUMNS = "id, fromAccount, toAccount, amount, nextRun, intervalDays, remaining, status, failures, lastError";
+
+    public static boolean createTableIfNotExists() {
+        try (Connection conn = Database.getConnection()) {
+            createTables(conn);
+            logger.info("Scheduled transfers table verified/created successfully.");
+            return true;
+        } catch (SQLException e) {
+            System.out.println("❌ Error creating scheduled transfers table: " + e.getMessage());
+            logger.error("Failed to create scheduled transfers table", e);
+            return false;
+        }
+    }
+
+    public static void createTables(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute(Database.dialect().ddl("""
+                CREATE TABLE IF NOT EXISTS scheduled_transfers (
+                    id INTEGER PRIMARY KEY AUTOINCREMENT,
+                    fromAccount TEXT NOT NULL,
+                    toAccount TEXT NOT NULL,
+                    amount REAL NOT NULL,
+                    nextRun INTEGER NOT NULL,
+                    intervalDays INTEGER NOT NULL DEFAULT 0,
+                    remaining INTEGER NOT NULL DEFAULT 0,
+                    status TEXT NOT NULL DEFAULT 'active',
+                    failures INTEGER NOT NULL DEFAULT 0,
+                    lastError TEXT,
+                    created DATETIME DEFAULT (datetime('now','localtime'))
+                );
+            """));
+            // finished and cancelled schedules stay out of the index the engine scans (where partial indexes exist)
+            stmt.execute(Database.dialect().ddl("CREATE INDEX IF NOT EXISTS idx_scheduled_due ON scheduled_transfers(nextRun) WHERE status = 'active';"));
+            stmt.execute(Database.dialect().ddl("CREATE INDEX IF NOT EXISTS idx_scheduled_from ON scheduled_transfers(fromAccount);"));
+        }
+    }
+
+    public static long insert(Connection conn, String fromAccount, String toAccount, double amount, long firstRun,
+                              int intervalDays, int occurrences) throws SQLException {
+        String sql = "INSERT INTO scheduled_transfers(fromAccount, toAccount, amount, nextRun, intervalDays, remaining) VALUES (?, ?, ?, ?, ?, ?)";
+        try (PreparedStatement ps = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+            ps.setString(1, fromAccount);
+            ps.setString(2, toAccount);
+            ps.setDouble(3, amount);
+            ps.setLong(4, firstRun);
+            ps.setInt(5, intervalDays);
+            ps.setInt(6, intervalDays > 0 ? occurrences : 1);
+            ps.executeUpdate();
+            try (ResultSet keys = ps.getGeneratedKeys()) {
+                if (!keys.next()) throw new SQLException("No schedule id generated");
+                return keys.getLong(1);
+            }
+        }
+    }
+
+    /**
+     * Active schedules with {@code from <= nextRun < to}, earliest first.
+     */
+    public static List<Scheduled> findDue(Connection conn, long from, long to) throws SQLException {
+        String sql = "SELECT " + COLUMNS + " FROM scheduled_transfers WHERE status = 'active' AND nextRun >= ? AND nextRun < ? ORDER BY nextRun";
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setLong(1, from);
+            ps.setLong(2, to);
+            return read(ps);
+        }
+    }
+
+    public static List<Scheduled> findByAccount(Connection conn, String fromAccount) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(
+                "SELECT " + COLUMNS + " FROM scheduled_transfers WHERE fromAccount = ? ORDER BY status, nextRun")) {
+            ps.setString(1, fromAccount);
+            return read(ps);
+        }
+    }
+
+    private static List<Scheduled> read(PreparedStatement ps) throws SQLException {
+        List<Scheduled> schedules = new ArrayList<>();
+        try (ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                schedules.add(new Scheduled(rs.getLong(1), rs.getString(2), rs.getString(3), rs.getDouble(4), rs.getLong(5),
+                        rs.getInt(6), rs.getInt(7), rs.getString(8), rs.getInt(9), rs.getString(10)));
+            }
+        }
+        return schedules;
+    }
+
+    /**
+     * Write the new state of each schedule in {@code updated} in one batch: next run, runs left and status.
+     * Only schedules still active are touched, so a cancellation is never undone. Returns the update count of
+     * each schedule, in order: 0 for one that was cancelled in the meantime and must not be paid.
+     */
+    public static int[] advance(Connection conn, List<Scheduled> updated) throws SQLException {
+        if (updated.isEmpty()) return new int[0];
+        try (PreparedStatement ps = conn.prepareStatement(
+                "UPDATE scheduled_transfers SET nextRun = ?, remaining = ?, status = ? WHERE id = ? AND status = 'active'")) {
+            for (Scheduled s : updated) {
+                ps.setLong(1, s.nextRun());
+                ps.setInt(2, s.remaining());
+                ps.setString(3, s.status());
+                ps.setLong(4, s.id());
+                ps.addBatch();
+            }
+            return ps.executeBatch();
+        }
+    }
+
+    /**
+     * Count a failed run against each schedule in one batch; one-off transfers that failed are closed as {@code failed}.
+     */
+    public static void recordFailures(Connection conn, List<Scheduled> failed, List<String> errors) throws SQLException {
+        if (failed.isEmpty()) return;
+        try (PreparedStatement ps = conn.prepareStatement("""
+                UPDATE scheduled_transfers SET failures = failures + 1, lastError = ?,
+                    status = CASE WHEN intervalDays = 0 AND status IN ('active', 'done') THEN 'failed' ELSE status END
+                WHERE id = ?
+            """)) {
+            for (int i = 0; i < failed.size(); i++) {
+                ps.setString(1, errors.get(i));
+                ps.setLong(2, failed.get(i).id());
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        }
+    }
+
+    /**
+     * Cancel a schedule of {@code fromAccount}. Returns false if there is no such active schedule.
+     */
+    public static boolean cancel(Connection conn, long id, String fromAccount) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(
+                "UPDATE scheduled_transfers SET status = 'cancelled' WHERE id = ? AND fromAccount = ? AND status = 'active'")) {
+            ps.setLong(1, id);
+            ps.setString(2, fromAccount);
+            return ps.executeUpdate() == 1;
+        }
+    }
+
+    /**
+     * Cancel every active schedule paying from or to {@code accountNumber}. Returns how many were cancelled.
+     */
+    public static int cancelForAccount(Connection conn, String accountNumber) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(
+                "UPDATE scheduled_transfers SET status = 'cancelled' WHERE (fromAccount = ? OR toAccount = ?) AND status = 'active'")) {
+            ps.setString(1, accountNumber);
+            ps.setString(2, accountNumber);
+            return ps.executeUpdate();
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.bank.dao;
+
+/**
+ * Maps an account number to the database shard that owns it. The shard count comes from
+ * {@code -Dbank.shards=N} (default 1 = the single bank.db, no sharding). The mapping is a fixed
+ * hash of the account number, so the shard count must not change once a database has data;
+ * {@link Database#createTableIfNotExists()} refuses to start on a mismatch.
+ */
+public final class ShardRouter {
+
+    public static final int SHARDS = Math.max(1, Integer.getInteger("bank.shards", 1));
+
+    private ShardRouter() { /* no instances */ }
+
+    public static boolean isSharded() {
+        return SHARDS > 1;
+    }
+
+    public static int shardOf(String accountNumber) {
+        return shardOf(accountNumber, SHARDS);
+    }
+
+    public static int shardOf(String accountNumber, int shards) {
+        if (shards == 1) return 0;
+        // String.hashCode is specified by the JLS, so the result is stable across JVMs and restarts;
+        // the finaliser spreads sequential "ACC<millis>" numbers evenly instead of round-robin by last digit
+        int h = accountNumber.hashCode();
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return Math.floorMod(h, shards);
+    }
+}
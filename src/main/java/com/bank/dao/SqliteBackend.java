@@ -0,0 +1,81 @@
+package com.bank.dao;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * SQLite, on files or in memory. In memory each database is a {@code memdb} VFS image shared by every
+ * connection of the process that names it; unlike a shared-cache {@code :memory:} database it keeps SQLite's
+ * normal locking, so writers wait out {@code busy_timeout} instead of failing. It has no WAL, so a commit
+ * waits for open reads to finish. The image lives as long as one connection to it is open, which the
+ * backend keeps for the life of the process.
+ */
+public final class SqliteBackend implements Backend {
+
+    private static final Dialect DIALECT = new SqliteDialect();
+
+    private final String name;
+    private final String prefix;
+    private final String suffix;
+    private final boolean memory;
+    private final ConcurrentHashMap<String, Connection> anchors = new ConcurrentHashMap<>();
+
+    private SqliteBackend(String name, String prefix, String suffix, boolean memory) {
+        this.name = name;
+        this.prefix = prefix;
+        this.suffix = suffix;
+        this.memory = memory;
+    }
+
+    /**
+     * Databases as {@code <dir>/<database>.db}.
+     */
+    public static SqliteBackend files(String dir) {
+        return new SqliteBackend("sqlite", "jdbc:sqlite:" + dir, ".db?busy_timeout=5000", false);
+    }
+
+    public static SqliteBackend memory() {
+        return new SqliteBackend("sqlite-memory", "jdbc:sqlite:file:/", "?vfs=memdb&busy_timeout=5000", true);
+    }
+
+    @Override
+    public String name() {
+        return name;
+    }
+
+    @Override
+    public Dialect dialect() {
+        return DIALECT;
+    }
+
+    @Override
+    public Connection open(String database, boolean readOnly, boolean foreignKeys) throws SQLException {
+        String url = prefix + database + suffix;
+        if (memory && !anchors.containsKey(database)) {
+            synchronized (anchors) {
+                if (!anchors.containsKey(database)) anchors.put(database, DriverManager.getConnection(url));
+            }
+        }
+        return configure(DriverManager.getConnection(url), readOnly, foreignKeys);
+    }
+
+    /**
+     * Per-connection settings of a pooled SQLite connection.
+     */
+    public static Connection configure(Connection conn, boolean readOnly, boolean foreignKeys) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            // persistent per file; cheap no-op once the file is already in WAL mode (memdb stays in its own mode)
+            stmt.execute("PRAGMA journal_mode = WAL;");
+            stmt.execute("PRAGMA synchronous = NORMAL;");
+            if (foreignKeys) stmt.execute("PRAGMA foreign_keys = ON;");
+            if (readOnly) stmt.execute("PRAGMA query_only = ON;");
+        } catch (SQLException e) {
+            conn.close();
+            throw e;
+        }
+        return conn;
+    }
+}
@@ -0,0 +1,94 @@
+package com.bank.dao;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.StringJoiner;
+
+/**
+ * SQLite 3.35+: the syntax the DAOs are written in, so most methods hand the statement back unchanged.
+ */
+public final class SqliteDialect implements Dialect {
+
+    @Override
+    public String ddl(String sqliteDdl) {
+        return sqliteDdl;
+    }
+
+    @Override
+    public String updateReturning(String update, String columns) {
+        return update + " RETURNING " + columns;
+    }
+
+    @Override
+    public String deleteReturning(String delete, String columns) {
+        return delete + " RETURNING " + columns;
+    }
+
+    @Override
+    public String upsert(String table, String columns, String keys, String set) {
+        return "INSERT INTO " + table + "(" + columns + ") VALUES (" + placeholders(columns) + ") ON CONFLICT(" + keys
+                + ") DO UPDATE SET " + set;
+    }
+
+    @Override
+    public String insertOrIgnore(String table, String columns, String keys) {
+        return "INSERT OR IGNORE INTO " + table + "(" + columns + ") VALUES (" + placeholders(columns) + ")";
+    }
+
+    // one text parameter whatever the number of ids, so the statement is cached once
+    @Override
+    public String inIds(String column) {
+        return column + " IN (SELECT value FROM json_each(?))";
+    }
+
+    @Override
+    public void bindIds(PreparedStatement ps, int index, List<Long> ids) throws SQLException {
+        StringJoiner json = new StringJoiner(",", "[", "]");
+        ids.forEach(id -> json.add(Long.toString(id)));
+        ps.setString(index, json.toString());
+    }
+
+    @Override
+    public String localNow() {
+        return "datetime('now','localtime')";
+    }
+
+    @Override
+    public String day(String timestamp) {
+        return "date(" + timestamp + ")";
+    }
+
+    @Override
+    public String month(String timestamp) {
+        return "strftime('%Y-%m', " + timestamp + ")";
+    }
+
+    @Override
+    public String paise(String rupees) {
+        return "CAST(round(" + rupees + " * 100) AS INTEGER)";
+    }
+
+    @Override
+    public boolean triggerExists(Connection conn, String name) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement("SELECT 1 FROM sqlite_master WHERE type = 'trigger' AND name = ?")) {
+            ps.setString(1, name);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next();
+            }
+        }
+    }
+
+    @Override
+    public void createTrigger(Statement stmt, String name, String event, String sqliteBody, String javaTrigger) throws SQLException {
+        stmt.execute("CREATE TRIGGER IF NOT EXISTS " + name + " " + event + " BEGIN " + sqliteBody + " END;");
+    }
+
+    static String placeholders(String columns) {
+        int n = columns.split(",").length;
+        return "?" + ", ?".repeat(n - 1);
+    }
+}
@@ -0,0 +1,81 @@
+package com.bank.dao;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The default engine: rows in each shard's {@code transactions} table, written on the caller's connection
+ * so they commit or roll back with the balance update. Reads cover the live and the archive tier.
+ */
+public class SqliteTransactionStore implements TransactionStore {
+
+    private static final String INSERT_SQL = "INSERT INTO transactions(accountNumber, type, amount, targetAccount) VALUES (?, ?, ?, ?)";
+
+    @Override
+    public void record(Connection conn, String accountNumber, String type, double amount, String targetAccount) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(INSERT_SQL)) {
+            ps.setString(1, accountNumber);
+            ps.setString(2, type);
+            ps.setDouble(3, amount);
+            ps.setString(4, targetAccount);
+            ps.executeUpdate();
+        }
+    }
+
+    @Override
+    public void recordAll(Connection conn, String type, List<String> accountNumbers, double[] amounts) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(INSERT_SQL)) {
+            for (int i = 0; i < accountNumbers.size(); i++) {
+                ps.setString(1, accountNumbers.get(i));
+                ps.setString(2, type);
+                ps.setDouble(3, amounts[i]);
+                ps.setString(4, null);
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        }
+    }
+
+    // the archive tier is cleared separately, by ArchiveDAO.deleteAccount
+    @Override
+    public int deleteAccount(Connection conn, String accountNumber) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement("DELETE FROM transactions WHERE accountNumber = ?")) {
+            ps.setString(1, accountNumber);
+            return ps.executeUpdate();
+        }
+    }
+
+    @Override
+    public List<String[]> findByAccount(String accountNumber) throws SQLException {
+        List<String[]> transactions = new ArrayList<>();
+        Set<Long> liveIds = new HashSet<>();
+        String sql = "SELECT id, timestamp, type, amount, targetAccount FROM transactions WHERE accountNumber = ? ORDER BY timestamp DESC";
+
+        try (Connection conn = Database.getReadConnection(accountNumber);
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setString(1, accountNumber);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    liveIds.add(rs.getLong("id"));
+                    transactions.add(new String[]{rs.getString("timestamp"), rs.getString("type"),
+                            String.valueOf(rs.getDouble("amount")), rs.getString("targetAccount")});
+                }
+            }
+        }
+
+        List<String[]> archived = ArchiveDAO.getTransactionsByAccount(accountNumber, liveIds);
+        if (!archived.isEmpty()) {
+            transactions.addAll(archived);
+            // the tiers overlap only around the archive cutoff; a stable sort keeps each tier's order
+            transactions.sort(Comparator.comparing((String[] tx) -> tx[0], Comparator.nullsLast(Comparator.reverseOrder())));
+        }
+        return transactions;
+    }
+}
@@ -0,0 +1,195 @@
+package com.bank.dao;
+
+import com.bank.metrics.Counter;
+import com.bank.metrics.LatencyHistogram;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * LRU cache of compiled statements for one pooled connection, keyed by SQL text. A cache hit hands
+ * back the already-prepared statement, so SQLite skips parsing and planning; closing it only resets
+ * it (open result sets closed, parameters cleared) and returns it to the cache.
+ *
+ * <p>Not thread-safe: a pooled connection, and so its cache, is used by one borrower at a time.
+ */
+final class StatementCache {
+
+    private final Connection raw;
+    private final int capacity;
+    private final Stats stats;
+
+    // access-ordered: iteration starts at the least recently used statement
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    private static final class Entry {
+        final PreparedStatement statement;
+        final LatencyHistogram histogram;
+        boolean inUse;
+        boolean evicted;
+
+        Entry(PreparedStatement statement, String sql) {
+            this.statement = statement;
+            this.histogram = StatementTimer.histogram(sql);
+        }
+    }
+
+    /**
+     * Hits, misses and evictions of every cache of one pool. Always counted, so the pool can report them
+     * without {@code bank.metrics}; the metric counters are fed as well when metrics are on.
+     */
+    static final class Stats {
+        final LongAdder hits = new LongAdder();
+        final LongAdder misses = new LongAdder();
+        final LongAdder evictions = new LongAdder();
+        private final Counter hitMetric;
+        private final Counter missMetric;
+        private final Counter evictionMetric;
+
+        Stats(Counter hitMetric, Counter missMetric, Counter evictionMetric) {
+            this.hitMetric = hitMetric;
+            this.missMetric = missMetric;
+            this.evictionMetric = evictionMetric;
+        }
+
+        void hit() {
+            hits.increment();
+            hitMetric.increment();
+        }
+
+        void miss() {
+            misses.increment();
+            missMetric.increment();
+        }
+
+        void evicted() {
+            evictions.increment();
+            evictionMetric.increment();
+        }
+    }
+
+    StatementCache(Connection raw, int capacity, Stats stats) {
+        this.raw = raw;
+        this.capacity = capacity;
+        this.stats = stats;
+    }
+
+    /**
+     * Borrow the compiled statement for {@code sql}; {@code owner} is the borrowed connection it reports as its own.
+     */
+    PreparedStatement prepare(String sql, Connection owner) throws SQLException {
+        Entry entry = entries.get(sql);
+        if (entry != null && !entry.inUse) {
+            stats.hit();
+        } else if (entry != null) {
+            // the same SQL is already open on this connection (nested use): hand out a private copy
+            stats.miss();
+            return (PreparedStatement) StatementTimer.instrument(raw.prepareStatement(sql), sql);
+        } else {
+            stats.miss();
+            entry = new Entry(raw.prepareStatement(sql), sql);
+            entries.put(sql, entry);
+            evictOverflow();
+        }
+        entry.inUse = true;
+        return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                new Class<?>[]{PreparedStatement.class}, new Checkout(sql, entry, owner));
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    private void evictOverflow() throws SQLException {
+        Iterator<Map.Entry<String, Entry>> it = entries.entrySet().iterator();
+        while (entries.size() > capacity && it.hasNext()) {
+            Entry eldest = it.next().getValue();
+            it.remove();
+            stats.evicted();
+            if (eldest.inUse) {
+                eldest.evicted = true; // closed for real when its borrower closes it
+            } else {
+                eldest.statement.close();
+            }
+        }
+    }
+
+    // One borrow of a cached statement; close() resets it for the next caller instead of finalising it
+    private final class Checkout implements InvocationHandler {
+        private final String sql;
+        private final Entry entry;
+        private final Connection owner;
+        private final List<ResultSet> resultSets = new ArrayList<>(1);
+        private boolean closed;
+
+        Checkout(String sql, Entry entry, Connection owner) {
+            this.sql = sql;
+            this.entry = entry;
+            this.owner = owner;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close" -> {
+                    if (!closed) {
+                        closed = true;
+                        giveBack();
+                    }
+                    return null;
+                }
+                case "isClosed" -> {
+                    return closed || entry.statement.isClosed();
+                }
+                case "equals" -> {
+                    return proxy == args[0];
+                }
+                case "hashCode" -> {
+                    return System.identityHashCode(proxy);
+                }
+                case "getConnection" -> {
+                    return owner; // never leak the raw connection past the pool
+                }
+                default -> {
+                    if (closed) throw new SQLException("Statement already closed: " + sql);
+                    // timed here rather than through another proxy layer
+                    Object result = method.getName().startsWith("execute")
+                            ? StatementTimer.execute(entry.statement, method, args, sql, entry.histogram)
+                            : StatementTimer.invokeTarget(entry.statement, method, args);
+                    if (result instanceof ResultSet rs) resultSets.add(rs);
+                    return result;
+                }
+            }
+        }
+
+        private void giveBack() throws SQLException {
+            PreparedStatement ps = entry.statement;
+            try {
+                // closing the result set resets the SQLite statement and ends its implicit read transaction
+                for (ResultSet rs : resultSets) {
+                    if (!rs.isClosed()) rs.close();
+                }
+                ps.clearParameters();
+                ps.clearBatch();
+            } catch (SQLException e) {
+                entries.remove(sql, entry);
+                ps.close();
+                throw e;
+            } finally {
+                entry.inUse = false;
+            }
+            if (entry.evicted) ps.close();
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.bank.dao;
+
+import com.bank.jfr.SqlStatementEvent;
+import com.bank.metrics.LatencyHistogram;
+import com.bank.metrics.Metrics;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+
+/**
+ * Times statement executions per SQL text and emits them as {@link SqlStatementEvent}s. Cached statements
+ * are timed by {@link StatementCache}'s own checkout proxy, so the hot path adds no wrapper and allocates
+ * nothing unless a recording has the JFR event on. Statements the cache does not serve are wrapped here,
+ * and only while metrics or the event are enabled.
+ */
+final class StatementTimer {
+
+    private StatementTimer() { /* no instances */ }
+
+    static boolean enabled() {
+        return Metrics.ENABLED || SqlStatementEvent.isTypeEnabled();
+    }
+
+    /**
+     * {@code stmt} itself when nothing is being measured, otherwise a view of it whose executions are timed;
+     * {@code sql} is the prepared SQL, or null for a plain statement.
+     */
+    static Statement instrument(Statement stmt, String sql) {
+        // a CallableStatement would lose its interface behind the proxy; stored procedures are not used here
+        if (!enabled() || stmt instanceof CallableStatement) return stmt;
+        if (stmt instanceof PreparedStatement) {
+            return (Statement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                    new Class<?>[]{PreparedStatement.class}, new StatementHandler(stmt, sql));
+        }
+        return (Statement) Proxy.newProxyInstance(Statement.class.getClassLoader(),
+                new Class<?>[]{Statement.class}, new StatementHandler(stmt, null));
+    }
+
+    /**
+     * Run an {@code execute*} call on {@code target}, timed into {@code histogram} (null when metrics are off).
+     */
+    static Object execute(Object target, Method method, Object[] args, String sql, LatencyHistogram histogram) throws Throwable {
+        if (!SqlStatementEvent.isTypeEnabled()) {
+            if (histogram == null) return invokeTarget(target, method, args);
+            long start = Metrics.start();
+            try {
+                return invokeTarget(target, method, args);
+            } finally {
+                histogram.recordSince(start);
+            }
+        }
+
+        SqlStatementEvent event = new SqlStatementEvent();
+        event.begin();
+        long start = Metrics.start();
+        Object result = null;
+        try {
+            result = invokeTarget(target, method, args);
+            return result;
+        } finally {
+            if (histogram != null) histogram.recordSince(start);
+            if (event.shouldCommit()) {
+                event.sql = sql;
+                event.rows = rowCount(result);
+                event.commit();
+            }
+        }
+    }
+
+    /**
+     * The histogram for {@code sql}, or null when metrics are off.
+     */
+    static LatencyHistogram histogram(String sql) {
+        return Metrics.ENABLED && sql != null ? Metrics.sql(sql) : null;
+    }
+
+    private static final class StatementHandler implements InvocationHandler {
+        private final Statement target;
+        private final String preparedSql;
+        private final LatencyHistogram preparedHistogram;
+
+        StatementHandler(Statement target, String sql) {
+            this.target = target;
+            this.preparedSql = sql;
+            this.preparedHistogram = histogram(sql);
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if (!method.getName().startsWith("execute")) {
+                return invokeTarget(target, method, args);
+            }
+            // plain statements carry their SQL as the first argument
+            if (preparedSql == null && args != null && args.length > 0 && args[0] instanceof String s) {
+                return execute(target, method, args, s, histogram(s));
+            }
+            return execute(target, method, args, preparedSql, preparedHistogram);
+        }
+    }
+
+    private static long rowCount(Object result) {
+        if (result instanceof Integer n) return n;
+        if (result instanceof Long n) return n;
+        if (result instanceof int[] batch) {
+            long total = 0;
+            for (int n : batch) total += Math.max(n, 0);
+            return total;
+        }
+        return -1;
+    }
+
+    static Object invokeTarget(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
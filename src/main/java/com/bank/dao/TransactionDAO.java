@@ -2,8 +2,10 @@ package com.bank.dao;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
 import java.sql.Connection;
-import java.sql.PreparedStatement;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.*;
@@ -12,7 +14,7 @@ public class TransactionDAO {
 
     private static final Logger logger = LoggerFactory.getLogger(TransactionDAO.class);
 
-    public static void createTableIfNotExists() {
+    public static boolean createTableIfNotExists() {
         String sql = """
             CREATE TABLE IF NOT EXISTS transactions (
                 id INTEGER PRIMARY KEY AUTOINCREMENT,
@@ -25,56 +27,139 @@ public class TransactionDAO {
             );
         """;
 
-        try (Connection conn = Database.getConnection();
-             Statement stmt = conn.createStatement()) {
-            stmt.execute(sql);
+        try {
+            for (int shard = 0; shard < Database.shardCount(); shard++) {
+                try (Connection conn = Database.getShardConnection(shard);
+                     Statement stmt = conn.createStatement()) {
+                    stmt.execute(Database.dialect().ddl(sql));
+                    stmt.execute(Database.dialect().ddl("CREATE INDEX IF NOT EXISTS idx_transactions_account ON transactions(accountNumber);"));
+                    LogTransactionStore.createMarkTable(conn);
+                }
+            }
             System.out.println("✅ Transactions table ready.");
             logger.info("Transactions table verified/created successfully.");
+            return true;
         } catch (SQLException e) {
             System.out.println("❌ Error creating transactions table: " + e.getMessage());
             logger.error("Failed to create transactions table", e);
+            return false;
+        }
+    }
+
+    // -----------------------------
+    // Storage engine
+    // -----------------------------
+    private static volatile TransactionStore store;
+
+    /**
+     * The engine chosen by {@code bank.txstore}: {@code sqlite} (default) or {@code log}
+     * (a memory-mapped record log under {@code bank.txlog.dir}).
+     */
+    public static TransactionStore store() {
+        TransactionStore s = store;
+        if (s == null) {
+            synchronized (TransactionDAO.class) {
+                if (store == null) store = openStore(System.getProperty("bank.txstore", "sqlite"));
+                s = store;
+            }
+        }
+        return s;
+    }
+
+    /**
+     * Whether history is kept in the {@code transactions} table, i.e. the engine is not {@code log}.
+     */
+    public static boolean usesTable() {
+        return !System.getProperty("bank.txstore", "sqlite").equals("log");
+    }
+
+    /**
+     * Guard for features that read the {@code transactions} table (aggregates, archiving, export,
+     * reconciliation, the live stream): false, with an error, when history is in the record log instead,
+     * where they would see no rows and report wrong figures.
+     */
+    public static boolean requireTable(String feature) {
+        if (usesTable()) return true;
+        System.out.println("❌ " + feature + " needs -Dbank.txstore=sqlite; it reads the transactions table, which the record log does not fill.");
+        logger.error("{} is unavailable with bank.txstore=log", feature);
+        return false;
+    }
+
+    private static TransactionStore openStore(String engine) {
+        if (!engine.equals("log")) return new SqliteTransactionStore();
+        try {
+            LogTransactionStore log = LogTransactionStore.open(Path.of(System.getProperty("bank.txlog.dir", "src/main/resources/db/txlog")),
+                    accountNumber -> {
+                        try (Connection conn = Database.getConnection(accountNumber)) {
+                            return LogTransactionStore.readMark(conn);
+                        }
+                    });
+            Runtime.getRuntime().addShutdownHook(new Thread(log::close, "txlog-shutdown"));
+            logger.info("Transaction history stored in the record log ({} records recovered)", log.size());
+            return log;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open the transaction log", e);
         }
     }
 
-    public static void recordTransaction(Connection conn, String accountNumber, String type, double amount, String targetAccount) {
-        String sql = "INSERT INTO transactions(accountNumber, type, amount, targetAccount) VALUES (?, ?, ?, ?)";
-        try (PreparedStatement ps = conn.prepareStatement(sql)) {
-            ps.setString(1, accountNumber);
-            ps.setString(2, type);
-            ps.setDouble(3, amount);
-            ps.setString(4, targetAccount);
-            ps.executeUpdate();
+    // Runs inside the caller's transaction; failures are propagated so the balance update rolls back with it
+    public static void recordTransaction(Connection conn, String accountNumber, String type, double amount, String targetAccount) throws SQLException {
+        try {
+            store().record(conn, accountNumber, type, amount, targetAccount);
 
-            logger.info("Transaction recorded: {} ₹{} (Target: {})", type, amount, targetAccount);
+            // Bank already logs the operation at INFO; this per-row line is DEBUG and guarded so the
+            // money path does not box the amount or build the argument array unless it is written
+            if (logger.isDebugEnabled()) {
+                logger.debug("Transaction recorded: {} ₹{} (Target: {})", type, amount, targetAccount);
+            }
         } catch (SQLException e) {
-            System.out.println("⚠️ Error recording transaction: " + e.getMessage());
             logger.error("Failed to record transaction for account {}", accountNumber, e);
+            throw e;
+        }
+    }
+
+    /**
+     * Record one {@code type} transaction per account in a single batch, inside the caller's transaction.
+     */
+    public static void recordTransactions(Connection conn, String type, List<String> accountNumbers, double[] amounts) throws SQLException {
+        if (accountNumbers.isEmpty()) return;
+        try {
+            store().recordAll(conn, type, accountNumbers, amounts);
+            logger.debug("Recorded {} {} transactions", accountNumbers.size(), type);
+        } catch (SQLException e) {
+            logger.error("Failed to record {} {} transactions", accountNumbers.size(), type, e);
+            throw e;
         }
     }
-    public static List<String[]> getTransactionsByAccount(String accountNumber) {
-        List<String[]> transactions = new ArrayList<>();
-        String sql = "SELECT timestamp, type, amount, targetAccount FROM transactions WHERE accountNumber = ? ORDER BY timestamp DESC";
-
-        try (Connection conn = Database.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
-            ps.setString(1, accountNumber);
-            var rs = ps.executeQuery();
-
-            while (rs.next()) {
-                String time = rs.getString("timestamp");
-                String type = rs.getString("type");
-                double amount = rs.getDouble("amount");
-                String target = rs.getString("targetAccount");
-                transactions.add(new String[]{time, type, String.valueOf(amount), target});
-            }
 
+    /**
+     * Remove an account's history from the engine in use, inside the caller's transaction. Returns the number
+     * of transactions removed.
+     */
+    public static int deleteByAccount(Connection conn, String accountNumber) throws SQLException {
+        try {
+            int deleted = store().deleteAccount(conn, accountNumber);
+            logger.info("Deleted {} transactions of account {}", deleted, accountNumber);
+            return deleted;
+        } catch (SQLException e) {
+            logger.error("Failed to delete transactions of account {}", accountNumber, e);
+            throw e;
+        }
+    }
+
+    /**
+     * Full history of an account, newest first (with the SQLite engine: live rows and anything already archived).
+     */
+    public static List<String[]> getTransactionsByAccount(String accountNumber) {
+        try {
+            List<String[]> transactions = store().findByAccount(accountNumber);
             logger.info("Fetched {} transactions for report (account: {})", transactions.size(), accountNumber);
+            return transactions;
         } catch (SQLException e) {
             System.out.println("⚠️ Error fetching transactions: " + e.getMessage());
             logger.error("Error fetching transactions for account {}", accountNumber, e);
+            return new ArrayList<>();
         }
-
-        return transactions;
     }
 
 }
@@ -0,0 +1,43 @@
+package com.bank.dao;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Storage engine behind {@link TransactionDAO}: where transaction history is written and read back.
+ * Selected with {@code -Dbank.txstore=sqlite|log} (default {@code sqlite}).
+ */
+public interface TransactionStore extends AutoCloseable {
+
+    /**
+     * Record one transaction as part of the caller's transaction on {@code conn}: it must become visible
+     * if and only if that transaction commits.
+     */
+    void record(Connection conn, String accountNumber, String type, double amount, String targetAccount) throws SQLException;
+
+    /**
+     * Record one transaction of {@code type} per account, {@code amounts[i]} for {@code accountNumbers.get(i)},
+     * as part of the caller's transaction. Engines that can write a batch at once override this.
+     */
+    default void recordAll(Connection conn, String type, List<String> accountNumbers, double[] amounts) throws SQLException {
+        for (int i = 0; i < accountNumbers.size(); i++) {
+            record(conn, accountNumbers.get(i), type, amounts[i], null);
+        }
+    }
+
+    /**
+     * History of one account, newest first, as {@code {timestamp, type, amount, targetAccount}} rows.
+     */
+    List<String[]> findByAccount(String accountNumber) throws SQLException;
+
+    /**
+     * Remove the history of one account as part of the caller's transaction on {@code conn}, so that
+     * {@link #findByAccount} no longer returns it. Returns the number of transactions removed.
+     */
+    int deleteAccount(Connection conn, String accountNumber) throws SQLException;
+
+    @Override
+    default void close() {
+    }
+}
@@ -0,0 +1,323 @@
+package com.bank.dao;
+
+import com.bank.util.Money;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Two-phase commit for transfers whose accounts live on different shards.
+ *
+ * <p>The main database holds the coordinator's intent log; each shard records the intents it has
+ * applied in the same local transaction as the balance change. A transfer:
+ * <ol>
+ *   <li>logs the intent as PREPARING,</li>
+ *   <li>opens a transaction on both shards (write locks taken in shard order so two opposite
+ *       transfers cannot deadlock) and applies debit and credit without committing,</li>
+ *   <li>marks the intent COMMITTED — the decision point —, commits both shards and marks it DONE.</li>
+ * </ol>
+ * {@link #recover()} aborts intents that never reached the decision and redoes the missing side of
+ * COMMITTED ones, using the participants' applied-intent rows to stay idempotent. A side that cannot be
+ * redone (its account is gone) leaves the intent COMMITTED and logged for follow-up. A source that no
+ * longer covers the amount by the time its debit is redone gives what it holds; the shortfall is posted
+ * to {@link LedgerDAO#SUSPENSE_ACCOUNT} rather than overdrawing it.
+ */
+public class TransferCoordinator {
+
+    private static final Logger logger = LoggerFactory.getLogger(TransferCoordinator.class);
+
+    public enum Outcome { COMMITTED, INSUFFICIENT_FUNDS, ACCOUNT_NOT_FOUND }
+
+    @FunctionalInterface
+    public interface ShardConnections {
+        Connection get(int shard) throws SQLException;
+    }
+
+    private static final TransferCoordinator DEFAULT =
+            new TransferCoordinator(Database::getConnection, Database::getShardConnection, ShardRouter.SHARDS);
+
+    private final ConnectionProvider coordinator;
+    private final ShardConnections shards;
+    private final int shardCount;
+
+    public TransferCoordinator(ConnectionProvider coordinator, ShardConnections shards, int shardCount) {
+        this.coordinator = coordinator;
+        this.shards = shards;
+        this.shardCount = shardCount;
+    }
+
+    public static TransferCoordinator getDefault() {
+        return DEFAULT;
+    }
+
+    public static void createIntentLog(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute(Database.dialect().ddl("""
+                CREATE TABLE IF NOT EXISTS transfer_intents (
+                    id INTEGER PRIMARY KEY AUTOINCREMENT,
+                    fromAccount TEXT NOT NULL,
+                    toAccount TEXT NOT NULL,
+                    amount REAL NOT NULL,
+                    state TEXT NOT NULL,
+                    timestamp DATETIME DEFAULT (datetime('now','localtime'))
+                );
+            """));
+            stmt.execute(Database.dialect().ddl("CREATE INDEX IF NOT EXISTS idx_transfer_intents_state ON transfer_intents(state);"));
+        }
+    }
+
+    public static void createParticipantLog(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute(Database.dialect().ddl("""
+                CREATE TABLE IF NOT EXISTS applied_intents (
+                    intentId INTEGER PRIMARY KEY,
+                    side TEXT NOT NULL
+                );
+            """));
+        }
+    }
+
+    // -----------------------------
+    // Transfer
+    // -----------------------------
+    public Outcome transfer(String fromAccount, String toAccount, double amount) throws SQLException {
+        int fromShard = ShardRouter.shardOf(fromAccount, shardCount);
+        int toShard = ShardRouter.shardOf(toAccount, shardCount);
+        if (fromShard == toShard) {
+            throw new IllegalArgumentException("Both accounts are on shard " + fromShard + "; use a local transaction");
+        }
+
+        long intentId = logIntent(fromAccount, toAccount, amount);
+
+        try (Connection source = shards.get(fromShard);
+             Connection target = shards.get(toShard)) {
+            source.setAutoCommit(false);
+            target.setAutoCommit(false);
+            try {
+                // phase 1: acquire write locks in shard order, then apply both sides without committing
+                Connection first = fromShard < toShard ? source : target;
+                Connection second = first == source ? target : source;
+                markApplied(first, intentId, first == source ? "debit" : "credit");
+                markApplied(second, intentId, second == source ? "debit" : "credit");
+
+                Outcome outcome = applyDebit(source, intentId, fromAccount, toAccount, amount);
+                if (outcome == Outcome.COMMITTED) {
+                    outcome = applyCredit(target, toAccount, fromAccount, amount);
+                }
+                if (outcome != Outcome.COMMITTED) {
+                    source.rollback();
+                    target.rollback();
+                    setState(intentId, "ABORTED");
+                    return outcome;
+                }
+
+                // decision: once this row is durable the transfer must complete, even after a crash
+                setState(intentId, "COMMITTED");
+            } catch (SQLException | RuntimeException e) {
+                // an intent left PREPARING is aborted by recover(), so the original failure is the one to report
+                try {
+                    source.rollback();
+                    target.rollback();
+                    setState(intentId, "ABORTED");
+                } catch (SQLException abort) {
+                    e.addSuppressed(abort);
+                }
+                throw e;
+            }
+
+            // phase 2
+            try {
+                source.commit();
+                target.commit();
+                setState(intentId, "DONE");
+                return Outcome.COMMITTED;
+            } catch (SQLException e) {
+                logger.error("Transfer intent {} committed but a participant failed; redoing", intentId, e);
+                // a participant that failed to commit still holds its shard's write lock
+                rollbackQuietly(source);
+                rollbackQuietly(target);
+            }
+        }
+
+        // the participants are closed now, so the redo does not wait on their locks
+        try {
+            complete(new Intent(intentId, fromAccount, toAccount, amount, "COMMITTED"));
+        } catch (SQLException e) {
+            logger.error("Transfer intent {} stays COMMITTED until recover() can finish it", intentId, e);
+        }
+        return Outcome.COMMITTED;
+    }
+
+    private static void rollbackQuietly(Connection conn) {
+        try {
+            conn.rollback();
+        } catch (SQLException e) {
+            logger.warn("Rollback of a transfer participant failed", e);
+        }
+    }
+
+    private long logIntent(String fromAccount, String toAccount, double amount) throws SQLException {
+        String sql = "INSERT INTO transfer_intents(fromAccount, toAccount, amount, state) VALUES (?, ?, ?, 'PREPARING')";
+        try (Connection conn = coordinator.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+            ps.setString(1, fromAccount);
+            ps.setString(2, toAccount);
+            ps.setDouble(3, amount);
+            ps.executeUpdate();
+            try (ResultSet keys = ps.getGeneratedKeys()) {
+                if (!keys.next()) throw new SQLException("No transfer intent id generated");
+                return keys.getLong(1);
+            }
+        }
+    }
+
+    private void setState(long intentId, String state) throws SQLException {
+        try (Connection conn = coordinator.getConnection();
+             PreparedStatement ps = conn.prepareStatement("UPDATE transfer_intents SET state = ? WHERE id = ?")) {
+            ps.setString(1, state);
+            ps.setLong(2, intentId);
+            ps.executeUpdate();
+        }
+    }
+
+    private static void markApplied(Connection conn, long intentId, String side) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement("INSERT INTO applied_intents(intentId, side) VALUES (?, ?)")) {
+            ps.setLong(1, intentId);
+            ps.setString(2, side);
+            ps.executeUpdate();
+        }
+    }
+
+    private static Outcome applyDebit(Connection conn, long intentId, String fromAccount, String toAccount,
+                                      double amount) throws SQLException {
+        AccountDAO.Mutation debit = AccountDAO.debit(conn, fromAccount, amount);
+        if (!debit.applied()) {
+            return debit.status() == AccountDAO.Status.NOT_FOUND ? Outcome.ACCOUNT_NOT_FOUND : Outcome.INSUFFICIENT_FUNDS;
+        }
+        TransactionDAO.recordTransaction(conn, fromAccount, "transfer", amount, toAccount);
+        LedgerDAO.postTransferOut(conn, fromAccount, toAccount, amount);
+        logger.debug("Intent {}: debited ₹{} from {}", intentId, amount, fromAccount);
+        return Outcome.COMMITTED;
+    }
+
+    // Redo of a decided debit. The funds were checked before the decision, but the participants' locks have
+    // been released since and other transfers may have drained the account: it gives what it still holds
+    // and the rest goes to suspense, so the credit side can complete without a negative balance
+    private static void redoDebit(Connection conn, long intentId, String fromAccount, String toAccount, double amount) throws SQLException {
+        if (applyDebit(conn, intentId, fromAccount, toAccount, amount) == Outcome.COMMITTED) return;
+
+        long held = -1;
+        try (PreparedStatement ps = conn.prepareStatement("SELECT balance FROM accounts WHERE accountNumber = ?")) {
+            ps.setString(1, fromAccount);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (rs.next()) held = Math.max(0, Money.toPaise(rs.getDouble(1)));
+            }
+        }
+        if (held < 0) throw new SQLException("Source account " + fromAccount + " of transfer intent " + intentId + " no longer exists");
+
+        long shortfall = Money.toPaise(amount) - held;
+        if (held > 0 && applyDebit(conn, intentId, fromAccount, toAccount, Money.toRupees(held)) != Outcome.COMMITTED) {
+            throw new SQLException("Could not debit " + fromAccount + " for transfer intent " + intentId);
+        }
+        LedgerDAO.postTransferShortfall(conn, Money.toRupees(shortfall));
+        logger.error("Transfer intent {}: {} no longer covers ₹{}; debited ₹{} and posted ₹{} to {} for follow-up",
+                intentId, fromAccount, amount, Money.toRupees(held), Money.toRupees(shortfall), LedgerDAO.SUSPENSE_ACCOUNT);
+    }
+
+    private static Outcome applyCredit(Connection conn, String toAccount, String fromAccount, double amount) throws SQLException {
+        if (!AccountDAO.credit(conn, toAccount, amount).applied()) return Outcome.ACCOUNT_NOT_FOUND;
+        TransactionDAO.recordTransaction(conn, toAccount, "credit", amount, fromAccount);
+        LedgerDAO.postTransferIn(conn, toAccount, fromAccount, amount);
+        return Outcome.COMMITTED;
+    }
+
+    // -----------------------------
+    // Recovery
+    // -----------------------------
+
+    private record Intent(long id, String from, String to, double amount, String state) {}
+
+    /**
+     * Finish or abort every transfer left in flight by a crash. Runs at startup, before any new
+     * transfers; returns the number of intents resolved. An intent that cannot be finished is logged and
+     * stays COMMITTED.
+     */
+    public synchronized int recover() throws SQLException {
+        List<Intent> pending = new ArrayList<>();
+        try (Connection conn = coordinator.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(
+                     "SELECT id, fromAccount, toAccount, amount, state FROM transfer_intents WHERE state IN ('PREPARING', 'COMMITTED') ORDER BY id")) {
+            while (rs.next()) {
+                pending.add(new Intent(rs.getLong(1), rs.getString(2), rs.getString(3), rs.getDouble(4), rs.getString(5)));
+            }
+        }
+
+        int resolved = pending.size();
+        for (Intent intent : pending) {
+            if (intent.state().equals("PREPARING")) {
+                // no participant commits before the decision, so nothing was applied
+                setState(intent.id(), "ABORTED");
+                logger.warn("Aborted in-doubt transfer intent {} ({} → {})", intent.id(), intent.from(), intent.to());
+                continue;
+            }
+            try {
+                complete(intent);
+            } catch (SQLException e) {
+                System.out.println("❌ Transfer intent " + intent.id() + " could not be completed: " + e.getMessage());
+                logger.error("Transfer intent {} ({} → {}, ₹{}) stays COMMITTED and needs attention",
+                        intent.id(), intent.from(), intent.to(), intent.amount(), e);
+                resolved--;
+            }
+        }
+        return resolved;
+    }
+
+    // Redo whichever side of a COMMITTED intent is missing; the applied_intents primary key makes a double apply
+    // impossible. A side that fails rolls back and throws, leaving the intent COMMITTED
+    private void complete(Intent intent) throws SQLException {
+        redoSide(intent.id(), intent.from(), "debit", conn ->
+                redoDebit(conn, intent.id(), intent.from(), intent.to(), intent.amount()));
+        redoSide(intent.id(), intent.to(), "credit", conn -> {
+            if (applyCredit(conn, intent.to(), intent.from(), intent.amount()) != Outcome.COMMITTED) {
+                throw new SQLException("Target account " + intent.to() + " of transfer intent " + intent.id() + " no longer exists");
+            }
+        });
+        setState(intent.id(), "DONE");
+        logger.warn("Completed committed transfer intent {} ({} → {}, ₹{})",
+                intent.id(), intent.from(), intent.to(), intent.amount());
+    }
+
+    @FunctionalInterface
+    private interface SideAction {
+        void apply(Connection conn) throws SQLException;
+    }
+
+    private void redoSide(long intentId, String accountNumber, String side, SideAction action) throws SQLException {
+        try (Connection conn = shards.get(ShardRouter.shardOf(accountNumber, shardCount))) {
+            conn.setAutoCommit(false);
+            try {
+                // the marker goes first, taking the shard's write lock before anything is read
+                try (PreparedStatement ps = conn.prepareStatement(
+                        Database.dialect().insertOrIgnore("applied_intents", "intentId, side", "intentId"))) {
+                    ps.setLong(1, intentId);
+                    ps.setString(2, side);
+                    if (ps.executeUpdate() == 0) {
+                        conn.rollback();
+                        return; // this side committed before the crash
+                    }
+                }
+                action.apply(conn);
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        }
+    }
+}
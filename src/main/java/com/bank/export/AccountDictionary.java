@@ -0,0 +1,103 @@
+package com.bank.export;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Account numbers of an export, each replaced in the columns by a dense int code (its position in the file).
+ * Codes never change once written, so segments from earlier exports stay valid.
+ */
+public final class AccountDictionary {
+
+    private final List<String> numbers = new ArrayList<>();
+    private final Map<String, Integer> codes = new HashMap<>();
+    private int persisted;
+
+    /**
+     * Load the dictionary. A torn last entry left by an interrupted append is ignored, and with
+     * {@code repair} (the exporter, never a reader) also cut off the file so the next append lines up.
+     */
+    static AccountDictionary load(Path file, boolean repair) throws IOException {
+        AccountDictionary dict = new AccountDictionary();
+        if (!Files.exists(file)) return dict;
+
+        // entries are DataOutput.writeUTF records: a 2-byte length, then the modified UTF-8 bytes
+        byte[] bytes = Files.readAllBytes(file);
+        int pos = 0;
+        while (pos + 2 <= bytes.length) {
+            int length = ((bytes[pos] & 0xFF) << 8) | (bytes[pos + 1] & 0xFF);
+            if (pos + 2 + length > bytes.length) break;
+            dict.add(new DataInputStream(new ByteArrayInputStream(bytes, pos, 2 + length)).readUTF());
+            pos += 2 + length;
+        }
+        if (repair && pos != bytes.length) {
+            try (FileChannel ch = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                ch.truncate(pos);
+            }
+        }
+        dict.persisted = dict.numbers.size();
+        return dict;
+    }
+
+    private int add(String number) {
+        int code = numbers.size();
+        numbers.add(number);
+        codes.put(number, code);
+        return code;
+    }
+
+    /**
+     * Code of {@code accountNumber}, assigning the next one if it is new.
+     */
+    int codeOf(String accountNumber) {
+        Integer code = codes.get(accountNumber);
+        return code != null ? code : add(accountNumber);
+    }
+
+    /**
+     * Code of {@code accountNumber}, or -1 if it has never been exported.
+     */
+    public int code(String accountNumber) {
+        return codes.getOrDefault(accountNumber, -1);
+    }
+
+    public String accountNumber(int code) {
+        return numbers.get(code);
+    }
+
+    public int size() {
+        return numbers.size();
+    }
+
+    /**
+     * Append the codes assigned since the last save and force them to disk, so no segment written
+     * afterwards can refer to a code the file does not have.
+     */
+    void appendNew(Path file) throws IOException {
+        if (persisted == numbers.size()) return;
+
+        ByteArrayOutputStream buf = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(buf);
+        for (int i = persisted; i < numbers.size(); i++) {
+            out.writeUTF(numbers.get(i));
+        }
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            ByteBuffer bytes = ByteBuffer.wrap(buf.toByteArray());
+            while (bytes.hasRemaining()) ch.write(bytes);
+            ch.force(false);
+        }
+        persisted = numbers.size();
+    }
+}
@@ -0,0 +1,158 @@
+package com.bank.export;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Read side of a columnar export (see {@link ColumnarFormat}). Opens nothing but files: analytics run
+ * off the export directory without a single SQLite connection. Segments are memory-mapped and decoded
+ * into primitive arrays one at a time, so a full scan is a sequence of tight loops over arrays.
+ */
+public final class ColumnarDataset {
+
+    private final Path dir;
+    private final AccountDictionary accounts;
+    private final long[] balances;
+    private final List<Path> segments;
+
+    private ColumnarDataset(Path dir, AccountDictionary accounts, long[] balances, List<Path> segments) {
+        this.dir = dir;
+        this.accounts = accounts;
+        this.balances = balances;
+        this.segments = segments;
+    }
+
+    public static ColumnarDataset open(Path dir) throws IOException {
+        AccountDictionary accounts = AccountDictionary.load(dir.resolve(ColumnarFormat.DICTIONARY_FILE), false);
+        return new ColumnarDataset(dir, accounts, readBalances(dir.resolve(ColumnarFormat.BALANCES_FILE)), listSegments(dir));
+    }
+
+    public Path directory() {
+        return dir;
+    }
+
+    public AccountDictionary accounts() {
+        return accounts;
+    }
+
+    /**
+     * Balance in paise of the account with this code at the last export, or {@code Long.MIN_VALUE} if it had none.
+     */
+    public long balance(int code) {
+        return code < balances.length ? balances[code] : ColumnarFormat.NO_BALANCE;
+    }
+
+    public List<Path> segments() {
+        return segments;
+    }
+
+    /**
+     * Rows across all segments, from the segment headers only.
+     */
+    public long rowCount() throws IOException {
+        long rows = 0;
+        for (Path segment : segments) rows += readHeaderRowCount(segment);
+        return rows;
+    }
+
+    @FunctionalInterface
+    public interface SegmentVisitor {
+        void visit(TransactionSegment segment) throws IOException;
+    }
+
+    public void forEachSegment(SegmentVisitor visitor) throws IOException {
+        for (Path segment : segments) {
+            visitor.visit(readSegment(segment));
+        }
+    }
+
+    // -----------------------------
+    // Decoding
+    // -----------------------------
+    static List<Path> listSegments(Path dir) throws IOException {
+        if (!Files.isDirectory(dir)) return List.of();
+        try (Stream<Path> files = Files.list(dir)) {
+            // the zero-padded names sort by shard, then by id
+            return files.filter(p -> ColumnarFormat.parseSegmentName(p.getFileName().toString()) != null)
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private static long[] readBalances(Path file) throws IOException {
+        if (!Files.exists(file)) return new long[0];
+        ByteBuffer in = ByteBuffer.wrap(Files.readAllBytes(file));
+        long[] balances = new long[in.getInt()];
+        in.asLongBuffer().get(balances);
+        return balances;
+    }
+
+    private static int readHeaderRowCount(Path segment) throws IOException {
+        try (FileChannel ch = FileChannel.open(segment)) {
+            ByteBuffer header = ByteBuffer.allocate(16);
+            while (header.hasRemaining() && ch.read(header) >= 0) { /* fill */ }
+            return header.getInt(12);
+        }
+    }
+
+    public static TransactionSegment readSegment(Path segment) throws IOException {
+        MappedByteBuffer in;
+        try (FileChannel ch = FileChannel.open(segment)) {
+            in = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+        }
+
+        if (in.getInt() != ColumnarFormat.SEGMENT_MAGIC) throw new IOException("Not a transaction segment: " + segment);
+        int version = in.getInt();
+        if (version != ColumnarFormat.VERSION) throw new IOException("Unsupported segment version " + version + ": " + segment);
+        int shard = in.getInt();
+        int rows = in.getInt();
+
+        String[] typeNames = new String[in.get() & 0xFF];
+        for (int i = 0; i < typeNames.length; i++) {
+            byte[] name = new byte[in.get() & 0xFF];
+            in.get(name);
+            typeNames[i] = new String(name, StandardCharsets.UTF_8);
+        }
+
+        long[] ids = new long[rows];
+        ByteBuffer col = column(in);
+        long id = 0;
+        for (int i = 0; i < rows; i++) ids[i] = id += ColumnarFormat.readVarLong(col);
+
+        int[] accounts = new int[rows];
+        col = column(in);
+        for (int i = 0; i < rows; i++) accounts[i] = (int) ColumnarFormat.readVarLong(col);
+
+        byte[] types = new byte[rows];
+        column(in).get(types);
+
+        long[] amounts = new long[rows];
+        column(in).asLongBuffer().get(amounts);
+
+        int[] targets = new int[rows];
+        col = column(in);
+        for (int i = 0; i < rows; i++) targets[i] = (int) ColumnarFormat.readVarLong(col) - 1;
+
+        long[] timestamps = new long[rows];
+        col = column(in);
+        long ts = 0;
+        for (int i = 0; i < rows; i++) timestamps[i] = ts += ColumnarFormat.unZigZag(ColumnarFormat.readVarLong(col));
+
+        return new TransactionSegment(shard, ids, accounts, typeNames, types, amounts, targets, timestamps);
+    }
+
+    // the next length-prefixed column block, as its own buffer
+    private static ByteBuffer column(ByteBuffer in) {
+        int length = in.getInt();
+        ByteBuffer col = in.slice(in.position(), length);
+        in.position(in.position() + length);
+        return col;
+    }
+}
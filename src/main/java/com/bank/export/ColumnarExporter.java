@@ -0,0 +1,222 @@
+package com.bank.export;
+
+import com.bank.dao.ArchiveDAO;
+import com.bank.dao.ConnectionProvider;
+import com.bank.dao.Database;
+import com.bank.util.Money;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Streams transactions and account balances out of SQLite into a columnar export directory
+ * (see {@link ColumnarFormat}), so analytics never query the live database.
+ *
+ * <p>Exports are incremental: each shard resumes after the highest id already in its segments and
+ * appends new segments of at most {@code rowsPerSegment} rows. Rows are read through the read-only
+ * pools, from both the live and the archive tier, so the export never takes the write lock.
+ */
+public class ColumnarExporter {
+    private static final Logger logger = LoggerFactory.getLogger(ColumnarExporter.class);
+
+    private final Path dir;
+    private final int rowsPerSegment;
+    private final AccountDictionary dictionary;
+
+    public ColumnarExporter(Path dir, int rowsPerSegment) throws IOException {
+        Files.createDirectories(dir);
+        this.dir = dir;
+        this.rowsPerSegment = Math.max(1, rowsPerSegment);
+        this.dictionary = AccountDictionary.load(dir.resolve(ColumnarFormat.DICTIONARY_FILE), true);
+    }
+
+    /**
+     * Export every shard of the application database. Returns the number of transactions appended.
+     */
+    public static long exportAll(Path dir, int rowsPerSegment) throws IOException, SQLException {
+        ColumnarExporter exporter = new ColumnarExporter(dir, rowsPerSegment);
+        List<ConnectionProvider> shards = new ArrayList<>();
+        long rows = 0;
+        for (int shard = 0; shard < Database.shardCount(); shard++) {
+            final int owner = shard;
+            shards.add(() -> Database.getShardReadConnection(owner));
+            rows += exporter.exportTransactions(owner, () -> Database.getShardReadConnection(owner),
+                    () -> Database.getArchiveReadConnection(owner));
+        }
+        exporter.exportAccounts(shards);
+        return rows;
+    }
+
+    // -----------------------------
+    // Transactions
+    // -----------------------------
+
+    /**
+     * Append the transactions of one shard added since the last export; {@code archive} may be null.
+     */
+    public long exportTransactions(int shard, ConnectionProvider live, ConnectionProvider archive) throws IOException, SQLException {
+        long watermark = watermark(shard);
+        long exported = 0;
+        while (true) {
+            List<ArchiveDAO.Row> rows = nextChunk(live, archive, watermark);
+            if (rows.isEmpty()) break;
+            writeSegment(shard, rows);
+            watermark = rows.get(rows.size() - 1).id();
+            exported += rows.size();
+        }
+        if (exported > 0) {
+            logger.info("Exported {} transactions of shard {} (up to id {})", exported, shard, watermark);
+        }
+        return exported;
+    }
+
+    // Highest id already exported for this shard: the last id in the newest segment's name
+    long watermark(int shard) throws IOException {
+        long watermark = 0;
+        for (Path segment : ColumnarDataset.listSegments(dir)) {
+            long[] name = ColumnarFormat.parseSegmentName(segment.getFileName().toString());
+            if (name[0] == shard) watermark = Math.max(watermark, name[2]);
+        }
+        return watermark;
+    }
+
+    /*
+     * Next rows after the watermark from both tiers, merged by id. Live is read first: a row the archiver
+     * deletes from live after that read was copied to the archive before it, so the archive read sees it.
+     */
+    private List<ArchiveDAO.Row> nextChunk(ConnectionProvider live, ConnectionProvider archive, long watermark) throws SQLException {
+        List<ArchiveDAO.Row> liveRows;
+        try (Connection conn = live.getConnection()) {
+            liveRows = ArchiveDAO.selectIdRange(conn, watermark, Long.MAX_VALUE, rowsPerSegment);
+        }
+        if (archive == null) return liveRows;
+
+        // a full live chunk ends at its last id; archived rows past that belong to a later chunk
+        long upTo = liveRows.size() == rowsPerSegment ? liveRows.get(liveRows.size() - 1).id() : Long.MAX_VALUE;
+        List<ArchiveDAO.Row> archivedRows;
+        try (Connection conn = archive.getConnection()) {
+            archivedRows = ArchiveDAO.selectIdRange(conn, watermark, upTo, rowsPerSegment);
+        }
+        if (archivedRows.isEmpty()) return liveRows;
+
+        List<ArchiveDAO.Row> merged = new ArrayList<>(Math.min(rowsPerSegment, liveRows.size() + archivedRows.size()));
+        int l = 0, a = 0;
+        while (merged.size() < rowsPerSegment && (l < liveRows.size() || a < archivedRows.size())) {
+            ArchiveDAO.Row next;
+            if (a >= archivedRows.size()) next = liveRows.get(l++);
+            else if (l >= liveRows.size()) next = archivedRows.get(a++);
+            else if (liveRows.get(l).id() < archivedRows.get(a).id()) next = liveRows.get(l++);
+            else if (liveRows.get(l).id() > archivedRows.get(a).id()) next = archivedRows.get(a++);
+            else { next = liveRows.get(l++); a++; } // mid-move: in both tiers
+            merged.add(next);
+        }
+        return merged;
+    }
+
+    private void writeSegment(int shard, List<ArchiveDAO.Row> rows) throws IOException {
+        Map<String, Integer> typeCodes = new LinkedHashMap<>();
+        ByteArrayOutputStream ids = new ByteArrayOutputStream(rows.size() * 2);
+        ByteArrayOutputStream accounts = new ByteArrayOutputStream(rows.size() * 3);
+        byte[] types = new byte[rows.size()];
+        ByteBuffer amounts = ByteBuffer.allocate(rows.size() * Long.BYTES);
+        ByteArrayOutputStream targets = new ByteArrayOutputStream(rows.size());
+        ByteArrayOutputStream timestamps = new ByteArrayOutputStream(rows.size() * 2);
+
+        long previousId = 0, previousTs = 0;
+        for (int i = 0; i < rows.size(); i++) {
+            ArchiveDAO.Row row = rows.get(i);
+            ColumnarFormat.writeVarLong(ids, row.id() - previousId);
+            previousId = row.id();
+            ColumnarFormat.writeVarLong(accounts, dictionary.codeOf(row.accountNumber()));
+            Integer type = typeCodes.computeIfAbsent(row.type(), k -> typeCodes.size());
+            if (type > Byte.MAX_VALUE) throw new IOException("More than 128 transaction types in one segment");
+            types[i] = type.byteValue();
+            amounts.putLong(Money.toPaise(row.amount()));
+            ColumnarFormat.writeVarLong(targets, row.targetAccount() == null ? 0 : dictionary.codeOf(row.targetAccount()) + 1);
+            long ts = ColumnarFormat.epochSeconds(row.timestamp());
+            ColumnarFormat.writeVarLong(timestamps, ColumnarFormat.zigZag(ts - previousTs));
+            previousTs = ts;
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream(64 + ids.size() + accounts.size() + types.length
+                + amounts.capacity() + targets.size() + timestamps.size());
+        ByteBuffer header = ByteBuffer.allocate(16).putInt(ColumnarFormat.SEGMENT_MAGIC).putInt(ColumnarFormat.VERSION)
+                .putInt(shard).putInt(rows.size());
+        out.writeBytes(header.array());
+        out.write(typeCodes.size());
+        for (String type : typeCodes.keySet()) {
+            byte[] name = type.getBytes(StandardCharsets.UTF_8);
+            out.write(name.length);
+            out.writeBytes(name);
+        }
+        for (byte[] column : Arrays.asList(ids.toByteArray(), accounts.toByteArray(), types, amounts.array(),
+                targets.toByteArray(), timestamps.toByteArray())) {
+            out.writeBytes(ByteBuffer.allocate(4).putInt(column.length).array());
+            out.writeBytes(column);
+        }
+
+        // codes first, then the segment that uses them; the rename publishes the segment and moves the watermark
+        dictionary.appendNew(dir.resolve(ColumnarFormat.DICTIONARY_FILE));
+        String name = ColumnarFormat.segmentName(shard, rows.get(0).id(), rows.get(rows.size() - 1).id());
+        writeAtomically(dir.resolve(name), out.toByteArray());
+    }
+
+    // -----------------------------
+    // Accounts
+    // -----------------------------
+
+    /**
+     * Rewrite the balance column from the accounts table of every shard.
+     */
+    public void exportAccounts(List<ConnectionProvider> shards) throws IOException, SQLException {
+        Map<Integer, Long> byCode = new LinkedHashMap<>();
+        for (ConnectionProvider shard : shards) {
+            try (Connection conn = shard.getConnection();
+                 Statement stmt = conn.createStatement();
+                 ResultSet rs = stmt.executeQuery("SELECT accountNumber, balance FROM accounts")) {
+                while (rs.next()) {
+                    byCode.put(dictionary.codeOf(rs.getString(1)), Money.toPaise(rs.getDouble(2)));
+                }
+            }
+        }
+
+        long[] balances = new long[dictionary.size()];
+        Arrays.fill(balances, ColumnarFormat.NO_BALANCE);
+        byCode.forEach((code, paise) -> balances[code] = paise);
+
+        ByteBuffer out = ByteBuffer.allocate(4 + balances.length * Long.BYTES).putInt(balances.length);
+        out.asLongBuffer().put(balances);
+        dictionary.appendNew(dir.resolve(ColumnarFormat.DICTIONARY_FILE));
+        writeAtomically(dir.resolve(ColumnarFormat.BALANCES_FILE), out.array());
+        logger.info("Exported balances of {} accounts", byCode.size());
+    }
+
+    private static void writeAtomically(Path target, byte[] bytes) throws IOException {
+        Path tmp = target.resolveSibling(target.getFileName() + ".tmp");
+        try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buf = ByteBuffer.wrap(bytes);
+            while (buf.hasRemaining()) ch.write(buf);
+            ch.force(false);
+        }
+        Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+}
@@ -0,0 +1,97 @@
+package com.bank.export;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * On-disk layout of a columnar export directory.
+ *
+ * <pre>
+ *   accounts.dict                  account numbers, append-only; an account's code is its position
+ *   accounts.bal                   balance in paise per code, rewritten on every export
+ *   tx-s{shard}-{firstId}-{lastId}.seg   one immutable segment of transactions per export batch
+ * </pre>
+ *
+ * A segment is a small header (magic, version, shard, row count, type names) followed by one
+ * length-prefixed block per column:
+ * <ol>
+ *   <li>id: varint deltas (ids ascend, so mostly 1 byte)</li>
+ *   <li>account: varint dictionary code</li>
+ *   <li>type: one byte, index into the segment's type names</li>
+ *   <li>amount: 8-byte paise</li>
+ *   <li>target account: varint dictionary code + 1, 0 when there is none</li>
+ *   <li>timestamp: zig-zag varint deltas of wall-clock epoch seconds</li>
+ * </ol>
+ * The last id of a segment is part of its file name, which makes the segments themselves the export watermark.
+ */
+final class ColumnarFormat {
+
+    static final int SEGMENT_MAGIC = 0x424B4353; // "BKCS"
+    static final int VERSION = 1;
+    static final int COLUMNS = 6;
+
+    static final String DICTIONARY_FILE = "accounts.dict";
+    static final String BALANCES_FILE = "accounts.bal";
+
+    // an account with no row in accounts (deleted, or only seen as a transfer target)
+    static final long NO_BALANCE = Long.MIN_VALUE;
+
+    private static final Pattern SEGMENT_NAME = Pattern.compile("tx-s(\\d+)-(\\d+)-(\\d+)\\.seg");
+
+    private ColumnarFormat() { /* no instances */ }
+
+    static String segmentName(int shard, long firstId, long lastId) {
+        return String.format("tx-s%03d-%019d-%019d.seg", shard, firstId, lastId);
+    }
+
+    /**
+     * {@code {shard, firstId, lastId}} of a segment file name, or null if it is not one.
+     */
+    static long[] parseSegmentName(String fileName) {
+        Matcher m = SEGMENT_NAME.matcher(fileName);
+        if (!m.matches()) return null;
+        return new long[]{Long.parseLong(m.group(1)), Long.parseLong(m.group(2)), Long.parseLong(m.group(3))};
+    }
+
+    // SQLite stores local wall-clock time without a zone; keep it that way, just as seconds
+    static long epochSeconds(String timestamp) {
+        if (timestamp == null) return 0;
+        return LocalDateTime.parse(timestamp.replace(' ', 'T')).toEpochSecond(ZoneOffset.UTC);
+    }
+
+    static LocalDateTime toLocalDateTime(long epochSeconds) {
+        return LocalDateTime.ofEpochSecond(epochSeconds, 0, ZoneOffset.UTC);
+    }
+
+    // -----------------------------
+    // Varints (LEB128) and zig-zag
+    // -----------------------------
+    static void writeVarLong(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    static long readVarLong(ByteBuffer in) {
+        long value = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) return value;
+        }
+    }
+
+    static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
@@ -0,0 +1,34 @@
+package com.bank.export;
+
+import java.time.LocalDateTime;
+
+/**
+ * One decoded segment: parallel primitive columns, row {@code i} spread across index {@code i} of each.
+ * Account columns hold {@link AccountDictionary} codes; {@code targets[i]} is -1 when there is no target.
+ */
+public record TransactionSegment(int shard, long[] ids, int[] accounts, String[] typeNames, byte[] types,
+                                 long[] amounts, int[] targets, long[] timestamps) {
+
+    public int rowCount() {
+        return ids.length;
+    }
+
+    public String type(int row) {
+        return typeNames[types[row]];
+    }
+
+    /**
+     * Index of {@code type} in {@link #typeNames}, or -1 if no row of this segment has it;
+     * compare against {@link #types} to filter without touching strings.
+     */
+    public int typeCode(String type) {
+        for (int i = 0; i < typeNames.length; i++) {
+            if (typeNames[i].equals(type)) return i;
+        }
+        return -1;
+    }
+
+    public LocalDateTime timestamp(int row) {
+        return ColumnarFormat.toLocalDateTime(timestamps[row]);
+    }
+}
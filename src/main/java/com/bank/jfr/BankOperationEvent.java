@@ -0,0 +1,50 @@
+package com.bank.jfr;
+
+import jdk.jfr.*;
+
+/**
+ * One deposit / withdraw / transfer / report call on {@code Bank}. Disabled by default;
+ * enable it with the {@code jfr/banking.jfc} settings or from JDK Mission Control.
+ */
+@Name("com.bank.BankOperation")
+@Label("Bank Operation")
+@Category({"Banking Simulator", "Operations"})
+@Enabled(false)
+@StackTrace(false)
+public class BankOperationEvent extends Event {
+
+    @Label("Operation")
+    public String operation;
+
+    @Label("Account")
+    public String accountNumber;
+
+    @Label("Target Account")
+    public String targetAccount;
+
+    @Label("Amount Bucket")
+    @Description("Order of magnitude of the amount in rupees, e.g. 1k-10k")
+    public String amountBucket;
+
+    /**
+     * Fill in the fields and commit, but only if a recording wants this event.
+     */
+    public void end(String operation, String accountNumber, String targetAccount, double amount) {
+        if (!shouldCommit()) return;
+        this.operation = operation;
+        this.accountNumber = accountNumber;
+        this.targetAccount = targetAccount;
+        this.amountBucket = amountBucket(amount);
+        commit();
+    }
+
+    static String amountBucket(double amount) {
+        if (amount <= 0) return "none";
+        if (amount < 100) return "<100";
+        if (amount < 1_000) return "100-1k";
+        if (amount < 10_000) return "1k-10k";
+        if (amount < 100_000) return "10k-100k";
+        if (amount < 1_000_000) return "100k-1M";
+        return ">=1M";
+    }
+}
@@ -0,0 +1,17 @@
+package com.bank.jfr;
+
+import jdk.jfr.*;
+
+/**
+ * Time spent in {@code Database.getConnection}: waiting for a pooled connection, or opening one.
+ */
+@Name("com.bank.ConnectionAcquire")
+@Label("Connection Acquire")
+@Category({"Banking Simulator", "Database"})
+@Enabled(false)
+@StackTrace(false)
+public class ConnectionAcquireEvent extends Event {
+
+    @Label("Pool")
+    public String url;
+}
@@ -0,0 +1,32 @@
+package com.bank.jfr;
+
+import jdk.jfr.*;
+
+/**
+ * One SMTP send from {@code EmailService}. Only the recipient's domain is recorded.
+ */
+@Name("com.bank.EmailSend")
+@Label("Email Send")
+@Category({"Banking Simulator", "Email"})
+@Enabled(false)
+@StackTrace(false)
+public class EmailSendEvent extends Event {
+
+    @Label("Recipient Domain")
+    public String recipientDomain;
+
+    @Label("Attachment")
+    public boolean attachment;
+
+    @Label("Success")
+    public boolean success;
+
+    public void end(String to, boolean attachment, boolean success) {
+        if (!shouldCommit()) return;
+        int at = to == null ? -1 : to.lastIndexOf('@');
+        this.recipientDomain = at < 0 ? null : to.substring(at + 1);
+        this.attachment = attachment;
+        this.success = success;
+        commit();
+    }
+}
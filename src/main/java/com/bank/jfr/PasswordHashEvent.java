@@ -0,0 +1,24 @@
+package com.bank.jfr;
+
+import jdk.jfr.*;
+
+/**
+ * One BCrypt hash or verification in {@code PasswordUtil}; these are deliberately slow (~100ms+).
+ */
+@Name("com.bank.PasswordHash")
+@Label("Password Hash")
+@Category({"Banking Simulator", "Security"})
+@Enabled(false)
+@StackTrace(false)
+public class PasswordHashEvent extends Event {
+
+    @Label("Operation")
+    @Description("hash or check")
+    public String operation;
+
+    public void end(String operation) {
+        if (!shouldCommit()) return;
+        this.operation = operation;
+        commit();
+    }
+}
@@ -0,0 +1,30 @@
+package com.bank.jfr;
+
+import jdk.jfr.*;
+
+/**
+ * One JDBC statement execution, emitted by the statement timer in {@code com.bank.dao}.
+ */
+@Name("com.bank.SqlStatement")
+@Label("SQL Statement")
+@Category({"Banking Simulator", "Database"})
+@Enabled(false)
+@StackTrace(false)
+public class SqlStatementEvent extends Event {
+
+    private static final EventType TYPE = EventType.getEventType(SqlStatementEvent.class);
+
+    @Label("SQL")
+    public String sql;
+
+    @Label("Rows")
+    @Description("Rows changed by an update or batch; -1 for queries")
+    public long rows;
+
+    /**
+     * True while any running recording has this event enabled.
+     */
+    public static boolean isTypeEnabled() {
+        return TYPE.isEnabled();
+    }
+}
@@ -0,0 +1,38 @@
+package com.bank.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Monotonic counter backed by a {@link LongAdder}, so concurrent increments land on separate cells
+ * instead of contending on one cache line.
+ */
+public final class Counter {
+    private final String name;
+    private final String labels;
+    private final LongAdder adder = new LongAdder();
+
+    Counter(String name, String labels) {
+        this.name = name;
+        this.labels = labels;
+    }
+
+    public void increment() {
+        if (Metrics.ENABLED) adder.increment();
+    }
+
+    public void add(long delta) {
+        if (Metrics.ENABLED) adder.add(delta);
+    }
+
+    public long get() {
+        return adder.sum();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getLabels() {
+        return labels;
+    }
+}
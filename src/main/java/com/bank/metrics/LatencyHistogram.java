@@ -0,0 +1,126 @@
+package com.bank.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * HDR-style latency histogram over nanoseconds. Values are placed in log-linear buckets
+ * (32 linear sub-buckets per power of two, so ~3% relative error), counts are striped by thread
+ * and recording never allocates.
+ */
+public final class LatencyHistogram {
+    private static final int SUB_BITS = 5;
+    private static final int SUB_COUNT = 1 << SUB_BITS;
+    private static final int MAX_EXPONENT = 42; // ~73 minutes in ns; larger values are clamped
+    private static final long MAX_VALUE = (1L << (MAX_EXPONENT + 1)) - 1;
+    static final int BUCKETS = (MAX_EXPONENT - SUB_BITS + 2) * SUB_COUNT;
+    private static final int STRIPES = 4;
+
+    private final String name;
+    private final String labels;
+    private final boolean standalone;
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS * STRIPES);
+    private final LongAdder total = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+
+    LatencyHistogram(String name, String labels) {
+        this(name, labels, false);
+    }
+
+    private LatencyHistogram(String name, String labels, boolean standalone) {
+        this.name = name;
+        this.labels = labels;
+        this.standalone = standalone;
+    }
+
+    /**
+     * Histogram outside the registry that records even when metrics are disabled (load tools, benchmarks).
+     */
+    public static LatencyHistogram standalone(String name) {
+        return new LatencyHistogram(name, "", true);
+    }
+
+    /**
+     * Record the time elapsed since {@code startNanos}, as returned by {@link Metrics#start()}.
+     */
+    public void recordSince(long startNanos) {
+        if (Metrics.ENABLED || standalone) record(System.nanoTime() - startNanos);
+    }
+
+    public void record(long nanos) {
+        if (!Metrics.ENABLED && !standalone) return;
+        long v = Math.max(0, Math.min(nanos, MAX_VALUE));
+        int stripe = (int) Thread.currentThread().getId() & (STRIPES - 1);
+        counts.incrementAndGet(stripe * BUCKETS + indexOf(v));
+        total.increment();
+        sum.add(v);
+    }
+
+    static int indexOf(long v) {
+        if (v < SUB_COUNT) return (int) v;
+        int exponent = 63 - Long.numberOfLeadingZeros(v);
+        int shift = exponent - SUB_BITS;
+        int sub = (int) (v >>> shift) - SUB_COUNT;
+        return (shift + 1) * SUB_COUNT + sub;
+    }
+
+    // highest value that maps to the bucket
+    static long highestValueAt(int index) {
+        if (index < SUB_COUNT) return index;
+        int shift = index / SUB_COUNT - 1;
+        int sub = index % SUB_COUNT;
+        return ((long) (SUB_COUNT + sub + 1) << shift) - 1;
+    }
+
+    public long count() {
+        return total.sum();
+    }
+
+    public long sumNanos() {
+        return sum.sum();
+    }
+
+    /**
+     * Value at the given percentile (0-100) in nanoseconds, 0 when nothing was recorded.
+     */
+    public long percentile(double percentile) {
+        long[] merged = snapshot();
+        long n = 0;
+        for (long c : merged) n += c;
+        if (n == 0) return 0;
+
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * n));
+        long seen = 0;
+        for (int i = 0; i < merged.length; i++) {
+            seen += merged[i];
+            if (seen >= rank) return highestValueAt(i);
+        }
+        return highestValueAt(merged.length - 1);
+    }
+
+    public long max() {
+        long[] merged = snapshot();
+        for (int i = merged.length - 1; i >= 0; i--) {
+            if (merged[i] > 0) return highestValueAt(i);
+        }
+        return 0;
+    }
+
+    private long[] snapshot() {
+        long[] merged = new long[BUCKETS];
+        for (int s = 0; s < STRIPES; s++) {
+            for (int i = 0; i < BUCKETS; i++) {
+                merged[i] += counts.get(s * BUCKETS + i);
+            }
+        }
+        return merged;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getLabels() {
+        return labels;
+    }
+}
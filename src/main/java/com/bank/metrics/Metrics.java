@@ -0,0 +1,78 @@
+package com.bank.metrics;
+
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Process-wide metrics registry. Enabled with {@code -Dbank.metrics=true}; when disabled
+ * {@link #ENABLED} is a constant false and every record call folds away to nothing.
+ */
+public final class Metrics {
+
+    public static final boolean ENABLED = Boolean.getBoolean("bank.metrics");
+
+    private static final ConcurrentHashMap<String, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+    private static final ConcurrentHashMap<String, Counter> counters = new ConcurrentHashMap<>();
+    private static final ConcurrentHashMap<String, LatencyHistogram> sqlHistograms = new ConcurrentHashMap<>();
+
+    // Bank operations
+    public static final LatencyHistogram DEPOSIT = histogram("bank_operation_seconds", "op=\"deposit\"");
+    public static final LatencyHistogram WITHDRAW = histogram("bank_operation_seconds", "op=\"withdraw\"");
+    public static final LatencyHistogram TRANSFER = histogram("bank_operation_seconds", "op=\"transfer\"");
+    public static final LatencyHistogram GENERATE_REPORT = histogram("bank_operation_seconds", "op=\"generateReport\"");
+    public static final LatencyHistogram PDF_RENDER = histogram("bank_pdf_render_seconds", "");
+
+    // Auth & email
+    public static final LatencyHistogram LOGIN = histogram("bank_login_seconds", "");
+    public static final Counter LOGIN_SUCCESS = counter("bank_login_total", "outcome=\"success\"");
+    public static final Counter LOGIN_FAILURE = counter("bank_login_total", "outcome=\"failure\"");
+    public static final LatencyHistogram EMAIL_SEND = histogram("bank_email_send_seconds", "");
+    public static final Counter EMAIL_FAILURES = counter("bank_email_failures_total", "");
+
+    private Metrics() { /* no instances */ }
+
+    /**
+     * Start timestamp for a timed section; 0 (and no clock read) when metrics are disabled.
+     */
+    public static long start() {
+        return ENABLED ? System.nanoTime() : 0L;
+    }
+
+    public static LatencyHistogram histogram(String name, String labels) {
+        return histograms.computeIfAbsent(name + "{" + labels + "}", k -> new LatencyHistogram(name, labels));
+    }
+
+    public static Counter counter(String name, String labels) {
+        return counters.computeIfAbsent(name + "{" + labels + "}", k -> new Counter(name, labels));
+    }
+
+    /**
+     * Histogram for one SQL statement text. Lookups of an existing statement do not allocate.
+     */
+    public static LatencyHistogram sql(String sql) {
+        LatencyHistogram h = sqlHistograms.get(sql);
+        if (h != null) return h;
+        return sqlHistograms.computeIfAbsent(sql,
+                k -> new LatencyHistogram("bank_sql_seconds", "sql=\"" + escapeLabel(normalise(k)) + "\""));
+    }
+
+    public static Collection<LatencyHistogram> histograms() {
+        return histograms.values();
+    }
+
+    public static Collection<LatencyHistogram> sqlHistograms() {
+        return sqlHistograms.values();
+    }
+
+    public static Collection<Counter> counters() {
+        return counters.values();
+    }
+
+    private static String normalise(String sql) {
+        return sql.strip().replaceAll("\\s+", " ");
+    }
+
+    private static String escapeLabel(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+}
@@ -0,0 +1,111 @@
+package com.bank.metrics;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Renders the registry as Prometheus text exposition format or as a JSON snapshot.
+ * Latencies are exported in seconds as summaries with p50/p90/p99/p999 quantiles.
+ */
+public final class MetricsExporter {
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+    private static final String[] QUANTILE_LABELS = {"0.5", "0.9", "0.99", "0.999"};
+
+    private MetricsExporter() { /* no instances */ }
+
+    public static String toPrometheus() {
+        StringBuilder sb = new StringBuilder();
+        String lastName = null;
+        for (Counter c : sortedCounters()) {
+            if (!c.getName().equals(lastName)) {
+                sb.append("# TYPE ").append(c.getName()).append(" counter\n");
+                lastName = c.getName();
+            }
+            sb.append(c.getName()).append(braces(c.getLabels())).append(' ').append(c.get()).append('\n');
+        }
+
+        lastName = null;
+        for (LatencyHistogram h : sortedHistograms()) {
+            if (!h.getName().equals(lastName)) {
+                sb.append("# TYPE ").append(h.getName()).append(" summary\n");
+                lastName = h.getName();
+            }
+            for (int q = 0; q < PERCENTILES.length; q++) {
+                String labels = (h.getLabels().isEmpty() ? "" : h.getLabels() + ",") + "quantile=\"" + QUANTILE_LABELS[q] + "\"";
+                sb.append(h.getName()).append('{').append(labels).append("} ")
+                        .append(seconds(h.percentile(PERCENTILES[q]))).append('\n');
+            }
+            sb.append(h.getName()).append("_sum").append(braces(h.getLabels())).append(' ')
+                    .append(seconds(h.sumNanos())).append('\n');
+            sb.append(h.getName()).append("_count").append(braces(h.getLabels())).append(' ')
+                    .append(h.count()).append('\n');
+        }
+        return sb.toString();
+    }
+
+    public static String toJson() {
+        StringBuilder sb = new StringBuilder("{\n  \"counters\": [");
+        List<Counter> counters = sortedCounters();
+        for (int i = 0; i < counters.size(); i++) {
+            Counter c = counters.get(i);
+            sb.append(i == 0 ? "\n" : ",\n")
+                    .append("    {\"name\": \"").append(c.getName()).append("\", \"labels\": \"")
+                    .append(jsonEscape(c.getLabels())).append("\", \"value\": ").append(c.get()).append('}');
+        }
+        sb.append("\n  ],\n  \"histograms\": [");
+
+        List<LatencyHistogram> histograms = sortedHistograms();
+        for (int i = 0; i < histograms.size(); i++) {
+            LatencyHistogram h = histograms.get(i);
+            sb.append(i == 0 ? "\n" : ",\n")
+                    .append("    {\"name\": \"").append(h.getName()).append("\", \"labels\": \"")
+                    .append(jsonEscape(h.getLabels())).append("\", \"count\": ").append(h.count())
+                    .append(", \"sumNanos\": ").append(h.sumNanos())
+                    .append(", \"p50Nanos\": ").append(h.percentile(50))
+                    .append(", \"p99Nanos\": ").append(h.percentile(99))
+                    .append(", \"p999Nanos\": ").append(h.percentile(99.9))
+                    .append(", \"maxNanos\": ").append(h.max()).append('}');
+        }
+        sb.append("\n  ]\n}\n");
+        return sb.toString();
+    }
+
+    /**
+     * Write both formats next to each other, e.g. {@code logs/metrics.prom} and {@code logs/metrics.json}.
+     */
+    public static void writeFiles(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        Files.writeString(directory.resolve("metrics.prom"), toPrometheus(), StandardCharsets.UTF_8);
+        Files.writeString(directory.resolve("metrics.json"), toJson(), StandardCharsets.UTF_8);
+    }
+
+    private static List<Counter> sortedCounters() {
+        List<Counter> list = new ArrayList<>(Metrics.counters());
+        list.sort(Comparator.comparing(Counter::getName).thenComparing(Counter::getLabels));
+        return list;
+    }
+
+    private static List<LatencyHistogram> sortedHistograms() {
+        List<LatencyHistogram> list = new ArrayList<>(Metrics.histograms());
+        list.addAll(Metrics.sqlHistograms());
+        list.sort(Comparator.comparing(LatencyHistogram::getName).thenComparing(LatencyHistogram::getLabels));
+        return list;
+    }
+
+    private static String braces(String labels) {
+        return labels.isEmpty() ? "" : "{" + labels + "}";
+    }
+
+    private static String seconds(long nanos) {
+        return Double.toString(nanos / 1e9);
+    }
+
+    private static String jsonEscape(String s) {
+        return s.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+}
@@ -0,0 +1,48 @@
+package com.bank.report;
+
+import com.bank.service.ReconciliationService;
+import com.bank.util.Money;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+public class ReconciliationReport {
+    private static final Logger logger = LoggerFactory.getLogger(ReconciliationReport.class);
+
+    // Writes the discrepancies and per-partition throughput as CSV; returns the file path
+    public static String generateCSVReport(ReconciliationService.Result result) throws IOException {
+        String folderPath = "reports";
+        File folder = new File(folderPath);
+        if (!folder.exists()) folder.mkdirs();
+
+        String stamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss"));
+        String fileName = folderPath + "/reconciliation_" + stamp + ".csv";
+
+        try (PrintWriter out = new PrintWriter(fileName, "UTF-8")) {
+            out.println("# accounts=" + result.accounts() + ", transactions=" + result.rows()
+                    + ", elapsedMs=" + result.elapsedNanos() / 1_000_000
+                    + ", discrepancies=" + result.discrepancies().size());
+
+            out.println("accountNumber,storedBalance,computedBalance,difference");
+            for (ReconciliationService.Discrepancy d : result.discrepancies()) {
+                out.printf("%s,%.2f,%.2f,%.2f%n", d.accountNumber(), Money.toRupees(d.storedPaise()),
+                        Money.toRupees(d.computedPaise()), Money.toRupees(d.differencePaise()));
+            }
+
+            out.println();
+            out.println("partitionFromId,partitionToId,accounts,transactions,elapsedMs,rowsPerSecond");
+            for (ReconciliationService.PartitionStats p : result.partitions()) {
+                out.printf("%d,%d,%d,%d,%d,%.0f%n", p.fromId(), p.toId(), p.accounts(), p.rows(),
+                        p.elapsedNanos() / 1_000_000, p.rowsPerSecond());
+            }
+        }
+
+        logger.info("✅ Reconciliation report generated at {}", fileName);
+        return fileName;
+    }
+}
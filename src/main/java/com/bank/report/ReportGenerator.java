@@ -1,5 +1,7 @@
 package com.bank.report;
 
+import com.bank.dao.AggregateDAO;
+import com.bank.metrics.Metrics;
 import com.bank.model.Account;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -9,17 +11,22 @@ import com.itextpdf.text.pdf.*;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.util.List;
+import java.util.Map;
 
 public class ReportGenerator {
     private static final Logger logger = LoggerFactory.getLogger(ReportGenerator.class);
 
-    public static void generatePDFReport(Account account, List<String[]> transactions) {
+    /**
+     * @param totals the account's all-time totals by transaction type (see {@link AggregateDAO#getAccountTotals})
+     */
+    public static void generatePDFReport(Account account, List<String[]> transactions, Map<String, AggregateDAO.Totals> totals) {
         String folderPath = "reports";
         File folder = new File(folderPath);
         if (!folder.exists()) folder.mkdirs();
 
         String fileName = folderPath + "/report_" + account.getAccountNumber() + ".pdf";
 
+        long start = Metrics.start();
         try {
             Document document = new Document();
             PdfWriter.getInstance(document, new FileOutputStream(fileName));
@@ -47,26 +54,20 @@ public class ReportGenerator {
             table.addCell("Amount");
             table.addCell("Target Account");
 
-            double totalDeposits = 0, totalWithdrawals = 0, totalTransfers = 0;
-
             for (String[] tx : transactions) {
                 table.addCell(tx[0]);
                 table.addCell(tx[1]);
                 table.addCell("₹" + tx[2]);
                 table.addCell(tx[3] == null ? "-" : tx[3]);
-
-                String type = tx[1].toLowerCase();
-                double amt = Double.parseDouble(tx[2]);
-                if (type.equals("deposit")) totalDeposits += amt;
-                else if (type.equals("withdraw")) totalWithdrawals += amt;
-                else if (type.equals("transfer")) totalTransfers += amt;
             }
 
             document.add(table);
             document.add(new Paragraph("\nSummary:\n"));
-            document.add(new Paragraph("Total Deposits: ₹" + totalDeposits));
-            document.add(new Paragraph("Total Withdrawals: ₹" + totalWithdrawals));
-            document.add(new Paragraph("Total Transfers: ₹" + totalTransfers));
+            document.add(new Paragraph("Total Deposits: ₹" + total(totals, "deposit")));
+            document.add(new Paragraph("Total Withdrawals: ₹" + total(totals, "withdraw")));
+            document.add(new Paragraph("Total Transfers: ₹" + total(totals, "transfer")));
+            document.add(new Paragraph("Total Interest: ₹" + total(totals, "interest")));
+            document.add(new Paragraph("Total Fees: ₹" + total(totals, "fee")));
 
             document.close();
             logger.info("✅ PDF report generated successfully at {}", fileName);
@@ -75,6 +76,12 @@ public class ReportGenerator {
         } catch (Exception e) {
             logger.error("❌ Error generating PDF report for {}", account.getAccountNumber(), e);
             System.out.println("❌ Failed to generate report: " + e.getMessage());
+        } finally {
+            Metrics.PDF_RENDER.recordSince(start);
         }
     }
+
+    private static double total(Map<String, AggregateDAO.Totals> totals, String type) {
+        return totals.getOrDefault(type, AggregateDAO.Totals.NONE).amount();
+    }
 }
@@ -0,0 +1,250 @@
+package com.bank.risk;
+
+import com.bank.metrics.Counter;
+import com.bank.metrics.Metrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Clock;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory velocity and fraud checks on outgoing payments. The engine is fed every committed ledger
+ * movement (see {@code LedgerDAO}) and keeps, per account, sliding-window counts and sums of money paid out
+ * over the last minute, hour and day, plus the accounts it has dealt with in either direction.
+ * {@link #check} evaluates the configured {@link RiskRule}s against that state alone: no SQL, one map
+ * lookup and a lock on that account's state.
+ *
+ * <p>Only committed movements are fed, so payments checked but not yet committed do not count towards
+ * each other: two payments racing through the same check can both pass a count limit by one.
+ */
+public final class RiskEngine {
+    private static final Logger logger = LoggerFactory.getLogger(RiskEngine.class);
+
+    public enum Action { ALLOW, REVIEW, BLOCK }
+
+    /**
+     * Outcome of a check; {@code reason} names the rule that fired, null when allowed.
+     */
+    public record Decision(Action action, String reason) {
+        static final Decision ALLOWED = new Decision(Action.ALLOW, null);
+
+        public boolean blocked() {
+            return action == Action.BLOCK;
+        }
+    }
+
+    public static final String DEFAULT_RULES = "count(1m)>10:block, amount(24h)>500000:block, count(1h)>60:review, newpayee>50000:review";
+
+    // idle accounts lose their windows (not their counterparties) on a sweep every this many events
+    private static final int SWEEP_INTERVAL = 1 << 16;
+
+    private static final Counter REVIEWED = Metrics.counter("bank_risk_decisions_total", "action=\"review\"");
+    private static final Counter BLOCKED = Metrics.counter("bank_risk_decisions_total", "action=\"block\"");
+
+    private static volatile RiskEngine defaultEngine;
+
+    private final List<RiskRule> rules;
+    private final Decision[] decisions;   // what each rule answers when it fires, built once
+    private final int maxCounterparties;
+    private final Clock clock;
+    private final ConcurrentHashMap<String, AccountRisk> accounts = new ConcurrentHashMap<>();
+    private final AtomicLong events = new AtomicLong();
+
+    public RiskEngine(List<RiskRule> rules, int maxCounterparties, Clock clock) {
+        this.rules = List.copyOf(rules);
+        this.decisions = this.rules.stream().map(rule -> new Decision(rule.action(), rule.toString())).toArray(Decision[]::new);
+        this.maxCounterparties = maxCounterparties;
+        this.clock = clock;
+    }
+
+    /**
+     * The engine the bank uses, built from {@code bank.risk.rules} (default {@link #DEFAULT_RULES}; empty
+     * disables every check and the ledger feed) and {@code bank.risk.maxCounterparties} (default 256 per account).
+     */
+    public static RiskEngine getDefault() {
+        RiskEngine engine = defaultEngine;
+        if (engine == null) {
+            synchronized (RiskEngine.class) {
+                engine = defaultEngine;
+                if (engine == null) {
+                    engine = new RiskEngine(RiskRule.parseAll(System.getProperty("bank.risk.rules", DEFAULT_RULES)),
+                            Integer.getInteger("bank.risk.maxCounterparties", 256), Clock.systemDefaultZone());
+                    logger.info("Risk rules: {}", engine.rules.isEmpty() ? "none" : engine.rules);
+                    defaultEngine = engine;
+                }
+            }
+        }
+        return engine;
+    }
+
+    public static void setDefault(RiskEngine engine) {
+        defaultEngine = engine;
+    }
+
+    /**
+     * Whether there is anything to check; an engine without rules ignores its feed.
+     */
+    public boolean isActive() {
+        return !rules.isEmpty();
+    }
+
+    public List<RiskRule> rules() {
+        return rules;
+    }
+
+    // -----------------------------
+    // Checks
+    // -----------------------------
+
+    /**
+     * Evaluate an outgoing payment of {@code paise} from {@code account}; {@code payee} is null for a
+     * withdrawal. A blocking rule wins over a reviewing one; otherwise the first rule to fire is reported.
+     */
+    public Decision check(String account, long paise, String payee) {
+        if (rules.isEmpty()) return Decision.ALLOWED;
+        AccountRisk state = accounts.get(account);
+        long now = clock.millis();
+
+        Decision decision;
+        if (state == null) {
+            decision = evaluate(null, now, paise, payee);
+        } else {
+            synchronized (state) {
+                decision = evaluate(state, now, paise, payee);
+            }
+        }
+
+        if (decision.action() == Action.BLOCK) BLOCKED.increment();
+        else if (decision.action() == Action.REVIEW) REVIEWED.increment();
+        return decision;
+    }
+
+    private Decision evaluate(AccountRisk state, long now, long paise, String payee) {
+        Decision decision = Decision.ALLOWED;
+        for (int i = 0; i < decisions.length && decision.action() != Action.BLOCK; i++) {
+            RiskRule rule = rules.get(i);
+            if (rule.action().ordinal() > decision.action().ordinal() && fires(rule, state, now, paise, payee)) {
+                decision = decisions[i];
+            }
+        }
+        return decision;
+    }
+
+    private static boolean fires(RiskRule rule, AccountRisk state, long now, long paise, String payee) {
+        return switch (rule.metric()) {
+            case COUNT -> (state == null ? 0 : state.count(rule.window(), now)) + 1 > rule.limit();
+            case AMOUNT -> (state == null ? 0 : state.sum(rule.window(), now)) + paise > rule.limit();
+            case NEW_PAYEE -> payee != null && paise > rule.limit() && (state == null || !state.knows(payee));
+        };
+    }
+
+    // -----------------------------
+    // Feed
+    // -----------------------------
+
+    /**
+     * A committed withdrawal or transfer out of {@code account}; {@code payee} is null for cash.
+     */
+    public void recordOutgoing(String account, long paise, String payee) {
+        if (rules.isEmpty()) return;
+        long now = clock.millis();
+        state(account).recordOutgoing(now, paise, payee, maxCounterparties);
+        sweepIfDue(now);
+    }
+
+    /**
+     * A committed deposit or transfer into {@code account}; {@code payer} is null for cash.
+     */
+    public void recordIncoming(String account, long paise, String payer) {
+        if (rules.isEmpty() || payer == null) return;
+        long now = clock.millis();
+        state(account).recordIncoming(now, payer, maxCounterparties);
+        sweepIfDue(now);
+    }
+
+    /**
+     * Outgoing payments of {@code account} in {@code window}: {count, paise}.
+     */
+    public long[] outgoing(String account, RiskRule.Window window) {
+        AccountRisk state = accounts.get(account);
+        long now = clock.millis();
+        if (state == null) return new long[2];
+        synchronized (state) {
+            return new long[]{state.count(window, now), state.sum(window, now)};
+        }
+    }
+
+    private AccountRisk state(String account) {
+        AccountRisk state = accounts.get(account);
+        return state != null ? state : accounts.computeIfAbsent(account, k -> new AccountRisk());
+    }
+
+    private void sweepIfDue(long now) {
+        if (events.incrementAndGet() % SWEEP_INTERVAL != 0) return;
+        long idleSince = now - RiskRule.Window.DAY.spanMillis;
+        int released = 0;
+        for (AccountRisk state : accounts.values()) {
+            if (state.releaseIfIdle(idleSince)) released++;
+        }
+        if (released > 0) {
+            logger.debug("Released the windows of {} accounts idle for a day", released);
+        }
+    }
+
+    // Windows of outgoing money and known counterparties of one account; all access under its monitor
+    // (the reads are called from blocks that already hold it)
+    private static final class AccountRisk {
+        private SlidingWindow[] windows;   // by Window ordinal; null until the first outgoing payment or after a sweep
+        private final Map<String, Boolean> counterparties = new LinkedHashMap<>(8, 0.75f, true);
+        private long lastSeen;
+
+        long count(RiskRule.Window window, long now) {
+            return windows == null ? 0 : windows[window.ordinal()].count(now);
+        }
+
+        long sum(RiskRule.Window window, long now) {
+            return windows == null ? 0 : windows[window.ordinal()].sum(now);
+        }
+
+        boolean knows(String counterparty) {
+            return counterparties.get(counterparty) != null;
+        }
+
+        synchronized void recordOutgoing(long now, long paise, String payee, int maxCounterparties) {
+            if (windows == null) {
+                RiskRule.Window[] all = RiskRule.Window.values();
+                windows = new SlidingWindow[all.length];
+                for (RiskRule.Window w : all) windows[w.ordinal()] = new SlidingWindow(w.spanMillis, w.buckets);
+            }
+            for (SlidingWindow window : windows) window.add(now, paise);
+            if (payee != null) remember(payee, maxCounterparties);
+            lastSeen = now;
+        }
+
+        synchronized void recordIncoming(long now, String payer, int maxCounterparties) {
+            remember(payer, maxCounterparties);
+            lastSeen = Math.max(lastSeen, now);
+        }
+
+        // least recently used counterparty goes first once the account knows too many
+        private void remember(String counterparty, int maxCounterparties) {
+            counterparties.put(counterparty, Boolean.TRUE);
+            if (counterparties.size() > maxCounterparties) {
+                var eldest = counterparties.keySet().iterator();
+                eldest.next();
+                eldest.remove();
+            }
+        }
+
+        synchronized boolean releaseIfIdle(long idleSince) {
+            if (windows == null || lastSeen >= idleSince) return false;
+            windows = null;
+            return true;
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.bank.risk;
+
+import com.bank.util.Money;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * One check on an outgoing payment, written as {@code metric>limit:action}:
+ *
+ * <pre>
+ *   count(1m)>10:block       more than 10 withdrawals/transfers in the last minute, this one included
+ *   amount(24h)>500000:block more than ₹5,00,000 paid out in the last 24 hours, this one included
+ *   newpayee>50000:review    a transfer of more than ₹50,000 to an account never dealt with before
+ * </pre>
+ *
+ * Windows are {@code 1m}, {@code 1h} and {@code 24h}; amounts are in rupees; actions are {@code review}
+ * (let it through, flag it) and {@code block}.
+ */
+public record RiskRule(Metric metric, Window window, long limit, RiskEngine.Action action) {
+
+    public enum Metric { COUNT, AMOUNT, NEW_PAYEE }
+
+    public enum Window {
+        MINUTE("1m", 60_000L, 12),
+        HOUR("1h", 3_600_000L, 12),
+        DAY("24h", 86_400_000L, 24);
+
+        final String label;
+        final long spanMillis;
+        final int buckets;
+
+        Window(String label, long spanMillis, int buckets) {
+            this.label = label;
+            this.spanMillis = spanMillis;
+            this.buckets = buckets;
+        }
+    }
+
+    private static final Pattern RULE = Pattern.compile(
+            "(?:(count|amount)\\((1m|1h|24h)\\)|(newpayee))\\s*>\\s*(\\d+(?:\\.\\d{1,2})?)\\s*:\\s*(review|block)");
+
+    /**
+     * Parse a comma-separated rule list; an empty string means no rules.
+     */
+    public static List<RiskRule> parseAll(String spec) {
+        List<RiskRule> rules = new ArrayList<>();
+        for (String part : spec.split(",")) {
+            if (!part.isBlank()) rules.add(parse(part));
+        }
+        return rules;
+    }
+
+    public static RiskRule parse(String spec) {
+        Matcher m = RULE.matcher(spec.strip().toLowerCase(Locale.ROOT));
+        if (!m.matches()) throw new IllegalArgumentException("Invalid risk rule: " + spec);
+
+        RiskEngine.Action action = RiskEngine.Action.valueOf(m.group(5).toUpperCase(Locale.ROOT));
+        if (m.group(3) != null) {
+            return new RiskRule(Metric.NEW_PAYEE, null, Money.toPaise(Double.parseDouble(m.group(4))), action);
+        }
+        Window window = switch (m.group(2)) {
+            case "1m" -> Window.MINUTE;
+            case "1h" -> Window.HOUR;
+            default -> Window.DAY;
+        };
+        return m.group(1).equals("count")
+                ? new RiskRule(Metric.COUNT, window, (long) Double.parseDouble(m.group(4)), action)
+                : new RiskRule(Metric.AMOUNT, window, Money.toPaise(Double.parseDouble(m.group(4))), action);
+    }
+
+    @Override
+    public String toString() {
+        String action = ":" + this.action.name().toLowerCase(Locale.ROOT);
+        return switch (metric) {
+            case COUNT -> "count(" + window.label + ")>" + limit + action;
+            case AMOUNT -> "amount(" + window.label + ")>" + Money.toRupees(limit) + action;
+            case NEW_PAYEE -> "newpayee>" + Money.toRupees(limit) + action;
+        };
+    }
+}
@@ -0,0 +1,60 @@
+package com.bank.risk;
+
+/**
+ * Count and sum of the events in the last {@code span} milliseconds, kept as a ring of fixed-width buckets
+ * with running totals, so adding and reading are O(1) outside of bucket rollover. The window moves a bucket
+ * at a time: an event leaves it between {@code span - span/buckets} and {@code span} after it happened.
+ *
+ * <p>Not thread-safe; {@link RiskEngine} guards each account's windows.
+ */
+final class SlidingWindow {
+
+    private static final long NONE = Long.MIN_VALUE;
+
+    private final long bucketMillis;
+    private final int[] counts;
+    private final long[] sums;
+    private long head = NONE;   // absolute number (time / bucketMillis) of the newest bucket
+    private long count;
+    private long sum;
+
+    SlidingWindow(long spanMillis, int buckets) {
+        this.bucketMillis = spanMillis / buckets;
+        this.counts = new int[buckets];
+        this.sums = new long[buckets];
+    }
+
+    void add(long now, long amount) {
+        advance(now);
+        int i = (int) Math.floorMod(head, (long) counts.length);
+        counts[i]++;
+        sums[i] += amount;
+        count++;
+        sum += amount;
+    }
+
+    long count(long now) {
+        advance(now);
+        return count;
+    }
+
+    long sum(long now) {
+        advance(now);
+        return sum;
+    }
+
+    // clear the buckets that fell out of the window; a clock that steps back keeps filling the newest bucket
+    private void advance(long now) {
+        long bucket = Math.floorDiv(now, bucketMillis);
+        if (head != NONE && bucket <= head) return;
+        long expired = head == NONE ? counts.length : Math.min(bucket - head, counts.length);
+        for (long b = bucket - expired + 1; b <= bucket; b++) {
+            int i = (int) Math.floorMod(b, (long) counts.length);
+            count -= counts[i];
+            sum -= sums[i];
+            counts[i] = 0;
+            sums[i] = 0;
+        }
+        head = bucket;
+    }
+}
@@ -0,0 +1,222 @@
+package com.bank.service;
+
+import com.bank.cache.BalanceTable;
+import com.bank.dao.Database;
+import com.bank.metrics.Counter;
+import com.bank.metrics.Metrics;
+import com.bank.util.Money;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Low-balance alerts driven by the in-memory {@link BalanceTable}. The table reports every balance change
+ * with the threshold beside it, so the mutation path costs one comparison and no query. A change that
+ * takes a balance from at-or-above its threshold to below it opens a digest for that account; further dips
+ * in the next {@code bank.alerts.windowSeconds} (default 300) are folded into the same digest. When the
+ * window closes, one mail goes out if the balance is still below the threshold; an account that recovered
+ * in the meantime gets none. An account that stays below never crosses again, so it is never mailed twice.
+ *
+ * <p>The holder's name and email are only read when a digest is actually sent, on the alert thread.
+ */
+public class AlertService implements BalanceTable.BalanceListener {
+    private static final Logger logger = LoggerFactory.getLogger(AlertService.class);
+
+    private static final long WINDOW_SECONDS = Long.getLong("bank.alerts.windowSeconds", 300);
+    private static final DateTimeFormatter TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private static final Counter CROSSINGS = Metrics.counter("bank_alert_crossings_total", "");
+    private static final Counter SENT = Metrics.counter("bank_alert_digests_total", "outcome=\"sent\"");
+    private static final Counter RECOVERED = Metrics.counter("bank_alert_digests_total", "outcome=\"recovered\"");
+
+    private static ScheduledExecutorService background;
+    private static volatile AlertService running;
+
+    public record Contact(String holder, String email) {}
+
+    @FunctionalInterface
+    public interface Contacts {
+        Contact lookup(String accountNumber) throws SQLException;
+    }
+
+    @FunctionalInterface
+    public interface Mailer {
+        void send(String to, String subject, String body);
+    }
+
+    // Dips of one account inside one window
+    private record Digest(long openedAt, int dips, long lowest, long threshold, List<Long> dipTimes) {
+        Digest with(long at, long balance, long threshold) {
+            List<Long> times = new ArrayList<>(dipTimes);
+            times.add(at);
+            return new Digest(openedAt, dips + 1, Math.min(lowest, balance), threshold, times);
+        }
+    }
+
+    private final BalanceTable balances;
+    private final Contacts contacts;
+    private final Mailer mailer;
+    private final long windowMillis;
+    private final Clock clock;
+    private final Map<String, Digest> pending = new ConcurrentHashMap<>();
+
+    public AlertService(BalanceTable balances, Contacts contacts, Mailer mailer, long windowMillis, Clock clock) {
+        this.balances = balances;
+        this.contacts = contacts;
+        this.mailer = mailer;
+        this.windowMillis = windowMillis;
+        this.clock = clock;
+    }
+
+    // -----------------------------
+    // Crossings (called on the mutating thread)
+    // -----------------------------
+    @Override
+    public void balanceChanged(String accountNumber, long before, long after, long threshold) {
+        if (before < threshold || after >= threshold) return;
+
+        CROSSINGS.increment();
+        long now = clock.millis();
+        pending.compute(accountNumber, (k, digest) -> digest == null
+                ? new Digest(now, 1, after, threshold, List.of(now))
+                : digest.with(now, after, threshold));
+    }
+
+    /**
+     * Accounts with an open digest.
+     */
+    public int pendingCount() {
+        return pending.size();
+    }
+
+    // -----------------------------
+    // Digests (alert thread)
+    // -----------------------------
+
+    /**
+     * Send every digest whose window has closed. Returns the number of mails sent.
+     */
+    public int flush() {
+        long now = clock.millis();
+        int sent = 0;
+        for (Map.Entry<String, Digest> entry : pending.entrySet()) {
+            if (now - entry.getValue().openedAt() < windowMillis) continue;
+            // a dip arriving after this point opens the next window
+            Digest digest = pending.remove(entry.getKey());
+            if (digest != null && send(entry.getKey(), digest)) sent++;
+        }
+        return sent;
+    }
+
+    private boolean send(String accountNumber, Digest digest) {
+        long balance = balances.balance(accountNumber);
+        long threshold = balances.threshold(accountNumber);
+        if (balance == BalanceTable.ABSENT || balance >= threshold) {
+            RECOVERED.increment();
+            logger.debug("Account {} is back above its threshold; low-balance digest dropped", accountNumber);
+            return false;
+        }
+
+        Contact contact;
+        try {
+            contact = contacts.lookup(accountNumber);
+        } catch (SQLException e) {
+            logger.error("❌ Failed to look up the contact for low-balance alert on {}", accountNumber, e);
+            return false;
+        }
+        if (contact == null || contact.email() == null || contact.email().isEmpty()) return false;
+
+        StringBuilder body = new StringBuilder()
+                .append("Dear ").append(contact.holder()).append(",\n\n")
+                .append("Your current account balance is ₹").append(Money.toRupees(balance))
+                .append(", which is below your set threshold of ₹").append(Money.toRupees(threshold)).append(".\n");
+        if (digest.dips() > 1) {
+            body.append("It dropped below the threshold ").append(digest.dips()).append(" times since ")
+                    .append(format(digest.openedAt())).append(", reaching ₹").append(Money.toRupees(digest.lowest())).append(":\n");
+            for (long at : digest.dipTimes()) body.append("  • ").append(format(at)).append('\n');
+        }
+        body.append("Please deposit funds to avoid service interruptions.\n\n— Banking Simulator Team");
+
+        mailer.send(contact.email(), "⚠️ Low Balance Alert: Your Account " + accountNumber, body.toString());
+        SENT.increment();
+        logger.info("📧 Low balance alert sent to {} for account {} (₹{}, {} dips)", contact.email(), accountNumber,
+                Money.toRupees(balance), digest.dips());
+        return true;
+    }
+
+    private String format(long millis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), clock.getZone()).format(TIME);
+    }
+
+    // -----------------------------
+    // Background schedule
+    // -----------------------------
+
+    /**
+     * Attach alerts to {@code balances} and send due digests on one daemon thread. Does nothing if already running.
+     */
+    public static synchronized void startBackground(BalanceTable balances) {
+        if (background != null) return;
+
+        AlertService service = new AlertService(balances, AlertService::lookupContact, EmailService::sendEmail,
+                TimeUnit.SECONDS.toMillis(WINDOW_SECONDS), Clock.systemDefaultZone());
+        balances.setListener(service);
+        running = service;
+
+        background = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "alert-digest");
+            t.setDaemon(true);
+            return t;
+        });
+        long tick = Math.max(1, WINDOW_SECONDS / 10);
+        background.scheduleWithFixedDelay(() -> {
+            try {
+                service.flush();
+            } catch (RuntimeException e) {
+                logger.error("Sending low-balance digests failed", e);
+            }
+        }, tick, tick, TimeUnit.SECONDS);
+        logger.info("Low-balance alerts: digests every {} s", WINDOW_SECONDS);
+    }
+
+    public static synchronized void stopBackground() {
+        if (background != null) {
+            background.shutdownNow();
+            background = null;
+            running.balances.setListener(null);
+            running = null;
+        }
+    }
+
+    /**
+     * Whether alerts are handled by a running service; otherwise callers check balances themselves.
+     */
+    public static boolean isRunning() {
+        return running != null;
+    }
+
+    private static Contact lookupContact(String accountNumber) throws SQLException {
+        try (Connection conn = Database.getReadConnection(accountNumber);
+             PreparedStatement ps = conn.prepareStatement("SELECT accountHolder, email FROM accounts WHERE accountNumber = ?")) {
+            ps.setString(1, accountNumber);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? new Contact(rs.getString(1), rs.getString(2)) : null;
+            }
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package com.bank.service;
+
+import com.bank.dao.ArchiveDAO;
+import com.bank.dao.ConnectionProvider;
+import com.bank.dao.Database;
+import com.bank.dao.TransactionDAO;
+import com.bank.util.Money;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Moves transactions older than {@code bank.archive.afterDays} from the live table of one shard into its
+ * archive database. Work is done in small batches, each a short copy on the archive file followed by a
+ * short delete on the live file, with a pause in between, so the live writer lock is only ever held for
+ * one batch and regular traffic interleaves freely.
+ */
+public class ArchiveService {
+    private static final Logger logger = LoggerFactory.getLogger(ArchiveService.class);
+
+    // 0 disables archiving
+    public static final int ARCHIVE_AFTER_DAYS = Integer.getInteger("bank.archive.afterDays", 90);
+    private static final int BATCH_SIZE = Integer.getInteger("bank.archive.batchSize", 500);
+    private static final long PAUSE_MILLIS = Long.getLong("bank.archive.pauseMillis", 50);
+    private static final long INTERVAL_MINUTES = Long.getLong("bank.archive.intervalMinutes", 60);
+
+    private static ScheduledExecutorService background;
+
+    private final ConnectionProvider live;
+    private final ConnectionProvider archive;
+    private final int afterDays;
+    private final int batchSize;
+    private final long pauseMillis;
+
+    public ArchiveService(ConnectionProvider live, ConnectionProvider archive, int afterDays, int batchSize, long pauseMillis) {
+        this.live = live;
+        this.archive = archive;
+        this.afterDays = afterDays;
+        this.batchSize = Math.max(1, batchSize);
+        this.pauseMillis = pauseMillis;
+    }
+
+    public static ArchiveService forShard(int shard) {
+        return new ArchiveService(() -> Database.getShardConnection(shard), () -> Database.getArchiveConnection(shard),
+                ARCHIVE_AFTER_DAYS, BATCH_SIZE, PAUSE_MILLIS);
+    }
+
+    // -----------------------------
+    // Run
+    // -----------------------------
+
+    /**
+     * Move batches until no row is old enough. Returns the number of rows moved.
+     */
+    public long runOnce() throws SQLException {
+        long moved = 0;
+        while (!Thread.currentThread().isInterrupted()) {
+            int batch = archiveBatch();
+            moved += batch;
+            if (batch < batchSize) break;
+            try {
+                Thread.sleep(pauseMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return moved;
+    }
+
+    /**
+     * Move one batch of the oldest eligible rows. Returns the number of rows removed from the live table.
+     */
+    public int archiveBatch() throws SQLException {
+        List<ArchiveDAO.Row> rows;
+        try (Connection conn = live.getConnection()) {
+            rows = ArchiveDAO.selectOlderThan(conn, afterDays, batchSize);
+        }
+        if (rows.isEmpty()) return 0;
+
+        // 1. copy: idempotent, so a batch interrupted before step 2 is simply copied again next time
+        try (Connection conn = archive.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                ArchiveDAO.insertArchived(conn, rows);
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+        }
+
+        // 2. delete from live and carry the deleted amounts forward, in one transaction
+        try (Connection conn = live.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                List<ArchiveDAO.Row> deleted = ArchiveDAO.deleteLive(conn, rows.stream().map(ArchiveDAO.Row::id).toList());
+                Map<String, long[]> carry = new HashMap<>();
+                for (ArchiveDAO.Row row : deleted) {
+                    long[] c = carry.computeIfAbsent(row.accountNumber(), k -> new long[2]);
+                    c[0]++;
+                    c[1] += ReconciliationService.signedAmount(row.type(), Money.toPaise(row.amount()));
+                }
+                ArchiveDAO.addCarry(conn, carry);
+                conn.commit();
+                logger.debug("Archived {} transactions of {} accounts", deleted.size(), carry.size());
+                return deleted.size();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+        }
+    }
+
+    // -----------------------------
+    // Background schedule
+    // -----------------------------
+
+    /**
+     * Archive every shard now and then every {@code bank.archive.intervalMinutes}, on one daemon thread.
+     * Does nothing when archiving is disabled or already running, or when history is in the record log.
+     */
+    public static synchronized void startBackground() {
+        if (ARCHIVE_AFTER_DAYS <= 0 || background != null) return;
+        if (!TransactionDAO.requireTable("Archiving")) return;
+
+        background = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "transaction-archiver");
+            t.setDaemon(true);
+            return t;
+        });
+        background.scheduleWithFixedDelay(ArchiveService::archiveAllShards, 1, INTERVAL_MINUTES * 60, TimeUnit.SECONDS);
+        logger.info("Archiving transactions older than {} days every {} min", ARCHIVE_AFTER_DAYS, INTERVAL_MINUTES);
+    }
+
+    public static synchronized void stopBackground() {
+        if (background != null) {
+            background.shutdownNow();
+            background = null;
+        }
+    }
+
+    /**
+     * One pass over every shard. Returns the number of rows moved (0 when archiving is disabled or history
+     * is in the record log); failures are logged, not thrown, so one bad shard does not stop the schedule.
+     */
+    public static long archiveAllShards() {
+        if (ARCHIVE_AFTER_DAYS <= 0 || !TransactionDAO.requireTable("Archiving")) return 0;
+        long moved = 0;
+        for (int shard = 0; shard < Database.shardCount(); shard++) {
+            try {
+                moved += forShard(shard).runOnce();
+            } catch (SQLException e) {
+                logger.error("Archiving shard {} failed", shard, e);
+            }
+        }
+        if (moved > 0) {
+            logger.info("Archived {} transactions older than {} days", moved, ARCHIVE_AFTER_DAYS);
+        }
+        return moved;
+    }
+}
@@ -1,6 +1,7 @@
 package com.bank.service;
 
 import com.bank.dao.Database;
+import com.bank.metrics.Metrics;
 import com.bank.util.PasswordUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -13,6 +14,17 @@ public class AuthService {
 
     // ✅ Login existing user
     public boolean loginUser(String username, String password) {
+        long start = Metrics.start();
+        try {
+            boolean ok = checkLogin(username, password);
+            (ok ? Metrics.LOGIN_SUCCESS : Metrics.LOGIN_FAILURE).increment();
+            return ok;
+        } finally {
+            Metrics.LOGIN.recordSince(start);
+        }
+    }
+
+    private boolean checkLogin(String username, String password) {
         String sql = "SELECT password, locked, failed_attempts FROM users WHERE username = ?";
         try (Connection conn = Database.getConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
@@ -266,17 +278,28 @@ public class AuthService {
         }
     }
     public static void copyEmailFromAccount(String accountNumber) {
-        String sql = """
-        UPDATE users
-        SET email = (
-            SELECT email FROM accounts WHERE accounts.accountNumber = users.accountNumber
-        )
-        WHERE users.accountNumber = ?;
-    """;
+        // read from the account's shard, then write users on the main database (a single UPDATE cannot span both);
+        // one connection at a time, since without sharding both come from the same pool
+        String selectSql = "SELECT email FROM accounts WHERE accountNumber = ?";
+        String updateSql = "UPDATE users SET email = ? WHERE accountNumber = ?";
+
+        String email = null;
+        try (Connection accountConn = Database.getConnection(accountNumber);
+             PreparedStatement select = accountConn.prepareStatement(selectSql)) {
+            select.setString(1, accountNumber);
+            try (ResultSet rs = select.executeQuery()) {
+                if (rs.next()) email = rs.getString("email");
+            }
+        } catch (SQLException e) {
+            System.err.println("❌ Error copying email from accounts to users: " + e.getMessage());
+            e.printStackTrace();
+            return;
+        }
 
         try (Connection conn = Database.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-            stmt.setString(1, accountNumber);
+             PreparedStatement stmt = conn.prepareStatement(updateSql)) {
+            stmt.setString(1, email);
+            stmt.setString(2, accountNumber);
             int rows = stmt.executeUpdate();
 
             if (rows > 0)
@@ -1,8 +1,19 @@
 package com.bank.service;
 
+import com.bank.cache.BalanceTable;
+import com.bank.dao.AccountDAO;
+import com.bank.dao.AggregateDAO;
+import com.bank.dao.ArchiveDAO;
 import com.bank.dao.Database;
+import com.bank.dao.LedgerDAO;
+import com.bank.dao.ShardRouter;
+import com.bank.dao.TransferCoordinator;
 import com.bank.model.Account;
 import com.bank.dao.TransactionDAO;
+import com.bank.jfr.BankOperationEvent;
+import com.bank.metrics.Metrics;
+import com.bank.risk.RiskEngine;
+import com.bank.util.Money;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import com.bank.report.ReportGenerator;
@@ -23,16 +34,20 @@ public class Bank {
         List<Account> accounts = new ArrayList<>();
         String sql = "SELECT accountNumber, accountHolder, phone, balance FROM accounts";
 
-        try (Connection conn = Database.getConnection();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
-
-            while (rs.next()) {
-                String accNo = rs.getString("accountNumber");
-                String holder = rs.getString("accountHolder");
-                String phone = rs.getString("phone");
-                double balance = rs.getDouble("balance");
-                accounts.add(new Account(accNo, holder, phone, balance));
+        try {
+            for (int shard = 0; shard < Database.shardCount(); shard++) {
+                try (Connection conn = Database.getShardReadConnection(shard);
+                     Statement stmt = conn.createStatement();
+                     ResultSet rs = stmt.executeQuery(sql)) {
+
+                    while (rs.next()) {
+                        String accNo = rs.getString("accountNumber");
+                        String holder = rs.getString("accountHolder");
+                        String phone = rs.getString("phone");
+                        double balance = rs.getDouble("balance");
+                        accounts.add(new Account(accNo, holder, phone, balance));
+                    }
+                }
             }
 
             logger.info("Loaded {} accounts from database", accounts.size());
@@ -82,18 +97,30 @@ public class Bank {
         String accountNumber = "ACC" + System.currentTimeMillis();
         String sql = "INSERT INTO accounts(accountNumber, accountHolder, phone, balance, email, locked, alertThreshold) VALUES(?,?,?,?,?,?,?)";
 
-        try (Connection conn = Database.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-
-            pstmt.setString(1, accountNumber);
-            pstmt.setString(2, holderName);
-            pstmt.setString(3, phone);
-            pstmt.setDouble(4, initialDeposit);
-            pstmt.setString(5, email);
-            pstmt.setInt(6, 0); // not locked
-            pstmt.setDouble(7, 1000.0); // default threshold
+        try (Connection conn = Database.getConnection(accountNumber)) {
 
-            pstmt.executeUpdate();
+            conn.setAutoCommit(false);
+            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                pstmt.setString(1, accountNumber);
+                pstmt.setString(2, holderName);
+                pstmt.setString(3, phone);
+                pstmt.setDouble(4, initialDeposit);
+                pstmt.setString(5, email);
+                pstmt.setInt(6, 0); // not locked
+                pstmt.setDouble(7, 1000.0); // default threshold
+                pstmt.executeUpdate();
+                AccountDAO.cacheOpened(conn, accountNumber, initialDeposit, 1000.0);
+
+                // opening balance is the first transaction / ledger entry of the account
+                TransactionDAO.recordTransaction(conn, accountNumber, "open", initialDeposit, null);
+                LedgerDAO.postOpening(conn, accountNumber, initialDeposit);
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
 
             System.out.println("\n✅ Account created successfully for " + holderName + "!");
             System.out.println("💳 Your Account Number: " + accountNumber);
@@ -125,184 +152,269 @@ public class Bank {
     // -----------------------------
     // Deposit money
     // -----------------------------
-    public void deposit(String accountNumber, double amount) {
+    public boolean deposit(String accountNumber, double amount) {
         if (!isPositive(amount)) {
             System.out.println("❌ Deposit amount must be greater than zero.");
-            return;
+            return false;
         }
 
-        String sqlUpdate = "UPDATE accounts SET balance = balance + ? WHERE accountNumber = ?";
-        String sqlSelect = "SELECT balance FROM accounts WHERE accountNumber = ?";
+        BankOperationEvent event = new BankOperationEvent();
+        event.begin();
+        long start = Metrics.start();
+        try (Connection conn = Database.getConnection(accountNumber)) {
 
-        try (Connection conn = Database.getConnection();
-             PreparedStatement pstmtUpdate = conn.prepareStatement(sqlUpdate);
-             PreparedStatement pstmtSelect = conn.prepareStatement(sqlSelect)) {
+            conn.setAutoCommit(false);
+            try {
+                AccountDAO.Mutation credit = AccountDAO.credit(conn, accountNumber, amount);
 
-            pstmtUpdate.setDouble(1, amount);
-            pstmtUpdate.setString(2, accountNumber);
-            int updated = pstmtUpdate.executeUpdate();
+                if (credit.applied()) {
+                    TransactionDAO.recordTransaction(conn, accountNumber, "deposit", amount, null);
+                    LedgerDAO.postDeposit(conn, accountNumber, amount);
+                    conn.commit();
 
-            if (updated > 0) {
-                pstmtSelect.setString(1, accountNumber);
-                ResultSet rs = pstmtSelect.executeQuery();
-                if (rs.next()) {
-                    double newBalance = rs.getDouble("balance");
                     System.out.println("✅ Deposited ₹" + amount + " successfully!");
-                    TransactionDAO.recordTransaction(conn, accountNumber, "deposit", amount, null);
-                    System.out.println("💰 New Balance: ₹" + newBalance);
-                    logger.info("Deposit ₹{} to account {}. New balance: ₹{}", amount, accountNumber, newBalance);
+                    System.out.println("💰 New Balance: ₹" + credit.balance());
+                    logger.info("Deposit ₹{} to account {}. New balance: ₹{}", amount, accountNumber, credit.balance());
+                    return true;
+                } else {
+                    conn.rollback();
+                    System.out.println("❌ Account not found!");
+                    logger.warn("Deposit failed — account {} not found", accountNumber);
                 }
-            } else {
-                System.out.println("❌ Account not found!");
-                logger.warn("Deposit failed — account {} not found", accountNumber);
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
             }
 
         } catch (SQLException e) {
             System.out.println("❌ Database error: " + e.getMessage());
             logger.error("Error during deposit for account {}", accountNumber, e);
+        } finally {
+            Metrics.DEPOSIT.recordSince(start);
+            event.end("deposit", accountNumber, null, amount);
         }
+        return false;
     }
 
     // -----------------------------
     // Withdraw money (requires login password confirmation)
     // -----------------------------
-    public void withdraw(String accountNumber, double amount, String username) {
+    public boolean withdraw(String accountNumber, double amount, String username) {
         if (!isPositive(amount)) {
             System.out.println("❌ Withdrawal amount must be greater than zero.");
-            return;
+            return false;
         }
 
         // confirm with login password
         if (!verifyPasswordPrompt(username, accountNumber)) {
-            return;
+            return false;
         }
+        return withdrawFunds(accountNumber, amount);
+    }
 
-        String sqlSelect = "SELECT balance FROM accounts WHERE accountNumber = ?";
-        String sqlUpdate = "UPDATE accounts SET balance = balance - ? WHERE accountNumber = ?";
-
-        try (Connection conn = Database.getConnection();
-             PreparedStatement pstmtSelect = conn.prepareStatement(sqlSelect)) {
-
-            pstmtSelect.setString(1, accountNumber);
-            ResultSet rs = pstmtSelect.executeQuery();
+    // Withdraw without the interactive password prompt; callers (batch tools, load tests) are already authorised
+    public boolean withdrawFunds(String accountNumber, double amount) {
+        if (!isPositive(amount)) {
+            System.out.println("❌ Withdrawal amount must be greater than zero.");
+            return false;
+        }
+        if (!passesRiskChecks("Withdrawal", accountNumber, amount, null)) {
+            return false;
+        }
 
-            if (!rs.next()) {
-                System.out.println("❌ Account not found!");
-                logger.warn("Withdrawal failed — account {} not found", accountNumber);
-                return;
-            }
+        BankOperationEvent event = new BankOperationEvent();
+        event.begin();
+        long start = Metrics.start();
+        try (Connection conn = Database.getConnection(accountNumber)) {
 
-            double balance = rs.getDouble("balance");
-            if (amount > balance) {
-                System.out.println("❌ Insufficient balance!");
-                logger.warn("Withdrawal failed — insufficient balance in account {}", accountNumber);
-                return;
-            }
-
-            try (PreparedStatement pstmtUpdate = conn.prepareStatement(sqlUpdate)) {
-                pstmtUpdate.setDouble(1, amount);
-                pstmtUpdate.setString(2, accountNumber);
-                pstmtUpdate.executeUpdate();
+            conn.setAutoCommit(false);
+            try {
+                // one guarded UPDATE: the funds check and the debit happen atomically under the write lock
+                AccountDAO.Mutation debit = AccountDAO.debit(conn, accountNumber, amount);
+                if (!debit.applied()) {
+                    conn.rollback();
+                    if (debit.status() == AccountDAO.Status.NOT_FOUND) {
+                        System.out.println("❌ Account not found!");
+                        logger.warn("Withdrawal failed — account {} not found", accountNumber);
+                    } else {
+                        System.out.println("❌ Insufficient balance!");
+                        logger.warn("Withdrawal failed — insufficient balance in account {}", accountNumber);
+                    }
+                    return false;
+                }
 
                 TransactionDAO.recordTransaction(conn, accountNumber, "withdraw", amount, null);
+                LedgerDAO.postWithdrawal(conn, accountNumber, amount);
+                conn.commit();
+
                 System.out.println("✅ Withdrew ₹" + amount + " successfully!");
-                System.out.println("💰 Remaining Balance: ₹" + (balance - amount));
-                logger.info("Withdrawal ₹{} from account {}. Remaining: ₹{}", amount, accountNumber, (balance - amount));
-                checkAndSendLowBalanceAlert(conn, accountNumber);
+                System.out.println("💰 Remaining Balance: ₹" + debit.balance());
+                logger.info("Withdrawal ₹{} from account {}. Remaining: ₹{}", amount, accountNumber, debit.balance());
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
             }
+            checkAndSendLowBalanceAlert(conn, accountNumber);
+            return true;
 
         } catch (SQLException e) {
             System.out.println("❌ Database error: " + e.getMessage());
             logger.error("Error during withdrawal for account {}", accountNumber, e);
+        } finally {
+            Metrics.WITHDRAW.recordSince(start);
+            event.end("withdraw", accountNumber, null, amount);
         }
+        return false;
     }
 
     // -----------------------------
     // Transfer money
     // -----------------------------
-    public void transfer(String fromAccount, String toAccount, double amount) {
+    public boolean transfer(String fromAccount, String toAccount, double amount) {
         if (!isPositive(amount)) {
             System.out.println("❌ Amount must be greater than zero.");
-            return;
-        }
-        if (!accountExists(toAccount)) {
-            System.out.println("❌ Target account not found!");
-            logger.warn("Transfer failed — target account {} not found", toAccount);
-            return;
+            return false;
         }
 
-        String sqlCheck = "SELECT balance FROM accounts WHERE accountNumber = ?";
-        String sqlWithdraw = "UPDATE accounts SET balance = balance - ? WHERE accountNumber = ?";
-        String sqlDeposit = "UPDATE accounts SET balance = balance + ? WHERE accountNumber = ?";
-
-        try (Connection conn = Database.getConnection();
-             PreparedStatement checkStmt = conn.prepareStatement(sqlCheck)) {
+        BankOperationEvent event = new BankOperationEvent();
+        event.begin();
+        long start = Metrics.start();
+        try {
+            return transferFunds(fromAccount, toAccount, amount);
+        } finally {
+            Metrics.TRANSFER.recordSince(start);
+            event.end("transfer", fromAccount, toAccount, amount);
+        }
+    }
 
-            checkStmt.setString(1, fromAccount);
-            ResultSet rs = checkStmt.executeQuery();
-            if (!rs.next()) {
-                System.out.println("❌ Source account not found!");
-                logger.warn("Transfer failed — source account {} not found", fromAccount);
-                return;
-            }
+    private boolean transferFunds(String fromAccount, String toAccount, double amount) {
+        if (!passesRiskChecks("Transfer", fromAccount, amount, toAccount)) {
+            return false;
+        }
+        if (ShardRouter.shardOf(fromAccount) != ShardRouter.shardOf(toAccount)) {
+            return transferAcrossShards(fromAccount, toAccount, amount);
+        }
 
-            double balance = rs.getDouble("balance");
-            if (balance < amount) {
-                System.out.println("❌ Insufficient balance for transfer!");
-                logger.warn("Transfer failed — insufficient balance in {}", fromAccount);
-                return;
-            }
+        try (Connection conn = Database.getConnection(fromAccount)) {
 
             conn.setAutoCommit(false);
-            try (PreparedStatement withdrawStmt = conn.prepareStatement(sqlWithdraw);
-                 PreparedStatement depositStmt = conn.prepareStatement(sqlDeposit)) {
-
-                withdrawStmt.setDouble(1, amount);
-                withdrawStmt.setString(2, fromAccount);
-                withdrawStmt.executeUpdate();
+            try {
+                // one statement per leg; either leg failing rolls back both
+                AccountDAO.Mutation debit = AccountDAO.debit(conn, fromAccount, amount);
+                if (!debit.applied()) {
+                    conn.rollback();
+                    if (debit.status() == AccountDAO.Status.NOT_FOUND) {
+                        System.out.println("❌ Source account not found!");
+                        logger.warn("Transfer failed — source account {} not found", fromAccount);
+                    } else {
+                        System.out.println("❌ Insufficient balance for transfer!");
+                        logger.warn("Transfer failed — insufficient balance in {}", fromAccount);
+                    }
+                    return false;
+                }
 
-                depositStmt.setDouble(1, amount);
-                depositStmt.setString(2, toAccount);
-                depositStmt.executeUpdate();
+                if (!AccountDAO.credit(conn, toAccount, amount).applied()) {
+                    conn.rollback();
+                    System.out.println("❌ Target account not found!");
+                    logger.warn("Transfer failed — target account {} not found", toAccount);
+                    return false;
+                }
 
                 TransactionDAO.recordTransaction(conn, fromAccount, "transfer", amount, toAccount);
                 TransactionDAO.recordTransaction(conn, toAccount, "credit", amount, fromAccount);
+                LedgerDAO.postTransfer(conn, fromAccount, toAccount, amount);
 
                 conn.commit();
 
                 System.out.println("✅ Transferred ₹" + amount + " from " + fromAccount + " → " + toAccount);
                 logger.info("Transfer ₹{} from {} to {}", amount, fromAccount, toAccount);
-                checkAndSendLowBalanceAlert(conn, fromAccount);
-
             } catch (SQLException e) {
                 conn.rollback();
                 System.out.println("❌ Transfer failed: " + e.getMessage());
                 logger.error("Transfer rollback — {}", e.getMessage(), e);
+                return false;
             } finally {
                 conn.setAutoCommit(true);
             }
+            checkAndSendLowBalanceAlert(conn, fromAccount);
+            return true;
 
         } catch (SQLException e) {
             System.out.println("❌ Database error: " + e.getMessage());
             logger.error("Error during transfer between {} and {}", fromAccount, toAccount, e);
         }
+        return false;
+    }
+
+    // Accounts on different shards: no single SQLite transaction covers both, so the coordinator runs two-phase commit
+    private boolean transferAcrossShards(String fromAccount, String toAccount, double amount) {
+        try {
+            TransferCoordinator.Outcome outcome = TransferCoordinator.getDefault().transfer(fromAccount, toAccount, amount);
+            switch (outcome) {
+                case INSUFFICIENT_FUNDS -> {
+                    System.out.println("❌ Insufficient balance for transfer!");
+                    logger.warn("Transfer failed — insufficient balance in {}", fromAccount);
+                    return false;
+                }
+                case ACCOUNT_NOT_FOUND -> {
+                    System.out.println("❌ Account not found!");
+                    logger.warn("Transfer failed — {} or {} not found", fromAccount, toAccount);
+                    return false;
+                }
+                default -> { }
+            }
+
+            System.out.println("✅ Transferred ₹" + amount + " from " + fromAccount + " → " + toAccount);
+            logger.info("Transfer ₹{} from {} to {} (cross-shard)", amount, fromAccount, toAccount);
+            try (Connection conn = Database.getConnection(fromAccount)) {
+                checkAndSendLowBalanceAlert(conn, fromAccount);
+            }
+            return true;
+        } catch (SQLException e) {
+            System.out.println("❌ Transfer failed: " + e.getMessage());
+            logger.error("Error during cross-shard transfer between {} and {}", fromAccount, toAccount, e);
+            return false;
+        }
+    }
+
+    // -----------------------------
+    // Risk checks (in memory, before any SQL)
+    // -----------------------------
+    private boolean passesRiskChecks(String operation, String accountNumber, double amount, String payee) {
+        RiskEngine.Decision decision = RiskEngine.getDefault().check(accountNumber, Money.toPaise(amount), payee);
+        switch (decision.action()) {
+            case BLOCK -> {
+                System.out.println("❌ " + operation + " blocked by risk checks (" + decision.reason() + ").");
+                logger.warn("{} of ₹{} from {} blocked by risk rule {}", operation, amount, accountNumber, decision.reason());
+                return false;
+            }
+            case REVIEW -> logger.warn("⚠️ {} of ₹{} from {}{} flagged for review by risk rule {}", operation, amount, accountNumber,
+                    payee == null ? "" : " to " + payee, decision.reason());
+            default -> { }
+        }
+        return true;
     }
 
     // -----------------------------
     // Check balance
     // -----------------------------
     public void checkBalance(String accountNumber) {
-        String sql = "SELECT accountHolder, balance FROM accounts WHERE accountNumber = ?";
+        String sql = "SELECT accountHolder FROM accounts WHERE accountNumber = ?";
 
-        try (Connection conn = Database.getConnection();
+        try (Connection conn = Database.getReadConnection(accountNumber);
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
 
             pstmt.setString(1, accountNumber);
             ResultSet rs = pstmt.executeQuery();
 
-            if (rs.next()) {
+            // the balance comes from memory when the balance table holds the account
+            Double balance = rs.next() ? AccountDAO.getBalance(conn, accountNumber) : null;
+            if (balance != null) {
                 String holder = rs.getString("accountHolder");
-                double balance = rs.getDouble("balance");
                 System.out.println("💰 Balance for " + holder + ": ₹" + balance);
                 logger.info("Checked balance for {} ({}): ₹{}", holder, accountNumber, balance);
                 checkAndSendLowBalanceAlert(conn, accountNumber);
@@ -323,17 +435,20 @@ public class Bank {
     public void displayAllAccounts() {
         String sql = "SELECT accountNumber, accountHolder FROM accounts";
 
-        try (Connection conn = Database.getConnection();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
-
+        try {
             System.out.println("\n--- All Accounts ---");
             boolean hasAccounts = false;
-            while (rs.next()) {
-                hasAccounts = true;
-                String accNo = rs.getString("accountNumber");
-                String holder = rs.getString("accountHolder");
-                System.out.println(holder + " (Account No: " + accNo + ")");
+            for (int shard = 0; shard < Database.shardCount(); shard++) {
+                try (Connection conn = Database.getShardReadConnection(shard);
+                     Statement stmt = conn.createStatement();
+                     ResultSet rs = stmt.executeQuery(sql)) {
+                    while (rs.next()) {
+                        hasAccounts = true;
+                        String accNo = rs.getString("accountNumber");
+                        String holder = rs.getString("accountHolder");
+                        System.out.println(holder + " (Account No: " + accNo + ")");
+                    }
+                }
             }
 
             if (!hasAccounts) {
@@ -353,7 +468,7 @@ public class Bank {
     // -----------------------------
     public boolean accountExists(String accountNumber) {
         String sql = "SELECT 1 FROM accounts WHERE accountNumber = ?";
-        try (Connection conn = Database.getConnection();
+        try (Connection conn = Database.getReadConnection(accountNumber);
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
             pstmt.setString(1, accountNumber);
             ResultSet rs = pstmt.executeQuery();
@@ -369,19 +484,23 @@ public class Bank {
     // Generate Transaction Report (PDF)
     // -----------------------------
     public void generateReport(String accountNumber) {
-        try (Connection conn = Database.getConnection()) {
-            String sql = "SELECT accountNumber, accountHolder, phone, balance FROM accounts WHERE accountNumber = ?";
+        BankOperationEvent event = new BankOperationEvent();
+        event.begin();
+        long start = Metrics.start();
+        try (Connection conn = Database.getReadConnection(accountNumber)) {
+            String sql = "SELECT accountNumber, accountHolder, phone FROM accounts WHERE accountNumber = ?";
             Account account = null;
 
             try (PreparedStatement ps = conn.prepareStatement(sql)) {
                 ps.setString(1, accountNumber);
                 ResultSet rs = ps.executeQuery();
-                if (rs.next()) {
+                Double balance = rs.next() ? AccountDAO.getBalance(conn, accountNumber) : null;
+                if (balance != null) {
                     account = new Account(
                             rs.getString("accountNumber"),
                             rs.getString("accountHolder"),
                             rs.getString("phone"),
-                            rs.getDouble("balance")
+                            balance
                     );
                 }
             }
@@ -400,7 +519,10 @@ public class Bank {
                 return;
             }
 
-            ReportGenerator.generatePDFReport(account, transactions);
+            // footer totals come from the maintained aggregates, not from summing the rows again; the record
+            // log does not feed the aggregates, so there the rows are summed
+            ReportGenerator.generatePDFReport(account, transactions, TransactionDAO.usesTable()
+                    ? AggregateDAO.getAccountTotals(conn, accountNumber) : AggregateDAO.sum(transactions));
 
             String emailQuery = "SELECT email FROM accounts WHERE accountNumber = ?";
             String email = null;
@@ -428,6 +550,9 @@ public class Bank {
         } catch (Exception e) {
             System.out.println("❌ Error generating report: " + e.getMessage());
             logger.error("Error generating report for account {}", accountNumber, e);
+        } finally {
+            Metrics.GENERATE_REPORT.recordSince(start);
+            event.end("generateReport", accountNumber, null, 0);
         }
     }
 
@@ -435,6 +560,16 @@ public class Bank {
     // Low Balance Alert Helper
     // -----------------------------
     private void checkAndSendLowBalanceAlert(Connection conn, String accountNumber) {
+        // AlertService sees every balance change through the balance table and mails on crossings only
+        if (AlertService.isRunning()) return;
+
+        // with balances in memory, an account above its threshold needs no query at all
+        BalanceTable balances = AccountDAO.balanceTable();
+        if (balances != null) {
+            long balance = balances.balance(accountNumber);
+            if (balance != BalanceTable.ABSENT && balance >= balances.threshold(accountNumber)) return;
+        }
+
         String sql = "SELECT accountHolder, email, balance, alertThreshold FROM accounts WHERE accountNumber = ?";
         try (PreparedStatement ps = conn.prepareStatement(sql)) {
             ps.setString(1, accountNumber);
@@ -466,12 +601,13 @@ public class Bank {
     // -----------------------------
     public void setAlertThreshold(String accountNumber, double newThreshold) {
         String sql = "UPDATE accounts SET alertThreshold = ? WHERE accountNumber = ?";
-        try (Connection conn = Database.getConnection();
+        try (Connection conn = Database.getConnection(accountNumber);
              PreparedStatement ps = conn.prepareStatement(sql)) {
             ps.setDouble(1, newThreshold);
             ps.setString(2, accountNumber);
             int updated = ps.executeUpdate();
             if (updated > 0) {
+                AccountDAO.cacheThreshold(conn, accountNumber, newThreshold);
                 System.out.println("✅ Alert threshold updated to ₹" + newThreshold);
                 logger.info("Alert threshold updated to ₹{} for account {}", newThreshold, accountNumber);
             } else {
@@ -498,13 +634,16 @@ public class Bank {
             System.out.println("❌ Incorrect password (" + attempts + "/3)");
         }
 
-        // lock both user and account after 3 failed attempts
-        try (Connection conn = Database.getConnection()) {
-            try (PreparedStatement ps1 = conn.prepareStatement("UPDATE accounts SET locked = 1 WHERE accountNumber = ?")) {
+        // lock both user and account after 3 failed attempts; one connection at a time, since without
+        // sharding both come from the same pool
+        try {
+            try (Connection accountConn = Database.getConnection(accountNumber);
+                 PreparedStatement ps1 = accountConn.prepareStatement("UPDATE accounts SET locked = 1 WHERE accountNumber = ?")) {
                 ps1.setString(1, accountNumber);
                 ps1.executeUpdate();
             }
-            try (PreparedStatement ps2 = conn.prepareStatement("UPDATE users SET locked = 1 WHERE accountNumber = ?")) {
+            try (Connection conn = Database.getConnection();
+                 PreparedStatement ps2 = conn.prepareStatement("UPDATE users SET locked = 1 WHERE accountNumber = ?")) {
                 ps2.setString(1, accountNumber);
                 ps2.executeUpdate();
             }
@@ -520,13 +659,16 @@ public class Bank {
     // Update Account Details (requires login password confirmation)
     // ----------------------------
     public void updateAccountDetails(String accNo, String currentUsername) {
-        try (Connection conn = Database.getConnection()) {
+        // accounts live on the account's shard, users on the main database. Without sharding both come from
+        // the same pool, so each is taken only for its statements, and neither is held across the prompts
+        try {
 
             // Fetch current details
             String fetchQuery = "SELECT accountHolder, phone, email FROM accounts WHERE accountNumber = ?";
             String currentName = "", currentPhone = "", currentEmail = "";
 
-            try (PreparedStatement ps = conn.prepareStatement(fetchQuery)) {
+            try (Connection accountConn = Database.getConnection(accNo);
+                 PreparedStatement ps = accountConn.prepareStatement(fetchQuery)) {
                 ps.setString(1, accNo);
                 ResultSet rs = ps.executeQuery();
                 if (rs.next()) {
@@ -577,41 +719,44 @@ public class Bank {
                 return;
             }
 
-            // Ensure users table is linked correctly
-            String linkCheck = "UPDATE users SET accountNumber=? WHERE username=? AND (accountNumber IS NULL OR accountNumber='')";
-            try (PreparedStatement linkStmt = conn.prepareStatement(linkCheck)) {
-                linkStmt.setString(1, accNo);
-                linkStmt.setString(2, currentUsername);
-                linkStmt.executeUpdate();
-            }
-
             // Update both tables
             String updateAccounts = "UPDATE accounts SET accountHolder=?, phone=?, email=? WHERE accountNumber=?";
             String updateUsers = "UPDATE users SET email=? WHERE accountNumber=?";
 
-            try (PreparedStatement ps1 = conn.prepareStatement(updateAccounts);
-                 PreparedStatement ps2 = conn.prepareStatement(updateUsers)) {
-
+            try (Connection accountConn = Database.getConnection(accNo);
+                 PreparedStatement ps1 = accountConn.prepareStatement(updateAccounts)) {
                 ps1.setString(1, newName);
                 ps1.setString(2, newPhone);
                 ps1.setString(3, newEmail);
                 ps1.setString(4, accNo);
                 ps1.executeUpdate();
+            }
 
-                ps2.setString(1, newEmail);
-                ps2.setString(2, accNo);
-                int userUpdated = ps2.executeUpdate();
-
-                if (userUpdated > 0) {
-                    logger.info("✅ Email also updated in users table for account: {}", accNo);
-                } else {
-                    logger.warn("⚠️ No user record found linked with accountNumber {}. Check your DB data.", accNo);
+            try (Connection conn = Database.getConnection()) {
+                // Ensure users table is linked correctly
+                String linkCheck = "UPDATE users SET accountNumber=? WHERE username=? AND (accountNumber IS NULL OR accountNumber='')";
+                try (PreparedStatement linkStmt = conn.prepareStatement(linkCheck)) {
+                    linkStmt.setString(1, accNo);
+                    linkStmt.setString(2, currentUsername);
+                    linkStmt.executeUpdate();
                 }
 
-                logger.info("✅ Account details successfully updated for account: {}", accNo);
-                System.out.println("✅ Account details updated successfully!");
+                try (PreparedStatement ps2 = conn.prepareStatement(updateUsers)) {
+                    ps2.setString(1, newEmail);
+                    ps2.setString(2, accNo);
+                    int userUpdated = ps2.executeUpdate();
+
+                    if (userUpdated > 0) {
+                        logger.info("✅ Email also updated in users table for account: {}", accNo);
+                    } else {
+                        logger.warn("⚠️ No user record found linked with accountNumber {}. Check your DB data.", accNo);
+                    }
+                }
             }
 
+            logger.info("✅ Account details successfully updated for account: {}", accNo);
+            System.out.println("✅ Account details updated successfully!");
+
         } catch (SQLException e) {
             logger.error("❌ Database error while updating account details for {}: {}", accNo, e.getMessage());
             System.out.println("❌ Database error: " + e.getMessage());
@@ -622,27 +767,31 @@ public class Bank {
     // Delete Account (requires login password confirmation)
     // ----------------------------
     public boolean deleteAccount(String accountNumber, String username) {
-        try (Connection conn = Database.getConnection()) {
-            if (!verifyPasswordPrompt(username, accountNumber)) return false;
+        // confirm before taking any connection, so none is held while the user types
+        if (!verifyPasswordPrompt(username, accountNumber)) return false;
 
-            System.out.print("Are you sure you want to delete your user and transaction data but keep your bank account active? Type YES to confirm: ");
-            String confirm = sc.nextLine();
-            if (!confirm.equalsIgnoreCase("YES")) {
-                System.out.println("❌ Deletion cancelled.");
-                return false;
-            }
+        System.out.print("Are you sure you want to delete your user and transaction data but keep your bank account active? Type YES to confirm: ");
+        String confirm = sc.nextLine();
+        if (!confirm.equalsIgnoreCase("YES")) {
+            System.out.println("❌ Deletion cancelled.");
+            return false;
+        }
 
-            // Delete all related transactions
-            try (PreparedStatement delTx = conn.prepareStatement("DELETE FROM transactions WHERE accountNumber = ?")) {
-                delTx.setString(1, accountNumber);
-                int txDeleted = delTx.executeUpdate();
+        // the account's shard and the main database one after the other: without sharding both come from the same pool
+        try {
+            try (Connection accountConn = Database.getConnection(accountNumber)) {
+                // Delete all related transactions, from whichever engine holds them
+                int txDeleted = TransactionDAO.deleteByAccount(accountConn, accountNumber);
                 if (txDeleted > 0) {
                     System.out.println("🧾 Deleted " + txDeleted + " transaction records.");
                 }
+                AggregateDAO.deleteAccount(accountConn, accountNumber);
+                ArchiveDAO.deleteAccount(accountConn, accountNumber);
             }
 
             // Delete from users table (keep the bank account)
-            try (PreparedStatement delUser = conn.prepareStatement("DELETE FROM users WHERE accountNumber = ?")) {
+            try (Connection conn = Database.getConnection();
+                 PreparedStatement delUser = conn.prepareStatement("DELETE FROM users WHERE accountNumber = ?")) {
                 delUser.setString(1, accountNumber);
                 int userDeleted = delUser.executeUpdate();
                 if (userDeleted > 0) {
@@ -664,14 +813,32 @@ public class Bank {
     public boolean deleteBankAccount(String accNo) {
         String query = "DELETE FROM accounts WHERE accountNumber = ?";
 
-        try (Connection conn = Database.getConnection();
+        try (Connection conn = Database.getConnection(accNo);
              PreparedStatement pstmt = conn.prepareStatement(query)) {
 
             pstmt.setString(1, accNo);
             int rows = pstmt.executeUpdate();
+            if (rows > 0) {
+                AccountDAO.cacheRemoved(conn, accNo);
+                // ON DELETE CASCADE only reaches the live transactions table; drop the rest of the history too
+                TransactionDAO.deleteByAccount(conn, accNo);
+                AggregateDAO.deleteAccount(conn, accNo);
+                ArchiveDAO.deleteAccount(conn, accNo);
+            }
+
+            if (rows > 0 && ShardRouter.isSharded()) {
+                // the users table is on the main database, out of reach of ON DELETE CASCADE
+                try (Connection home = Database.getConnection();
+                     PreparedStatement delUser = home.prepareStatement("DELETE FROM users WHERE accountNumber = ?")) {
+                    delUser.setString(1, accNo);
+                    delUser.executeUpdate();
+                }
+            }
 
             if (rows > 0) {
-                logger.info("✅ Deleted bank account (and linked user via CASCADE): {}", accNo);
+                ScheduleService.getDefault().cancelAll(accNo);
+                logger.info("✅ Deleted bank account (and linked user via {}): {}",
+                        ShardRouter.isSharded() ? "the main database" : "CASCADE", accNo);
                 System.out.println("✅ Bank account deleted successfully (linked user removed too).");
                 return true;
             } else {
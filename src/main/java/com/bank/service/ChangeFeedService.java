@@ -0,0 +1,333 @@
+package com.bank.service;
+
+import com.bank.dao.ChangeFeedDAO;
+import com.bank.dao.ConnectionProvider;
+import com.bank.dao.Database;
+import com.bank.dao.H2Backend;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The change feed: every committed account and transaction mutation, as captured by {@link ChangeFeedDAO},
+ * published to named consumers through {@link Flow.Publisher}. Consumers read the outbox tables instead of
+ * polling {@code transactions}, through the read pools, so they never queue behind {@link Bank}'s writers.
+ *
+ * <p>Each subscription runs on its own daemon thread and honours {@code request(n)}: at most {@code n} events
+ * are read and delivered, and nothing is buffered beyond one batch, since the outbox itself is the buffer.
+ * After each batch the consumer's position is saved per shard, so a consumer that subscribes again, in this
+ * process or after a restart, resumes where it stopped without rescanning anything. Delivery is at least
+ * once: events delivered after the last saved position are delivered again.
+ *
+ * <p>Events of one shard arrive in {@code seq} order, so each account's events arrive in the order they
+ * were committed; shards are interleaved batch by batch. Events every consumer has passed are pruned, so a
+ * consumer that is retired for good should be {@link #unregister unregistered}.
+ */
+public class ChangeFeedService {
+    private static final Logger logger = LoggerFactory.getLogger(ChangeFeedService.class);
+
+    private static final long POLL_MILLIS = Long.getLong("bank.cdc.pollMillis", 200);
+    private static final int BATCH_SIZE = Integer.getInteger("bank.cdc.batchSize", 500);
+    // H2 numbers events before they commit, so a hole in seq may still fill: the writer can take its seq and
+    // then wait out LOCK_TIMEOUT on each further row it locks. The grace has to outlast any such transaction,
+    // or its event is skipped for good; SQLite's seq never has a hole
+    private static final long GAP_GRACE_MILLIS = Long.getLong("bank.cdc.gapGraceMillis", 60_000);
+    private static final long PRUNE_INTERVAL_MILLIS = 60_000;
+    // a consumer further behind than this on a shard is logged at every prune
+    private static final long MAX_LAG = Long.getLong("bank.cdc.maxLag", 100_000);
+
+    private static ChangeFeedService defaultService;
+
+    private final ConnectionProvider offsets;
+    private final List<ConnectionProvider> shardReads;
+    private final List<ConnectionProvider> shardWrites;
+    private final long pollMillis;
+    private final int batchSize;
+    private final long gapGraceMillis;
+    private final Set<String> active = ConcurrentHashMap.newKeySet();
+
+    /**
+     * @param offsets     the database holding {@code change_offsets}
+     * @param shardReads  per shard, connections to read its outbox
+     * @param shardWrites per shard, connections to prune its outbox
+     */
+    public ChangeFeedService(ConnectionProvider offsets, List<ConnectionProvider> shardReads, List<ConnectionProvider> shardWrites,
+                             long pollMillis, int batchSize, long gapGraceMillis) {
+        this.offsets = offsets;
+        this.shardReads = List.copyOf(shardReads);
+        this.shardWrites = List.copyOf(shardWrites);
+        this.pollMillis = Math.max(1, pollMillis);
+        this.batchSize = Math.max(1, batchSize);
+        this.gapGraceMillis = gapGraceMillis;
+    }
+
+    public static synchronized ChangeFeedService getDefault() {
+        if (defaultService == null) {
+            List<ConnectionProvider> reads = new ArrayList<>(), writes = new ArrayList<>();
+            for (int shard = 0; shard < Database.shardCount(); shard++) {
+                int s = shard;
+                reads.add(() -> Database.getShardReadConnection(s));
+                writes.add(() -> Database.getShardConnection(s));
+            }
+            if (Database.backend() instanceof H2Backend && GAP_GRACE_MILLIS < 4 * H2Backend.LOCK_TIMEOUT_MILLIS) {
+                logger.warn("bank.cdc.gapGraceMillis={} is close to H2's {} ms lock timeout; events of transactions that wait on locks may be skipped",
+                        GAP_GRACE_MILLIS, H2Backend.LOCK_TIMEOUT_MILLIS);
+            }
+            defaultService = new ChangeFeedService(Database::getConnection, reads, writes, POLL_MILLIS, BATCH_SIZE, GAP_GRACE_MILLIS);
+        }
+        return defaultService;
+    }
+
+    /**
+     * The feed as seen by {@code consumer}, starting after its saved position (or at the oldest retained
+     * event for a new consumer). A consumer has at most one live subscription per service; a second
+     * one gets {@code onError(IllegalStateException)}.
+     */
+    public Flow.Publisher<ChangeFeedDAO.Event> publisher(String consumer) {
+        Objects.requireNonNull(consumer, "consumer");
+        return subscriber -> subscribe(consumer, true, subscriber);
+    }
+
+    /**
+     * The feed from the current head on, for consumers that only push what happens while they are attached:
+     * nothing recorded before the subscription is delivered, no position is saved, and pruning is never held
+     * back. Positions {@code consumer} saved as a durable consumer are dropped.
+     */
+    public Flow.Publisher<ChangeFeedDAO.Event> livePublisher(String consumer) {
+        Objects.requireNonNull(consumer, "consumer");
+        return subscriber -> subscribe(consumer, false, subscriber);
+    }
+
+    private void subscribe(String consumer, boolean durable, Flow.Subscriber<? super ChangeFeedDAO.Event> subscriber) {
+        Objects.requireNonNull(subscriber, "subscriber");
+        if (!active.add(consumer)) {
+            subscriber.onSubscribe(new Flow.Subscription() {
+                @Override
+                public void request(long n) {}
+
+                @Override
+                public void cancel() {}
+            });
+            subscriber.onError(new IllegalStateException("Change feed consumer '" + consumer + "' is already subscribed"));
+            return;
+        }
+        FeedSubscription subscription = new FeedSubscription(consumer, durable, subscriber);
+        subscriber.onSubscribe(subscription);
+        Thread worker = new Thread(subscription, "change-feed-" + consumer);
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /**
+     * Consumers with a live subscription; a cancelled one leaves once its thread has stopped.
+     */
+    public Set<String> activeConsumers() {
+        return Set.copyOf(active);
+    }
+
+    // -----------------------------
+    // Retention
+    // -----------------------------
+
+    /**
+     * Forget the saved positions of {@code consumer}, so it no longer holds back pruning; if it subscribes
+     * again it starts at the oldest retained event. Returns false, and changes nothing, while it has a live
+     * subscription.
+     */
+    public boolean unregister(String consumer) throws SQLException {
+        if (active.contains(consumer)) return false;
+        int removed;
+        try (Connection conn = offsets.getConnection()) {
+            removed = ChangeFeedDAO.unregister(conn, consumer);
+        }
+        if (removed > 0) logger.info("Change feed consumer '{}' unregistered", consumer);
+        return true;
+    }
+
+    /**
+     * Delete, on every shard, the events all known consumers have passed. Returns the number removed;
+     * nothing is removed from a shard no consumer has a position on. Consumers more than
+     * {@code bank.cdc.maxLag} events behind (default 100,000) are logged, since until they catch up or are
+     * {@link #unregister unregistered} the outbox keeps everything they have not read.
+     */
+    public int pruneConsumed() throws SQLException {
+        int pruned = 0;
+        for (int shard = 0; shard < shardWrites.size(); shard++) {
+            long upto;
+            try (Connection conn = offsets.getConnection()) {
+                upto = ChangeFeedDAO.minOffset(conn, shard);
+            }
+            if (upto < 0) continue;
+            long head;
+            try (Connection conn = shardWrites.get(shard).getConnection()) {
+                head = ChangeFeedDAO.headSeq(conn);
+            }
+            if (head - upto > MAX_LAG) {
+                try (Connection conn = offsets.getConnection()) {
+                    logger.warn("Change feed consumers {} are over {} events behind on shard {} and hold back pruning; unregister any that are gone",
+                            ChangeFeedDAO.consumersBefore(conn, shard, head - MAX_LAG), MAX_LAG, shard);
+                }
+            }
+            if (upto == 0) continue;
+            try (Connection conn = shardWrites.get(shard).getConnection()) {
+                pruned += ChangeFeedDAO.prune(conn, upto);
+            }
+        }
+        if (pruned > 0) logger.debug("Pruned {} consumed change events", pruned);
+        return pruned;
+    }
+
+    // -----------------------------
+    // Subscription
+    // -----------------------------
+
+    private final class FeedSubscription implements Flow.Subscription, Runnable {
+        private final String consumer;
+        private final boolean durable;
+        private final Flow.Subscriber<? super ChangeFeedDAO.Event> subscriber;
+        private final AtomicLong demand = new AtomicLong();
+        private final Object signal = new Object();
+        private volatile boolean cancelled;
+        private volatile Long invalidRequest;
+        private boolean woken;
+
+        FeedSubscription(String consumer, boolean durable, Flow.Subscriber<? super ChangeFeedDAO.Event> subscriber) {
+            this.consumer = consumer;
+            this.durable = durable;
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                invalidRequest = n;
+            } else {
+                // Long.MAX_VALUE, or an overflowing sum, means unbounded
+                demand.getAndUpdate(d -> d + n < 0 ? Long.MAX_VALUE : d + n);
+            }
+            wake();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            wake();
+        }
+
+        @Override
+        public void run() {
+            try {
+                long[] positions = new long[shardReads.size()];
+                try (Connection conn = offsets.getConnection()) {
+                    if (durable) {
+                        // registered on every shard, so pruning waits for this consumer
+                        ChangeFeedDAO.register(conn, consumer, shardReads.size());
+                        positions = ChangeFeedDAO.loadOffsets(conn, consumer, shardReads.size());
+                    } else {
+                        ChangeFeedDAO.unregister(conn, consumer);
+                    }
+                }
+                for (int shard = 0; !durable && shard < positions.length; shard++) {
+                    try (Connection conn = shardReads.get(shard).getConnection()) {
+                        positions[shard] = ChangeFeedDAO.headSeq(conn);
+                    }
+                }
+                logger.info("Change feed consumer '{}' subscribed after {}", consumer, Arrays.toString(positions));
+
+                long[] gapSince = new long[positions.length];
+                long lastPrune = System.currentTimeMillis();
+                while (!cancelled) {
+                    if (invalidRequest != null) {
+                        cancelled = true;
+                        subscriber.onError(new IllegalArgumentException("request(" + invalidRequest + "): demand must be positive"));
+                        return;
+                    }
+                    if (demand.get() == 0) {
+                        await(0);
+                        continue;
+                    }
+                    int delivered = 0;
+                    for (int shard = 0; shard < positions.length && !cancelled && demand.get() > 0; shard++) {
+                        delivered += deliver(shard, positions, gapSince);
+                    }
+                    if (delivered == 0) {
+                        if (System.currentTimeMillis() - lastPrune >= PRUNE_INTERVAL_MILLIS) {
+                            pruneConsumed();
+                            lastPrune = System.currentTimeMillis();
+                        }
+                        await(pollMillis);
+                    }
+                }
+            } catch (SQLException e) {
+                logger.error("Change feed consumer '{}' stopped", consumer, e);
+                if (!cancelled) subscriber.onError(e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (RuntimeException e) {
+                // a subscriber must not throw from onNext; treat it as a cancellation
+                logger.error("Change feed consumer '{}' threw; subscription cancelled", consumer, e);
+            } finally {
+                active.remove(consumer);
+            }
+        }
+
+        // one batch of this shard within the demand; a durable position is saved even if the subscriber throws
+        private int deliver(int shard, long[] positions, long[] gapSince) throws SQLException {
+            List<ChangeFeedDAO.Event> batch;
+            try (Connection conn = shardReads.get(shard).getConnection()) {
+                batch = ChangeFeedDAO.readAfter(conn, shard, positions[shard], (int) Math.min(demand.get(), batchSize));
+            }
+            long start = positions[shard];
+            int delivered = 0;
+            try {
+                for (ChangeFeedDAO.Event event : batch) {
+                    if (cancelled) break;
+                    if (positions[shard] > 0 && event.seq() != positions[shard] + 1 && !gapExpired(gapSince, shard)) break;
+                    gapSince[shard] = 0;
+                    subscriber.onNext(event);
+                    positions[shard] = event.seq();
+                    demand.getAndUpdate(d -> d == Long.MAX_VALUE ? d : d - 1);
+                    delivered++;
+                }
+            } finally {
+                if (durable && positions[shard] != start) {
+                    try (Connection conn = offsets.getConnection()) {
+                        ChangeFeedDAO.saveOffset(conn, consumer, shard, positions[shard]);
+                    }
+                }
+            }
+            return delivered;
+        }
+
+        // a missing seq is waited for until the grace period ends; after that it was a rollback and is skipped
+        private boolean gapExpired(long[] gapSince, int shard) {
+            long now = System.currentTimeMillis();
+            if (gapSince[shard] == 0) gapSince[shard] = now;
+            return now - gapSince[shard] >= gapGraceMillis;
+        }
+
+        private void wake() {
+            synchronized (signal) {
+                woken = true;
+                signal.notifyAll();
+            }
+        }
+
+        private void await(long millis) throws InterruptedException {
+            synchronized (signal) {
+                if (!woken && !cancelled) signal.wait(millis);
+                woken = false;
+            }
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package com.bank.service;
 
+import com.bank.jfr.EmailSendEvent;
+import com.bank.metrics.Metrics;
 import jakarta.mail.*;
 import jakarta.mail.internet.InternetAddress;
 import jakarta.mail.internet.MimeMessage;
@@ -11,45 +13,66 @@ import java.io.File;
 
 public class EmailService {
 
-    private static final Dotenv dotenv = Dotenv.load();
-    private static final String SENDER_EMAIL = dotenv.get("SENDER_EMAIL");
-    private static final String APP_PASSWORD = dotenv.get("APP_PASSWORD");
+    /**
+     * Credentials and SMTP session, loaded on the first send rather than at startup: most runs never send
+     * mail, and {@code .env} plus jakarta.mail's provider lookup are not worth paying for before the first prompt.
+     * The holder class is initialised once, by the JVM, on first access.
+     */
+    private static final class Smtp {
+        private static final Dotenv dotenv = Dotenv.load();
+        private static final String SENDER_EMAIL = dotenv.get("SENDER_EMAIL");
+        private static final String APP_PASSWORD = dotenv.get("APP_PASSWORD");
+        private static final Session SESSION = createSession();
 
-    private static Session createSession() {
-        Properties props = new Properties();
-        props.put("mail.smtp.auth", "true");
-        props.put("mail.smtp.starttls.enable", "true");
-        props.put("mail.smtp.host", "smtp.gmail.com");
-        props.put("mail.smtp.port", "587");
+        private static Session createSession() {
+            Properties props = new Properties();
+            props.put("mail.smtp.auth", "true");
+            props.put("mail.smtp.starttls.enable", "true");
+            props.put("mail.smtp.host", "smtp.gmail.com");
+            props.put("mail.smtp.port", "587");
 
-        return Session.getInstance(props, new Authenticator() {
-            @Override
-            protected PasswordAuthentication getPasswordAuthentication() {
-                return new PasswordAuthentication(SENDER_EMAIL, APP_PASSWORD);
-            }
-        });
+            return Session.getInstance(props, new Authenticator() {
+                @Override
+                protected PasswordAuthentication getPasswordAuthentication() {
+                    return new PasswordAuthentication(SENDER_EMAIL, APP_PASSWORD);
+                }
+            });
+        }
     }
 
     public static void sendEmail(String to, String subject, String messageText) {
+        EmailSendEvent event = new EmailSendEvent();
+        event.begin();
+        boolean sent = false;
+        long start = Metrics.start();
         try {
-            Message message = new MimeMessage(createSession());
-            message.setFrom(new InternetAddress(SENDER_EMAIL));
+            Message message = new MimeMessage(Smtp.SESSION);
+            message.setFrom(new InternetAddress(Smtp.SENDER_EMAIL));
             message.setRecipients(Message.RecipientType.TO, InternetAddress.parse(to));
             message.setSubject(subject);
             message.setText(messageText);
 
             Transport.send(message);
+            sent = true;
             System.out.println("📧 Email sent successfully to: " + to);
 
         } catch (MessagingException e) {
+            Metrics.EMAIL_FAILURES.increment();
             System.err.println("❌ Failed to send email: " + e.getMessage());
             e.printStackTrace();
+        } finally {
+            Metrics.EMAIL_SEND.recordSince(start);
+            event.end(to, false, sent);
         }
     }
     public static void sendEmailWithAttachment(String to, String subject, String messageText, String filePath) {
+        EmailSendEvent event = new EmailSendEvent();
+        event.begin();
+        boolean sent = false;
+        long start = Metrics.start();
         try {
-            Message message = new MimeMessage(createSession());
-            message.setFrom(new InternetAddress(SENDER_EMAIL));
+            Message message = new MimeMessage(Smtp.SESSION);
+            message.setFrom(new InternetAddress(Smtp.SENDER_EMAIL));
             message.setRecipients(Message.RecipientType.TO, InternetAddress.parse(to));
             message.setSubject(subject);
 
@@ -69,11 +92,16 @@ public class EmailService {
             message.setContent(multipart);
 
             Transport.send(message);
+            sent = true;
             System.out.println("📎 Email with attachment sent successfully to: " + to);
 
         } catch (Exception e) {
+            Metrics.EMAIL_FAILURES.increment();
             System.err.println("❌ Failed to send email with attachment: " + e.getMessage());
             e.printStackTrace();
+        } finally {
+            Metrics.EMAIL_SEND.recordSince(start);
+            event.end(to, true, sent);
         }
     }
 }
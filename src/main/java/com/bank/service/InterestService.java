@@ -0,0 +1,321 @@
+package com.bank.service;
+
+import com.bank.dao.AccrualDAO;
+import com.bank.dao.ConnectionProvider;
+import com.bank.dao.Database;
+import com.bank.dao.LedgerDAO;
+import com.bank.dao.TransactionDAO;
+import com.bank.util.Money;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Daily interest and fees for every account. Each shard's accounts are split into id-range partitions that
+ * run in parallel; a partition is worked through in batches, and each batch is one transaction that credits
+ * the interest and debits the fees of up to {@code bank.accrual.batchSize} accounts with batched updates,
+ * records their transaction rows, posts one ledger journal per kind and moves the partition's checkpoint.
+ * A run that fails or is killed is simply started again for the same day and picks up after the last
+ * committed batch of each partition.
+ *
+ * <p>Amounts are whole paise. Interest for a day is {@code balance × annualRateBps / (10000 × 365)}; what
+ * falls below one paisa is carried to the account's next day instead of being rounded away. The balance used
+ * is the one the account has when its batch runs. Partitions of one shard share SQLite's single writer, so
+ * the speed-up comes from running shards side by side.
+ */
+public class InterestService {
+    private static final Logger logger = LoggerFactory.getLogger(InterestService.class);
+
+    public static final boolean ENABLED = Boolean.getBoolean("bank.accrual.enabled");
+    private static final int PARTITIONS = Integer.getInteger("bank.accrual.partitions", Runtime.getRuntime().availableProcessors());
+    private static final int BATCH_SIZE = Integer.getInteger("bank.accrual.batchSize", 2_000);
+    private static final long INTERVAL_MINUTES = Long.getLong("bank.accrual.intervalMinutes", 60);
+
+    // fixed-point divisor of the daily rate: basis points of an annual rate, 365 days a year
+    static final long RATE_DIVISOR = 10_000L * 365;
+
+    private static ScheduledExecutorService background;
+
+    /**
+     * What a day costs or earns: interest at {@code annualRateBps}, and a fee of {@code dailyFeePaise} on
+     * each day an account ends below {@code minBalancePaise} (never more than what the account holds).
+     */
+    public record Policy(int annualRateBps, long minBalancePaise, long dailyFeePaise) {
+        public static Policy fromSystemProperties() {
+            return new Policy(Integer.getInteger("bank.interest.annualRateBps", 350),
+                    Money.toPaise(Double.parseDouble(System.getProperty("bank.fees.minBalance", "1000"))),
+                    Money.toPaise(Double.parseDouble(System.getProperty("bank.fees.dailyBelowMinimum", "0"))));
+        }
+    }
+
+    /**
+     * Accounts processed and money moved by a run (or a part of one).
+     */
+    public record Summary(long accounts, long interestPaise, long feePaise, long elapsedNanos) {
+        static final Summary NONE = new Summary(0, 0, 0, 0);
+
+        Summary plus(Summary other) {
+            return new Summary(accounts + other.accounts, interestPaise + other.interestPaise,
+                    feePaise + other.feePaise, Math.max(elapsedNanos, other.elapsedNanos));
+        }
+    }
+
+    private final ConnectionProvider db;
+    private final Policy policy;
+    private final int partitions;
+    private final int batchSize;
+
+    public InterestService(ConnectionProvider db, Policy policy, int partitions, int batchSize) {
+        this.db = db;
+        this.policy = policy;
+        this.partitions = Math.max(1, partitions);
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    public static InterestService forShard(int shard) {
+        return new InterestService(() -> Database.getShardConnection(shard), Policy.fromSystemProperties(), PARTITIONS, BATCH_SIZE);
+    }
+
+    // -----------------------------
+    // Run
+    // -----------------------------
+
+    /**
+     * Accrue {@code day} on this database with up to {@code threads} partitions at once. Finished
+     * partitions are skipped, so calling this again after a failure completes the day.
+     */
+    public Summary accrue(LocalDate day, int threads) throws SQLException {
+        return runAll(day, List.of(this), threads);
+    }
+
+    /**
+     * Accrue {@code day} on every shard, all partitions sharing {@code threads} workers.
+     */
+    public static Summary accrueAllShards(LocalDate day, int threads) throws SQLException {
+        List<InterestService> shards = new ArrayList<>();
+        for (int shard = 0; shard < Database.shardCount(); shard++) shards.add(forShard(shard));
+        return runAll(day, shards, threads);
+    }
+
+    /**
+     * Accrue every day after this database's last completed day up to {@code through}, oldest first; only
+     * {@code through} on a database that has never finished a day. Stops at the first day that fails.
+     */
+    public Summary catchUp(LocalDate through, int threads) throws SQLException {
+        return runThrough(through, List.of(this), threads);
+    }
+
+    /**
+     * {@link #catchUp} on every shard: each day runs on all shards before the next one starts.
+     */
+    public static Summary catchUpAllShards(LocalDate through, int threads) throws SQLException {
+        List<InterestService> shards = new ArrayList<>();
+        for (int shard = 0; shard < Database.shardCount(); shard++) shards.add(forShard(shard));
+        return runThrough(through, shards, threads);
+    }
+
+    private static Summary runThrough(LocalDate through, List<InterestService> services, int threads) throws SQLException {
+        // the shard furthest behind sets the first day; shards already past it skip that day for one query
+        LocalDate from = through;
+        for (InterestService service : services) {
+            LocalDate last;
+            try (Connection conn = service.db.getConnection()) {
+                last = AccrualDAO.lastCompletedDay(conn);
+            }
+            if (last != null && last.plusDays(1).isBefore(from)) from = last.plusDays(1);
+        }
+        if (from.isBefore(through)) {
+            logger.info("Catching up interest accrual from {} to {}", from, through);
+        }
+
+        Summary total = Summary.NONE;
+        for (LocalDate day = from; !day.isAfter(through); day = day.plusDays(1)) {
+            total = total.plus(runAll(day, services, threads));
+        }
+        return total;
+    }
+
+    private static Summary runAll(LocalDate day, List<InterestService> services, int threads) throws SQLException {
+        long start = System.nanoTime();
+        List<Callable<Summary>> work = new ArrayList<>();
+        for (InterestService service : services) {
+            List<AccrualDAO.Partition> plan;
+            try (Connection conn = service.db.getConnection()) {
+                plan = AccrualDAO.plan(conn, day, service.partitions);
+            }
+            for (AccrualDAO.Partition partition : plan) {
+                if (!partition.done()) work.add(() -> service.runPartition(day, partition));
+            }
+        }
+        if (work.isEmpty()) return Summary.NONE;
+
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, Math.min(threads, work.size())));
+        Summary total = Summary.NONE;
+        SQLException failure = null;
+        try {
+            for (Future<Summary> f : pool.invokeAll(work)) {
+                try {
+                    total = total.plus(f.get());
+                } catch (ExecutionException e) {
+                    logger.error("Accrual partition for {} failed", day, e.getCause());
+                    if (failure == null) {
+                        failure = e.getCause() instanceof SQLException sql ? sql : new SQLException(e.getCause());
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            failure = new SQLException("Accrual for " + day + " interrupted", e);
+        } finally {
+            pool.shutdown();
+        }
+
+        total = new Summary(total.accounts(), total.interestPaise(), total.feePaise(), System.nanoTime() - start);
+        logger.info("Accrued {}: {} accounts, ₹{} interest, ₹{} fees in {} ms{}", day, total.accounts(),
+                Money.toRupees(total.interestPaise()), Money.toRupees(total.feePaise()), total.elapsedNanos() / 1_000_000,
+                failure == null ? "" : " (incomplete: run again to finish)");
+        if (failure != null) throw failure;
+        return total;
+    }
+
+    private Summary runPartition(LocalDate day, AccrualDAO.Partition partition) throws SQLException {
+        Summary total = Summary.NONE;
+        long lastId = partition.lastId();
+        while (!Thread.currentThread().isInterrupted()) {
+            long[] next = new long[1];
+            Summary batch = accrueBatch(day, partition, lastId, next);
+            if (batch == null) break;   // finished, here or by another runner
+            total = total.plus(batch);
+            lastId = next[0];
+        }
+        return total;
+    }
+
+    // One transaction: claim the checkpoint, move the money, advance the checkpoint. Returns null once the partition is done.
+    private Summary accrueBatch(LocalDate day, AccrualDAO.Partition partition, long lastId, long[] next) throws SQLException {
+        long start = System.nanoTime();
+        try (Connection conn = db.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                if (!AccrualDAO.claim(conn, day, partition.number(), lastId)) {
+                    conn.rollback();
+                    return null;
+                }
+
+                List<AccrualDAO.Row> rows = AccrualDAO.nextBatch(conn, lastId, partition.toId(), batchSize);
+                int n = rows.size();
+                List<String> accounts = new ArrayList<>(n);
+                long[] interest = new long[n], fees = new long[n], carry = new long[n];
+                for (int i = 0; i < n; i++) {
+                    AccrualDAO.Row row = rows.get(i);
+                    accounts.add(row.accountNumber());
+                    long balance = row.balancePaise();
+                    carry[i] = row.carry();
+                    if (balance > 0) {
+                        long accrued = Math.addExact(Math.multiplyExact(balance, (long) policy.annualRateBps()), row.carry());
+                        interest[i] = accrued / RATE_DIVISOR;
+                        carry[i] = accrued % RATE_DIVISOR;
+                    }
+                    if (policy.dailyFeePaise() > 0 && balance < policy.minBalancePaise() && balance > 0) {
+                        fees[i] = Math.min(policy.dailyFeePaise(), balance);
+                    }
+                }
+
+                boolean[] credited = AccrualDAO.credit(conn, accounts, interest);
+                boolean[] debited = AccrualDAO.debit(conn, accounts, fees);
+                long interestTotal = 0, feeTotal = 0;
+                for (int i = 0; i < n; i++) {
+                    if (!credited[i]) {
+                        interest[i] = 0;
+                        carry[i] = rows.get(i).carry();
+                    }
+                    if (!debited[i]) fees[i] = 0;
+                    interestTotal += interest[i];
+                    feeTotal += fees[i];
+                }
+
+                record(conn, "interest", accounts, interest, false);
+                record(conn, "fee", accounts, fees, true);
+                AccrualDAO.saveCarry(conn, rows, carry);
+
+                next[0] = n == 0 ? partition.toId() : rows.get(n - 1).id();
+                boolean done = n < batchSize || next[0] >= partition.toId();
+                AccrualDAO.advance(conn, day, partition.number(), next[0], done);
+                conn.commit();
+
+                if (n == 0) return done ? null : Summary.NONE;
+                logger.debug("Accrual {} partition {}: {} accounts up to id {}", day, partition.number(), n, next[0]);
+                return new Summary(n, interestTotal, feeTotal, System.nanoTime() - start);
+            } catch (SQLException | RuntimeException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        }
+    }
+
+    // Transaction rows and one ledger journal for the accounts that moved
+    private static void record(Connection conn, String type, List<String> accounts, long[] paise, boolean debit) throws SQLException {
+        List<String> moved = new ArrayList<>();
+        double[] amounts = new double[accounts.size()];
+        long[] signed = new long[accounts.size()];
+        for (int i = 0; i < accounts.size(); i++) {
+            if (paise[i] == 0) continue;
+            amounts[moved.size()] = Money.toRupees(paise[i]);
+            moved.add(accounts.get(i));
+            signed[i] = debit ? -paise[i] : paise[i];
+        }
+        if (moved.isEmpty()) return;
+
+        TransactionDAO.recordTransactions(conn, type, moved, amounts);
+        LedgerDAO.postBulk(conn, type, debit ? LedgerDAO.FEES_ACCOUNT : LedgerDAO.INTEREST_ACCOUNT, accounts, signed);
+    }
+
+    // -----------------------------
+    // Background schedule
+    // -----------------------------
+
+    /**
+     * Accrue every closed day not yet done, through yesterday, on every shard now and then every
+     * {@code bank.accrual.intervalMinutes}, on one daemon thread, so days missed while the application was
+     * down are caught up; once current, a check costs two checkpoint queries per shard. Off unless
+     * {@code bank.accrual.enabled}.
+     */
+    public static synchronized void startBackground() {
+        if (!ENABLED || background != null) return;
+
+        background = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "interest-accrual");
+            t.setDaemon(true);
+            return t;
+        });
+        background.scheduleWithFixedDelay(() -> {
+            try {
+                catchUpAllShards(LocalDate.now().minusDays(1), PARTITIONS);
+            } catch (SQLException | RuntimeException e) {
+                logger.error("Interest accrual failed", e);
+            }
+        }, 1, INTERVAL_MINUTES * 60, TimeUnit.SECONDS);
+        logger.info("Accruing interest and fees for each closed day, checked every {} min", INTERVAL_MINUTES);
+    }
+
+    public static synchronized void stopBackground() {
+        if (background != null) {
+            background.shutdownNow();
+            background = null;
+        }
+    }
+}
@@ -0,0 +1,213 @@
+package com.bank.service;
+
+import com.bank.dao.ConnectionProvider;
+import com.bank.dao.Database;
+import com.bank.util.Money;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * End-of-day reconciliation: checks that every accounts.balance equals the sum of that account's
+ * transactions (plus the carried sum of any already archived, see {@code ArchiveDAO}). The account id range is split across a fork-join pool and each leaf partition
+ * streams its accounts and transactions through one forward-only cursor on its own connection.
+ */
+public class ReconciliationService {
+    private static final Logger logger = LoggerFactory.getLogger(ReconciliationService.class);
+
+    private static final int FETCH_SIZE = 10_000;
+
+    private final ConnectionProvider connections;
+    private final int parallelism;
+    private final int partitionSize;
+
+    public ReconciliationService() {
+        this(Database::getConnection, Runtime.getRuntime().availableProcessors(), 50_000);
+    }
+
+    public ReconciliationService(ConnectionProvider connections, int parallelism, int partitionSize) {
+        this.connections = connections;
+        this.parallelism = Math.max(1, parallelism);
+        this.partitionSize = Math.max(1, partitionSize);
+    }
+
+    // -----------------------------
+    // Result types
+    // -----------------------------
+    public record Discrepancy(String accountNumber, long storedPaise, long computedPaise) {
+        public long differencePaise() {
+            return storedPaise - computedPaise;
+        }
+    }
+
+    public record PartitionStats(long fromId, long toId, long accounts, long rows, long elapsedNanos) {
+        public double rowsPerSecond() {
+            return elapsedNanos == 0 ? 0 : rows * 1_000_000_000.0 / elapsedNanos;
+        }
+    }
+
+    public record Result(List<Discrepancy> discrepancies, List<PartitionStats> partitions, long elapsedNanos) {
+        public long accounts() {
+            return partitions.stream().mapToLong(PartitionStats::accounts).sum();
+        }
+
+        public long rows() {
+            return partitions.stream().mapToLong(PartitionStats::rows).sum();
+        }
+    }
+
+    // -----------------------------
+    // Run
+    // -----------------------------
+    public Result reconcile() throws SQLException {
+        long start = System.nanoTime();
+        long minId, maxId;
+        try (Connection conn = connections.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT MIN(id), MAX(id) FROM accounts")) {
+            rs.next();
+            minId = rs.getLong(1);
+            maxId = rs.getLong(2);
+            if (rs.wasNull()) {
+                return new Result(List.of(), List.of(), System.nanoTime() - start);
+            }
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            Result partial = pool.invoke(new PartitionTask(minId, maxId));
+            Result result = new Result(partial.discrepancies(), partial.partitions(), System.nanoTime() - start);
+            logger.info("Reconciled {} accounts ({} transactions) in {} ms across {} partitions — {} discrepancies",
+                    result.accounts(), result.rows(), result.elapsedNanos() / 1_000_000,
+                    result.partitions().size(), result.discrepancies().size());
+            return result;
+        } catch (RuntimeException e) {
+            if (e.getCause() instanceof SQLException sqlException) throw sqlException;
+            throw e;
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Reconcile every shard in turn. Each shard holds its accounts together with their transactions,
+     * so shards are checked independently and their results concatenated.
+     */
+    public static Result reconcileAllShards(int parallelism, int partitionSize) throws SQLException {
+        long start = System.nanoTime();
+        List<Discrepancy> discrepancies = new ArrayList<>();
+        List<PartitionStats> partitions = new ArrayList<>();
+        for (int shard = 0; shard < Database.shardCount(); shard++) {
+            final int owner = shard;
+            Result r = new ReconciliationService(() -> Database.getShardReadConnection(owner), parallelism, partitionSize).reconcile();
+            discrepancies.addAll(r.discrepancies());
+            partitions.addAll(r.partitions());
+        }
+        return new Result(discrepancies, partitions, System.nanoTime() - start);
+    }
+
+    private class PartitionTask extends RecursiveTask<Result> {
+        private static final long serialVersionUID = 1L;
+
+        private final long fromId;
+        private final long toId;
+
+        PartitionTask(long fromId, long toId) {
+            this.fromId = fromId;
+            this.toId = toId;
+        }
+
+        @Override
+        protected Result compute() {
+            if (toId - fromId + 1 <= partitionSize) {
+                try {
+                    return scanPartition(fromId, toId);
+                } catch (SQLException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+
+            long mid = fromId + (toId - fromId) / 2;
+            PartitionTask left = new PartitionTask(fromId, mid);
+            PartitionTask right = new PartitionTask(mid + 1, toId);
+            left.fork();
+            Result r = right.compute();
+            Result l = left.join();
+
+            List<Discrepancy> discrepancies = new ArrayList<>(l.discrepancies());
+            discrepancies.addAll(r.discrepancies());
+            List<PartitionStats> partitions = new ArrayList<>(l.partitions());
+            partitions.addAll(r.partitions());
+            return new Result(discrepancies, partitions, 0);
+        }
+    }
+
+    // Streams one id range; rows arrive grouped by account so only the running sum is kept in memory
+    private Result scanPartition(long fromId, long toId) throws SQLException {
+        long start = System.nanoTime();
+        String sql = """
+            SELECT a.accountNumber, a.balance, c.amount, t.type, t.amount
+            FROM accounts a
+            LEFT JOIN archived_balances c ON c.accountNumber = a.accountNumber
+            LEFT JOIN transactions t ON t.accountNumber = a.accountNumber
+            WHERE a.id BETWEEN ? AND ?
+            ORDER BY a.id
+        """;
+
+        List<Discrepancy> discrepancies = new ArrayList<>();
+        long accounts = 0, rows = 0;
+
+        try (Connection conn = connections.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            ps.setFetchSize(FETCH_SIZE);
+            ps.setLong(1, fromId);
+            ps.setLong(2, toId);
+
+            try (ResultSet rs = ps.executeQuery()) {
+                String current = null;
+                long stored = 0, computed = 0;
+
+                while (rs.next()) {
+                    String accountNumber = rs.getString(1);
+                    if (!accountNumber.equals(current)) {
+                        if (current != null && stored != computed) {
+                            discrepancies.add(new Discrepancy(current, stored, computed));
+                        }
+                        current = accountNumber;
+                        stored = Money.toPaise(rs.getDouble(2));
+                        computed = rs.getLong(3); // archived history, already in signed paise (0 when none)
+                        accounts++;
+                    }
+
+                    String type = rs.getString(4);
+                    if (type != null) {
+                        computed += signedAmount(type, Money.toPaise(rs.getDouble(5)));
+                        rows++;
+                    }
+                }
+                if (current != null && stored != computed) {
+                    discrepancies.add(new Discrepancy(current, stored, computed));
+                }
+            }
+        }
+
+        PartitionStats stats = new PartitionStats(fromId, toId, accounts, rows, System.nanoTime() - start);
+        logger.debug("Partition [{}..{}]: {} accounts, {} rows, {} rows/s",
+                fromId, toId, accounts, rows, (long) stats.rowsPerSecond());
+        return new Result(discrepancies, List.of(stats), stats.elapsedNanos());
+    }
+
+    // Effect of one transactions row on its own account's balance
+    static long signedAmount(String type, long paise) {
+        return switch (type.toLowerCase()) {
+            case "open", "deposit", "credit", "interest" -> paise;
+            case "withdraw", "transfer", "fee" -> -paise;
+            default -> 0;
+        };
+    }
+}
@@ -0,0 +1,344 @@
+package com.bank.service;
+
+import com.bank.dao.ConnectionProvider;
+import com.bank.dao.Database;
+import com.bank.dao.ScheduleDAO;
+import com.bank.dao.ScheduleDAO.Scheduled;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs standing orders and future-dated transfers. The schedules live in {@code scheduled_transfers}; in
+ * memory there is only a priority queue of the ones due before {@code loadedUntil}, refilled one window of
+ * {@code bank.schedule.horizonMinutes} (default 15) at a time from the index of active schedules. A tick
+ * pops what is due, in batches of {@code bank.schedule.batchSize}, and pays each one through the normal
+ * transfer path on a few worker threads, so risk checks, ledger and alerts apply as for any transfer.
+ *
+ * <p>Each batch is first moved on to its next run (or closed) in one transaction, then executed: a crash
+ * in between skips those runs rather than paying them twice. A recurring order that was missed while the
+ * bank was down runs once when it comes back, then continues on its interval.
+ */
+public class ScheduleService {
+    private static final Logger logger = LoggerFactory.getLogger(ScheduleService.class);
+
+    private static final long HORIZON_MILLIS = TimeUnit.MINUTES.toMillis(Long.getLong("bank.schedule.horizonMinutes", 15));
+    private static final int BATCH_SIZE = Integer.getInteger("bank.schedule.batchSize", 500);
+    private static final int THREADS = Integer.getInteger("bank.schedule.threads", 4);
+    private static final long TICK_MILLIS = Long.getLong("bank.schedule.tickMillis", 1_000);
+    private static final long DAY_MILLIS = TimeUnit.DAYS.toMillis(1);
+
+    private static volatile ScheduleService defaultService;
+    private static ScheduledExecutorService background;
+
+    /**
+     * The transfer path schedules are paid through; false when the transfer was refused.
+     */
+    @FunctionalInterface
+    public interface Transfers {
+        boolean transfer(String fromAccount, String toAccount, double amount);
+    }
+
+    private final ConnectionProvider db;
+    private final Transfers transfers;
+    private final Clock clock;
+    private final long horizonMillis;
+    private final int batchSize;
+    private final ExecutorService workers;
+
+    // guarded by this: every active schedule with nextRun < loadedUntil is in the queue
+    private final PriorityQueue<Scheduled> queue =
+            new PriorityQueue<>(Comparator.comparingLong(Scheduled::nextRun).thenComparingLong(Scheduled::id));
+    private long loadedUntil = Long.MIN_VALUE;
+
+    public ScheduleService(ConnectionProvider db, Transfers transfers, Clock clock, long horizonMillis, int batchSize, int threads) {
+        this.db = db;
+        this.transfers = transfers;
+        this.clock = clock;
+        this.horizonMillis = horizonMillis;
+        this.batchSize = Math.max(1, batchSize);
+        AtomicInteger n = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(Math.max(1, threads), r -> {
+            Thread t = new Thread(r, "scheduled-transfer-" + n.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    public static ScheduleService getDefault() {
+        ScheduleService service = defaultService;
+        if (service == null) {
+            synchronized (ScheduleService.class) {
+                service = defaultService;
+                if (service == null) {
+                    Bank bank = new Bank();
+                    service = new ScheduleService(Database::getConnection, bank::transfer, Clock.systemDefaultZone(),
+                            HORIZON_MILLIS, BATCH_SIZE, THREADS);
+                    defaultService = service;
+                }
+            }
+        }
+        return service;
+    }
+
+    // -----------------------------
+    // Schedules
+    // -----------------------------
+
+    /**
+     * Schedule {@code amount} from one account to another at {@code firstRun}, then every {@code intervalDays}
+     * days (0 for once) for {@code occurrences} runs in all (0 for no limit). Returns the schedule id, or -1.
+     */
+    public long schedule(String fromAccount, String toAccount, double amount, LocalDateTime firstRun, int intervalDays, int occurrences) {
+        if (amount <= 0 || intervalDays < 0 || occurrences < 0 || fromAccount.equals(toAccount)) {
+            System.out.println("❌ Invalid schedule: amount must be positive and the accounts different.");
+            return -1;
+        }
+        long nextRun = firstRun.atZone(clock.getZone()).toInstant().toEpochMilli();
+
+        // under the lock so a window being loaded cannot pick the new row up a second time
+        synchronized (this) {
+            try (Connection conn = db.getConnection()) {
+                long id = ScheduleDAO.insert(conn, fromAccount, toAccount, amount, nextRun, intervalDays, occurrences);
+                if (nextRun < loadedUntil) {
+                    queue.add(new Scheduled(id, fromAccount, toAccount, amount, nextRun, intervalDays,
+                            intervalDays > 0 ? occurrences : 1, "active", 0, null));
+                }
+                System.out.println("✅ Scheduled transfer #" + id + " of ₹" + amount + " to " + toAccount + " from " + firstRun
+                        + (intervalDays > 0 ? ", every " + intervalDays + " day(s)" : ""));
+                logger.info("Scheduled transfer #{}: ₹{} {} → {} from {} every {} day(s), {} run(s)",
+                        id, amount, fromAccount, toAccount, firstRun, intervalDays, occurrences);
+                return id;
+            } catch (SQLException e) {
+                System.out.println("❌ Failed to schedule transfer: " + e.getMessage());
+                logger.error("Failed to schedule transfer from {}", fromAccount, e);
+                return -1;
+            }
+        }
+    }
+
+    public List<Scheduled> list(String fromAccount) {
+        try (Connection conn = db.getConnection()) {
+            return ScheduleDAO.findByAccount(conn, fromAccount);
+        } catch (SQLException e) {
+            logger.error("Failed to list scheduled transfers of {}", fromAccount, e);
+            return List.of();
+        }
+    }
+
+    public boolean cancel(long id, String fromAccount) {
+        try (Connection conn = db.getConnection()) {
+            if (!ScheduleDAO.cancel(conn, id, fromAccount)) return false;
+        } catch (SQLException e) {
+            logger.error("Failed to cancel scheduled transfer #{}", id, e);
+            return false;
+        }
+        synchronized (this) {
+            queue.removeIf(s -> s.id() == id);
+        }
+        logger.info("Scheduled transfer #{} of {} cancelled", id, fromAccount);
+        return true;
+    }
+
+    /**
+     * Cancel every schedule paying from or to a closed account.
+     */
+    public void cancelAll(String accountNumber) {
+        try (Connection conn = db.getConnection()) {
+            int cancelled = ScheduleDAO.cancelForAccount(conn, accountNumber);
+            if (cancelled == 0) return;
+            logger.info("Cancelled {} scheduled transfers of closed account {}", cancelled, accountNumber);
+        } catch (SQLException e) {
+            logger.error("Failed to cancel the scheduled transfers of {}", accountNumber, e);
+            return;
+        }
+        synchronized (this) {
+            queue.removeIf(s -> s.fromAccount().equals(accountNumber) || s.toAccount().equals(accountNumber));
+        }
+    }
+
+    /**
+     * Schedules currently held in memory.
+     */
+    public synchronized int queued() {
+        return queue.size();
+    }
+
+    // -----------------------------
+    // Engine
+    // -----------------------------
+
+    /**
+     * Load the next window if due, then run everything due now. Returns the number of transfers attempted.
+     */
+    public int tick() throws SQLException {
+        long now = clock.millis();
+        loadWindow(now);
+        int total = 0;
+        while (hasDue(now)) total += runBatch(now);
+        return total;
+    }
+
+    private synchronized boolean hasDue(long now) {
+        return !queue.isEmpty() && queue.peek().nextRun() <= now;
+    }
+
+    // read ahead once less than half a window is left in memory
+    private synchronized void loadWindow(long now) throws SQLException {
+        if (loadedUntil > now + horizonMillis / 2) return;
+        long until = now + horizonMillis;
+        try (Connection conn = db.getConnection()) {
+            List<Scheduled> window = ScheduleDAO.findDue(conn, loadedUntil, until);
+            queue.addAll(window);
+            if (!window.isEmpty()) logger.debug("Loaded {} scheduled transfers due before {}", window.size(), until);
+        }
+        loadedUntil = until;
+    }
+
+    private int runBatch(long now) throws SQLException {
+        List<Scheduled> due = new ArrayList<>();
+        synchronized (this) {
+            while (due.size() < batchSize && hasDue(now)) {
+                due.add(queue.poll());
+            }
+        }
+        if (due.isEmpty()) return 0;
+
+        // 1. move every schedule on before paying it: at most once per run
+        List<Scheduled> advanced = new ArrayList<>(due.size());
+        for (Scheduled s : due) advanced.add(advance(s, now));
+        int popped = due.size();
+        try (Connection conn = db.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                int[] counts = ScheduleDAO.advance(conn, advanced);
+                conn.commit();
+                // a schedule cancelled since it was queued was not moved on, and is not paid
+                List<Scheduled> taken = new ArrayList<>(due.size()), takenAdvanced = new ArrayList<>(due.size());
+                for (int i = 0; i < counts.length; i++) {
+                    if (counts[i] == 1) {
+                        taken.add(due.get(i));
+                        takenAdvanced.add(advanced.get(i));
+                    }
+                }
+                if (taken.size() < popped) logger.info("Skipped {} scheduled transfers cancelled before they ran", popped - taken.size());
+                due = taken;
+                advanced = takenAdvanced;
+            } catch (SQLException e) {
+                conn.rollback();
+                synchronized (this) {
+                    queue.addAll(due);   // nothing was paid: try again next tick
+                }
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        }
+
+        // 2. pay through the transfer path
+        List<Callable<String>> payments = new ArrayList<>(due.size());
+        for (Scheduled s : due) {
+            payments.add(() -> transfers.transfer(s.fromAccount(), s.toAccount(), s.amount()) ? null : "transfer refused");
+        }
+        List<Scheduled> failed = new ArrayList<>();
+        List<String> errors = new ArrayList<>();
+        try {
+            List<Future<String>> results = workers.invokeAll(payments);
+            for (int i = 0; i < due.size(); i++) {
+                String error;
+                try {
+                    error = results.get(i).get();
+                } catch (ExecutionException e) {
+                    error = String.valueOf(e.getCause().getMessage());
+                }
+                if (error != null) {
+                    failed.add(due.get(i));
+                    errors.add(error);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        // 3. note the failures, keep the recurring ones that are due again within the loaded window
+        if (!failed.isEmpty()) {
+            try (Connection conn = db.getConnection()) {
+                ScheduleDAO.recordFailures(conn, failed, errors);
+            }
+            logger.warn("{} of {} scheduled transfers failed", failed.size(), due.size());
+        }
+        synchronized (this) {
+            for (Scheduled s : advanced) {
+                if (s.status().equals("active") && s.nextRun() < loadedUntil) queue.add(s);
+            }
+        }
+        logger.debug("Ran {} scheduled transfers", due.size());
+        return due.size();
+    }
+
+    // The state a schedule moves to once its current run is taken
+    static Scheduled advance(Scheduled s, long now) {
+        if (!s.recurring() || s.remaining() == 1) {
+            return new Scheduled(s.id(), s.fromAccount(), s.toAccount(), s.amount(), s.nextRun(), s.intervalDays(),
+                    0, "done", s.failures(), s.lastError());
+        }
+        long period = s.intervalDays() * DAY_MILLIS;
+        long next = s.nextRun() + period;
+        if (next <= now) next += ((now - next) / period + 1) * period;   // runs missed while down are not repeated
+        return new Scheduled(s.id(), s.fromAccount(), s.toAccount(), s.amount(), next, s.intervalDays(),
+                s.remaining() == 0 ? 0 : s.remaining() - 1, "active", s.failures(), s.lastError());
+    }
+
+    public void shutdown() {
+        workers.shutdownNow();
+    }
+
+    // -----------------------------
+    // Background schedule
+    // -----------------------------
+
+    /**
+     * Tick the default service every {@code bank.schedule.tickMillis} on one daemon thread. Does nothing if already running.
+     */
+    public static synchronized void startBackground() {
+        if (background != null) return;
+        ScheduleService service = getDefault();
+
+        background = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "transfer-scheduler");
+            t.setDaemon(true);
+            return t;
+        });
+        background.scheduleWithFixedDelay(() -> {
+            try {
+                service.tick();
+            } catch (SQLException | RuntimeException e) {
+                logger.error("Running scheduled transfers failed", e);
+            }
+        }, TICK_MILLIS, TICK_MILLIS, TimeUnit.MILLISECONDS);
+        logger.info("Scheduled transfers: checked every {} ms, {} min read ahead", TICK_MILLIS, HORIZON_MILLIS / 60_000);
+    }
+
+    public static synchronized void stopBackground() {
+        if (background != null) {
+            background.shutdownNow();
+            background = null;
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package com.bank.service;
+
+import com.bank.dao.ChangeFeedDAO;
+import com.bank.dao.TransactionDAO;
+import com.bank.metrics.Counter;
+import com.bank.metrics.Metrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fans committed transactions out to live listeners, one set per account. It is a single live consumer of
+ * the {@link ChangeFeedService} ("live-stream"), so however many clients watch, the database sees one reader.
+ * It starts at the feed's head and saves no position: after a restart clients get only what is committed
+ * from then on, never a replayed backlog, and the outbox is not kept for it. A transfer is delivered to both
+ * its source and its target account.
+ *
+ * <p>Each listener has a bounded buffer of {@code bank.stream.bufferSize} events (default 256). Fan-out never
+ * blocks: a listener whose buffer is full is evicted and must reconnect, so one slow client cannot hold up
+ * the feed or the other listeners.
+ */
+public class TransactionStreamService implements Flow.Subscriber<ChangeFeedDAO.Event> {
+    private static final Logger logger = LoggerFactory.getLogger(TransactionStreamService.class);
+
+    public static final String CONSUMER = "live-stream";
+    private static final int BUFFER_SIZE = Integer.getInteger("bank.stream.bufferSize", 256);
+
+    private static final Counter DELIVERED = Metrics.counter("bank_stream_events_total", "");
+    private static final Counter EVICTED = Metrics.counter("bank_stream_evictions_total", "");
+
+    private static TransactionStreamService running;
+
+    private final int bufferSize;
+    private final Map<String, List<Listener>> listeners = new ConcurrentHashMap<>();
+    private volatile Flow.Subscription feed;
+
+    public TransactionStreamService(int bufferSize) {
+        this.bufferSize = Math.max(1, bufferSize);
+    }
+
+    /**
+     * One client's view of an account: the transactions committed since it subscribed, until it is evicted.
+     */
+    public static final class Listener {
+        private final String accountNumber;
+        private final BlockingQueue<ChangeFeedDAO.Event> buffer;
+        private volatile boolean evicted;
+
+        Listener(String accountNumber, int capacity) {
+            this.accountNumber = accountNumber;
+            this.buffer = new ArrayBlockingQueue<>(capacity);
+        }
+
+        public String accountNumber() {
+            return accountNumber;
+        }
+
+        /**
+         * The next transaction, or null if none arrives within the timeout or the listener has been evicted.
+         */
+        public ChangeFeedDAO.Event poll(long timeout, TimeUnit unit) throws InterruptedException {
+            return evicted ? null : buffer.poll(timeout, unit);
+        }
+
+        public boolean isEvicted() {
+            return evicted;
+        }
+    }
+
+    // -----------------------------
+    // Listeners
+    // -----------------------------
+
+    public Listener subscribe(String accountNumber) {
+        Listener listener = new Listener(accountNumber, bufferSize);
+        // added inside the map operation, so a concurrent unsubscribe cannot drop the list it joins
+        listeners.compute(accountNumber, (k, list) -> {
+            if (list == null) list = new CopyOnWriteArrayList<>();
+            list.add(listener);
+            return list;
+        });
+        return listener;
+    }
+
+    public void unsubscribe(Listener listener) {
+        listeners.computeIfPresent(listener.accountNumber(), (k, list) -> {
+            list.remove(listener);
+            return list.isEmpty() ? null : list;
+        });
+    }
+
+    /**
+     * Listeners currently attached to {@code accountNumber}.
+     */
+    public int listenerCount(String accountNumber) {
+        List<Listener> list = listeners.get(accountNumber);
+        return list == null ? 0 : list.size();
+    }
+
+    /**
+     * Hand a committed change to the listeners of the accounts it touches. Account events are ignored.
+     */
+    public void publish(ChangeFeedDAO.Event event) {
+        if (!"transaction".equals(event.entity())) return;
+        deliver(event.accountNumber(), event);
+        if (event.targetAccount() != null && !event.targetAccount().equals(event.accountNumber())) {
+            deliver(event.targetAccount(), event);
+        }
+    }
+
+    private void deliver(String accountNumber, ChangeFeedDAO.Event event) {
+        List<Listener> list = listeners.get(accountNumber);
+        if (list == null) return;
+        for (Listener listener : list) {
+            if (listener.buffer.offer(event)) {
+                DELIVERED.increment();
+            } else {
+                listener.evicted = true;
+                unsubscribe(listener);
+                EVICTED.increment();
+                logger.warn("Evicted a slow stream listener on account {} ({} events buffered)", accountNumber, bufferSize);
+            }
+        }
+    }
+
+    // -----------------------------
+    // Change feed
+    // -----------------------------
+
+    // publish() never blocks, so the feed can run without a limit on demand
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        feed = subscription;
+        subscription.request(Long.MAX_VALUE);
+    }
+
+    @Override
+    public void onNext(ChangeFeedDAO.Event item) {
+        publish(item);
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        logger.error("❌ Live transaction stream lost the change feed", throwable);
+    }
+
+    @Override
+    public void onComplete() {}
+
+    /**
+     * The running instance, attached to the change feed on first use; null when change capture is off
+     * ({@code -Dbank.cdc.enabled=true} is required) or history is in the record log, whose records the
+     * feed never sees.
+     */
+    public static synchronized TransactionStreamService startBackground() {
+        if (running != null) return running;
+        if (!ChangeFeedDAO.CAPTURE_ENABLED) {
+            System.out.println("❌ Live transaction streaming needs change capture (-Dbank.cdc.enabled=true).");
+            logger.error("Live transaction streaming needs -Dbank.cdc.enabled=true");
+            return null;
+        }
+        if (!TransactionDAO.requireTable("Live transaction streaming")) return null;
+        running = new TransactionStreamService(BUFFER_SIZE);
+        ChangeFeedService.getDefault().livePublisher(CONSUMER).subscribe(running);
+        return running;
+    }
+
+    /**
+     * Detach the running instance from the change feed; its listeners get nothing more.
+     */
+    public static synchronized void stopBackground() {
+        if (running == null) return;
+        Flow.Subscription subscription = running.feed;
+        if (subscription != null) subscription.cancel();
+        running = null;
+    }
+}
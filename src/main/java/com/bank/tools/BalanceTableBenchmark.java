@@ -0,0 +1,98 @@
+package com.bank.tools;
+
+import com.bank.cache.BalanceTable;
+import com.bank.metrics.LatencyHistogram;
+import com.bank.model.Account;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Holds the same accounts as a {@code HashMap<String, Account>} and as a {@link BalanceTable}, reports the
+ * heap (and, for the table, native memory) each one takes, then runs concurrent balance updates against
+ * the table and against a {@code ConcurrentHashMap} of boxed balances.
+ *
+ * <pre>
+ *   BalanceTableBenchmark [accounts=1000000] [threads=8] [opsPerThread=2000000]
+ * </pre>
+ */
+public class BalanceTableBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int accounts = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : 8;
+        int opsPerThread = args.length > 2 ? Integer.parseInt(args[2]) : 2_000_000;
+        long base = System.currentTimeMillis() * 1000;
+
+        long before = usedHeap();
+        Map<String, Account> objects = new HashMap<>(accounts * 4 / 3 + 1);
+        for (int i = 0; i < accounts; i++) {
+            String number = "ACC" + (base + i);
+            objects.put(number, new Account(number, "Holder " + i, "9999999999", 1000.0));
+        }
+        long objectHeap = usedHeap() - before;
+        System.out.printf("HashMap<String, Account>  %,12d bytes  %5.1f bytes/account%n", objectHeap, (double) objectHeap / accounts);
+        objects = null;
+
+        before = usedHeap();
+        BalanceTable table = new BalanceTable(accounts);
+        for (int i = 0; i < accounts; i++) {
+            table.put("ACC" + (base + i), 100_000, 100_000);
+        }
+        long tableHeap = usedHeap() - before;
+        System.out.printf("BalanceTable              %,12d bytes  %5.1f bytes/account of heap, %,d bytes off-heap (%.1f bytes/account)%n",
+                tableHeap, (double) tableHeap / accounts, table.offHeapBytes(), (double) table.offHeapBytes() / accounts);
+
+        ConcurrentHashMap<String, double[]> boxed = new ConcurrentHashMap<>(accounts * 4 / 3 + 1);
+        for (int i = 0; i < accounts; i++) boxed.put("ACC" + (base + i), new double[]{1000.0});
+
+        String[] numbers = new String[Math.min(accounts, 100_000)];
+        for (int i = 0; i < numbers.length; i++) numbers[i] = "ACC" + (base + i * (accounts / numbers.length));
+
+        run("BalanceTable", threads, opsPerThread, numbers, account -> table.add(account, 1));
+        run("ConcurrentHashMap", threads, opsPerThread, numbers, account -> boxed.computeIfPresent(account, (k, v) -> {
+            v[0] += 0.01;
+            return v;
+        }));
+    }
+
+    private interface Update {
+        void apply(String account);
+    }
+
+    private static void run(String name, int threads, int opsPerThread, String[] numbers, Update update) throws InterruptedException {
+        LatencyHistogram latency = LatencyHistogram.standalone("balance_" + name);
+        ExecutorService workers = Executors.newFixedThreadPool(threads);
+        long start = System.nanoTime();
+        for (int t = 0; t < threads; t++) {
+            workers.submit(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < opsPerThread; i++) {
+                    String account = numbers[random.nextInt(numbers.length)];
+                    long opStart = System.nanoTime();
+                    update.apply(account);
+                    if ((i & 63) == 0) latency.recordSince(opStart);
+                }
+            });
+        }
+        workers.shutdown();
+        workers.awaitTermination(1, TimeUnit.HOURS);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%-18s %,12.0f updates/s  p50 %6.3f µs  p99 %6.3f µs%n", name, (double) threads * opsPerThread / seconds,
+                latency.percentile(50) / 1e3, latency.percentile(99) / 1e3);
+    }
+
+    private static long usedHeap() throws InterruptedException {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(100);
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
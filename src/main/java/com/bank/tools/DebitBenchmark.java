@@ -0,0 +1,142 @@
+package com.bank.tools;
+
+import com.bank.dao.AccountDAO;
+import com.bank.dao.ConnectionPool;
+import com.bank.metrics.LatencyHistogram;
+
+import java.nio.file.Path;
+import java.sql.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Compares the old SELECT-then-UPDATE withdrawal against the single guarded
+ * {@code UPDATE ... WHERE balance >= ? RETURNING balance} of {@link AccountDAO}, on a scratch database
+ * with a few hot accounts. Reports latency percentiles, failed operations (SQLITE_BUSY on the
+ * read-to-write upgrade) and overdrawn accounts (the race window of checking in Java).
+ *
+ * <pre>
+ *   DebitBenchmark [threads=16] [opsPerThread=2000] [accounts=8]
+ * </pre>
+ */
+public class DebitBenchmark {
+
+    private static final String SELECT_SQL = "SELECT balance FROM accounts WHERE accountNumber = ?";
+    private static final String UPDATE_SQL = "UPDATE accounts SET balance = balance - ? WHERE accountNumber = ?";
+
+    public static void main(String[] args) throws Exception {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : 16;
+        int opsPerThread = args.length > 1 ? Integer.parseInt(args[1]) : 2000;
+        int accounts = args.length > 2 ? Integer.parseInt(args[2]) : 8;
+
+        for (String mode : new String[]{"select-then-update", "guarded-update"}) {
+            Path dir = ScratchDir.create("debit-bench");
+            try {
+                ConnectionPool pool = new ConnectionPool("bench.write", "jdbc:sqlite:" + dir.resolve("bench.db") + "?busy_timeout=5000",
+                        false, false, threads, 30_000, 16);
+                try {
+                    setup(pool, accounts, threads * opsPerThread / accounts / 2.0);
+                    run(pool, mode, threads, opsPerThread, accounts);
+                } finally {
+                    pool.close();
+                }
+            } finally {
+                ScratchDir.delete(dir);
+            }
+        }
+    }
+
+    // balances cover roughly half the debits, so both the success and the insufficient-funds paths are exercised
+    private static void setup(ConnectionPool pool, int accounts, double balance) throws SQLException {
+        try (Connection conn = pool.acquire(); Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE TABLE accounts (accountNumber TEXT PRIMARY KEY, balance REAL NOT NULL)");
+            try (PreparedStatement ps = conn.prepareStatement("INSERT INTO accounts VALUES (?, ?)")) {
+                for (int i = 0; i < accounts; i++) {
+                    ps.setString(1, "ACC" + i);
+                    ps.setDouble(2, balance);
+                    ps.executeUpdate();
+                }
+            }
+        }
+    }
+
+    private static void run(ConnectionPool pool, String mode, int threads, int opsPerThread, int accounts) throws Exception {
+        LatencyHistogram latency = LatencyHistogram.standalone("debit_" + mode);
+        LongAdder applied = new LongAdder();
+        LongAdder declined = new LongAdder();
+        LongAdder failed = new LongAdder();
+
+        ExecutorService workers = Executors.newFixedThreadPool(threads);
+        long start = System.nanoTime();
+        for (int t = 0; t < threads; t++) {
+            workers.submit(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < opsPerThread; i++) {
+                    String account = "ACC" + random.nextInt(accounts);
+                    long opStart = System.nanoTime();
+                    try (Connection conn = pool.acquire()) {
+                        boolean ok = mode.equals("guarded-update") ? guarded(conn, account) : selectThenUpdate(conn, account);
+                        (ok ? applied : declined).increment();
+                    } catch (SQLException e) {
+                        failed.increment();
+                    }
+                    latency.recordSince(opStart);
+                }
+            });
+        }
+        workers.shutdown();
+        workers.awaitTermination(1, TimeUnit.HOURS);
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        int overdrawn;
+        try (Connection conn = pool.acquire(); Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM accounts WHERE balance < 0")) {
+            overdrawn = rs.next() ? rs.getInt(1) : 0;
+        }
+
+        System.out.printf("%-20s %8.0f ops/s  p50 %7.3f ms  p99 %7.3f ms  p999 %7.3f ms  applied %6d  declined %6d  failed %6d  overdrawn accounts %d%n",
+                mode, latency.count() / seconds, latency.percentile(50) / 1e6, latency.percentile(99) / 1e6,
+                latency.percentile(99.9) / 1e6, applied.sum(), declined.sum(), failed.sum(), overdrawn);
+    }
+
+    // The shape Bank.withdraw had: read, decide in Java, then write in a transaction
+    private static boolean selectThenUpdate(Connection conn, String account) throws SQLException {
+        double balance;
+        try (PreparedStatement ps = conn.prepareStatement(SELECT_SQL)) {
+            ps.setString(1, account);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (!rs.next()) return false;
+                balance = rs.getDouble(1);
+            }
+        }
+        if (balance < 1) return false;
+
+        conn.setAutoCommit(false);
+        try (PreparedStatement ps = conn.prepareStatement(UPDATE_SQL)) {
+            ps.setDouble(1, 1);
+            ps.setString(2, account);
+            ps.executeUpdate();
+            conn.commit();
+            return true;
+        } catch (SQLException e) {
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setAutoCommit(true);
+        }
+    }
+
+    private static boolean guarded(Connection conn, String account) throws SQLException {
+        conn.setAutoCommit(false);
+        try {
+            boolean ok = AccountDAO.debit(conn, account, 1).applied();
+            conn.commit();
+            return ok;
+        } catch (SQLException e) {
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setAutoCommit(true);
+        }
+    }
+}
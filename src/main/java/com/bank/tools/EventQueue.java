@@ -0,0 +1,81 @@
+package com.bank.tools;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * Min-heap of simulation events on two primitive arrays: 12 bytes per pending event and no object per
+ * event, so millions of customers with a few pending behaviours each fit in a few dozen MB. Events at the
+ * same time come out in payload order, which keeps a run repeatable.
+ */
+public final class EventQueue {
+
+    private long[] times;
+    private int[] payloads;
+    private int size;
+
+    public EventQueue(int initialCapacity) {
+        times = new long[Math.max(16, initialCapacity)];
+        payloads = new int[times.length];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void push(long time, int payload) {
+        if (size == times.length) {
+            times = Arrays.copyOf(times, size * 2);
+            payloads = Arrays.copyOf(payloads, size * 2);
+        }
+        int i = size++;
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (!before(time, payload, times[parent], payloads[parent])) break;
+            times[i] = times[parent];
+            payloads[i] = payloads[parent];
+            i = parent;
+        }
+        times[i] = time;
+        payloads[i] = payload;
+    }
+
+    /**
+     * Time of the earliest event; {@code Long.MAX_VALUE} when empty.
+     */
+    public long peekTime() {
+        return size == 0 ? Long.MAX_VALUE : times[0];
+    }
+
+    /**
+     * Remove the earliest event and return its payload (its time is {@link #peekTime} before the call).
+     */
+    public int pop() {
+        if (size == 0) throw new NoSuchElementException();
+        int top = payloads[0];
+        long time = times[--size];
+        int payload = payloads[size];
+
+        int i = 0;
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= size) break;
+            if (child + 1 < size && before(times[child + 1], payloads[child + 1], times[child], payloads[child])) child++;
+            if (!before(times[child], payloads[child], time, payload)) break;
+            times[i] = times[child];
+            payloads[i] = payloads[child];
+            i = child;
+        }
+        times[i] = time;
+        payloads[i] = payload;
+        return top;
+    }
+
+    private static boolean before(long t1, int p1, long t2, int p2) {
+        return t1 < t2 || (t1 == t2 && p1 < p2);
+    }
+}
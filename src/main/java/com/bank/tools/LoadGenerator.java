@@ -0,0 +1,390 @@
+package com.bank.tools;
+
+import com.bank.dao.AccountDAO;
+import com.bank.dao.Database;
+import com.bank.dao.LedgerDAO;
+import com.bank.dao.ShardRouter;
+import com.bank.dao.TransactionDAO;
+import com.bank.metrics.LatencyHistogram;
+import com.bank.risk.RiskEngine;
+import com.bank.service.Bank;
+import com.bank.service.TransactionService;
+import com.bank.util.Threads;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.Clock;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Synthetic load generator for {@link Bank}. Creates N accounts, then drives a weighted mix of
+ * deposit / withdraw / transfer / history / report calls from many threads (virtual threads on
+ * Java 21+), picking accounts with Zipf-skewed popularity. Operations can be recorded to a file
+ * and replayed later against another build or database.
+ *
+ * <pre>
+ *   --accounts 1000 --threads 32 --ops 100000 | --duration 60
+ *   --mix deposit=40,withdraw=25,transfer=20,history=10,report=5
+ *   --zipf 1.1 --virtual --record ops.csv | --replay ops.csv
+ *   --risk   keep the risk rules on (synthetic traffic is high-velocity by design, so they are off by default)
+ * </pre>
+ *
+ * Runs against a throwaway in-memory database unless {@code -Dbank.db.backend} is given, so the synthetic
+ * accounts never land in the real {@code bank.db}.
+ */
+public class LoadGenerator {
+
+    enum Op { CREATE, DEPOSIT, WITHDRAW, TRANSFER, HISTORY, REPORT }
+
+    static final class Config {
+        int accounts = 1000;
+        int threads = 16;
+        boolean virtual = false;
+        long ops = 10_000;
+        long durationSeconds = 0;
+        double zipf = 1.1;
+        double initialBalance = 10_000;
+        double maxAmount = 500;
+        boolean quiet = true;
+        boolean risk = false;
+        String record;
+        String replay;
+        final EnumMap<Op, Integer> mix = new EnumMap<>(Op.class);
+
+        Config() {
+            mix.put(Op.DEPOSIT, 40);
+            mix.put(Op.WITHDRAW, 25);
+            mix.put(Op.TRANSFER, 20);
+            mix.put(Op.HISTORY, 14);
+            mix.put(Op.REPORT, 1);
+        }
+    }
+
+    private final Config config;
+    private final Bank bank = new Bank();
+    private final TransactionService transactionService = new TransactionService();
+    private final EnumMap<Op, LatencyHistogram> latencies = new EnumMap<>(Op.class);
+    private final EnumMap<Op, LongAdder> errors = new EnumMap<>(Op.class);
+    private BufferedWriter recorder;
+
+    LoadGenerator(Config config) {
+        this.config = config;
+        for (Op op : Op.values()) {
+            latencies.put(op, LatencyHistogram.standalone("load_" + op.name().toLowerCase()));
+            errors.put(op, new LongAdder());
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Config config = parseArgs(args);
+        if (!useScratchDatabase()) return;
+        Database.createTableIfNotExists();
+        if (AccountDAO.BALANCE_TABLE_ENABLED) AccountDAO.loadBalanceTable();
+        if (!config.risk) RiskEngine.setDefault(new RiskEngine(List.of(), 0, Clock.systemDefaultZone()));
+
+        LoadGenerator generator = new LoadGenerator(config);
+        PrintStream console = System.out;
+        if (config.quiet) {
+            // Bank prints a line per operation; keep the console for the final report
+            silenceLogging();
+            System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        }
+
+        long elapsed;
+        try {
+            elapsed = config.replay != null ? generator.replay(Path.of(config.replay)) : generator.runSynthetic();
+        } finally {
+            System.setOut(console);
+        }
+        generator.printReport(console, elapsed);
+    }
+
+    // -----------------------------
+    // Synthetic workload
+    // -----------------------------
+    long runSynthetic() throws Exception {
+        openRecorder();
+        List<String> accounts = createAccounts(config.accounts, config.initialBalance);
+
+        // shuffle so the hottest ranks are not simply the first accounts created
+        Collections.shuffle(accounts);
+        ZipfSampler sampler = new ZipfSampler(accounts.size(), config.zipf);
+
+        Op[] ops = Op.values();
+        int[] cumulative = new int[ops.length];
+        int total = 0;
+        for (int i = 0; i < ops.length; i++) {
+            total += config.mix.getOrDefault(ops[i], 0);
+            cumulative[i] = total;
+        }
+        if (total == 0) throw new IllegalArgumentException("--mix must give at least one operation a weight");
+        final int weightTotal = total;
+
+        AtomicLong remaining = new AtomicLong(config.durationSeconds > 0 ? Long.MAX_VALUE : config.ops);
+        long deadline = config.durationSeconds > 0
+                ? System.nanoTime() + TimeUnit.SECONDS.toNanos(config.durationSeconds) : Long.MAX_VALUE;
+
+        long start = System.nanoTime();
+        ExecutorService pool = Threads.newExecutor(config.threads, config.virtual);
+        for (int t = 0; t < config.threads; t++) {
+            pool.submit(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                while (remaining.getAndDecrement() > 0 && System.nanoTime() < deadline) {
+                    int pick = random.nextInt(weightTotal);
+                    int i = 0;
+                    while (cumulative[i] <= pick) i++;
+
+                    String account = accounts.get(sampler.next());
+                    String target = null;
+                    if (ops[i] == Op.TRANSFER) {
+                        do {
+                            target = accounts.get(sampler.next());
+                        } while (target.equals(account) && accounts.size() > 1);
+                    }
+                    double amount = Math.round(random.nextDouble(1, config.maxAmount) * 100) / 100.0;
+                    execute(ops[i], account, target, amount);
+                }
+            });
+        }
+        pool.shutdown();
+        pool.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        long elapsed = System.nanoTime() - start;
+        closeRecorder();
+        return elapsed;
+    }
+
+    // -----------------------------
+    // Replay of a recorded operation log
+    // -----------------------------
+    long replay(Path file) throws Exception {
+        List<String[]> lines = new ArrayList<>();
+        List<String> creates = new ArrayList<>();
+        double createBalance = config.initialBalance;
+
+        for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+            if (line.isBlank() || line.startsWith("#")) continue;
+            String[] f = line.split(",", -1);
+            if (Op.valueOf(f[0].toUpperCase()) == Op.CREATE) {
+                creates.add(f[1]);
+                createBalance = Double.parseDouble(f[3]);
+            } else {
+                lines.add(f);
+            }
+        }
+        insertAccounts(creates, createBalance);
+
+        // keep each source account's operations in their recorded order by pinning it to one worker
+        List<List<String[]>> queues = new ArrayList<>();
+        for (int t = 0; t < config.threads; t++) queues.add(new ArrayList<>());
+        for (String[] f : lines) {
+            queues.get(Math.floorMod(f[1].hashCode(), config.threads)).add(f);
+        }
+
+        long start = System.nanoTime();
+        ExecutorService pool = Threads.newExecutor(config.threads, config.virtual);
+        for (List<String[]> queue : queues) {
+            pool.submit(() -> {
+                for (String[] f : queue) {
+                    execute(Op.valueOf(f[0].toUpperCase()), f[1], f[2].isEmpty() ? null : f[2], Double.parseDouble(f[3]));
+                }
+            });
+        }
+        pool.shutdown();
+        pool.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        return System.nanoTime() - start;
+    }
+
+    // -----------------------------
+    // Operations
+    // -----------------------------
+    void execute(Op op, String account, String target, double amount) {
+        record(op, account, target, amount);
+        long start = System.nanoTime();
+        boolean ok;
+        try {
+            ok = switch (op) {
+                case DEPOSIT -> bank.deposit(account, amount);
+                case WITHDRAW -> bank.withdrawFunds(account, amount);
+                case TRANSFER -> bank.transfer(account, target, amount);
+                case HISTORY -> {
+                    transactionService.getTransactions(account);
+                    yield true;
+                }
+                case REPORT -> {
+                    bank.generateReport(account);
+                    yield true;
+                }
+                case CREATE -> throw new IllegalArgumentException("create is handled before the run");
+            };
+        } catch (RuntimeException e) {
+            ok = false;
+        }
+        latencies.get(op).recordSince(start);
+        if (!ok) errors.get(op).increment();
+    }
+
+    List<String> createAccounts(int n, double initialBalance) throws SQLException, IOException {
+        List<String> accounts = new ArrayList<>(n);
+        long base = System.currentTimeMillis() * 1000;
+        for (int i = 0; i < n; i++) {
+            accounts.add("ACC" + (base + i));
+        }
+        insertAccounts(accounts, initialBalance);
+        for (String account : accounts) {
+            record(Op.CREATE, account, null, initialBalance);
+        }
+        return accounts;
+    }
+
+    // Bulk account creation, one transaction per shard (Bank.createAccount numbers accounts by millisecond)
+    static void insertAccounts(List<String> accounts, double initialBalance) throws SQLException {
+        Map<Integer, List<String>> byShard = new TreeMap<>();
+        for (String account : accounts) {
+            byShard.computeIfAbsent(ShardRouter.shardOf(account), s -> new ArrayList<>()).add(account);
+        }
+        for (Map.Entry<Integer, List<String>> shard : byShard.entrySet()) {
+            try (Connection conn = Database.getShardConnection(shard.getKey())) {
+                insertAccounts(conn, shard.getValue(), initialBalance);
+            }
+        }
+    }
+
+    private static void insertAccounts(Connection conn, List<String> accounts, double initialBalance) throws SQLException {
+        String sql = Database.dialect().insertOrIgnore("accounts",
+                "accountNumber, accountHolder, phone, balance, email, locked, alertThreshold", "accountNumber");
+        conn.setAutoCommit(false);
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            for (String account : accounts) {
+                ps.setString(1, account);
+                ps.setString(2, "Load Test");
+                ps.setString(3, "9999999999");
+                ps.setDouble(4, initialBalance);
+                ps.setString(5, null); // no email: keep alerts and reports off the SMTP path
+                ps.setInt(6, 0);
+                ps.setDouble(7, 0);
+                if (ps.executeUpdate() == 0) continue; // already there, e.g. replaying against the recording database
+                AccountDAO.cacheOpened(conn, account, initialBalance, 0);
+
+                TransactionDAO.recordTransaction(conn, account, "open", initialBalance, null);
+                LedgerDAO.postOpening(conn, account, initialBalance);
+            }
+            conn.commit();
+        } catch (SQLException e) {
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setAutoCommit(true);
+        }
+    }
+
+    // -----------------------------
+    // Recording & reporting
+    // -----------------------------
+    private void openRecorder() throws IOException {
+        if (config.record == null) return;
+        recorder = Files.newBufferedWriter(Path.of(config.record), StandardCharsets.UTF_8);
+        recorder.write("# op,account,target,amount\n");
+    }
+
+    private void record(Op op, String account, String target, double amount) {
+        if (recorder == null) return;
+        String line = op.name().toLowerCase() + "," + account + "," + (target == null ? "" : target) + "," + amount + "\n";
+        synchronized (this) {
+            try {
+                recorder.write(line);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    private void closeRecorder() throws IOException {
+        if (recorder != null) recorder.close();
+    }
+
+    void printReport(PrintStream out, long elapsedNanos) {
+        double seconds = elapsedNanos / 1e9;
+        long totalOps = 0, totalErrors = 0;
+
+        out.println("\n📊 Load run finished in " + String.format("%.2f", seconds) + " s"
+                + " (" + config.threads + (config.virtual && Threads.virtualThreadsAvailable() ? " virtual" : "") + " workers)");
+        out.printf("%-10s %10s %10s %8s %10s %10s %10s %10s%n",
+                "op", "count", "errors", "err%", "ops/s", "p50 ms", "p99 ms", "p999 ms");
+        for (Op op : Op.values()) {
+            LatencyHistogram h = latencies.get(op);
+            long count = h.count();
+            if (count == 0) continue;
+            long err = errors.get(op).sum();
+            totalOps += count;
+            totalErrors += err;
+            out.printf("%-10s %10d %10d %7.2f%% %10.1f %10.3f %10.3f %10.3f%n",
+                    op.name().toLowerCase(), count, err, 100.0 * err / count, count / seconds,
+                    h.percentile(50) / 1e6, h.percentile(99) / 1e6, h.percentile(99.9) / 1e6);
+        }
+        out.printf("%-10s %10d %10d %7.2f%% %10.1f%n", "total", totalOps, totalErrors,
+                totalOps == 0 ? 0 : 100.0 * totalErrors / totalOps, totalOps / seconds);
+    }
+
+    /**
+     * Default to the in-memory backend unless {@code -Dbank.db.backend} names one; must run before anything
+     * touches {@link Database}. False when the record log engine has no {@code bank.txlog.dir} of its own:
+     * recovering the real log against an empty scratch database would void its pending records.
+     */
+    static boolean useScratchDatabase() {
+        if (System.getProperty("bank.db.backend") != null) return true;
+        if (!TransactionDAO.usesTable() && System.getProperty("bank.txlog.dir") == null) {
+            System.out.println("❌ With -Dbank.txstore=log, pass -Dbank.txlog.dir for the scratch log (or -Dbank.db.backend to use a real database).");
+            return false;
+        }
+        System.setProperty("bank.db.backend", "sqlite-memory");
+        System.out.println("🧪 Using an in-memory database; pass -Dbank.db.backend=sqlite to run against the database files.");
+        return true;
+    }
+
+    static void silenceLogging() {
+        if (LoggerFactory.getLogger("com.bank") instanceof ch.qos.logback.classic.Logger logger) {
+            logger.setLevel(ch.qos.logback.classic.Level.WARN);
+        }
+    }
+
+    static Config parseArgs(String[] args) {
+        Config c = new Config();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--accounts" -> c.accounts = Integer.parseInt(args[++i]);
+                case "--threads" -> c.threads = Integer.parseInt(args[++i]);
+                case "--ops" -> c.ops = Long.parseLong(args[++i]);
+                case "--duration" -> c.durationSeconds = Long.parseLong(args[++i]);
+                case "--zipf" -> c.zipf = Double.parseDouble(args[++i]);
+                case "--balance" -> c.initialBalance = Double.parseDouble(args[++i]);
+                case "--max-amount" -> c.maxAmount = Double.parseDouble(args[++i]);
+                case "--virtual" -> c.virtual = true;
+                case "--verbose" -> c.quiet = false;
+                case "--risk" -> c.risk = true;
+                case "--record" -> c.record = args[++i];
+                case "--replay" -> c.replay = args[++i];
+                case "--mix" -> {
+                    c.mix.clear();
+                    for (String part : args[++i].split(",")) {
+                        String[] kv = part.split("=");
+                        c.mix.put(Op.valueOf(kv[0].trim().toUpperCase()), Integer.parseInt(kv[1].trim()));
+                    }
+                    c.mix.remove(Op.CREATE);
+                }
+                default -> throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+        return c;
+    }
+}
@@ -0,0 +1,38 @@
+package com.bank.tools;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+/**
+ * Temporary directories for the benchmarks' scratch databases and logs, removed with everything in them
+ * once a run is over.
+ */
+final class ScratchDir {
+
+    private ScratchDir() { /* no instances */ }
+
+    static Path create(String prefix) throws IOException {
+        return Files.createTempDirectory(prefix);
+    }
+
+    /**
+     * Delete {@code dir} and its contents, deepest first. A file that cannot be removed is reported and
+     * skipped, so cleanup never hides the outcome of the run.
+     */
+    static void delete(Path dir) {
+        try (Stream<Path> paths = Files.walk(dir)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> {
+                try {
+                    Files.deleteIfExists(path);
+                } catch (IOException e) {
+                    System.err.println("Could not delete " + path + ": " + e.getMessage());
+                }
+            });
+        } catch (IOException e) {
+            System.err.println("Could not clean up " + dir + ": " + e.getMessage());
+        }
+    }
+}
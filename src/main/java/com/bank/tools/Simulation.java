@@ -0,0 +1,517 @@
+package com.bank.tools;
+
+import com.bank.cache.BalanceTable;
+import com.bank.dao.AccountDAO;
+import com.bank.dao.Database;
+import com.bank.metrics.LatencyHistogram;
+import com.bank.risk.RiskEngine;
+import com.bank.risk.RiskRule;
+import com.bank.service.Bank;
+import com.bank.service.InterestService;
+import com.bank.util.Money;
+import com.bank.util.Threads;
+import com.bank.util.VirtualClock;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Headless discrete-event simulation of the bank's customers in virtual time. Every customer has a
+ * profile derived from the seed (salary and pay day, rent, utilities and phone bills on their own days,
+ * card spending and transfers to other customers at random rates) and a few pending events in one
+ * {@link EventQueue}. The engine cuts virtual time into slices of {@code --slice} minutes: it pops every
+ * event of the slice, schedules each behaviour's next occurrence, and runs the slice on the worker threads
+ * with each customer's events pinned to one worker in time order. No one waits for the wall clock, so a
+ * month goes by as fast as {@link Bank} can post the money.
+ *
+ * <p>Events in one slice may run in a different order across customers than their timestamps say;
+ * transaction rows still carry the wall-clock time SQLite stamps them with.
+ *
+ * <pre>
+ *   --customers 10000 --months 3 --start 2026-01-01 --threads 8 --slice 60 --seed 42
+ *   --salary 50000 --balance 20000 --zipf 1.1 --virtual --verbose
+ *   --risk       evaluate the risk rules in virtual time (off by default)
+ *   --interest   run the daily interest and fee batch at every virtual midnight
+ * </pre>
+ *
+ * Like {@link LoadGenerator}, it runs against a throwaway in-memory database unless {@code -Dbank.db.backend}
+ * is given.
+ */
+public class Simulation {
+
+    public enum Behaviour { SALARY, RENT, UTILITIES, PHONE, SPEND, TRANSFER }
+
+    private static final Behaviour[] BEHAVIOURS = Behaviour.values();
+    private static final long HOUR = TimeUnit.HOURS.toMillis(1);
+    private static final long DAY = TimeUnit.DAYS.toMillis(1);
+
+    /**
+     * The bank operations a simulation drives; false when the bank refused the operation.
+     */
+    public interface Operations {
+        boolean deposit(String account, double amount);
+
+        boolean withdraw(String account, double amount);
+
+        boolean transfer(String from, String to, double amount);
+    }
+
+    public static final class Config {
+        public int customers = 10_000;
+        public int months = 3;
+        public LocalDate start = LocalDate.of(2026, 1, 1);
+        public int threads = 8;
+        public boolean virtual = false;
+        public long sliceMinutes = 60;
+        public long seed = 42;
+        public double meanSalary = 50_000;
+        public double initialBalance = 20_000;
+        public double zipf = 1.1;
+        public boolean risk = false;
+        public boolean interest = false;
+        public boolean quiet = true;
+        public ZoneId zone = ZoneId.systemDefault();
+    }
+
+    /**
+     * Operations run, refused and money moved per behaviour, and the time they took.
+     */
+    public static final class Stats {
+        final LongAdder[] count = new LongAdder[BEHAVIOURS.length];
+        final LongAdder[] refused = new LongAdder[BEHAVIOURS.length];
+        final LongAdder[] paise = new LongAdder[BEHAVIOURS.length];
+        final LatencyHistogram[] latency = new LatencyHistogram[BEHAVIOURS.length];
+        long events;
+        long elapsedNanos;
+        long simulatedMillis;
+
+        Stats() {
+            for (Behaviour b : BEHAVIOURS) {
+                count[b.ordinal()] = new LongAdder();
+                refused[b.ordinal()] = new LongAdder();
+                paise[b.ordinal()] = new LongAdder();
+                latency[b.ordinal()] = LatencyHistogram.standalone("sim_" + b.name().toLowerCase());
+            }
+        }
+
+        public long count(Behaviour b) {
+            return count[b.ordinal()].sum();
+        }
+
+        public long refused(Behaviour b) {
+            return refused[b.ordinal()].sum();
+        }
+
+        public long events() {
+            return events;
+        }
+    }
+
+    // What a customer earns and spends; derived from the seed, never stored
+    record Profile(long salary, int payDay, long rent, int rentDay, long utilities, int utilitiesDay,
+                   long phone, int phoneDay, double spendsPerWeek, double transfersPerMonth) {}
+
+    private final Config config;
+    private final Operations operations;
+    private final VirtualClock clock;
+    private final List<String> accounts;
+    private final ZipfSampler payees;
+    private final EventQueue queue;
+    private final Stats stats = new Stats();
+
+    public Simulation(Config config, Operations operations, VirtualClock clock, List<String> accounts) {
+        if (accounts.size() >= 1 << 28) throw new IllegalArgumentException("At most 2^28 customers");
+        this.config = config;
+        this.operations = operations;
+        this.clock = clock;
+        this.accounts = accounts;
+        this.payees = new ZipfSampler(accounts.size(), config.zipf);
+        this.queue = new EventQueue(accounts.size() * BEHAVIOURS.length);
+    }
+
+    // -----------------------------
+    // Run
+    // -----------------------------
+
+    /**
+     * Simulate {@code config.months} from {@code config.start}. {@code midnight} runs, on the engine thread,
+     * at the end of every simulated day with that day (null for none).
+     */
+    public Stats run(DayEnd midnight) throws InterruptedException {
+        long start = config.start.atStartOfDay(config.zone).toInstant().toEpochMilli();
+        long end = config.start.plusMonths(config.months).atStartOfDay(config.zone).toInstant().toEpochMilli();
+        long slice = Math.max(1, TimeUnit.MINUTES.toMillis(config.sliceMinutes));
+        clock.advanceTo(start);
+
+        for (int c = 0; c < accounts.size(); c++) {
+            for (Behaviour b : BEHAVIOURS) {
+                long first = first(c, b, start);
+                if (first < end) queue.push(first, c << 3 | b.ordinal());
+            }
+        }
+
+        int workers = Math.max(1, config.threads);
+        Slice[] slices = new Slice[workers];
+        for (int w = 0; w < workers; w++) slices[w] = new Slice();
+        ExecutorService pool = Threads.newExecutor(workers, config.virtual);
+        long wallStart = System.nanoTime();
+        try {
+            long now = start;
+            LocalDate day = config.start;
+            while (now < end) {
+                long sliceEnd = Math.min(now + slice, end);
+
+                while (queue.peekTime() < sliceEnd) {
+                    long time = queue.peekTime();
+                    int payload = queue.pop();
+                    int customer = payload >>> 3;
+                    slices[customer % workers].add(time, payload);
+                    long next = next(customer, BEHAVIOURS[payload & 7], time);
+                    if (next < end) queue.push(next, payload);
+                }
+
+                List<Callable<Void>> tasks = new ArrayList<>(workers);
+                for (Slice s : slices) {
+                    if (s.size > 0) tasks.add(() -> runSlice(s));
+                }
+                for (Future<Void> f : pool.invokeAll(tasks)) {
+                    try {
+                        f.get();
+                    } catch (ExecutionException e) {
+                        throw new IllegalStateException("Simulation worker failed", e.getCause());
+                    }
+                }
+                for (Slice s : slices) {
+                    stats.events += s.size;
+                    s.size = 0;
+                }
+
+                now = sliceEnd;
+                clock.advanceTo(now);
+                LocalDate today = Instant.ofEpochMilli(now).atZone(config.zone).toLocalDate();
+                while (midnight != null && day.isBefore(today)) {
+                    midnight.ended(day);
+                    day = day.plusDays(1);
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+        stats.elapsedNanos = System.nanoTime() - wallStart;
+        stats.simulatedMillis = end - start;
+        return stats;
+    }
+
+    @FunctionalInterface
+    public interface DayEnd {
+        void ended(LocalDate day);
+    }
+
+    private Void runSlice(Slice s) {
+        try {
+            for (int i = 0; i < s.size; i++) {
+                clock.setThreadTime(s.times[i]);
+                execute(s.payloads[i] >>> 3, BEHAVIOURS[s.payloads[i] & 7], s.times[i]);
+            }
+        } finally {
+            clock.clearThreadTime();
+        }
+        return null;
+    }
+
+    private void execute(int customer, Behaviour behaviour, long time) {
+        Profile p = profile(customer);
+        SplittableRandom random = new SplittableRandom(mix(config.seed, customer, time) ^ behaviour.ordinal());
+        String account = accounts.get(customer);
+        long amount;
+        long start = System.nanoTime();
+        boolean ok;
+        switch (behaviour) {
+            case SALARY -> ok = operations.deposit(account, Money.toRupees(amount = p.salary()));
+            case RENT -> ok = operations.withdraw(account, Money.toRupees(amount = p.rent()));
+            case UTILITIES -> ok = operations.withdraw(account, Money.toRupees(amount = p.utilities()));
+            case PHONE -> ok = operations.withdraw(account, Money.toRupees(amount = p.phone()));
+            case SPEND -> ok = operations.withdraw(account, Money.toRupees(amount = Math.max(100, (long) (p.salary() * random.nextDouble(0.002, 0.02)))));
+            default -> {
+                int payee = payees.rank(random.nextDouble());
+                if (payee == customer) payee = (payee + 1) % accounts.size();
+                amount = Math.max(100, (long) (p.salary() * random.nextDouble(0.01, 0.05)));
+                ok = accounts.size() > 1 && operations.transfer(account, accounts.get(payee), Money.toRupees(amount));
+            }
+        }
+        int b = behaviour.ordinal();
+        stats.latency[b].recordSince(start);
+        stats.count[b].increment();
+        if (ok) stats.paise[b].add(amount);
+        else stats.refused[b].increment();
+    }
+
+    // -----------------------------
+    // Behaviours
+    // -----------------------------
+    Profile profile(int customer) {
+        SplittableRandom r = new SplittableRandom(mix(config.seed, customer, 0));
+        long salary = Money.toPaise(Math.round(config.meanSalary * Math.exp(0.5 * r.nextGaussian() - 0.125)));
+        return new Profile(salary, 1 + r.nextInt(28),
+                (long) (salary * r.nextDouble(0.2, 0.4)), 1 + r.nextInt(28),
+                (long) (salary * r.nextDouble(0.03, 0.07)), 1 + r.nextInt(28),
+                Money.toPaise(299 + 100 * r.nextInt(8)), 1 + r.nextInt(28),
+                r.nextDouble(1, 6), r.nextDouble(0.5, 4));
+    }
+
+    // first occurrence at or after start
+    private long first(int customer, Behaviour b, long start) {
+        Profile p = profile(customer);
+        return switch (b) {
+            case SALARY, RENT, UTILITIES, PHONE -> {
+                ZonedDateTime at = Instant.ofEpochMilli(start).atZone(config.zone);
+                long t = monthly(at.toLocalDate().withDayOfMonth(day(p, b)), b);
+                yield t >= start ? t : monthly(at.toLocalDate().plusMonths(1).withDayOfMonth(day(p, b)), b);
+            }
+            default -> next(customer, b, start);
+        };
+    }
+
+    long next(int customer, Behaviour b, long time) {
+        Profile p = profile(customer);
+        return switch (b) {
+            case SALARY, RENT, UTILITIES, PHONE ->
+                    monthly(Instant.ofEpochMilli(time).atZone(config.zone).toLocalDate().plusMonths(1).withDayOfMonth(day(p, b)), b);
+            case SPEND -> time + exponential(customer, b, time, 7 * DAY / p.spendsPerWeek());
+            case TRANSFER -> time + exponential(customer, b, time, 30 * DAY / p.transfersPerMonth());
+        };
+    }
+
+    private static int day(Profile p, Behaviour b) {
+        return switch (b) {
+            case SALARY -> p.payDay();
+            case RENT -> p.rentDay();
+            case UTILITIES -> p.utilitiesDay();
+            default -> p.phoneDay();
+        };
+    }
+
+    // salaries land at 09:00, bills are paid at 10:00
+    private long monthly(LocalDate date, Behaviour b) {
+        return date.atStartOfDay(config.zone).toInstant().toEpochMilli() + (b == Behaviour.SALARY ? 9 : 10) * HOUR;
+    }
+
+    private long exponential(int customer, Behaviour b, long time, double meanMillis) {
+        double u = new SplittableRandom(mix(config.seed, customer, time) + b.ordinal()).nextDouble();
+        return Math.max(1, (long) (-Math.log(1 - u) * meanMillis));
+    }
+
+    private static long mix(long seed, int customer, long time) {
+        long h = seed * 0x9E3779B97F4A7C15L + customer;
+        h = (h ^ (h >>> 31)) * 0xBF58476D1CE4E5B9L + time;
+        return h ^ (h >>> 29);
+    }
+
+    // Events of one worker in one slice, in time order
+    private static final class Slice {
+        long[] times = new long[1024];
+        int[] payloads = new int[1024];
+        int size;
+
+        void add(long time, int payload) {
+            if (size == times.length) {
+                times = Arrays.copyOf(times, size * 2);
+                payloads = Arrays.copyOf(payloads, size * 2);
+            }
+            times[size] = time;
+            payloads[size++] = payload;
+        }
+    }
+
+    // -----------------------------
+    // Command line
+    // -----------------------------
+    public static void main(String[] args) throws Exception {
+        Config config = parseArgs(args);
+        if (!LoadGenerator.useScratchDatabase()) return;
+        Database.createTableIfNotExists();
+        if (AccountDAO.BALANCE_TABLE_ENABLED) AccountDAO.loadBalanceTable();
+
+        VirtualClock clock = new VirtualClock(config.start.atStartOfDay(config.zone).toInstant().toEpochMilli(), config.zone);
+        RiskEngine.setDefault(config.risk
+                ? new RiskEngine(RiskRule.parseAll(System.getProperty("bank.risk.rules", RiskEngine.DEFAULT_RULES)),
+                        Integer.getInteger("bank.risk.maxCounterparties", 256), clock)
+                : new RiskEngine(List.of(), 0, clock));
+
+        PrintStream console = System.out;
+        List<String> accounts = new ArrayList<>(config.customers);
+        long base = System.currentTimeMillis() * 1000;
+        for (int i = 0; i < config.customers; i++) accounts.add("ACC" + (base + i));
+        console.println("🏦 Opening " + config.customers + " accounts...");
+        LoadGenerator.insertAccounts(accounts, config.initialBalance);
+
+        Bank bank = new Bank();
+        Simulation simulation = new Simulation(config, new Operations() {
+            @Override
+            public boolean deposit(String account, double amount) {
+                return bank.deposit(account, amount);
+            }
+
+            @Override
+            public boolean withdraw(String account, double amount) {
+                return bank.withdrawFunds(account, amount);
+            }
+
+            @Override
+            public boolean transfer(String from, String to, double amount) {
+                return bank.transfer(from, to, amount);
+            }
+        }, clock, accounts);
+
+        DayEnd midnight = !config.interest ? null : day -> {
+            try {
+                InterestService.accrueAllShards(day, config.threads);
+            } catch (SQLException e) {
+                console.println("❌ Interest accrual for " + day + " failed: " + e.getMessage());
+            }
+        };
+
+        console.println("⏩ Simulating " + config.months + " month(s) from " + config.start + "...");
+        if (config.quiet) {
+            LoadGenerator.silenceLogging();
+            System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        }
+        Stats stats;
+        try {
+            stats = simulation.run(midnight);
+        } finally {
+            System.setOut(console);
+        }
+        printReport(console, config, stats);
+        printBalances(console, balances(accounts));
+    }
+
+    static void printReport(PrintStream out, Config config, Stats stats) {
+        double seconds = stats.elapsedNanos / 1e9;
+        double days = stats.simulatedMillis / (double) DAY;
+        out.printf("%n📊 Simulated %.0f days for %d customers in %.2f s (%.1f simulated days/s, %d workers)%n",
+                days, config.customers, seconds, days / seconds, config.threads);
+        out.printf("%-10s %10s %10s %8s %10s %16s %10s %10s%n", "event", "count", "refused", "ref%", "ops/s", "moved ₹", "p50 ms", "p99 ms");
+        long total = 0;
+        for (Behaviour b : BEHAVIOURS) {
+            int i = b.ordinal();
+            long count = stats.count[i].sum();
+            if (count == 0) continue;
+            total += count;
+            long refused = stats.refused[i].sum();
+            out.printf("%-10s %10d %10d %7.2f%% %10.1f %16.2f %10.3f %10.3f%n", b.name().toLowerCase(), count, refused,
+                    100.0 * refused / count, count / seconds, Money.toRupees(stats.paise[i].sum()),
+                    stats.latency[i].percentile(50) / 1e6, stats.latency[i].percentile(99) / 1e6);
+        }
+        out.printf("%-10s %10d %21s %10.1f%n", "total", total, "", total / seconds);
+    }
+
+    // -----------------------------
+    // Balance distribution
+    // -----------------------------
+
+    // final balances of the simulated accounts, in paise, sorted
+    static long[] balances(List<String> accounts) throws SQLException {
+        long[] balances = new long[accounts.size()];
+        BalanceTable table = AccountDAO.balanceTable();
+        int n = 0;
+        if (table != null) {
+            for (String account : accounts) {
+                long balance = table.balance(account);
+                if (balance != BalanceTable.ABSENT) balances[n++] = balance;
+            }
+        }
+        if (n < accounts.size()) {
+            Map<String, Integer> wanted = new HashMap<>(accounts.size() * 4 / 3 + 1);
+            for (String account : accounts) wanted.put(account, 0);
+            n = 0;
+            for (int shard = 0; shard < Database.shardCount(); shard++) {
+                try (Connection conn = Database.getShardReadConnection(shard);
+                     Statement stmt = conn.createStatement();
+                     ResultSet rs = stmt.executeQuery("SELECT accountNumber, balance FROM accounts")) {
+                    while (rs.next()) {
+                        if (wanted.containsKey(rs.getString(1))) balances[n++] = Money.toPaise(rs.getDouble(2));
+                    }
+                }
+            }
+        }
+        long[] result = Arrays.copyOf(balances, n);
+        Arrays.sort(result);
+        return result;
+    }
+
+    static void printBalances(PrintStream out, long[] sorted) {
+        if (sorted.length == 0) return;
+        double sum = 0, weighted = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            sum += sorted[i];
+            weighted += (i + 1.0) * sorted[i];
+        }
+        double n = sorted.length;
+        // Gini coefficient of the sorted balances (0 = everyone holds the same)
+        double gini = sum == 0 ? 0 : (2 * weighted) / (n * sum) - (n + 1) / n;
+
+        out.printf("%n💰 Balances of %d accounts: mean ₹%.2f, gini %.3f%n", sorted.length, sum / n / 100, gini);
+        out.printf("   min ₹%.2f  p10 ₹%.2f  p50 ₹%.2f  p90 ₹%.2f  p99 ₹%.2f  max ₹%.2f%n",
+                Money.toRupees(sorted[0]), Money.toRupees(quantile(sorted, 0.10)), Money.toRupees(quantile(sorted, 0.50)),
+                Money.toRupees(quantile(sorted, 0.90)), Money.toRupees(quantile(sorted, 0.99)), Money.toRupees(sorted[sorted.length - 1]));
+
+        long[] bounds = {1, 1_000_00, 10_000_00, 100_000_00, 1_000_000_00, Long.MAX_VALUE};
+        String[] labels = {"₹0", "< ₹1k", "< ₹10k", "< ₹1L", "< ₹10L", "≥ ₹10L"};
+        int from = 0;
+        for (int b = 0; b < bounds.length; b++) {
+            int to = from;
+            while (to < sorted.length && sorted[to] < bounds[b]) to++;
+            double share = (to - from) / n;
+            out.printf("   %-7s %9d %6.2f%% %s%n", labels[b], to - from, 100 * share, "█".repeat((int) Math.round(share * 40)));
+            from = to;
+        }
+    }
+
+    private static long quantile(long[] sorted, double q) {
+        return sorted[(int) Math.min(sorted.length - 1, Math.floor(q * sorted.length))];
+    }
+
+    static Config parseArgs(String[] args) {
+        Config c = new Config();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--customers" -> c.customers = Integer.parseInt(args[++i]);
+                case "--months" -> c.months = Integer.parseInt(args[++i]);
+                case "--start" -> c.start = LocalDate.parse(args[++i]);
+                case "--threads" -> c.threads = Integer.parseInt(args[++i]);
+                case "--slice" -> c.sliceMinutes = Long.parseLong(args[++i]);
+                case "--seed" -> c.seed = Long.parseLong(args[++i]);
+                case "--salary" -> c.meanSalary = Double.parseDouble(args[++i]);
+                case "--balance" -> c.initialBalance = Double.parseDouble(args[++i]);
+                case "--zipf" -> c.zipf = Double.parseDouble(args[++i]);
+                case "--virtual" -> c.virtual = true;
+                case "--verbose" -> c.quiet = false;
+                case "--risk" -> c.risk = true;
+                case "--interest" -> c.interest = true;
+                default -> throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+        return c;
+    }
+}
@@ -0,0 +1,104 @@
+package com.bank.tools;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to first prompt and peak resident memory of the CLI, to compare the JVM and native builds (Linux only:
+ * memory is read from {@code /proc}). Each run starts the command, waits for the main menu's prompt, reads the
+ * process's {@code VmHWM} while it sits there, answers "Exit" and requires a clean exit, so the probe also
+ * works as a smoke test of the binary.
+ *
+ * <pre>
+ *   StartupProbe &lt;runs&gt; &lt;command&gt; [args...]
+ *   StartupProbe 5 target/bank -Dbank.db.backend=sqlite-memory
+ *   StartupProbe 5 java -cp target/banking-simulator-1.0-SNAPSHOT.jar -Dbank.db.backend=sqlite-memory com.bank.app.Main
+ * </pre>
+ */
+public class StartupProbe {
+
+    private static final byte[] PROMPT = "Enter your choice".getBytes(StandardCharsets.UTF_8);
+    private static final long TIMEOUT_SECONDS = 60;
+
+    record Run(long nanosToPrompt, long peakRssKb) {}
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.err.println("Usage: StartupProbe <runs> <command> [args...]");
+            System.exit(2);
+        }
+        int runs = Integer.parseInt(args[0]);
+        List<String> command = Arrays.asList(args).subList(1, args.length);
+
+        List<Long> millis = new ArrayList<>();
+        List<Long> rss = new ArrayList<>();
+        for (int i = 0; i < runs; i++) {
+            Run run = run(command);
+            millis.add(run.nanosToPrompt() / 1_000_000);
+            rss.add(run.peakRssKb());
+        }
+        Collections.sort(millis);
+        Collections.sort(rss);
+        System.out.printf("%s: first prompt p50 %d ms (min %d, max %d)  peak RSS p50 %.1f MB (max %.1f) over %d run(s)%n",
+                Path.of(command.get(0)).getFileName(), millis.get(runs / 2), millis.get(0), millis.get(runs - 1),
+                rss.get(runs / 2) / 1024.0, rss.get(runs - 1) / 1024.0, runs);
+    }
+
+    static Run run(List<String> command) throws IOException, InterruptedException {
+        long start = System.nanoTime();
+        Process process = new ProcessBuilder(command)
+                .redirectError(ProcessBuilder.Redirect.DISCARD)
+                .start();
+        try {
+            InputStream out = process.getInputStream();
+            if (!awaitPrompt(out)) {
+                throw new IllegalStateException("No prompt from " + command + " (exit code "
+                        + (process.waitFor(TIMEOUT_SECONDS, TimeUnit.SECONDS) ? process.exitValue() : "none") + ")");
+            }
+            long nanosToPrompt = System.nanoTime() - start;
+            long peakRssKb = peakRssKb(process.pid());
+
+            try (OutputStream in = process.getOutputStream()) {
+                in.write("4\n".getBytes(StandardCharsets.UTF_8));
+            }
+            out.transferTo(OutputStream.nullOutputStream());
+            if (!process.waitFor(TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                throw new IllegalStateException(command + " did not exit after choosing Exit");
+            }
+            if (process.exitValue() != 0) {
+                throw new IllegalStateException(command + " exited with " + process.exitValue());
+            }
+            return new Run(nanosToPrompt, peakRssKb);
+        } finally {
+            process.destroyForcibly();
+        }
+    }
+
+    // false if the output ends before the prompt appears
+    private static boolean awaitPrompt(InputStream out) throws IOException {
+        int matched = 0;
+        for (int b; (b = out.read()) != -1; ) {
+            matched = b == PROMPT[matched] ? matched + 1 : (b == PROMPT[0] ? 1 : 0);
+            if (matched == PROMPT.length) return true;
+        }
+        return false;
+    }
+
+    private static long peakRssKb(long pid) throws IOException {
+        for (String line : Files.readAllLines(Path.of("/proc", Long.toString(pid), "status"))) {
+            if (line.startsWith("VmHWM:")) {
+                return Long.parseLong(line.replaceAll("[^0-9]", ""));
+            }
+        }
+        throw new IllegalStateException("No VmHWM for process " + pid);
+    }
+}
@@ -0,0 +1,134 @@
+package com.bank.tools;
+
+import com.bank.dao.ConnectionPool;
+import com.bank.dao.LogTransactionStore;
+import com.bank.dao.SqliteTransactionStore;
+import com.bank.dao.TransactionStore;
+import com.bank.metrics.LatencyHistogram;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Records transactions through the SQLite engine and through the memory-mapped log engine on scratch
+ * files, each record in its own committed transaction as on the money path (for the log: forced to disk
+ * and its shard's {@code txlog_mark} moved, before the commit), then reads every account's
+ * history back. Reports write throughput and latency percentiles for both.
+ *
+ * <pre>
+ *   TransactionStoreBenchmark [threads=8] [opsPerThread=20000] [accounts=1000]
+ * </pre>
+ */
+public class TransactionStoreBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : 8;
+        int opsPerThread = args.length > 1 ? Integer.parseInt(args[1]) : 20_000;
+        int accounts = args.length > 2 ? Integer.parseInt(args[2]) : 1000;
+
+        for (String engine : new String[]{"sqlite", "log"}) {
+            Path dir = ScratchDir.create("txstore-bench");
+            try {
+                ConnectionPool pool = new ConnectionPool("bench-" + engine + ".write", "jdbc:sqlite:" + dir.resolve("bank.db") + "?busy_timeout=5000",
+                        false, false, threads, 30_000, 16);
+                try (Connection conn = pool.acquire(); Statement stmt = conn.createStatement()) {
+                    stmt.execute("""
+                        CREATE TABLE transactions (id INTEGER PRIMARY KEY AUTOINCREMENT, accountNumber TEXT NOT NULL,
+                            type TEXT NOT NULL, amount REAL NOT NULL, targetAccount TEXT,
+                            timestamp DATETIME DEFAULT (datetime('now','localtime')))
+                    """);
+                    stmt.execute("CREATE INDEX idx_transactions_account ON transactions(accountNumber)");
+                    LogTransactionStore.createMarkTable(conn);
+                }
+
+                TransactionStore store = engine.equals("log")
+                        ? LogTransactionStore.open(dir.resolve("txlog"), account -> {
+                            try (Connection conn = pool.acquire()) {
+                                return LogTransactionStore.readMark(conn);
+                            }
+                        })
+                        : new SqliteTransactionStore();
+                try {
+                    run(engine, store, pool, threads, opsPerThread, accounts);
+                } finally {
+                    store.close();
+                    pool.close();
+                }
+            } finally {
+                ScratchDir.delete(dir);
+            }
+        }
+    }
+
+    private static void run(String engine, TransactionStore store, ConnectionPool pool, int threads, int opsPerThread,
+                            int accounts) throws Exception {
+        LatencyHistogram latency = LatencyHistogram.standalone("record_" + engine);
+        LongAdder failed = new LongAdder();
+
+        ExecutorService workers = Executors.newFixedThreadPool(threads);
+        long start = System.nanoTime();
+        for (int t = 0; t < threads; t++) {
+            workers.submit(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < opsPerThread; i++) {
+                    String account = "ACC" + (1_000_000_000_000L + random.nextInt(accounts));
+                    long opStart = System.nanoTime();
+                    try (Connection conn = pool.acquire()) {
+                        conn.setAutoCommit(false);
+                        store.record(conn, account, "deposit", 1 + random.nextInt(10_000) / 100.0, null);
+                        conn.commit();
+                        conn.setAutoCommit(true);
+                    } catch (SQLException e) {
+                        failed.increment();
+                    }
+                    latency.recordSince(opStart);
+                }
+            });
+        }
+        workers.shutdown();
+        workers.awaitTermination(1, TimeUnit.HOURS);
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        // history of every account, as the report path reads it
+        long readStart = System.nanoTime();
+        long rows = 0;
+        for (int i = 0; i < accounts; i++) {
+            if (store instanceof SqliteTransactionStore) {
+                rows += findOnPool(pool, "ACC" + (1_000_000_000_000L + i));
+            } else {
+                rows += store.findByAccount("ACC" + (1_000_000_000_000L + i)).size();
+            }
+        }
+        double readMillis = (System.nanoTime() - readStart) / 1e6;
+
+        System.out.printf("%-7s %9.0f records/s  p50 %7.3f ms  p99 %7.3f ms  p999 %7.3f ms  failed %d  | history of %d accounts (%d rows) in %.0f ms%n",
+                engine, latency.count() / seconds, latency.percentile(50) / 1e6, latency.percentile(99) / 1e6,
+                latency.percentile(99.9) / 1e6, failed.sum(), accounts, rows, readMillis);
+    }
+
+    // SqliteTransactionStore.findByAccount reads through Database's pools; the benchmark's scratch file needs its own
+    private static long findOnPool(ConnectionPool pool, String account) throws SQLException {
+        try (Connection conn = pool.acquire();
+             var ps = conn.prepareStatement("SELECT timestamp, type, amount, targetAccount FROM transactions WHERE accountNumber = ? ORDER BY timestamp DESC")) {
+            ps.setString(1, account);
+            long rows = 0;
+            try (var rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    rs.getString(1);
+                    rs.getString(2);
+                    rs.getDouble(3);
+                    rs.getString(4);
+                    rows++;
+                }
+            }
+            return rows;
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.bank.tools;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Draws ranks 0..n-1 with Zipf-distributed popularity: rank k is picked with probability
+ * proportional to 1/(k+1)^s. The CDF is precomputed once; each draw is a binary search.
+ */
+public final class ZipfSampler {
+    private final double[] cdf;
+
+    public ZipfSampler(int n, double exponent) {
+        if (n <= 0) throw new IllegalArgumentException("n must be positive");
+        cdf = new double[n];
+        double sum = 0;
+        for (int k = 0; k < n; k++) {
+            sum += 1.0 / Math.pow(k + 1, exponent);
+            cdf[k] = sum;
+        }
+        for (int k = 0; k < n; k++) {
+            cdf[k] /= sum;
+        }
+    }
+
+    public int next() {
+        return rank(ThreadLocalRandom.current().nextDouble());
+    }
+
+    /**
+     * The rank drawn by uniform {@code u} in [0, 1), for callers with their own random source.
+     */
+    public int rank(double u) {
+        int lo = 0, hi = cdf.length - 1;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (cdf[mid] < u) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    public int size() {
+        return cdf.length;
+    }
+}
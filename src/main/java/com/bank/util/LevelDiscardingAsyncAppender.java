@@ -0,0 +1,30 @@
+package com.bank.util;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+
+/**
+ * Logback {@link AsyncAppender} whose discard policy is configurable: once the ring buffer has less
+ * than {@code discardingThreshold} free slots, events at or below {@code maxDiscardLevel} are dropped,
+ * so the money path does not wait on routine logging while WARN/ERROR still get through. Those can only
+ * block once the remaining slots are full too; {@code neverBlock} drops them instead, and so must stay off
+ * where they matter.
+ */
+public class LevelDiscardingAsyncAppender extends AsyncAppender {
+
+    private Level maxDiscardLevel = Level.INFO;
+
+    public void setMaxDiscardLevel(String level) {
+        this.maxDiscardLevel = Level.toLevel(level, Level.INFO);
+    }
+
+    public String getMaxDiscardLevel() {
+        return maxDiscardLevel.toString();
+    }
+
+    @Override
+    protected boolean isDiscardable(ILoggingEvent event) {
+        return event.getLevel().toInt() <= maxDiscardLevel.toInt();
+    }
+}
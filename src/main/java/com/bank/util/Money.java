@@ -0,0 +1,24 @@
+package com.bank.util;
+
+/**
+ * Fixed-point helpers for amounts. The ledger keeps every amount as a whole number of paise
+ * so that sums never drift the way repeated {@code double} additions do.
+ */
+public final class Money {
+
+    private Money() { /* no instances */ }
+
+    /**
+     * Convert a rupee amount (as entered by the user / stored in accounts.balance) to paise.
+     */
+    public static long toPaise(double rupees) {
+        return Math.round(rupees * 100.0);
+    }
+
+    /**
+     * Convert paise back to rupees for display and for the accounts.balance projection.
+     */
+    public static double toRupees(long paise) {
+        return paise / 100.0;
+    }
+}
@@ -1,5 +1,6 @@
 package com.bank.util;
 
+import com.bank.jfr.PasswordHashEvent;
 import org.mindrot.jbcrypt.BCrypt;
 
 import java.security.SecureRandom;
@@ -19,7 +20,13 @@ public final class PasswordUtil {
      */
     public static String hashPassword(String plain) {
         if (plain == null) return null;
-        return BCrypt.hashpw(plain, BCrypt.gensalt(12));
+        PasswordHashEvent event = new PasswordHashEvent();
+        event.begin();
+        try {
+            return BCrypt.hashpw(plain, BCrypt.gensalt(12));
+        } finally {
+            event.end("hash");
+        }
     }
 
     /**
@@ -27,11 +34,15 @@ public final class PasswordUtil {
      */
     public static boolean checkPassword(String plain, String hashed) {
         if (plain == null || hashed == null) return false;
+        PasswordHashEvent event = new PasswordHashEvent();
+        event.begin();
         try {
             return BCrypt.checkpw(plain, hashed);
         } catch (IllegalArgumentException e) {
             // in case hashed value is malformed
             return false;
+        } finally {
+            event.end("check");
         }
     }
 
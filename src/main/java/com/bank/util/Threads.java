@@ -0,0 +1,62 @@
+package com.bank.util;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Executor helpers shared by the batch and load tools.
+ */
+public final class Threads {
+
+    private Threads() { /* no instances */ }
+
+    /**
+     * True when the running JVM has virtual threads (Java 21+). The project compiles for 17,
+     * so they are looked up reflectively.
+     */
+    public static boolean virtualThreadsAvailable() {
+        return virtualExecutorFactory() != null;
+    }
+
+    /**
+     * One virtual thread per task when {@code preferVirtual} and the JVM supports it,
+     * otherwise a fixed pool of {@code platformThreads} platform threads.
+     */
+    public static ExecutorService newExecutor(int platformThreads, boolean preferVirtual) {
+        if (preferVirtual) {
+            Method factory = virtualExecutorFactory();
+            if (factory != null) {
+                try {
+                    return (ExecutorService) factory.invoke(null);
+                } catch (ReflectiveOperationException e) {
+                    // fall back to platform threads below
+                }
+            }
+        }
+        return Executors.newFixedThreadPool(Math.max(1, platformThreads));
+    }
+
+    /**
+     * As {@link #newExecutor(int, boolean)}, but platform threads are daemons named {@code name-N}, so the
+     * pool does not keep the JVM alive. Virtual threads are always daemons.
+     */
+    public static ExecutorService newDaemonExecutor(int platformThreads, boolean preferVirtual, String name) {
+        if (preferVirtual && virtualThreadsAvailable()) return newExecutor(platformThreads, true);
+        AtomicInteger count = new AtomicInteger();
+        return Executors.newFixedThreadPool(Math.max(1, platformThreads), r -> {
+            Thread t = new Thread(r, name + "-" + count.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    private static Method virtualExecutorFactory() {
+        try {
+            return Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+}
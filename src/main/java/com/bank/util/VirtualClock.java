@@ -0,0 +1,61 @@
+package com.bank.util;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+
+/**
+ * A clock that only moves when told to, for running the bank in simulated time. Besides the shared time,
+ * a thread can set its own ({@link #setThreadTime}) while it handles an event, so components that read
+ * the clock (risk windows, alerts) see the time of the event being processed.
+ */
+public final class VirtualClock extends Clock {
+
+    private final ZoneId zone;
+    private volatile long millis;
+    private final ThreadLocal<long[]> threadTime = ThreadLocal.withInitial(() -> new long[]{Long.MIN_VALUE});
+
+    public VirtualClock(long startMillis, ZoneId zone) {
+        this.millis = startMillis;
+        this.zone = zone;
+    }
+
+    /**
+     * Move the shared time; it never goes backwards.
+     */
+    public void advanceTo(long millis) {
+        if (millis > this.millis) this.millis = millis;
+    }
+
+    /**
+     * Time seen by the calling thread until {@link #clearThreadTime}.
+     */
+    public void setThreadTime(long millis) {
+        threadTime.get()[0] = millis;
+    }
+
+    public void clearThreadTime() {
+        threadTime.get()[0] = Long.MIN_VALUE;
+    }
+
+    @Override
+    public long millis() {
+        long own = threadTime.get()[0];
+        return own != Long.MIN_VALUE ? own : millis;
+    }
+
+    @Override
+    public Instant instant() {
+        return Instant.ofEpochMilli(millis());
+    }
+
+    @Override
+    public ZoneId getZone() {
+        return zone;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+        return new VirtualClock(millis, zone);
+    }
+}
@@ -0,0 +1,119 @@
+package com.banking.app;
+
+import ch.qos.logback.classic.LoggerContext;
+import com.bank.dao.ConnectionPool;
+import com.bank.util.PasswordUtil;
+import com.itextpdf.text.Document;
+import com.itextpdf.text.Font;
+import com.itextpdf.text.Paragraph;
+import com.itextpdf.text.pdf.PdfWriter;
+import jakarta.mail.Message;
+import jakarta.mail.Session;
+import jakarta.mail.Transport;
+import jakarta.mail.internet.InternetAddress;
+import jakarta.mail.internet.MimeBodyPart;
+import jakarta.mail.internet.MimeMessage;
+import jakarta.mail.internet.MimeMultipart;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FileOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * One pass over every library the CLI reaches through reflection, resources or proxies. On the JVM it is an
+ * ordinary test; {@code mvn -Pnative package} also runs it compiled into a native image, where it fails if
+ * the configuration under {@code META-INF/native-image} misses something.
+ */
+public class NativeSmokeTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void testLogbackLoadsTheXmlConfiguration() {
+        LoggerContext context = (LoggerContext) LoggerFactory.getILoggerFactory();
+        // appenders, encoder and rolling policy are created by name from logback.xml
+        assertNotNull(context.getLogger("ROOT").getAppender("ASYNC_CONSOLE"));
+        assertNotNull(context.getLogger("ROOT").getAppender("ASYNC_FILE"));
+    }
+
+    @Test
+    void testSqliteThroughThePooledProxies() throws Exception {
+        ConnectionPool pool = new ConnectionPool("smoke.write", "jdbc:sqlite:" + dir.resolve("smoke.db") + "?busy_timeout=5000",
+                false, true, 2, 5_000, 8);
+        try {
+            try (Connection conn = pool.acquire(); Statement stmt = conn.createStatement()) {
+                stmt.execute("CREATE TABLE accounts (accountNumber TEXT PRIMARY KEY, balance REAL NOT NULL)");
+            }
+            try (Connection conn = pool.acquire();
+                 PreparedStatement ps = conn.prepareStatement("INSERT INTO accounts VALUES (?, ?) RETURNING balance")) {
+                ps.setString(1, "ACC1");
+                ps.setDouble(2, 100.5);
+                try (ResultSet rs = ps.executeQuery()) {
+                    assertTrue(rs.next());
+                    assertEquals(100.5, rs.getDouble(1));
+                }
+            }
+        } finally {
+            pool.close();
+        }
+    }
+
+    @Test
+    void testPdfWithBuiltInFonts() throws Exception {
+        Path pdf = dir.resolve("smoke.pdf");
+        Document document = new Document();
+        PdfWriter.getInstance(document, new FileOutputStream(pdf.toFile()));
+        document.open();
+        // Helvetica's metrics are read from the .afm resources in the iText jar
+        document.add(new Paragraph("Bank Account Report", new Font(Font.FontFamily.HELVETICA, 18, Font.BOLD)));
+        document.close();
+        assertTrue(Files.size(pdf) > 0);
+    }
+
+    @Test
+    void testMailMessageAndTransportWithoutSending() throws Exception {
+        Properties props = new Properties();
+        props.put("mail.smtp.host", "localhost");
+        Session session = Session.getInstance(props);
+
+        MimeMessage message = new MimeMessage(session);
+        message.setFrom(new InternetAddress("bank@example.com"));
+        message.setRecipients(Message.RecipientType.TO, InternetAddress.parse("customer@example.com"));
+        message.setSubject("Statement");
+        MimeBodyPart text = new MimeBodyPart();
+        text.setText("Your statement is attached.");
+        MimeBodyPart attachment = new MimeBodyPart();
+        attachment.setText("PDF placeholder");
+        message.setContent(new MimeMultipart(text, attachment));
+        message.saveChanges();
+
+        // encoding a multipart goes through the mailcap data content handlers
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        message.writeTo(out);
+        assertTrue(out.toString().contains("Your statement is attached."));
+
+        // the SMTP transport is instantiated reflectively from javamail.default.providers; nothing is sent
+        try (Transport transport = session.getTransport("smtp")) {
+            assertFalse(transport.isConnected());
+        }
+    }
+
+    @Test
+    void testPasswordHashing() {
+        String hash = PasswordUtil.hashPassword("secret");
+        assertTrue(PasswordUtil.checkPassword("secret", hash));
+        assertEquals(10, PasswordUtil.generateTempPassword(10).length());
+    }
+}
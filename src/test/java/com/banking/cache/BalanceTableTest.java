@@ -0,0 +1,101 @@
+package com.banking.cache;
+
+import com.bank.cache.BalanceTable;
+import org.junit.jupiter.api.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BalanceTableTest {
+
+    @Test
+    void testAccountNumbersEncodeToTheirDigits() {
+        assertEquals(1760000000123L, BalanceTable.key("ACC1760000000123"));
+        assertEquals(0, BalanceTable.key("ACC0"));
+        assertEquals(BalanceTable.NO_KEY, BalanceTable.key("ACC0123"));      // would not decode back
+        assertEquals(BalanceTable.NO_KEY, BalanceTable.key("ACC"));
+        assertEquals(BalanceTable.NO_KEY, BalanceTable.key("XYZ123"));
+        assertEquals(BalanceTable.NO_KEY, BalanceTable.key("ACC12a"));
+        assertEquals(BalanceTable.NO_KEY, BalanceTable.key("ACC1234567890123456789"));
+
+        BalanceTable table = new BalanceTable();
+        assertFalse(table.put("SAV1", 100, 0));
+        assertEquals(BalanceTable.ABSENT, table.balance("SAV1"));
+    }
+
+    @Test
+    void testPutGrowRemoveKeepsEveryOtherAccountReachable() {
+        BalanceTable table = new BalanceTable(16);
+        int n = 50_000;
+        for (int i = 0; i < n; i++) {
+            assertTrue(table.put("ACC" + (1_000_000 + i), i * 100L, 50_000));
+        }
+        assertEquals(n, table.size());
+
+        // remove every third account; backward shifting must not cut probe runs short
+        for (int i = 0; i < n; i += 3) {
+            assertTrue(table.remove("ACC" + (1_000_000 + i)));
+        }
+        assertFalse(table.remove("ACC" + 1_000_000));
+        for (int i = 0; i < n; i++) {
+            String account = "ACC" + (1_000_000 + i);
+            if (i % 3 == 0) {
+                assertFalse(table.contains(account));
+            } else {
+                assertEquals(i * 100L, table.balance(account), account);
+                assertEquals(50_000, table.threshold(account));
+            }
+        }
+        assertEquals(n - (n + 2) / 3, table.size());
+
+        assertTrue(table.add("ACC1000001", 250));
+        assertTrue(table.setThreshold("ACC1000001", 7));
+        assertEquals(350, table.balance("ACC1000001"));
+        assertEquals(7, table.threshold("ACC1000001"));
+        assertFalse(table.add("ACC999", 1));
+    }
+
+    @Test
+    void testConcurrentUpdatesNeitherLoseNorOverdraw() throws Exception {
+        BalanceTable table = new BalanceTable();
+        int accounts = 200;
+        for (int i = 0; i < accounts; i++) table.put("ACC" + (5_000 + i), 1_000, 0);
+
+        int threads = 8, rounds = 20_000;
+        AtomicInteger debits = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            final int seed = t;
+            futures.add(pool.submit(() -> {
+                for (int i = 0; i < rounds; i++) {
+                    String account = "ACC" + (5_000 + (i * 31 + seed) % accounts);
+                    if (seed % 2 == 0) {
+                        table.add(account, 3);
+                    } else if (table.debit(account, 5)) {
+                        debits.incrementAndGet();
+                    }
+                    // new accounts keep growing segments under the readers and writers above
+                    if (i % 100 == 0) table.put("ACC" + (1_000_000 + seed * rounds + i), 0, 0);
+                }
+            }));
+        }
+        for (Future<?> f : futures) f.get();
+        pool.shutdown();
+
+        long total = 0;
+        for (int i = 0; i < accounts; i++) {
+            long balance = table.balance("ACC" + (5_000 + i));
+            assertTrue(balance >= 0, "overdrawn");
+            total += balance;
+        }
+        assertEquals(accounts * 1_000L + (threads / 2) * rounds * 3L - debits.get() * 5L, total);
+        assertEquals(accounts + threads * rounds / 100, table.size());
+    }
+}
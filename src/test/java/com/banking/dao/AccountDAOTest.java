@@ -0,0 +1,58 @@
+package com.banking.dao;
+
+import com.bank.dao.AccountDAO;
+import org.junit.jupiter.api.*;
+
+import java.sql.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AccountDAOTest {
+
+    private Connection conn;
+
+    @BeforeEach
+    void setup() throws Exception {
+        conn = DriverManager.getConnection("jdbc:sqlite::memory:");
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE TABLE accounts (accountNumber TEXT PRIMARY KEY, balance REAL NOT NULL)");
+            stmt.execute("INSERT INTO accounts VALUES ('ACC1', 100)");
+        }
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        conn.close();
+    }
+
+    @Test
+    void testCreditAndDebitReturnNewBalance() throws Exception {
+        AccountDAO.Mutation credit = AccountDAO.credit(conn, "ACC1", 50);
+        assertTrue(credit.applied());
+        assertEquals(150, credit.balance());
+
+        AccountDAO.Mutation debit = AccountDAO.debit(conn, "ACC1", 150);
+        assertTrue(debit.applied());
+        assertEquals(0, debit.balance());
+    }
+
+    @Test
+    void testDebitIsRefusedWithoutTouchingBalance() throws Exception {
+        assertEquals(AccountDAO.Status.INSUFFICIENT_FUNDS, AccountDAO.debit(conn, "ACC1", 100.01).status());
+        assertEquals(AccountDAO.Status.NOT_FOUND, AccountDAO.debit(conn, "ACC9", 1).status());
+        assertEquals(AccountDAO.Status.NOT_FOUND, AccountDAO.credit(conn, "ACC9", 1).status());
+
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT balance FROM accounts WHERE accountNumber = 'ACC1'")) {
+            assertTrue(rs.next());
+            assertEquals(100, rs.getDouble(1));
+        }
+    }
+
+    @Test
+    void testGetBalanceReadsTheDatabaseWithoutABalanceTable() throws Exception {
+        assertNull(AccountDAO.balanceTable());
+        assertEquals(100.0, AccountDAO.getBalance(conn, "ACC1"));
+        assertNull(AccountDAO.getBalance(conn, "ACC9"));
+    }
+}
@@ -0,0 +1,112 @@
+package com.banking.dao;
+
+import com.bank.dao.AggregateDAO;
+import com.bank.dao.TransactionDAO;
+import org.junit.jupiter.api.*;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AggregateDAOTest {
+
+    private Connection conn;
+
+    @BeforeEach
+    void setup() throws Exception {
+        conn = DriverManager.getConnection("jdbc:sqlite::memory:");
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("""
+                CREATE TABLE transactions (
+                    id INTEGER PRIMARY KEY AUTOINCREMENT,
+                    accountNumber TEXT NOT NULL,
+                    type TEXT NOT NULL,
+                    amount REAL NOT NULL,
+                    targetAccount TEXT,
+                    timestamp DATETIME DEFAULT (datetime('now','localtime'))
+                )
+            """);
+            // history that predates the aggregate tables
+            stmt.execute("""
+                INSERT INTO transactions(accountNumber, type, amount, timestamp) VALUES
+                    ('ACC1', 'deposit', 100.10, '2024-01-05 10:00:00'),
+                    ('ACC1', 'deposit', 50.20, '2024-01-20 11:00:00'),
+                    ('ACC1', 'withdraw', 30, '2024-02-01 09:00:00'),
+                    ('ACC2', 'deposit', 10, '2024-01-05 12:00:00')
+            """);
+        }
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        conn.close();
+    }
+
+    @Test
+    void testBackfillThenIncrementalUpdates() throws Exception {
+        AggregateDAO.createTables(conn);
+
+        Map<String, AggregateDAO.Totals> totals = AggregateDAO.getAccountTotals(conn, "ACC1");
+        assertEquals(new AggregateDAO.Totals(2, 15030), totals.get("deposit"));
+        assertEquals(new AggregateDAO.Totals(1, 3000), totals.get("withdraw"));
+
+        TransactionDAO.recordTransaction(conn, "ACC1", "deposit", 0.10, null);
+        TransactionDAO.recordTransaction(conn, "ACC1", "transfer", 20, "ACC2");
+
+        totals = AggregateDAO.getAccountTotals(conn, "ACC1");
+        assertEquals(new AggregateDAO.Totals(3, 15040), totals.get("deposit"));
+        assertEquals(2000, totals.get("transfer").paise());
+        assertEquals(150.40, totals.get("deposit").amount(), 1e-9);
+
+        // a second startup must not backfill again on top of the live totals
+        AggregateDAO.createTables(conn);
+        assertEquals(new AggregateDAO.Totals(3, 15040), AggregateDAO.getAccountTotals(conn, "ACC1").get("deposit"));
+
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT txCount, amount FROM bank_daily_totals WHERE day = '2024-01-05' AND type = 'deposit'")) {
+            assertTrue(rs.next());
+            assertEquals(2, rs.getLong(1));
+            assertEquals(11010, rs.getLong(2));
+        }
+    }
+
+    @Test
+    void testRolledBackTransactionLeavesTotalsUnchanged() throws Exception {
+        AggregateDAO.createTables(conn);
+
+        conn.setAutoCommit(false);
+        TransactionDAO.recordTransaction(conn, "ACC2", "deposit", 500, null);
+        conn.rollback();
+        conn.setAutoCommit(true);
+
+        assertEquals(new AggregateDAO.Totals(1, 1000), AggregateDAO.getAccountTotals(conn, "ACC2").get("deposit"));
+    }
+
+    @Test
+    void testRebuildMatchesIncrementalTotals() throws Exception {
+        AggregateDAO.createTables(conn);
+        TransactionDAO.recordTransaction(conn, "ACC2", "withdraw", 3.33, null);
+        Map<String, AggregateDAO.Totals> live = AggregateDAO.getAccountTotals(conn, "ACC2");
+
+        AggregateDAO.rebuild(conn);
+        assertEquals(live, AggregateDAO.getAccountTotals(conn, "ACC2"));
+    }
+
+    @Test
+    void testSummedHistoryMatchesMaintainedTotals() throws Exception {
+        AggregateDAO.createTables(conn);
+        List<String[]> history = new ArrayList<>();
+        try (ResultSet rs = conn.createStatement().executeQuery(
+                "SELECT timestamp, type, amount, targetAccount FROM transactions WHERE accountNumber = 'ACC1'")) {
+            while (rs.next()) {
+                history.add(new String[]{rs.getString(1), rs.getString(2), String.valueOf(rs.getDouble(3)), rs.getString(4)});
+            }
+        }
+
+        // what the report footer shows when history is in the record log
+        assertEquals(AggregateDAO.getAccountTotals(conn, "ACC1"), AggregateDAO.sum(history));
+    }
+}
@@ -0,0 +1,152 @@
+package com.banking.dao;
+
+import com.bank.dao.Backend;
+import com.bank.dao.Dialect;
+import com.bank.dao.H2Backend;
+import com.bank.dao.SqliteBackend;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BackendTest {
+
+    private static final AtomicInteger databases = new AtomicInteger();
+
+    @TempDir
+    Path dir;
+
+    private List<Backend> backends() {
+        return List.of(SqliteBackend.files(dir.toString() + "/"), SqliteBackend.memory(), new H2Backend());
+    }
+
+    // a fresh database per test: the in-memory ones are shared by the whole JVM
+    private static String database() {
+        return "backend_test" + databases.incrementAndGet();
+    }
+
+    private static void createCarryTable(Connection conn, Dialect dialect) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute(dialect.ddl("""
+                CREATE TABLE IF NOT EXISTS carry (
+                    id INTEGER PRIMARY KEY AUTOINCREMENT,
+                    accountNumber TEXT NOT NULL UNIQUE,
+                    txCount INTEGER NOT NULL,
+                    amount INTEGER NOT NULL,
+                    balance REAL NOT NULL DEFAULT 0,
+                    timestamp DATETIME DEFAULT (datetime('now','localtime'))
+                );
+            """));
+            stmt.execute(dialect.ddl("CREATE INDEX IF NOT EXISTS idx_carry_open ON carry(amount) WHERE txCount > 0;"));
+        }
+    }
+
+    @Test
+    void testDialectStatementsBehaveAlikeOnEveryBackend() throws Exception {
+        for (Backend backend : backends()) {
+            Dialect dialect = backend.dialect();
+            try (Connection conn = backend.open(database(), false, true)) {
+                createCarryTable(conn, dialect);
+
+                String upsert = dialect.upsert("carry", "accountNumber, txCount, amount", "accountNumber",
+                        "txCount = carry.txCount + excluded.txCount, amount = carry.amount + excluded.amount");
+                try (PreparedStatement ps = conn.prepareStatement(upsert)) {
+                    for (int i = 0; i < 3; i++) {
+                        ps.setString(1, "ACC1");
+                        ps.setLong(2, 1);
+                        ps.setLong(3, 3_000_000_000L);            // past 32 bits: INTEGER must stay 64-bit
+                        ps.addBatch();
+                    }
+                    ps.executeBatch();
+                }
+                try (PreparedStatement ps = conn.prepareStatement(dialect.insertOrIgnore("carry", "accountNumber, txCount, amount", "accountNumber"))) {
+                    ps.setString(1, "ACC1");
+                    ps.setLong(2, 99);
+                    ps.setLong(3, 99);
+                    assertEquals(0, ps.executeUpdate(), backend.name());
+                    ps.setString(1, "ACC2");
+                    assertEquals(1, ps.executeUpdate(), backend.name());
+                }
+
+                try (PreparedStatement ps = conn.prepareStatement(dialect.updateReturning(
+                        "UPDATE carry SET balance = balance + ? WHERE accountNumber = ?", "balance, txCount"))) {
+                    ps.setDouble(1, 0.1);
+                    ps.setString(2, "ACC1");
+                    try (ResultSet rs = ps.executeQuery()) {
+                        assertTrue(rs.next(), backend.name());
+                        assertEquals(0.1, rs.getDouble(1), 0.0, backend.name());   // a double, not a 4-byte REAL
+                        assertEquals(3, rs.getLong(2), backend.name());
+                    }
+                }
+
+                try (Statement stmt = conn.createStatement();
+                     ResultSet rs = stmt.executeQuery("SELECT amount, timestamp FROM carry WHERE accountNumber = 'ACC1'")) {
+                    assertTrue(rs.next());
+                    assertEquals(9_000_000_000L, rs.getLong(1), backend.name());
+                    assertTrue(rs.getString(2).matches("\\d{4}-\\d\\d-\\d\\d \\d\\d:\\d\\d:\\d\\d"), backend.name() + ": " + rs.getString(2));
+                }
+
+                List<Long> ids = new ArrayList<>(List.of(42L));
+                try (Statement stmt = conn.createStatement();
+                     ResultSet rs = stmt.executeQuery("SELECT id FROM carry")) {
+                    while (rs.next()) ids.add(rs.getLong(1));
+                }
+                List<String> deleted = new ArrayList<>();
+                try (PreparedStatement ps = conn.prepareStatement(dialect.deleteReturning(
+                        "DELETE FROM carry WHERE " + dialect.inIds("id"), "accountNumber"))) {
+                    dialect.bindIds(ps, 1, ids);
+                    try (ResultSet rs = ps.executeQuery()) {
+                        while (rs.next()) deleted.add(rs.getString(1));
+                    }
+                }
+                deleted.sort(null);
+                assertEquals(List.of("ACC1", "ACC2"), deleted, backend.name());
+            }
+        }
+    }
+
+    @Test
+    void testAppendOnlyTriggerRejectsChanges() throws Exception {
+        for (Backend backend : backends()) {
+            Dialect dialect = backend.dialect();
+            try (Connection conn = backend.open(database(), false, true);
+                 Statement stmt = conn.createStatement()) {
+                stmt.execute(dialect.ddl("CREATE TABLE ledger_entries (id INTEGER PRIMARY KEY AUTOINCREMENT, amount INTEGER NOT NULL)"));
+                assertFalse(dialect.triggerExists(conn, "ledger_entries_no_update"));
+                dialect.createTrigger(stmt, "ledger_entries_no_update", "BEFORE UPDATE ON ledger_entries",
+                        "SELECT RAISE(ABORT, 'ledger_entries is append-only');", "com.bank.dao.H2Triggers$AppendOnly");
+                assertTrue(dialect.triggerExists(conn, "ledger_entries_no_update"));
+
+                stmt.execute("INSERT INTO ledger_entries(amount) VALUES (100)");
+                SQLException e = assertThrows(SQLException.class, () -> stmt.execute("UPDATE ledger_entries SET amount = 0"));
+                assertTrue(e.getMessage().contains("append-only"), backend.name() + ": " + e.getMessage());
+            }
+        }
+    }
+
+    @Test
+    void testInMemoryDatabaseIsSharedByConnections() throws Exception {
+        for (Backend backend : backends()) {
+            String db = database();
+            try (Connection writer = backend.open(db, false, true)) {
+                createCarryTable(writer, backend.dialect());
+                try (Statement stmt = writer.createStatement()) {
+                    stmt.execute("INSERT INTO carry(accountNumber, txCount, amount) VALUES ('ACC1', 1, 5)");
+                }
+            }
+            // the writer is closed: the data must outlive it
+            try (Connection reader = backend.open(db, true, false);
+                 Statement stmt = reader.createStatement();
+                 ResultSet rs = stmt.executeQuery("SELECT amount FROM carry")) {
+                assertTrue(rs.next(), backend.name());
+                assertEquals(5, rs.getLong(1));
+            }
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.banking.dao;
+
+import com.bank.dao.ConnectionPool;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.sql.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ConnectionPoolTest {
+
+    @TempDir
+    Path dir;
+
+    private ConnectionPool writePool;
+    private ConnectionPool readPool;
+
+    @BeforeEach
+    void setup() throws Exception {
+        String url = "jdbc:sqlite:" + dir.resolve("pool.db") + "?busy_timeout=2000";
+        writePool = new ConnectionPool("test.write", url, false, true, 2, 200);
+        readPool = new ConnectionPool("test.read", url, true, false, 4, 200);
+        try (Connection conn = writePool.acquire(); Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE TABLE accounts (accountNumber TEXT PRIMARY KEY, balance REAL NOT NULL)");
+            stmt.execute("INSERT INTO accounts VALUES ('ACC1', 100)");
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        writePool.close();
+        readPool.close();
+    }
+
+    @Test
+    void testReadPoolRejectsWrites() throws Exception {
+        try (Connection conn = readPool.acquire(); Statement stmt = conn.createStatement()) {
+            assertThrows(SQLException.class, () -> stmt.executeUpdate("UPDATE accounts SET balance = 0"));
+        }
+    }
+
+    @Test
+    void testReaderDoesNotWaitForOpenWriteTransaction() throws Exception {
+        try (Connection writer = writePool.acquire()) {
+            writer.setAutoCommit(false);
+            try (Statement stmt = writer.createStatement()) {
+                stmt.executeUpdate("UPDATE accounts SET balance = 50 WHERE accountNumber = 'ACC1'");
+            }
+
+            // WAL: the reader sees the last committed value immediately instead of hitting busy_timeout
+            long start = System.nanoTime();
+            try (Connection reader = readPool.acquire();
+                 Statement stmt = reader.createStatement();
+                 ResultSet rs = stmt.executeQuery("SELECT balance FROM accounts")) {
+                assertTrue(rs.next());
+                assertEquals(100, rs.getDouble(1));
+            }
+            assertTrue(System.nanoTime() - start < 1_000_000_000L);
+            writer.commit();
+        }
+    }
+
+    @Test
+    void testReturnedConnectionIsReusedAndRolledBack() throws Exception {
+        Connection first = writePool.acquire();
+        first.setAutoCommit(false);
+        try (Statement stmt = first.createStatement()) {
+            stmt.executeUpdate("UPDATE accounts SET balance = 0");
+        }
+        first.close(); // returned mid-transaction: must be rolled back, not leaked to the next borrower
+        assertTrue(first.isClosed());
+        assertThrows(SQLException.class, first::createStatement);
+
+        try (Connection second = writePool.acquire();
+             Statement stmt = second.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT balance FROM accounts")) {
+            assertTrue(second.getAutoCommit());
+            assertTrue(rs.next());
+            assertEquals(100, rs.getDouble(1));
+        }
+    }
+
+    @Test
+    void testAcquireTimesOutWhenExhausted() throws Exception {
+        try (Connection a = writePool.acquire(); Connection b = writePool.acquire()) {
+            assertNotSame(a, b);
+            assertThrows(SQLTimeoutException.class, writePool::acquire);
+        }
+        try (Connection c = writePool.acquire()) {
+            assertFalse(c.isClosed());
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.banking.dao;
+
+import com.bank.dao.ConnectionProvider;
+import com.bank.dao.LedgerDAO;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LedgerDAOTest {
+
+    private Connection conn;
+
+    @BeforeEach
+    void setup() throws Exception {
+        conn = DriverManager.getConnection("jdbc:sqlite::memory:");
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE TABLE accounts (accountNumber TEXT PRIMARY KEY, balance REAL NOT NULL)");
+            stmt.execute("INSERT INTO accounts VALUES ('ACC1', 0), ('ACC2', 0)");
+        }
+        LedgerDAO.createTables(conn);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        conn.close();
+    }
+
+    @Test
+    void testJournalsAreBalanced() throws Exception {
+        LedgerDAO.postOpening(conn, "ACC1", 1000);
+        LedgerDAO.postDeposit(conn, "ACC2", 250.50);
+        LedgerDAO.postTransfer(conn, "ACC1", "ACC2", 300);
+        LedgerDAO.postWithdrawal(conn, "ACC2", 50.25);
+
+        assertEquals(70000, LedgerDAO.getLedgerBalance(conn, "ACC1"));
+        assertEquals(50025, LedgerDAO.getLedgerBalance(conn, "ACC2"));
+        assertEquals(-120025, LedgerDAO.getLedgerBalance(conn, LedgerDAO.CASH_ACCOUNT));
+
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT SUM(amount) FROM ledger_entries")) {
+            assertTrue(rs.next());
+            assertEquals(0, rs.getLong(1));
+        }
+    }
+
+    @Test
+    void testRebuildUsesSnapshotAndLaterEntries() throws Exception {
+        for (int i = 0; i < 250; i++) {
+            LedgerDAO.postDeposit(conn, "ACC1", 1);
+        }
+
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT balance FROM ledger_snapshots WHERE accountNumber = 'ACC1'")) {
+            assertTrue(rs.next(), "a snapshot should have been taken");
+        }
+
+        LedgerDAO.rebuildBalance(conn, "ACC1");
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT balance FROM accounts WHERE accountNumber = 'ACC1'")) {
+            assertTrue(rs.next());
+            assertEquals(250.0, rs.getDouble(1));
+        }
+    }
+
+    @Test
+    void testEntriesAreAppendOnly() throws Exception {
+        LedgerDAO.postDeposit(conn, "ACC1", 10);
+        try (Statement stmt = conn.createStatement()) {
+            assertThrows(SQLException.class, () -> stmt.executeUpdate("UPDATE ledger_entries SET amount = 0"));
+            assertThrows(SQLException.class, () -> stmt.executeUpdate("DELETE FROM ledger_entries"));
+        }
+    }
+
+    @Test
+    void testRebuildAllBalancesOverSeveralFileShards(@TempDir Path dir) throws Exception {
+        List<ConnectionProvider> shards = new ArrayList<>();
+        for (int shard = 0; shard < 3; shard++) {
+            String url = "jdbc:sqlite:" + dir.resolve("shard" + shard + ".db");
+            shards.add(() -> DriverManager.getConnection(url));
+            try (Connection shardConn = DriverManager.getConnection(url); Statement stmt = shardConn.createStatement()) {
+                stmt.execute("PRAGMA journal_mode=WAL");
+                stmt.execute("CREATE TABLE accounts (accountNumber TEXT PRIMARY KEY, balance REAL NOT NULL)");
+                LedgerDAO.createTables(shardConn);
+                // the projection is wrong everywhere; the ledger has the real balances
+                for (int i = 0; i < 400; i++) {
+                    String accountNumber = "S" + shard + "ACC" + i;
+                    stmt.execute("INSERT INTO accounts VALUES ('" + accountNumber + "', -1)");
+                    LedgerDAO.postDeposit(shardConn, accountNumber, i + 1);
+                }
+            }
+        }
+
+        assertEquals(1200, LedgerDAO.rebuildAllBalances(shards, 8));
+        for (int shard = 0; shard < 3; shard++) {
+            try (Connection shardConn = shards.get(shard).getConnection(); Statement stmt = shardConn.createStatement();
+                 ResultSet rs = stmt.executeQuery("SELECT COUNT(*), SUM(balance) FROM accounts WHERE balance > 0")) {
+                assertTrue(rs.next());
+                assertEquals(400, rs.getInt(1));
+                assertEquals(400 * 401 / 2.0, rs.getDouble(2), 1e-6);
+            }
+        }
+
+        // a shard that fails makes the whole call fail instead of returning a partial count
+        List<ConnectionProvider> withBroken = new ArrayList<>(shards);
+        withBroken.add(() -> { throw new SQLException("shard offline"); });
+        SQLException failure = assertThrows(SQLException.class, () -> LedgerDAO.rebuildAllBalances(withBroken, 8));
+        assertEquals("shard offline", failure.getMessage());
+    }
+}
@@ -0,0 +1,175 @@
+package com.banking.dao;
+
+import com.bank.dao.ConnectionPool;
+import com.bank.dao.LogTransactionStore;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.*;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LogTransactionStoreTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void testHistoryIsNewestFirstAcrossSegmentsAndSurvivesReopen() throws Exception {
+        LogTransactionStore store = LogTransactionStore.open(dir, 4, false);
+        try (Connection conn = DriverManager.getConnection("jdbc:sqlite::memory:")) {
+            store.record(conn, "ACC1", "open", 100, null);
+            for (int i = 1; i <= 5; i++) {
+                store.record(conn, "ACC2", "deposit", i, null);
+            }
+            store.record(conn, "ACC1", "transfer", 12.34, "ACC2");
+            store.record(conn, "ACC2", "credit", 12.34, "ACC1");
+        }
+        store.close();
+
+        LogTransactionStore reopened = LogTransactionStore.open(dir, 4, false);
+        assertEquals(8, reopened.size());
+
+        List<String[]> acc1 = reopened.findByAccount("ACC1");
+        assertEquals(2, acc1.size());
+        assertEquals("transfer", acc1.get(0)[1]);
+        assertEquals("12.34", acc1.get(0)[2]);
+        assertEquals("ACC2", acc1.get(0)[3]);
+        assertEquals("open", acc1.get(1)[1]);
+        assertNull(acc1.get(1)[3]);
+
+        List<String[]> acc2 = reopened.findByAccount("ACC2");
+        assertEquals(6, acc2.size());
+        assertEquals("credit", acc2.get(0)[1]);
+        assertEquals("1.0", acc2.get(5)[2]);
+        assertTrue(reopened.findByAccount("ACC9").isEmpty());
+    }
+
+    @Test
+    void testTornTailIsDroppedOnRecovery() throws Exception {
+        LogTransactionStore store = LogTransactionStore.open(dir, 8, false);
+        try (Connection conn = DriverManager.getConnection("jdbc:sqlite::memory:")) {
+            for (int i = 1; i <= 3; i++) store.record(conn, "ACC1", "deposit", i, null);
+        }
+        store.close();
+
+        // corrupt the amount of the third record, as if the crash hit mid-write
+        try (FileChannel ch = FileChannel.open(dir.resolve("txlog-000000.seg"), StandardOpenOption.WRITE)) {
+            ch.write(ByteBuffer.allocate(8).putLong(0, 999), 2 * 88 + 24);
+        }
+
+        LogTransactionStore recovered = LogTransactionStore.open(dir, 8, false);
+        assertEquals(2, recovered.size());
+        assertEquals(2, recovered.findByAccount("ACC1").size());
+
+        try (Connection conn = DriverManager.getConnection("jdbc:sqlite::memory:")) {
+            recovered.record(conn, "ACC1", "withdraw", 1, null);
+        }
+        recovered.close();
+        assertEquals(3, LogTransactionStore.open(dir, 8, false).findByAccount("ACC1").size());
+    }
+
+    @Test
+    void testRecordsAppearOnlyWhenTheTransactionCommits() throws Exception {
+        LogTransactionStore store = LogTransactionStore.open(dir, 8, true);
+        ConnectionPool pool = pool();
+        try (Connection conn = pool.acquire()) {
+            conn.setAutoCommit(false);
+            store.record(conn, "ACC1", "deposit", 10, null);
+            assertTrue(store.findByAccount("ACC1").isEmpty());
+            conn.rollback();
+
+            store.record(conn, "ACC1", "deposit", 20, null);
+            conn.commit();
+            conn.setAutoCommit(true);
+        }
+        // returned without committing: rolled back, so voided as well
+        try (Connection conn = pool.acquire()) {
+            conn.setAutoCommit(false);
+            store.record(conn, "ACC1", "withdraw", 5, null);
+        }
+        try (Connection conn = pool.acquire()) {
+            assertEquals(2, LogTransactionStore.readMark(conn));
+        } finally {
+            pool.close();
+        }
+
+        List<String[]> history = store.findByAccount("ACC1");
+        assertEquals(1, history.size());
+        assertEquals("20.0", history.get(0)[2]);
+        assertEquals(3, store.size());
+        assertThrows(SQLException.class, () -> store.record(null, "ACC1", "bogus", 1, null));
+    }
+
+    @Test
+    void testPendingRecordsAreSettledAgainstTheCommitMark() throws Exception {
+        LogTransactionStore store = LogTransactionStore.open(dir, 8, true);
+        ConnectionPool pool = pool();
+        try {
+            for (int i = 1; i <= 2; i++) {
+                try (Connection conn = pool.acquire()) {
+                    conn.setAutoCommit(false);
+                    store.record(conn, "ACC1", "deposit", i, null);
+                    conn.commit();
+                    conn.setAutoCommit(true);
+                }
+            }
+            // as after a crash: both records still pending on disk, and the second transaction never committed
+            try (Connection conn = pool.acquire(); Statement stmt = conn.createStatement()) {
+                stmt.executeUpdate("UPDATE txlog_mark SET upto = 1");
+            }
+        } finally {
+            pool.close();
+        }
+        store.close();
+        try (FileChannel ch = FileChannel.open(dir.resolve("txlog-000000.seg"), StandardOpenOption.WRITE)) {
+            for (int record = 0; record < 2; record++) ch.write(ByteBuffer.wrap(new byte[]{1}), record * 88 + 35);
+        }
+
+        LogTransactionStore recovered = LogTransactionStore.open(dir, 8, true, account -> {
+            try (Connection conn = DriverManager.getConnection("jdbc:sqlite:" + dir.resolve("bank.db"))) {
+                return LogTransactionStore.readMark(conn);
+            }
+        });
+        List<String[]> history = recovered.findByAccount("ACC1");
+        assertEquals(1, history.size());
+        assertEquals("1.0", history.get(0)[2]);
+        // settled for good: a reopen without the database agrees
+        recovered.close();
+        assertEquals(1, LogTransactionStore.open(dir, 8, true).findByAccount("ACC1").size());
+    }
+
+    private ConnectionPool pool() throws SQLException {
+        ConnectionPool pool = new ConnectionPool("txlog-test.write", "jdbc:sqlite:" + dir.resolve("bank.db"), false, false, 2, 1000);
+        try (Connection conn = pool.acquire()) {
+            LogTransactionStore.createMarkTable(conn);
+        }
+        return pool;
+    }
+
+    @Test
+    void testDeletedHistoryStaysGoneAfterReopen() throws Exception {
+        LogTransactionStore store = LogTransactionStore.open(dir, 4, true);
+        try (Connection conn = DriverManager.getConnection("jdbc:sqlite::memory:")) {
+            for (int i = 1; i <= 3; i++) store.record(conn, "ACC1", "deposit", i, null);
+            store.record(conn, "ACC2", "transfer", 5, "ACC1");
+
+            assertEquals(3, store.deleteAccount(conn, "ACC1"));
+            assertTrue(store.findByAccount("ACC1").isEmpty());
+            assertEquals(1, store.findByAccount("ACC2").size());
+
+            store.record(conn, "ACC1", "deposit", 7, null);
+        }
+        store.close();
+
+        LogTransactionStore reopened = LogTransactionStore.open(dir, 4, true);
+        assertEquals(1, reopened.findByAccount("ACC1").size());
+        assertEquals("7.0", reopened.findByAccount("ACC1").get(0)[2]);
+        assertEquals(1, reopened.findByAccount("ACC2").size());
+    }
+}
@@ -0,0 +1,96 @@
+package com.banking.dao;
+
+import com.bank.dao.ConnectionPool;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.sql.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StatementCacheTest {
+
+    @TempDir
+    Path dir;
+
+    private ConnectionPool pool;
+
+    @BeforeEach
+    void setup() throws Exception {
+        String url = "jdbc:sqlite:" + dir.resolve("cache.db");
+        // metrics are registered per pool name, so each test gets its own
+        pool = new ConnectionPool("cache-test-" + System.nanoTime() + ".write", url, false, false, 1, 1000, 2);
+        try (Connection conn = pool.acquire(); Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE TABLE accounts (accountNumber TEXT PRIMARY KEY, balance REAL NOT NULL)");
+            stmt.execute("INSERT INTO accounts VALUES ('ACC1', 100), ('ACC2', 200)");
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.close();
+    }
+
+    private double balance(String acc) throws SQLException {
+        try (Connection conn = pool.acquire();
+             PreparedStatement ps = conn.prepareStatement("SELECT balance FROM accounts WHERE accountNumber = ?")) {
+            ps.setString(1, acc);
+            ResultSet rs = ps.executeQuery(); // deliberately left open: closing the statement must reset it
+            assertTrue(rs.next());
+            return rs.getDouble(1);
+        }
+    }
+
+    @Test
+    void testRepeatedSqlIsServedFromCache() throws Exception {
+        assertTrue(Double.isNaN(pool.statementCacheHitRate())); // nothing prepared yet
+        for (int i = 0; i < 10; i++) {
+            assertEquals(100, balance("ACC1"));
+            assertEquals(200, balance("ACC2"));
+        }
+        assertEquals(0.95, pool.statementCacheHitRate(), 1e-9); // 1 miss, 19 hits
+    }
+
+    @Test
+    void testResetStatementDoesNotPinOldSnapshot() throws Exception {
+        assertEquals(100, balance("ACC1"));
+        try (Connection conn = pool.acquire();
+             PreparedStatement ps = conn.prepareStatement("UPDATE accounts SET balance = ? WHERE accountNumber = ?")) {
+            ps.setDouble(1, 150);
+            ps.setString(2, "ACC1");
+            assertEquals(1, ps.executeUpdate());
+        }
+        assertEquals(150, balance("ACC1"));
+    }
+
+    @Test
+    void testLeastRecentlyUsedStatementIsEvicted() throws Exception {
+        try (Connection conn = pool.acquire()) {
+            for (String sql : new String[]{"SELECT 1", "SELECT 2", "SELECT 1", "SELECT 3"}) {
+                try (PreparedStatement ps = conn.prepareStatement(sql); ResultSet rs = ps.executeQuery()) {
+                    assertTrue(rs.next());
+                }
+            }
+        }
+        // capacity 2: "SELECT 2" was least recently used when "SELECT 3" arrived
+        assertEquals(1, pool.statementCacheEvictions());
+    }
+
+    @Test
+    void testNestedUseOfSameSqlGetsSeparateStatements() throws Exception {
+        String sql = "SELECT balance FROM accounts WHERE accountNumber = ?";
+        try (Connection conn = pool.acquire();
+             PreparedStatement outer = conn.prepareStatement(sql);
+             PreparedStatement inner = conn.prepareStatement(sql)) {
+            outer.setString(1, "ACC1");
+            inner.setString(1, "ACC2");
+            try (ResultSet a = outer.executeQuery(); ResultSet b = inner.executeQuery()) {
+                assertTrue(a.next() && b.next());
+                assertEquals(100, a.getDouble(1));
+                assertEquals(200, b.getDouble(1));
+            }
+            assertSame(conn, outer.getConnection());
+        }
+    }
+}
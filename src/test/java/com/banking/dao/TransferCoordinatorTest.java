@@ -0,0 +1,219 @@
+package com.banking.dao;
+
+import com.bank.dao.LedgerDAO;
+import com.bank.dao.ShardRouter;
+import com.bank.dao.TransferCoordinator;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.nio.file.Path;
+import java.sql.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TransferCoordinatorTest {
+
+    private static final int SHARDS = 2;
+
+    @TempDir
+    Path dir;
+
+    private TransferCoordinator coordinator;
+    private String onShard0;
+    private String onShard1;
+
+    private Connection home() throws SQLException {
+        return DriverManager.getConnection("jdbc:sqlite:" + dir.resolve("home.db"));
+    }
+
+    private Connection shard(int shard) throws SQLException {
+        return DriverManager.getConnection("jdbc:sqlite:" + dir.resolve("shard" + shard + ".db"));
+    }
+
+    @BeforeEach
+    void setup() throws Exception {
+        try (Connection conn = home()) {
+            TransferCoordinator.createIntentLog(conn);
+        }
+        for (int s = 0; s < SHARDS; s++) {
+            try (Connection conn = shard(s); Statement stmt = conn.createStatement()) {
+                stmt.execute("CREATE TABLE accounts (accountNumber TEXT PRIMARY KEY, balance REAL NOT NULL)");
+                stmt.execute("CREATE TABLE transactions (accountNumber TEXT, type TEXT, amount REAL, targetAccount TEXT)");
+                LedgerDAO.createTables(conn);
+                TransferCoordinator.createParticipantLog(conn);
+            }
+        }
+
+        // pick one account number owned by each shard
+        for (int i = 0; onShard0 == null || onShard1 == null; i++) {
+            String acc = "ACC" + (1_700_000_000_000L + i);
+            if (ShardRouter.shardOf(acc, SHARDS) == 0 && onShard0 == null) onShard0 = acc;
+            if (ShardRouter.shardOf(acc, SHARDS) == 1 && onShard1 == null) onShard1 = acc;
+        }
+        insertAccount(0, onShard0, 1000);
+        insertAccount(1, onShard1, 100);
+
+        coordinator = new TransferCoordinator(this::home, this::shard, SHARDS);
+    }
+
+    private void insertAccount(int shard, String acc, double balance) throws SQLException {
+        try (Connection conn = shard(shard);
+             PreparedStatement ps = conn.prepareStatement("INSERT INTO accounts VALUES (?, ?)")) {
+            ps.setString(1, acc);
+            ps.setDouble(2, balance);
+            ps.executeUpdate();
+        }
+    }
+
+    private double balance(int shard, String acc) throws SQLException {
+        try (Connection conn = shard(shard);
+             PreparedStatement ps = conn.prepareStatement("SELECT balance FROM accounts WHERE accountNumber = ?")) {
+            ps.setString(1, acc);
+            try (ResultSet rs = ps.executeQuery()) {
+                assertTrue(rs.next());
+                return rs.getDouble(1);
+            }
+        }
+    }
+
+    private String intentState() throws SQLException {
+        try (Connection conn = home();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT state FROM transfer_intents ORDER BY id DESC LIMIT 1")) {
+            assertTrue(rs.next());
+            return rs.getString(1);
+        }
+    }
+
+    @Test
+    void testCrossShardTransferCommitsBothSides() throws Exception {
+        assertEquals(TransferCoordinator.Outcome.COMMITTED, coordinator.transfer(onShard0, onShard1, 250));
+
+        assertEquals(750, balance(0, onShard0));
+        assertEquals(350, balance(1, onShard1));
+        assertEquals("DONE", intentState());
+
+        // each shard's ledger balances against the transit account, which nets to zero overall
+        long transit = 0;
+        for (int s = 0; s < SHARDS; s++) {
+            try (Connection conn = shard(s);
+                 Statement stmt = conn.createStatement();
+                 ResultSet rs = stmt.executeQuery("SELECT SUM(amount) FROM ledger_entries")) {
+                assertTrue(rs.next());
+                assertEquals(0, rs.getLong(1));
+                transit += LedgerDAO.getLedgerBalance(conn, LedgerDAO.TRANSIT_ACCOUNT);
+            }
+        }
+        assertEquals(0, transit);
+    }
+
+    @Test
+    void testInsufficientFundsAbortsBothSides() throws Exception {
+        assertEquals(TransferCoordinator.Outcome.INSUFFICIENT_FUNDS, coordinator.transfer(onShard1, onShard0, 500));
+
+        assertEquals(1000, balance(0, onShard0));
+        assertEquals(100, balance(1, onShard1));
+        assertEquals("ABORTED", intentState());
+    }
+
+    @Test
+    void testRecoveryRedoesCommittedIntentAndAbortsUndecided() throws Exception {
+        try (Connection conn = home(); Statement stmt = conn.createStatement()) {
+            // a crash after the decision but before either participant committed, and one before the decision
+            stmt.execute("INSERT INTO transfer_intents(fromAccount, toAccount, amount, state) VALUES ('"
+                    + onShard0 + "', '" + onShard1 + "', 40, 'COMMITTED')");
+            stmt.execute("INSERT INTO transfer_intents(fromAccount, toAccount, amount, state) VALUES ('"
+                    + onShard0 + "', '" + onShard1 + "', 99, 'PREPARING')");
+        }
+
+        assertEquals(2, coordinator.recover());
+        assertEquals(960, balance(0, onShard0));
+        assertEquals(140, balance(1, onShard1));
+        assertEquals("ABORTED", intentState());
+
+        // recovery is idempotent
+        assertEquals(0, coordinator.recover());
+        assertEquals(960, balance(0, onShard0));
+    }
+
+    @Test
+    void testFailedParticipantCommitIsRedoneOnceItsLockIsReleased() throws Exception {
+        // the first commit on shard 1 fails and leaves its transaction, and write lock, open
+        boolean[] failed = {false};
+        TransferCoordinator flaky = new TransferCoordinator(this::home, s -> {
+            Connection raw = shard(s);
+            if (s != 1) return raw;
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                    (proxy, method, args) -> {
+                        if (method.getName().equals("commit") && !failed[0]) {
+                            failed[0] = true;
+                            throw new SQLException("disk I/O error");
+                        }
+                        try {
+                            return method.invoke(raw, args);
+                        } catch (InvocationTargetException e) {
+                            throw e.getCause();
+                        }
+                    });
+        }, SHARDS);
+
+        assertEquals(TransferCoordinator.Outcome.COMMITTED, flaky.transfer(onShard0, onShard1, 250));
+        assertTrue(failed[0]);
+        assertEquals(750, balance(0, onShard0));
+        assertEquals(350, balance(1, onShard1));
+        assertEquals("DONE", intentState());
+    }
+
+    @Test
+    void testRedoneDebitNeverOverdrawsAndPostsTheShortfallToSuspense() throws Exception {
+        // decided for ₹1200, but by the redo the source holds only ₹1000
+        try (Connection conn = home(); Statement stmt = conn.createStatement()) {
+            stmt.execute("INSERT INTO transfer_intents(fromAccount, toAccount, amount, state) VALUES ('"
+                    + onShard0 + "', '" + onShard1 + "', 1200, 'COMMITTED')");
+        }
+
+        assertEquals(1, coordinator.recover());
+        assertEquals(0, balance(0, onShard0));
+        assertEquals(1300, balance(1, onShard1));
+        assertEquals("DONE", intentState());
+        try (Connection conn = shard(0)) {
+            assertEquals(-200_00, LedgerDAO.getLedgerBalance(conn, LedgerDAO.SUSPENSE_ACCOUNT));
+            assertEquals(1200_00, LedgerDAO.getLedgerBalance(conn, LedgerDAO.TRANSIT_ACCOUNT));
+        }
+    }
+
+    @Test
+    void testRedoWithAMissingSourceLeavesTheIntentCommitted() throws Exception {
+        try (Connection conn = home(); Statement stmt = conn.createStatement()) {
+            stmt.execute("INSERT INTO transfer_intents(fromAccount, toAccount, amount, state) VALUES ('"
+                    + onShard0 + "', '" + onShard1 + "', 40, 'COMMITTED')");
+        }
+        try (Connection conn = shard(0); Statement stmt = conn.createStatement()) {
+            stmt.execute("DELETE FROM accounts WHERE accountNumber = '" + onShard0 + "'");
+        }
+
+        assertEquals(0, coordinator.recover());
+        assertEquals("COMMITTED", intentState());
+        // no money is created on the other side, and neither side is marked applied
+        assertEquals(100, balance(1, onShard1));
+        for (int s = 0; s < SHARDS; s++) {
+            try (Connection conn = shard(s); Statement stmt = conn.createStatement();
+                 ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM applied_intents")) {
+                assertTrue(rs.next());
+                assertEquals(0, rs.getInt(1));
+            }
+        }
+    }
+
+    @Test
+    void testShardOfSpreadsSequentialAccountNumbers() {
+        int[] counts = new int[4];
+        for (int i = 0; i < 4000; i++) {
+            counts[ShardRouter.shardOf("ACC" + (1_700_000_000_000L + i), 4)]++;
+        }
+        for (int c : counts) assertEquals(1000, c, 150);
+        assertEquals(ShardRouter.shardOf("ACC42", 4), ShardRouter.shardOf("ACC42", 4));
+    }
+}
@@ -0,0 +1,108 @@
+package com.banking.export;
+
+import com.bank.dao.ArchiveDAO;
+import com.bank.export.ColumnarDataset;
+import com.bank.export.ColumnarExporter;
+import com.bank.export.TransactionSegment;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.sql.*;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ColumnarExportTest {
+
+    @TempDir
+    Path dir;
+
+    private Connection live() throws SQLException {
+        return DriverManager.getConnection("jdbc:sqlite:" + dir.resolve("live.db"));
+    }
+
+    private Connection archive() throws SQLException {
+        return DriverManager.getConnection("jdbc:sqlite:" + dir.resolve("archive.db"));
+    }
+
+    @BeforeEach
+    void setup() throws Exception {
+        try (Connection conn = live(); Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE TABLE accounts (accountNumber TEXT PRIMARY KEY, balance REAL)");
+            stmt.execute("""
+                CREATE TABLE transactions (id INTEGER PRIMARY KEY AUTOINCREMENT, accountNumber TEXT, type TEXT,
+                    amount REAL, targetAccount TEXT, timestamp DATETIME)
+            """);
+            stmt.execute("INSERT INTO accounts VALUES ('ACC1', 120.5), ('ACC2', 30)");
+        }
+        try (Connection conn = archive()) {
+            ArchiveDAO.createArchiveTables(conn);
+        }
+    }
+
+    private void insert(String values) throws SQLException {
+        try (Connection conn = live(); Statement stmt = conn.createStatement()) {
+            stmt.execute("INSERT INTO transactions(accountNumber, type, amount, targetAccount, timestamp) VALUES " + values);
+        }
+    }
+
+    private List<Long> allIds(ColumnarDataset dataset) throws Exception {
+        List<Long> ids = new ArrayList<>();
+        dataset.forEachSegment(segment -> {
+            for (long id : segment.ids()) ids.add(id);
+        });
+        return ids;
+    }
+
+    @Test
+    void testRoundTripAcrossTiersAndIncrementalAppend() throws Exception {
+        insert("""
+            ('ACC1', 'open', 100, NULL, '2024-01-01 09:00:00'),
+            ('ACC2', 'open', 50, NULL, '2024-01-01 09:00:05'),
+            ('ACC1', 'transfer', 20, 'ACC2', '2024-01-02 10:30:00'),
+            ('ACC2', 'credit', 20, 'ACC1', '2024-01-02 10:30:00'),
+            ('ACC1', 'deposit', 40.5, NULL, '2023-12-31 23:59:59')
+        """);
+        // id 1 and 2 already moved to the archive, id 3 caught mid-move (in both tiers)
+        try (Connection l = live(); Connection a = archive()) {
+            ArchiveDAO.insertArchived(a, ArchiveDAO.selectIdRange(l, 0, 3, 10));
+            ArchiveDAO.deleteLive(l, List.of(1L, 2L));
+        }
+
+        ColumnarExporter exporter = new ColumnarExporter(dir.resolve("export"), 2);
+        assertEquals(5, exporter.exportTransactions(0, this::live, this::archive));
+        exporter.exportAccounts(List.of(this::live));
+
+        ColumnarDataset dataset = ColumnarDataset.open(dir.resolve("export"));
+        assertEquals(3, dataset.segments().size());
+        assertEquals(5, dataset.rowCount());
+        assertEquals(List.of(1L, 2L, 3L, 4L, 5L), allIds(dataset));
+
+        TransactionSegment second = ColumnarDataset.readSegment(dataset.segments().get(1));
+        assertEquals("transfer", second.type(0));
+        assertEquals("ACC1", dataset.accounts().accountNumber(second.accounts()[0]));
+        assertEquals("ACC2", dataset.accounts().accountNumber(second.targets()[0]));
+        assertEquals(2000, second.amounts()[0]);
+        assertEquals(LocalDateTime.of(2024, 1, 2, 10, 30), second.timestamp(1));
+
+        TransactionSegment third = ColumnarDataset.readSegment(dataset.segments().get(2));
+        assertEquals(-1, third.targets()[0]);
+        assertEquals(4050, third.amounts()[0]);
+        assertEquals(LocalDateTime.of(2023, 12, 31, 23, 59, 59), third.timestamp(0)); // negative timestamp delta
+        assertEquals(12050, dataset.balance(dataset.accounts().code("ACC1")));
+
+        // a new exporter resumes from the segments on disk and appends only the new rows
+        insert("('ACC3', 'open', 7, NULL, '2024-02-01 08:00:00')");
+        ColumnarExporter next = new ColumnarExporter(dir.resolve("export"), 2);
+        assertEquals(1, next.exportTransactions(0, this::live, this::archive));
+        assertEquals(0, next.exportTransactions(0, this::live, this::archive));
+
+        dataset = ColumnarDataset.open(dir.resolve("export"));
+        assertEquals(List.of(1L, 2L, 3L, 4L, 5L, 6L), allIds(dataset));
+        assertEquals(3, dataset.accounts().size());
+        assertEquals(Long.MIN_VALUE, dataset.balance(dataset.accounts().code("ACC3"))); // balances not re-exported yet
+    }
+}
@@ -0,0 +1,42 @@
+package com.banking.metrics;
+
+import com.bank.metrics.Counter;
+import com.bank.metrics.LatencyHistogram;
+import com.bank.metrics.Metrics;
+import com.bank.metrics.MetricsExporter;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MetricsTest {
+
+    @Test
+    void testPercentilesWithinBucketPrecision() {
+        assertTrue(Metrics.ENABLED, "surefire should run with -Dbank.metrics=true");
+        LatencyHistogram h = Metrics.histogram("test_latency_seconds", "case=\"percentiles\"");
+        for (long v = 1; v <= 10_000; v++) {
+            h.record(v * 1_000); // 1µs .. 10ms
+        }
+
+        assertEquals(10_000, h.count());
+        assertEquals(5_000_000, h.percentile(50), 5_000_000 * 0.04);
+        assertEquals(9_900_000, h.percentile(99), 9_900_000 * 0.04);
+        assertEquals(10_000_000, h.max(), 10_000_000 * 0.04);
+    }
+
+    @Test
+    void testExportFormats() {
+        Counter c = Metrics.counter("test_events_total", "kind=\"export\"");
+        c.add(3);
+        Metrics.histogram("test_latency_seconds", "case=\"export\"").record(2_000_000);
+
+        String prom = MetricsExporter.toPrometheus();
+        assertTrue(prom.contains("# TYPE test_events_total counter"));
+        assertTrue(prom.contains("test_events_total{kind=\"export\"} 3"));
+        assertTrue(prom.contains("test_latency_seconds_count{case=\"export\"} 1"));
+
+        String json = MetricsExporter.toJson();
+        assertTrue(json.contains("\"name\": \"test_events_total\""));
+        assertTrue(json.contains("\"count\": 1"));
+    }
+}
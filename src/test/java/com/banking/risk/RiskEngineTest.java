@@ -0,0 +1,107 @@
+package com.banking.risk;
+
+import com.bank.risk.RiskEngine;
+import com.bank.risk.RiskRule;
+import org.junit.jupiter.api.*;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RiskEngineTest {
+
+    // test clock moved by hand
+    static final class ManualClock extends Clock {
+        long millis = 1_700_000_000_000L;
+
+        @Override
+        public long millis() {
+            return millis;
+        }
+
+        @Override
+        public Instant instant() {
+            return Instant.ofEpochMilli(millis);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+    }
+
+    private final ManualClock clock = new ManualClock();
+
+    @Test
+    void testVelocityWindowsSlide() {
+        RiskEngine risk = new RiskEngine(RiskRule.parseAll("count(1m)>3:block, amount(1h)>1000:review"), 16, clock);
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(RiskEngine.Action.ALLOW, risk.check("ACC1", 100_00, null).action());
+            risk.recordOutgoing("ACC1", 100_00, null);
+            clock.millis += 1_000;
+        }
+        RiskEngine.Decision fourth = risk.check("ACC1", 100_00, null);
+        assertTrue(fourth.blocked());
+        assertEquals("count(1m)>3:block", fourth.reason());
+        assertEquals(RiskEngine.Action.ALLOW, risk.check("ACC2", 100_00, null).action()); // per account
+
+        // a minute later the 1m window is empty again, the 1h one still holds ₹300
+        clock.millis += 61_000;
+        assertArrayEquals(new long[]{0, 0}, risk.outgoing("ACC1", RiskRule.Window.MINUTE));
+        assertArrayEquals(new long[]{3, 300_00}, risk.outgoing("ACC1", RiskRule.Window.HOUR));
+        assertEquals(RiskEngine.Action.ALLOW, risk.check("ACC1", 700_00, null).action());
+        RiskEngine.Decision over = risk.check("ACC1", 700_01, null);
+        assertEquals(RiskEngine.Action.REVIEW, over.action());
+        assertEquals("amount(1h)>1000.0:review", over.reason());
+
+        clock.millis += 3_600_000;
+        assertArrayEquals(new long[]{0, 0}, risk.outgoing("ACC1", RiskRule.Window.HOUR));
+        assertArrayEquals(new long[]{3, 300_00}, risk.outgoing("ACC1", RiskRule.Window.DAY));
+    }
+
+    @Test
+    void testNewPayeeAndBlockOutranksReview() {
+        RiskEngine risk = new RiskEngine(RiskRule.parseAll("newpayee>500:review, amount(24h)>5000:block"), 2, clock);
+
+        assertEquals(RiskEngine.Action.ALLOW, risk.check("ACC1", 500_00, "ACC9").action());   // at the limit
+        assertEquals(RiskEngine.Action.REVIEW, risk.check("ACC1", 600_00, "ACC9").action());
+        assertEquals(RiskEngine.Action.ALLOW, risk.check("ACC1", 600_00, null).action());     // cash has no payee
+
+        // money received from an account makes it a known counterparty
+        risk.recordIncoming("ACC1", 10_00, "ACC9");
+        assertEquals(RiskEngine.Action.ALLOW, risk.check("ACC1", 600_00, "ACC9").action());
+
+        // only the two most recent counterparties are remembered
+        risk.recordOutgoing("ACC1", 1_00, "ACC7");
+        risk.recordOutgoing("ACC1", 1_00, "ACC8");
+        assertEquals(RiskEngine.Action.REVIEW, risk.check("ACC1", 600_00, "ACC9").action());
+
+        RiskEngine.Decision both = risk.check("ACC1", 6_000_00, "ACC5");
+        assertTrue(both.blocked());
+        assertEquals("amount(24h)>5000.0:block", both.reason());
+    }
+
+    @Test
+    void testRuleParsing() {
+        assertEquals(4, RiskRule.parseAll(RiskEngine.DEFAULT_RULES).size());
+        assertTrue(RiskRule.parseAll(" ").isEmpty());
+        assertEquals(new RiskRule(RiskRule.Metric.AMOUNT, RiskRule.Window.DAY, 250_050, RiskEngine.Action.BLOCK),
+                RiskRule.parse(" AMOUNT(24h) > 2500.50 : Block "));
+        assertThrows(IllegalArgumentException.class, () -> RiskRule.parse("count(2m)>1:block"));
+        assertThrows(IllegalArgumentException.class, () -> RiskRule.parse("count(1m)>1:allow"));
+
+        RiskEngine off = new RiskEngine(RiskRule.parseAll(""), 16, clock);
+        off.recordOutgoing("ACC1", 1, null);
+        assertFalse(off.isActive());
+        assertArrayEquals(new long[]{0, 0}, off.outgoing("ACC1", RiskRule.Window.MINUTE));
+    }
+}
@@ -0,0 +1,122 @@
+package com.banking.service;
+
+import com.bank.cache.BalanceTable;
+import com.bank.service.AlertService;
+import org.junit.jupiter.api.*;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AlertServiceTest {
+
+    // test clock moved by hand
+    static final class ManualClock extends Clock {
+        long millis = 1_700_000_000_000L;
+
+        @Override
+        public long millis() {
+            return millis;
+        }
+
+        @Override
+        public Instant instant() {
+            return Instant.ofEpochMilli(millis);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+    }
+
+    private final ManualClock clock = new ManualClock();
+    private final BalanceTable balances = new BalanceTable();
+    private final List<String> mails = new ArrayList<>();
+    private final AtomicInteger lookups = new AtomicInteger();
+    private AlertService alerts;
+
+    @BeforeEach
+    void setUp() {
+        alerts = new AlertService(balances,
+                account -> {
+                    lookups.incrementAndGet();
+                    return new AlertService.Contact("Holder " + account, account.toLowerCase() + "@example.com");
+                },
+                (to, subject, body) -> mails.add(to + "|" + body),
+                60_000, clock);
+        balances.setListener(alerts);
+        balances.put("ACC1", 1_000_00, 500_00);
+        balances.put("ACC2", 1_000_00, 500_00);
+    }
+
+    @Test
+    void testOnlyCrossingsOpenADigest() {
+        balances.add("ACC1", -400_00);          // ₹600, still above
+        balances.add("ACC2", 200_00);
+        assertEquals(0, alerts.pendingCount());
+
+        balances.add("ACC1", -200_00);          // ₹400, crossed
+        balances.add("ACC1", -100_00);          // ₹300, already below: no new crossing
+        assertEquals(1, alerts.pendingCount());
+        assertEquals(0, lookups.get());         // nothing read on the mutation path
+
+        clock.millis += 59_999;
+        assertEquals(0, alerts.flush());
+        clock.millis += 1;
+        assertEquals(1, alerts.flush());
+        assertEquals(1, mails.size());
+        assertTrue(mails.get(0).startsWith("acc1@example.com|Dear Holder ACC1"));
+        assertTrue(mails.get(0).contains("₹300.0"));
+
+        // staying below sends nothing more
+        balances.add("ACC1", -50_00);
+        clock.millis += 120_000;
+        assertEquals(0, alerts.flush());
+        assertEquals(1, mails.size());
+    }
+
+    @Test
+    void testDipsInOneWindowAreCoalesced() {
+        for (int i = 0; i < 3; i++) {
+            balances.setBalance("ACC1", 400_00 - i * 10_00);   // below
+            clock.millis += 5_000;
+            balances.setBalance("ACC1", 600_00);               // recovered
+            clock.millis += 5_000;
+        }
+        balances.setBalance("ACC1", 100_00);
+        assertEquals(1, alerts.pendingCount());
+
+        clock.millis += 60_000;
+        assertEquals(1, alerts.flush());
+        assertEquals(1, mails.size());
+        assertTrue(mails.get(0).contains("4 times"));
+        assertTrue(mails.get(0).contains("reaching ₹100.0"));
+        assertEquals(0, alerts.pendingCount());
+    }
+
+    @Test
+    void testRecoveredAccountGetsNoMail() {
+        balances.add("ACC1", -600_00);
+        balances.add("ACC1", 600_00);
+        balances.add("ACC2", -600_00);
+        balances.remove("ACC2");
+
+        clock.millis += 60_000;
+        assertEquals(0, alerts.flush());
+        assertTrue(mails.isEmpty());
+        assertEquals(0, lookups.get());
+        assertEquals(0, alerts.pendingCount());
+    }
+}
@@ -0,0 +1,95 @@
+package com.banking.service;
+
+import com.bank.dao.ArchiveDAO;
+import com.bank.service.ArchiveService;
+import com.bank.service.ReconciliationService;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.sql.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ArchiveServiceTest {
+
+    @TempDir
+    Path dir;
+
+    private Connection live() throws SQLException {
+        return DriverManager.getConnection("jdbc:sqlite:" + dir.resolve("live.db"));
+    }
+
+    private Connection archive() throws SQLException {
+        return DriverManager.getConnection("jdbc:sqlite:" + dir.resolve("archive.db"));
+    }
+
+    @BeforeEach
+    void setup() throws Exception {
+        try (Connection conn = live(); Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE TABLE accounts (id INTEGER PRIMARY KEY AUTOINCREMENT, accountNumber TEXT UNIQUE, balance REAL)");
+            stmt.execute("""
+                CREATE TABLE transactions (id INTEGER PRIMARY KEY AUTOINCREMENT, accountNumber TEXT, type TEXT,
+                    amount REAL, targetAccount TEXT, timestamp DATETIME DEFAULT (datetime('now','localtime')))
+            """);
+            ArchiveDAO.createCarryTable(conn);
+
+            // ACC1: open 100 and withdraw 30 a year ago, deposit 5 today => 75; ACC2: open 50 a year ago
+            stmt.execute("INSERT INTO accounts(accountNumber, balance) VALUES ('ACC1', 75), ('ACC2', 50)");
+            stmt.execute("""
+                INSERT INTO transactions(accountNumber, type, amount, timestamp) VALUES
+                    ('ACC1', 'open', 100, datetime('now', 'localtime', '-400 days')),
+                    ('ACC2', 'open', 50, datetime('now', 'localtime', '-399 days')),
+                    ('ACC1', 'withdraw', 30, datetime('now', 'localtime', '-398 days'))
+            """);
+            stmt.execute("INSERT INTO transactions(accountNumber, type, amount) VALUES ('ACC1', 'deposit', 5)");
+        }
+        try (Connection conn = archive()) {
+            ArchiveDAO.createArchiveTables(conn);
+        }
+    }
+
+    private long count(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement(); ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM transactions")) {
+            return rs.next() ? rs.getLong(1) : 0;
+        }
+    }
+
+    @Test
+    void testMovesOnlyOldRowsInBatchesAndKeepsReconciliationClean() throws Exception {
+        ArchiveService service = new ArchiveService(this::live, this::archive, 90, 2, 0);
+
+        assertEquals(3, service.runOnce());
+        assertEquals(0, service.runOnce());
+
+        try (Connection l = live(); Connection a = archive()) {
+            assertEquals(1, count(l));
+            assertEquals(3, count(a));
+        }
+
+        ReconciliationService.Result result = new ReconciliationService(this::live, 1, 10).reconcile();
+        assertEquals(2, result.accounts());
+        assertTrue(result.discrepancies().isEmpty());
+    }
+
+    @Test
+    void testInterruptedMoveIsFinishedWithoutDoubleCarry() throws Exception {
+        // a previous run copied the rows but died before deleting them from the live table
+        try (Connection l = live(); Connection a = archive()) {
+            ArchiveDAO.insertArchived(a, ArchiveDAO.selectOlderThan(l, 90, 10));
+        }
+
+        assertEquals(3, new ArchiveService(this::live, this::archive, 90, 10, 0).runOnce());
+
+        try (Connection a = archive()) {
+            assertEquals(3, count(a));
+        }
+        try (Connection l = live(); Statement stmt = l.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT txCount, amount FROM archived_balances WHERE accountNumber = 'ACC1'")) {
+            assertTrue(rs.next());
+            assertEquals(2, rs.getLong(1));
+            assertEquals(7000, rs.getLong(2));
+        }
+        assertTrue(new ReconciliationService(this::live, 1, 10).reconcile().discrepancies().isEmpty());
+    }
+}
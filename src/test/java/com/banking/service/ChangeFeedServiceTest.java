@@ -0,0 +1,240 @@
+package com.banking.service;
+
+import com.bank.dao.ChangeFeedDAO;
+import com.bank.service.ChangeFeedService;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ChangeFeedServiceTest {
+
+    @TempDir
+    Path dir;
+
+    private Connection db() throws SQLException {
+        return DriverManager.getConnection("jdbc:sqlite:" + dir.resolve("bank.db"));
+    }
+
+    private final List<ChangeFeedService> services = new ArrayList<>();
+
+    private ChangeFeedService service() {
+        ChangeFeedService service = new ChangeFeedService(this::db, List.of(this::db), List.of(this::db), 10, 100, 0);
+        services.add(service);
+        return service;
+    }
+
+    // cancelled subscriptions stop asynchronously; let them finish with the database before it is deleted
+    @AfterEach
+    void awaitStopped() throws InterruptedException {
+        for (ChangeFeedService service : services) {
+            for (int i = 0; i < 500 && !service.activeConsumers().isEmpty(); i++) Thread.sleep(10);
+            assertEquals(Set.of(), service.activeConsumers());
+        }
+    }
+
+    // records what it is given and requests only when told to
+    static final class Recorder implements Flow.Subscriber<ChangeFeedDAO.Event> {
+        final BlockingQueue<ChangeFeedDAO.Event> events = new LinkedBlockingQueue<>();
+        final CompletableFuture<Throwable> error = new CompletableFuture<>();
+        Flow.Subscription subscription;
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+        }
+
+        @Override
+        public void onNext(ChangeFeedDAO.Event item) {
+            events.add(item);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            error.complete(throwable);
+        }
+
+        @Override
+        public void onComplete() {}
+
+        ChangeFeedDAO.Event take() throws InterruptedException {
+            ChangeFeedDAO.Event event = events.poll(5, TimeUnit.SECONDS);
+            assertNotNull(event, "no event delivered");
+            return event;
+        }
+    }
+
+    @BeforeEach
+    void setup() throws Exception {
+        try (Connection conn = db(); Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE TABLE accounts (id INTEGER PRIMARY KEY AUTOINCREMENT, accountNumber TEXT UNIQUE, balance REAL)");
+            stmt.execute("""
+                CREATE TABLE transactions (id INTEGER PRIMARY KEY AUTOINCREMENT, accountNumber TEXT, type TEXT,
+                    amount REAL, targetAccount TEXT, timestamp DATETIME DEFAULT (datetime('now','localtime')))
+            """);
+            ChangeFeedDAO.createTables(conn);
+            ChangeFeedDAO.createOffsetTable(conn);
+            ChangeFeedDAO.setCapture(conn, true);
+        }
+    }
+
+    private void deposit(String account, double amount) throws SQLException {
+        try (Connection conn = db(); Statement stmt = conn.createStatement()) {
+            conn.setAutoCommit(false);
+            stmt.execute("UPDATE accounts SET balance = balance + " + amount + " WHERE accountNumber = '" + account + "'");
+            stmt.execute("INSERT INTO transactions(accountNumber, type, amount) VALUES ('" + account + "', 'deposit', " + amount + ")");
+            conn.commit();
+        }
+    }
+
+    @Test
+    void testCommittedChangesArriveInOrderWithinTheRequestedDemand() throws Exception {
+        try (Connection conn = db(); Statement stmt = conn.createStatement()) {
+            stmt.execute("INSERT INTO accounts(accountNumber, balance) VALUES ('ACC1', 100)");
+            // rolled back: no event
+            conn.setAutoCommit(false);
+            stmt.execute("UPDATE accounts SET balance = 0 WHERE accountNumber = 'ACC1'");
+            conn.rollback();
+        }
+        deposit("ACC1", 50);
+
+        Recorder recorder = new Recorder();
+        service().publisher("audit").subscribe(recorder);
+        recorder.subscription.request(2);
+
+        ChangeFeedDAO.Event opened = recorder.take();
+        assertEquals(List.of("account", "insert", "ACC1"), List.of(opened.entity(), opened.op(), opened.accountNumber()));
+        ChangeFeedDAO.Event credited = recorder.take();
+        assertEquals("update", credited.op());
+        assertEquals(150.0, credited.balance());
+        assertTrue(credited.seq() > opened.seq());
+        // demand exhausted: the transaction event waits for the next request
+        assertNull(recorder.events.poll(200, TimeUnit.MILLISECONDS));
+
+        recorder.subscription.request(10);
+        ChangeFeedDAO.Event recorded = recorder.take();
+        assertEquals(List.of("transaction", "deposit"), List.of(recorded.entity(), recorded.type()));
+        assertEquals(50.0, recorded.amount());
+
+        // later commits are picked up by polling
+        deposit("ACC1", 5);
+        assertEquals(155.0, recorder.take().balance());
+        assertEquals(5.0, recorder.take().amount());
+        recorder.subscription.cancel();
+    }
+
+    @Test
+    void testConsumerResumesAfterItsSavedOffset() throws Exception {
+        try (Connection conn = db(); Statement stmt = conn.createStatement()) {
+            stmt.execute("INSERT INTO accounts(accountNumber, balance) VALUES ('ACC1', 0)");
+        }
+        for (int i = 1; i <= 3; i++) deposit("ACC1", i);    // 1 + 3 * 2 events
+
+        Recorder first = new Recorder();
+        service().publisher("ledger-sync").subscribe(first);
+        first.subscription.request(3);
+        long lastSeen = 0;
+        for (int i = 0; i < 3; i++) lastSeen = first.take().seq();
+
+        first.subscription.cancel();
+        awaitStopped();
+
+        // a new service, as after a restart, continues where the consumer stopped
+        Recorder resumed = new Recorder();
+        service().publisher("ledger-sync").subscribe(resumed);
+        resumed.subscription.request(Long.MAX_VALUE);
+        assertEquals(lastSeen + 1, resumed.take().seq());
+        for (int i = 0; i < 3; i++) resumed.take();
+        assertNull(resumed.events.poll(200, TimeUnit.MILLISECONDS));
+        resumed.subscription.cancel();
+
+        // one live subscription per consumer
+        ChangeFeedService service = service();
+        Recorder a = new Recorder(), b = new Recorder();
+        service.publisher("dup").subscribe(a);
+        service.publisher("dup").subscribe(b);
+        assertInstanceOf(IllegalStateException.class, b.error.get(5, TimeUnit.SECONDS));
+        a.subscription.cancel();
+    }
+
+    @Test
+    void testPruneKeepsWhatAnyConsumerHasNotSeenAndCaptureCanBeTurnedOff() throws Exception {
+        try (Connection conn = db(); Statement stmt = conn.createStatement()) {
+            stmt.execute("INSERT INTO accounts(accountNumber, balance) VALUES ('ACC1', 0)");
+        }
+        deposit("ACC1", 1);     // events 1..3
+
+        ChangeFeedService service = service();
+        Recorder fast = new Recorder(), slow = new Recorder();
+        service.publisher("fast").subscribe(fast);
+        service.publisher("slow").subscribe(slow);
+        fast.subscription.request(3);
+        slow.subscription.request(1);
+        for (int i = 0; i < 3; i++) fast.take();
+        slow.take();
+        Thread.sleep(100);
+
+        assertEquals(1, service.pruneConsumed());     // only what "slow" has passed too
+        try (Connection conn = db()) {
+            assertEquals(2, ChangeFeedDAO.readAfter(conn, 0, 0, 10).size());
+            ChangeFeedDAO.setCapture(conn, false);
+        }
+        deposit("ACC1", 1);
+        try (Connection conn = db()) {
+            assertEquals(2, ChangeFeedDAO.readAfter(conn, 0, 0, 10).size());
+        }
+
+        // a retired consumer stops holding the outbox back once it is unregistered
+        assertFalse(service.unregister("slow"));
+        slow.subscription.cancel();
+        for (int i = 0; i < 500 && service.activeConsumers().contains("slow"); i++) Thread.sleep(10);
+        assertTrue(service.unregister("slow"));
+        assertEquals(2, service.pruneConsumed());
+        fast.subscription.cancel();
+    }
+
+    @Test
+    void testLivePublisherStartsAtTheHeadAndSavesNoPosition() throws Exception {
+        try (Connection conn = db(); Statement stmt = conn.createStatement()) {
+            stmt.execute("INSERT INTO accounts(accountNumber, balance) VALUES ('ACC1', 0)");
+            // left behind by an earlier durable subscription under the same name
+            ChangeFeedDAO.saveOffset(conn, "live", 0, 1);
+        }
+        deposit("ACC1", 1);
+
+        ChangeFeedService service = service();
+        Recorder live = new Recorder();
+        service.livePublisher("live").subscribe(live);
+        live.subscription.request(Long.MAX_VALUE);
+        // nothing recorded before the subscription is replayed
+        assertNull(live.events.poll(200, TimeUnit.MILLISECONDS));
+
+        deposit("ACC1", 7);
+        assertEquals(8.0, live.take().balance());
+        assertEquals(7.0, live.take().amount());
+        live.subscription.cancel();
+
+        try (Connection conn = db()) {
+            assertEquals(-1, ChangeFeedDAO.minOffset(conn, 0));
+        }
+    }
+
+    @Test
+    void testNonPositiveRequestIsAnError() throws Exception {
+        Recorder recorder = new Recorder();
+        service().publisher("bad").subscribe(recorder);
+        recorder.subscription.request(0);
+        assertInstanceOf(IllegalArgumentException.class, recorder.error.get(5, TimeUnit.SECONDS));
+    }
+}
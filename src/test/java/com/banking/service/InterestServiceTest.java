@@ -0,0 +1,143 @@
+package com.banking.service;
+
+import com.bank.dao.AccrualDAO;
+import com.bank.dao.ArchiveDAO;
+import com.bank.dao.LedgerDAO;
+import com.bank.service.InterestService;
+import com.bank.service.ReconciliationService;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.sql.*;
+import java.time.LocalDate;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class InterestServiceTest {
+
+    private static final LocalDate DAY = LocalDate.of(2026, 3, 1);
+    // 3.5% a year; ₹5 a day below ₹1000
+    private static final InterestService.Policy POLICY = new InterestService.Policy(350, 1000_00, 5_00);
+
+    @TempDir
+    Path dir;
+
+    private Connection db() throws SQLException {
+        return DriverManager.getConnection("jdbc:sqlite:" + dir.resolve("bank.db"));
+    }
+
+    @BeforeEach
+    void setup() throws Exception {
+        try (Connection conn = db(); Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE TABLE accounts (id INTEGER PRIMARY KEY AUTOINCREMENT, accountNumber TEXT UNIQUE, balance REAL)");
+            stmt.execute("""
+                CREATE TABLE transactions (id INTEGER PRIMARY KEY AUTOINCREMENT, accountNumber TEXT, type TEXT,
+                    amount REAL, targetAccount TEXT, timestamp DATETIME DEFAULT (datetime('now','localtime')))
+            """);
+            ArchiveDAO.createCarryTable(conn);
+            LedgerDAO.createTables(conn);
+            AccrualDAO.createTables(conn);
+
+            // ₹1000: interest only; ₹500: interest and the fee; ₹0: nothing; ₹3: less than the fee, all of it taken
+            double[] balances = {1000, 500, 0, 3, 1000, 1000};
+            for (int i = 0; i < balances.length; i++) {
+                stmt.execute("INSERT INTO accounts(accountNumber, balance) VALUES ('ACC" + (i + 1) + "', " + balances[i] + ")");
+                stmt.execute("INSERT INTO transactions(accountNumber, type, amount) VALUES ('ACC" + (i + 1) + "', 'open', " + balances[i] + ")");
+            }
+        }
+    }
+
+    private double balance(String accountNumber) throws SQLException {
+        try (Connection conn = db(); PreparedStatement ps = conn.prepareStatement("SELECT balance FROM accounts WHERE accountNumber = ?")) {
+            ps.setString(1, accountNumber);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? rs.getDouble(1) : Double.NaN;
+            }
+        }
+    }
+
+    private long queryLong(String sql) throws SQLException {
+        try (Connection conn = db(); Statement stmt = conn.createStatement(); ResultSet rs = stmt.executeQuery(sql)) {
+            return rs.next() ? rs.getLong(1) : 0;
+        }
+    }
+
+    @Test
+    void testAccruesEachAccountOnceAndCarriesFractions() throws Exception {
+        InterestService service = new InterestService(this::db, POLICY, 3, 2);
+
+        InterestService.Summary summary = service.accrue(DAY, 3);
+        assertEquals(6, summary.accounts());
+        // 100000 × 350 / 3650000 = 9 paise (x3), 50000 × 350 / 3650000 = 4 paise
+        assertEquals(31, summary.interestPaise());
+        assertEquals(5_00 + 3_00, summary.feePaise());
+
+        assertEquals(1000.09, balance("ACC1"), 1e-9);
+        assertEquals(495.04, balance("ACC2"), 1e-9);
+        assertEquals(0.0, balance("ACC3"), 1e-9);
+        assertEquals(0.0, balance("ACC4"), 1e-9);
+        assertEquals(2_150_000, queryLong("SELECT carry FROM interest_carry WHERE accountNumber = 'ACC1'"));
+
+        // the same day again moves nothing
+        assertEquals(0, service.accrue(DAY, 3).accounts());
+        assertEquals(1000.09, balance("ACC1"), 1e-9);
+
+        // the carried remainder adds up: 100009 × 350 + 2150000 = 37153150 → 10 paise
+        service.accrue(DAY.plusDays(1), 3);
+        assertEquals(1000.19, balance("ACC1"), 1e-9);
+
+        assertEquals(0, queryLong("SELECT SUM(amount) FROM ledger_entries"));
+        // day two: 10 paise each for the three ₹1000.09 accounts, 5 for ACC2 (its remainder carried too)
+        assertEquals(-(31 + 35), queryLong("SELECT SUM(amount) FROM ledger_entries WHERE accountNumber = '" + LedgerDAO.INTEREST_ACCOUNT + "'"));
+        assertTrue(new ReconciliationService(this::db, 1, 10).reconcile().discrepancies().isEmpty());
+    }
+
+    @Test
+    void testFailedRunResumesFromCheckpoints() throws Exception {
+        // connections run out after the plan and the first two batches: the run dies part way
+        AtomicInteger left = new AtomicInteger(3);
+        InterestService failing = new InterestService(() -> {
+            if (left.getAndDecrement() <= 0) throw new SQLException("connection refused");
+            return db();
+        }, POLICY, 1, 2);
+        assertThrows(SQLException.class, () -> failing.accrue(DAY, 1));
+        assertEquals(4, queryLong("SELECT lastId FROM accrual_checkpoints WHERE partitionNo = 0"));
+        assertEquals(1000.09, balance("ACC1"), 1e-9);
+        assertEquals(1000.00, balance("ACC5"), 1e-9);
+
+        // a new run with another partition count keeps the stored plan and only does the rest
+        InterestService.Summary rest = new InterestService(this::db, POLICY, 4, 2).accrue(DAY, 2);
+        assertEquals(2, rest.accounts());
+        for (String accountNumber : new String[]{"ACC1", "ACC5", "ACC6"}) {
+            assertEquals(1000.09, balance(accountNumber), 1e-9);
+        }
+        assertEquals(2, queryLong("SELECT COUNT(*) FROM transactions WHERE type = 'fee'"));
+        assertEquals(4, queryLong("SELECT COUNT(*) FROM transactions WHERE type = 'interest'"));
+        assertTrue(new ReconciliationService(this::db, 1, 10).reconcile().discrepancies().isEmpty());
+    }
+
+    @Test
+    void testCatchUpAccruesEveryDayMissedSinceTheLastCompletedOne() throws Exception {
+        InterestService service = new InterestService(this::db, POLICY, 2, 2);
+        // never run before: only the day asked for
+        assertEquals(6, service.catchUp(DAY, 1).accounts());
+        assertEquals(DAY, lastCompletedDay());
+
+        InterestService.Summary missed = service.catchUp(DAY.plusDays(3), 1);
+        assertEquals(3 * 6, missed.accounts());
+        assertEquals(DAY.plusDays(3), lastCompletedDay());
+        assertEquals(4, queryLong("SELECT COUNT(DISTINCT day) FROM accrual_checkpoints"));
+        assertEquals(4 * 4, queryLong("SELECT COUNT(*) FROM transactions WHERE type = 'interest'"));
+
+        // already current: nothing to do
+        assertEquals(0, service.catchUp(DAY.plusDays(3), 1).accounts());
+    }
+
+    private LocalDate lastCompletedDay() throws SQLException {
+        try (Connection conn = db()) {
+            return AccrualDAO.lastCompletedDay(conn);
+        }
+    }
+}
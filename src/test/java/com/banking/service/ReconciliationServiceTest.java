@@ -0,0 +1,54 @@
+package com.banking.service;
+
+import com.bank.service.ReconciliationService;
+import org.junit.jupiter.api.*;
+
+import java.sql.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ReconciliationServiceTest {
+
+    private static final String URL = "jdbc:sqlite:file:recon_test?mode=memory&cache=shared";
+    private Connection keepAlive;
+
+    @BeforeEach
+    void setup() throws Exception {
+        keepAlive = DriverManager.getConnection(URL);
+        try (Statement stmt = keepAlive.createStatement()) {
+            stmt.execute("DROP TABLE IF EXISTS transactions");
+            stmt.execute("DROP TABLE IF EXISTS accounts");
+            stmt.execute("DROP TABLE IF EXISTS archived_balances");
+            stmt.execute("CREATE TABLE accounts (id INTEGER PRIMARY KEY AUTOINCREMENT, accountNumber TEXT UNIQUE, balance REAL)");
+            stmt.execute("CREATE TABLE transactions (id INTEGER PRIMARY KEY AUTOINCREMENT, accountNumber TEXT, type TEXT, amount REAL, targetAccount TEXT)");
+            stmt.execute("CREATE INDEX idx_transactions_account ON transactions(accountNumber)");
+            stmt.execute("CREATE TABLE archived_balances (accountNumber TEXT PRIMARY KEY, txCount INTEGER, amount INTEGER)");
+
+            for (int i = 1; i <= 40; i++) {
+                // every account: open 100, deposit 50, withdraw 20 => 130
+                double balance = (i == 7 || i == 33) ? 999 : 130;
+                stmt.execute("INSERT INTO accounts(accountNumber, balance) VALUES ('ACC" + i + "', " + balance + ")");
+                stmt.execute("INSERT INTO transactions(accountNumber, type, amount) VALUES ('ACC" + i + "', 'open', 100)");
+                stmt.execute("INSERT INTO transactions(accountNumber, type, amount) VALUES ('ACC" + i + "', 'deposit', 50)");
+                stmt.execute("INSERT INTO transactions(accountNumber, type, amount) VALUES ('ACC" + i + "', 'withdraw', 20)");
+            }
+        }
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        keepAlive.close();
+    }
+
+    @Test
+    void testFindsOnlyMismatchedAccounts() throws Exception {
+        ReconciliationService service = new ReconciliationService(() -> DriverManager.getConnection(URL), 4, 5);
+        ReconciliationService.Result result = service.reconcile();
+
+        assertEquals(40, result.accounts());
+        assertEquals(120, result.rows());
+        assertEquals(8, result.partitions().size());
+        assertEquals(2, result.discrepancies().size());
+        assertTrue(result.discrepancies().stream().allMatch(d -> d.computedPaise() == 13000));
+    }
+}
@@ -0,0 +1,189 @@
+package com.banking.service;
+
+import com.bank.dao.ScheduleDAO;
+import com.bank.service.ScheduleService;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.sql.*;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ScheduleServiceTest {
+
+    private static final long MINUTE = 60_000, DAY = 86_400_000;
+
+    // test clock moved by hand
+    static final class ManualClock extends Clock {
+        long millis = LocalDateTime.of(2026, 3, 1, 9, 0).toInstant(ZoneOffset.UTC).toEpochMilli();
+
+        @Override
+        public long millis() {
+            return millis;
+        }
+
+        @Override
+        public Instant instant() {
+            return Instant.ofEpochMilli(millis);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+    }
+
+    @TempDir
+    Path dir;
+
+    private final ManualClock clock = new ManualClock();
+    private final List<String> paid = new CopyOnWriteArrayList<>();
+    private final Set<String> broke = ConcurrentHashMap.newKeySet();
+    private ScheduleService service;
+
+    private Connection db() throws SQLException {
+        return DriverManager.getConnection("jdbc:sqlite:" + dir.resolve("main.db"));
+    }
+
+    @BeforeEach
+    void setup() throws Exception {
+        try (Connection conn = db()) {
+            ScheduleDAO.createTables(conn);
+        }
+        service = new ScheduleService(this::db, (from, to, amount) -> {
+            if (broke.contains(from)) return false;
+            paid.add(from + ">" + to + ":" + amount);
+            return true;
+        }, clock, 15 * MINUTE, 2, 2);
+    }
+
+    @AfterEach
+    void teardown() {
+        service.shutdown();
+    }
+
+    private LocalDateTime at(long offsetMillis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(clock.millis + offsetMillis), ZoneOffset.UTC);
+    }
+
+    private ScheduleDAO.Scheduled stored(String fromAccount) throws SQLException {
+        try (Connection conn = db()) {
+            return ScheduleDAO.findByAccount(conn, fromAccount).get(0);
+        }
+    }
+
+    @Test
+    void testOneOffRunsOnceWhenDue() throws Exception {
+        service.tick();
+        long id = service.schedule("ACC1", "ACC2", 250.0, at(5 * MINUTE), 0, 0);
+        assertEquals(1, service.queued());
+
+        assertEquals(0, service.tick());
+        clock.millis += 5 * MINUTE;
+        assertEquals(1, service.tick());
+        assertEquals(0, service.tick());
+        assertEquals(List.of("ACC1>ACC2:250.0"), paid);
+        assertEquals("done", stored("ACC1").status());
+        assertEquals(id, stored("ACC1").id());
+    }
+
+    @Test
+    void testRecurringRunsInBatchesAndSkipsMissedRuns() throws Exception {
+        for (int i = 1; i <= 5; i++) {
+            service.schedule("ACC" + i, "ACC9", 10.0 * i, at(0), 1, 3);
+        }
+        assertEquals(5, service.tick());                     // batches of 2, 2 and 1
+        assertEquals(5, paid.size());
+        assertEquals(clock.millis + DAY, stored("ACC1").nextRun());
+        assertEquals(2, stored("ACC1").remaining());
+
+        // down for ten days: one run on return, then back on the daily rhythm
+        broke.add("ACC2");
+        clock.millis += 10 * DAY + MINUTE;
+        assertEquals(5, service.tick());
+        assertEquals(9, paid.size());
+        ScheduleDAO.Scheduled acc1 = stored("ACC1");
+        assertEquals(1, acc1.remaining());
+        assertTrue(acc1.nextRun() > clock.millis && acc1.nextRun() <= clock.millis + DAY);
+        ScheduleDAO.Scheduled acc2 = stored("ACC2");
+        assertEquals("active", acc2.status());              // a recurring order survives a refused run
+        assertEquals(1, acc2.failures());
+
+        clock.millis += DAY;
+        assertEquals(5, service.tick());
+        assertEquals("done", stored("ACC1").status());
+        assertEquals(0, service.tick());
+    }
+
+    @Test
+    void testOnlyTheNextWindowIsHeldInMemory() throws Exception {
+        service.tick();
+        // written by another process or before this one started: found by the window query, not by schedule()
+        try (Connection conn = db()) {
+            ScheduleDAO.insert(conn, "ACC1", "ACC2", 1.0, clock.millis + 2 * DAY, 0, 0);
+            ScheduleDAO.insert(conn, "ACC3", "ACC2", 1.0, clock.millis + 20 * MINUTE, 0, 0);
+        }
+        assertEquals(0, service.queued());
+
+        clock.millis += 10 * MINUTE;
+        service.tick();
+        assertEquals(1, service.queued());                   // ACC3 is inside the new window, ACC1 is not
+
+        clock.millis += 10 * MINUTE;
+        assertEquals(1, service.tick());
+        assertEquals(List.of("ACC3>ACC2:1.0"), paid);
+
+        long far = service.schedule("ACC4", "ACC2", 1.0, at(DAY), 0, 0);
+        assertEquals(0, service.queued());
+        assertTrue(service.cancel(far, "ACC4"));
+        assertFalse(service.cancel(far, "ACC4"));
+        assertEquals("cancelled", stored("ACC4").status());
+    }
+
+    @Test
+    void testCancelledScheduleIsDroppedFromTheQueue() throws Exception {
+        service.tick();
+        long id = service.schedule("ACC1", "ACC2", 5.0, at(MINUTE), 1, 0);
+        service.schedule("ACC3", "ACC2", 5.0, at(MINUTE), 0, 0);
+        assertFalse(service.cancel(id, "ACC3"));           // only the payer can cancel
+        assertTrue(service.cancel(id, "ACC1"));
+        service.cancelAll("ACC3");
+
+        clock.millis += MINUTE;
+        assertEquals(0, service.tick());
+        assertTrue(paid.isEmpty());
+        assertEquals("cancelled", stored("ACC3").status());
+    }
+
+    @Test
+    void testScheduleCancelledAfterItWasQueuedIsNotPaid() throws Exception {
+        service.tick();
+        service.schedule("ACC1", "ACC2", 5.0, at(MINUTE), 0, 0);
+        service.schedule("ACC3", "ACC2", 7.0, at(MINUTE), 0, 0);
+        // cancelled by another process: the queued copy still says active
+        try (Connection conn = db(); Statement stmt = conn.createStatement()) {
+            stmt.executeUpdate("UPDATE scheduled_transfers SET status = 'cancelled' WHERE fromAccount = 'ACC1'");
+        }
+        assertEquals(2, service.queued());
+
+        clock.millis += MINUTE;
+        assertEquals(1, service.tick());
+        assertEquals(List.of("ACC3>ACC2:7.0"), paid);
+        assertEquals("cancelled", stored("ACC1").status());
+    }
+}
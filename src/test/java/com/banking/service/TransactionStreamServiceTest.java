@@ -0,0 +1,100 @@
+package com.banking.service;
+
+import com.bank.app.StreamServer;
+import com.bank.dao.ChangeFeedDAO;
+import com.bank.service.TransactionStreamService;
+import org.junit.jupiter.api.*;
+
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TransactionStreamServiceTest {
+
+    private static long seq;
+
+    private static ChangeFeedDAO.Event transaction(String account, String type, double amount, String target) {
+        seq++;
+        return new ChangeFeedDAO.Event(0, seq, "transaction", "insert", account, seq, null, type, amount, target, "2026-01-01 10:00:00");
+    }
+
+    @Test
+    void testTransactionsFanOutToEveryListenerOfTheAccountsTheyTouch() throws Exception {
+        TransactionStreamService streams = new TransactionStreamService(8);
+        TransactionStreamService.Listener a1 = streams.subscribe("ACC1");
+        TransactionStreamService.Listener a2 = streams.subscribe("ACC1");
+        TransactionStreamService.Listener b = streams.subscribe("ACC2");
+
+        streams.publish(transaction("ACC1", "deposit", 50, null));
+        streams.publish(new ChangeFeedDAO.Event(0, 99, "account", "update", "ACC1", 1, 50.0, null, null, null, null));
+        streams.publish(transaction("ACC1", "transfer", 20, "ACC2"));
+
+        for (TransactionStreamService.Listener listener : new TransactionStreamService.Listener[]{a1, a2}) {
+            assertEquals("deposit", listener.poll(1, TimeUnit.SECONDS).type());
+            assertEquals("transfer", listener.poll(1, TimeUnit.SECONDS).type());
+            assertNull(listener.poll(10, TimeUnit.MILLISECONDS));
+        }
+        // the target of a transfer sees it too
+        assertEquals(20.0, b.poll(1, TimeUnit.SECONDS).amount());
+
+        streams.unsubscribe(a1);
+        streams.unsubscribe(a2);
+        assertEquals(0, streams.listenerCount("ACC1"));
+    }
+
+    @Test
+    void testSlowListenerIsEvictedWithoutHoldingUpOthers() throws Exception {
+        TransactionStreamService streams = new TransactionStreamService(2);
+        TransactionStreamService.Listener slow = streams.subscribe("ACC1");
+        TransactionStreamService.Listener fast = streams.subscribe("ACC1");
+
+        for (int i = 0; i < 3; i++) {
+            streams.publish(transaction("ACC1", "deposit", i, null));
+            assertEquals((double) i, fast.poll(1, TimeUnit.SECONDS).amount());
+        }
+
+        assertTrue(slow.isEvicted());
+        assertNull(slow.poll(10, TimeUnit.MILLISECONDS));
+        assertFalse(fast.isEvicted());
+        assertEquals(1, streams.listenerCount("ACC1"));
+    }
+
+    @Test
+    void testServerStreamsEventsAndRefusesClientsBeyondItsLimit() throws Exception {
+        TransactionStreamService streams = new TransactionStreamService(8);
+        StreamServer server = new StreamServer(streams, new InetSocketAddress("127.0.0.1", 0), 1, 60_000);
+        server.start();
+        try {
+            HttpClient client = HttpClient.newHttpClient();
+            URI uri = URI.create("http://127.0.0.1:" + server.port() + "/accounts/ACC1/transactions/stream");
+            HttpResponse<Stream<String>> response = client.send(HttpRequest.newBuilder(uri).build(), HttpResponse.BodyHandlers.ofLines());
+            assertEquals(200, response.statusCode());
+            assertEquals("text/event-stream; charset=utf-8", response.headers().firstValue("Content-Type").orElse(""));
+
+            Iterator<String> lines = response.body().iterator();
+            assertEquals(": streaming ACC1", lines.next());
+            assertEquals("", lines.next());
+
+            streams.publish(transaction("ACC1", "withdraw", 12.5, null));
+            assertTrue(lines.next().startsWith("id: 0-"));
+            assertEquals("event: transaction", lines.next());
+            String data = lines.next();
+            assertTrue(data.contains("\"accountNumber\":\"ACC1\"") && data.contains("\"type\":\"withdraw\"")
+                    && data.contains("\"amount\":12.5") && data.contains("\"targetAccount\":null"), data);
+
+            assertEquals(503, client.send(HttpRequest.newBuilder(uri).build(), HttpResponse.BodyHandlers.discarding()).statusCode());
+            URI unknown = URI.create("http://127.0.0.1:" + server.port() + "/accounts/ACC1/other");
+            assertEquals(404, client.send(HttpRequest.newBuilder(unknown).build(), HttpResponse.BodyHandlers.discarding()).statusCode());
+            response.body().close();
+        } finally {
+            server.stop();
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.banking.tools;
+
+import com.bank.tools.EventQueue;
+import com.bank.tools.Simulation;
+import com.bank.tools.Simulation.Behaviour;
+import com.bank.util.VirtualClock;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SimulationTest {
+
+    // records what the engine asked for, refusing withdrawals that would overdraw
+    static final class Ledger implements Simulation.Operations {
+        final Map<String, AtomicLong> balances = new ConcurrentHashMap<>();
+        final List<Long> seenAt = new CopyOnWriteArrayList<>();
+        final VirtualClock clock;
+
+        Ledger(VirtualClock clock) {
+            this.clock = clock;
+        }
+
+        private AtomicLong of(String account) {
+            return balances.computeIfAbsent(account, a -> new AtomicLong());
+        }
+
+        @Override
+        public boolean deposit(String account, double amount) {
+            seenAt.add(clock.millis());
+            of(account).addAndGet(Math.round(amount * 100));
+            return true;
+        }
+
+        @Override
+        public boolean withdraw(String account, double amount) {
+            seenAt.add(clock.millis());
+            long paise = Math.round(amount * 100);
+            return of(account).getAndUpdate(b -> b >= paise ? b - paise : b) >= paise;
+        }
+
+        @Override
+        public boolean transfer(String from, String to, double amount) {
+            if (!withdraw(from, amount)) return false;
+            of(to).addAndGet(Math.round(amount * 100));
+            return true;
+        }
+    }
+
+    private static Simulation.Config config() {
+        Simulation.Config config = new Simulation.Config();
+        config.months = 2;
+        config.start = LocalDate.of(2026, 1, 1);
+        config.zone = ZoneOffset.UTC;
+        config.threads = 3;
+        return config;
+    }
+
+    private static List<String> accounts(int n) {
+        List<String> accounts = new ArrayList<>();
+        for (int i = 0; i < n; i++) accounts.add("ACC" + i);
+        return accounts;
+    }
+
+    @Test
+    void testEventQueuePopsInTimeThenPayloadOrder() {
+        EventQueue queue = new EventQueue(4);
+        Random random = new Random(7);
+        List<long[]> pushed = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            long time = random.nextInt(100);
+            queue.push(time, i);
+            pushed.add(new long[]{time, i});
+        }
+        pushed.sort((a, b) -> a[0] != b[0] ? Long.compare(a[0], b[0]) : Long.compare(a[1], b[1]));
+        for (long[] expected : pushed) {
+            assertEquals(expected[0], queue.peekTime());
+            assertEquals(expected[1], queue.pop());
+        }
+        assertTrue(queue.isEmpty());
+        assertEquals(Long.MAX_VALUE, queue.peekTime());
+    }
+
+    @Test
+    void testMonthlyEventsHappenOncePerMonthInVirtualTime() throws Exception {
+        Simulation.Config config = config();
+        long start = config.start.atStartOfDay(config.zone).toInstant().toEpochMilli();
+        long end = config.start.plusMonths(2).atStartOfDay(config.zone).toInstant().toEpochMilli();
+        VirtualClock clock = new VirtualClock(start, config.zone);
+        Ledger ledger = new Ledger(clock);
+        List<LocalDate> days = new ArrayList<>();
+
+        Simulation.Stats stats = new Simulation(config, ledger, clock, accounts(50)).run(days::add);
+
+        assertEquals(100, stats.count(Behaviour.SALARY));
+        assertEquals(100, stats.count(Behaviour.RENT));
+        assertEquals(100, stats.count(Behaviour.UTILITIES));
+        assertEquals(100, stats.count(Behaviour.PHONE));
+        assertEquals(0, stats.refused(Behaviour.SALARY));
+        assertTrue(stats.count(Behaviour.SPEND) > 0 && stats.count(Behaviour.TRANSFER) > 0);
+        assertEquals(59, days.size());                         // Jan 1 .. Feb 28, each reported once
+        assertEquals(LocalDate.of(2026, 2, 28), days.get(58));
+        // every operation saw the time of its own event, inside the simulated period
+        assertTrue(ledger.seenAt.stream().allMatch(t -> t >= start && t < end));
+        assertEquals(end, clock.millis());
+    }
+
+    @Test
+    void testSameSeedGivesSameEventsWhateverTheWorkerCount() throws Exception {
+        Simulation.Config config = config();
+        long[] first = null;
+        for (int threads : new int[]{1, 4}) {
+            config.threads = threads;
+            VirtualClock clock = new VirtualClock(0, config.zone);
+            Simulation.Stats stats = new Simulation(config, new Ledger(clock), clock, accounts(40)).run(null);
+            long[] counts = new long[Behaviour.values().length];
+            for (Behaviour b : Behaviour.values()) counts[b.ordinal()] = stats.count(b);
+            if (first == null) first = counts;
+            else assertArrayEquals(first, counts);
+            assertEquals(Arrays.stream(counts).sum(), stats.events());
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.banking.tools;
+
+import com.bank.tools.ZipfSampler;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ZipfSamplerTest {
+
+    @Test
+    void testSkewTowardsLowRanks() {
+        ZipfSampler sampler = new ZipfSampler(1000, 1.1);
+        int[] hits = new int[sampler.size()];
+        for (int i = 0; i < 200_000; i++) {
+            int rank = sampler.next();
+            assertTrue(rank >= 0 && rank < sampler.size());
+            hits[rank]++;
+        }
+
+        // 1/(k+1)^s: rank 0 is drawn about 2^1.1 ≈ 2.1 times as often as rank 1
+        assertTrue(hits[0] > hits[1] * 1.8 && hits[0] < hits[1] * 2.5);
+        assertTrue(hits[0] > hits[999] * 100);
+    }
+
+    @Test
+    void testUniformWhenExponentIsZero() {
+        ZipfSampler sampler = new ZipfSampler(4, 0);
+        int[] hits = new int[4];
+        for (int i = 0; i < 40_000; i++) hits[sampler.next()]++;
+        for (int h : hits) assertEquals(10_000, h, 600);
+    }
+}